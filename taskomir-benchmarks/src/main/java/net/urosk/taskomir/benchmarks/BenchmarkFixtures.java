@@ -0,0 +1,69 @@
+package net.urosk.taskomir.benchmarks;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.metrics.SchedulerStats;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.service.ScheduledTaskChecker;
+import net.urosk.taskomir.core.service.TaskLifecycleService;
+import net.urosk.taskomir.core.service.TaskResultService;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sestavi Taskomir servise brez Spring konteksta in brez MongoDB.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static StaticMessageSource messageSource() {
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.setUseCodeAsDefaultMessage(true);
+        return messageSource;
+    }
+
+    static TaskLifecycleService lifecycleService(CountingTaskStore store, ThreadPoolExecutor executor) {
+        return lifecycleService(store, executor, new TaskomirProperties(), null);
+    }
+
+    /**
+     * Lifecycle servis s privzetimi opcijskimi sodelavci; {@code resultService} je lahko null.
+     */
+    public static TaskLifecycleService lifecycleService(CountingTaskStore store, ThreadPoolExecutor executor,
+                                                        TaskomirProperties properties, TaskResultService resultService) {
+        return new TaskLifecycleService(store.store(), executor, messageSource(), new StaticApplicationContext(),
+                TaskomirMetrics.NOOP, null, null, resultService, null, null, properties);
+    }
+
+    static ScheduledTaskChecker scheduledTaskChecker(CountingTaskStore store, TaskLifecycleService lifecycleService) {
+        return new ScheduledTaskChecker(store.store(), lifecycleService, new TaskomirProperties(), TaskomirMetrics.NOOP, new SchedulerStats());
+    }
+
+    /**
+     * Executor, ki oddane naloge samo prešteje in zavrže. Tako merimo le pot do oddaje (persistenca + submit),
+     * ne pa tudi izvajanja same naloge.
+     */
+    static final class DiscardingExecutor extends ThreadPoolExecutor {
+
+        private final AtomicLong submitted = new AtomicLong();
+
+        DiscardingExecutor() {
+            super(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            submitted.incrementAndGet();
+        }
+
+        long submitted() {
+            return submitted.get();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package net.urosk.taskomir.benchmarks;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.service.ScheduledTaskChecker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScheduledTaskChecker#cleanupOldTasks()} nad veliko množico nalog.
+ *
+ * Half of the tasks are old SUCCEEDED ones (soft-deleted by the pass), the other half old DELETED ones
+ * (physically removed). The data set is rebuilt before every invocation, so this is a single-shot measurement.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CleanupBenchmark {
+
+    @Param({"10000", "100000"})
+    public int tasks;
+
+    private CountingTaskStore store;
+    private ScheduledTaskChecker checker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new CountingTaskStore();
+        checker = BenchmarkFixtures.scheduledTaskChecker(store, BenchmarkFixtures.lifecycleService(store, new BenchmarkFixtures.DiscardingExecutor()));
+    }
+
+    @Setup(Level.Invocation)
+    public void populate() {
+        store.clear();
+        long longAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+        for (int i = 0; i < tasks; i++) {
+            TaskInfo task = new TaskInfo(UUID.randomUUID().toString(), "Cleanup " + i);
+            if (i % 2 == 0) {
+                task.setStatus(TaskStatus.SUCCEEDED);
+                task.setEndedAt(longAgo);
+            } else {
+                task.setStatus(TaskStatus.DELETED);
+                task.setDeletedAt(longAgo);
+            }
+            store.delegate().save(task);
+        }
+    }
+
+    @Benchmark
+    public void cleanupOldTasks() {
+        checker.cleanupOldTasks();
+    }
+}
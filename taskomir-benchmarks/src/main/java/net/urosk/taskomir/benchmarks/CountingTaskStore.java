@@ -0,0 +1,64 @@
+package net.urosk.taskomir.benchmarks;
+
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link InMemoryTaskStore}, ki šteje klice prek {@link TaskStore} vmesnika.
+ *
+ * Benchmarks run offline on the in-memory backend; the call count tells how many storage round trips
+ * a code path would need against a real database.
+ */
+public final class CountingTaskStore {
+
+    private final InMemoryTaskStore delegate = new InMemoryTaskStore();
+    private final AtomicLong operations = new AtomicLong();
+    private final TaskStore proxy;
+
+    public CountingTaskStore() {
+        this.proxy = (TaskStore) Proxy.newProxyInstance(
+                TaskStore.class.getClassLoader(),
+                new Class<?>[]{TaskStore.class},
+                (p, method, args) -> {
+                    if (method.getDeclaringClass() != Object.class) {
+                        operations.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Shramba za servise; vsak klic se prešteje.
+     */
+    public TaskStore store() {
+        return proxy;
+    }
+
+    /**
+     * Neposreden dostop za pripravo podatkov, brez štetja.
+     */
+    public InMemoryTaskStore delegate() {
+        return delegate;
+    }
+
+    public long operationCount() {
+        return operations.get();
+    }
+
+    public void resetOperationCount() {
+        operations.set(0);
+    }
+
+    public void clear() {
+        delegate.deleteAll();
+        operations.set(0);
+    }
+}
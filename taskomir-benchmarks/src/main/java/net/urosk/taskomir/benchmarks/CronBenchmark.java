@@ -0,0 +1,46 @@
+package net.urosk.taskomir.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cena razčlenjevanja cron izraza in izračuna naslednjega termina, kot ju checkScheduledTasks plača za vsak master.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CronBenchmark {
+
+    @Param({"0 0 12 * * ?", "0 */15 * * * ?", "0 0 3 ? * SUN", "0 0 0 1 1 ?"})
+    public String expression;
+
+    private CronExpression parsed;
+    private LocalDateTime from;
+
+    @Setup
+    public void setUp() {
+        parsed = CronExpression.parse(expression);
+        from = LocalDateTime.of(2025, 3, 1, 10, 30);
+    }
+
+    @Benchmark
+    public CronExpression parse() {
+        return CronExpression.parse(expression);
+    }
+
+    @Benchmark
+    public LocalDateTime next() {
+        return parsed.next(from);
+    }
+
+    @Benchmark
+    public LocalDateTime parseAndNext() {
+        return CronExpression.parse(expression).next(from);
+    }
+}
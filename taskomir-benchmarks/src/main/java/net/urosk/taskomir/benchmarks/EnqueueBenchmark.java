@@ -0,0 +1,48 @@
+package net.urosk.taskomir.benchmarks;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.service.TaskLifecycleService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latenca {@link TaskLifecycleService#enqueue(String, ProgressTask)}: zapis nove naloge in oddaja executorju.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnqueueBenchmark {
+
+    private static final ProgressTask NO_OP = progress -> {
+    };
+
+    private CountingTaskStore store;
+    private TaskLifecycleService lifecycleService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new CountingTaskStore();
+        lifecycleService = BenchmarkFixtures.lifecycleService(store, new BenchmarkFixtures.DiscardingExecutor());
+    }
+
+    /**
+     * Zavrženi Runnable-i se nikoli ne zaključijo, zato runningTasks in shramba rasteta; počistimo ju.
+     */
+    @TearDown(Level.Iteration)
+    public void clear() {
+        lifecycleService.getRunningTasks().clear();
+        store.clear();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public CompletableFuture<TaskInfo> enqueue() {
+        return lifecycleService.enqueue("EnqueueBenchmark", NO_OP);
+    }
+}
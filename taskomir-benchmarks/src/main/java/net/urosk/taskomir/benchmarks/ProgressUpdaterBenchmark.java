@@ -0,0 +1,53 @@
+package net.urosk.taskomir.benchmarks;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ProgressUpdater;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.service.TaskLifecycleService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepustnost {@link ProgressUpdater#update(double, String)}: vsak klic je en zapis stanja naloge.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProgressUpdaterBenchmark {
+
+    private CountingTaskStore store;
+    private TaskInfo taskInfo;
+    private ProgressUpdater updater;
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new CountingTaskStore();
+        TaskLifecycleService lifecycleService = BenchmarkFixtures.lifecycleService(store, new BenchmarkFixtures.DiscardingExecutor());
+        taskInfo = new TaskInfo("progress-bench", "ProgressBenchmark");
+        taskInfo.setStatus(TaskStatus.PROCESSING);
+        store.delegate().save(taskInfo);
+        updater = new ProgressUpdater(taskInfo, lifecycleService);
+    }
+
+    /**
+     * updateTask dodaja vrstice v log shranjene naloge; brez čiščenja bi med meritvijo rasel pomnilnik.
+     * Shramba vrača kopije, zato se log počisti s ponovnim shranjevanjem naloge.
+     */
+    @Setup(Level.Iteration)
+    public void resetLog() {
+        TaskInfo stored = store.delegate().findById(taskInfo.getId()).orElseThrow();
+        stored.setLogLines(null);
+        store.delegate().save(stored);
+    }
+
+    @Benchmark
+    public void update() {
+        step = (step + 1) % 101;
+        updater.update(step / 100.0, "Step " + step);
+    }
+}
@@ -0,0 +1,51 @@
+package net.urosk.taskomir.benchmarks;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.service.ScheduledTaskChecker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * En prehod {@link ScheduledTaskChecker#checkScheduledTasks()} nad 10k oziroma 100k master nalogami.
+ *
+ * None of the masters is due, so the benchmark measures the evaluation cost of the pass itself:
+ * loading the masters, parsing every cron expression and computing the next fire time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduledTaskCheckBenchmark {
+
+    private static final String[] CRONS = {"0 0 0 1 1 ?", "0 0 12 * * MON-FRI", "0 */15 * * * ?", "0 0 3 ? * SUN"};
+
+    @Param({"10000", "100000"})
+    public int masters;
+
+    private ScheduledTaskChecker checker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CountingTaskStore store = new CountingTaskStore();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < masters; i++) {
+            TaskInfo master = new TaskInfo(UUID.randomUUID().toString(), "Master " + i);
+            master.setStatus(TaskStatus.SCHEDULED);
+            master.setCronExpression(CRONS[i % CRONS.length]);
+            // Zadnji zagon čez en dan => naslednji termin je gotovo v prihodnosti, nič se ne sproži
+            master.setLastRunTime(now + TimeUnit.DAYS.toMillis(1));
+            store.delegate().save(master);
+        }
+        checker = BenchmarkFixtures.scheduledTaskChecker(store, BenchmarkFixtures.lifecycleService(store, new BenchmarkFixtures.DiscardingExecutor()));
+    }
+
+    @Benchmark
+    public void checkScheduledTasks() {
+        checker.checkScheduledTasks();
+    }
+}
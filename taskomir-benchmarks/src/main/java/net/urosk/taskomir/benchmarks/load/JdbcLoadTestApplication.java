@@ -0,0 +1,98 @@
+package net.urosk.taskomir.benchmarks.load;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spring Boot aplikacija za load test nad JDBC shrambo (mode=jdbc). MongoDB auto-konfiguracija je izklopljena.
+ * Every statement the Taskomir stores prepare is counted by its SQL verb.
+ */
+@SpringBootApplication(scanBasePackages = "net.urosk.taskomir.core",
+        exclude = {MongoAutoConfiguration.class, MongoDataAutoConfiguration.class, MongoRepositoriesAutoConfiguration.class})
+public class JdbcLoadTestApplication {
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor countingDataSourcePostProcessor(ObjectProvider<StatementCounter> counter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return counter.getObject().wrap(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Šteje pripravljene SQL stavke po prvi besedi (select, insert, update, merge, delete).
+     */
+    public static class StatementCounter {
+
+        private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+        DataSource wrap(DataSource dataSource) {
+            return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                    (p, method, args) -> {
+                        Object result = invoke(dataSource, method, args);
+                        return result instanceof Connection connection ? wrap(connection) : result;
+                    });
+        }
+
+        private Connection wrap(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (p, method, args) -> {
+                        if (method.getName().equals("prepareStatement") && args != null && args[0] instanceof String sql) {
+                            record(sql);
+                        }
+                        return invoke(connection, method, args);
+                    });
+        }
+
+        private void record(String sql) {
+            String trimmed = sql.stripLeading();
+            int space = trimmed.indexOf(' ');
+            String verb = (space > 0 ? trimmed.substring(0, space) : trimmed).toLowerCase(Locale.ROOT);
+            counts.computeIfAbsent(verb, k -> new LongAdder()).increment();
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        public Map<String, Long> snapshot() {
+            Map<String, Long> result = new TreeMap<>();
+            counts.forEach((verb, count) -> result.put(verb, count.sum()));
+            return result;
+        }
+
+        public void reset() {
+            counts.clear();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package net.urosk.taskomir.benchmarks.load;
+
+import java.util.Arrays;
+
+/**
+ * Preprost zbiralnik latenc (v mikrosekundah) za izračun percentilov po koncu testa.
+ */
+class LatencyRecorder {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    synchronized void record(long micros) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = micros;
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    /**
+     * @param percentile med 0 in 100
+     */
+    synchronized long percentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))];
+    }
+}
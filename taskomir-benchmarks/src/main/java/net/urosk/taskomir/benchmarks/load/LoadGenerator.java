@@ -0,0 +1,166 @@
+package net.urosk.taskomir.benchmarks.load;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.service.TaskomirService;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator obremenitve za Taskomir: v odprti zanki pošilja mešanico sintetičnih nalog v {@link TaskomirService}
+ * in na koncu izpiše prepustnost, latence in število operacij na bazi.
+ *
+ * Run with e.g.
+ * <pre>
+ * java -cp taskomir-benchmarks/target/benchmarks.jar net.urosk.taskomir.benchmarks.load.LoadGenerator \
+ *      duration=60s rate=300 mix=cpu:60,io:30,chatty:10 masters=20 poolSize=8
+ * </pre>
+ * See {@link LoadTestConfig} for all options.
+ */
+public class LoadGenerator {
+
+    private static final long TICK_MILLIS = 10;
+
+    private final LoadTestConfig config;
+    private final Map<Workload, LatencyRecorder> queueWait = new EnumMap<>(Workload.class);
+    private final Map<Workload, LatencyRecorder> completion = new EnumMap<>(Workload.class);
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    LoadGenerator(LoadTestConfig config) {
+        this.config = config;
+        for (Workload workload : Workload.values()) {
+            queueWait.put(workload, new LatencyRecorder());
+            completion.put(workload, new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        System.out.println("Taskomir load test: " + config);
+        try (LoadTarget target = LoadTarget.create(config)) {
+            new LoadGenerator(config).run(target);
+        }
+        System.exit(0);
+    }
+
+    void run(LoadTarget target) throws InterruptedException {
+        TaskomirService service = target.service();
+        String cron = "*/" + Math.max(1, Math.min(59, config.cronSeconds)) + " * * * * ?";
+        for (int i = 0; i < config.masters; i++) {
+            service.createScheduledTask("Load master " + i, new LoadScheduledTask(), cron, true);
+        }
+        target.resetOperationCounts();
+        LoadScheduledTask.RUNS.set(0);
+
+        long start = System.nanoTime();
+        submitFor(service);
+        long submitEnd = System.nanoTime();
+
+        long drainDeadline = submitEnd + config.drainTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        long end = System.nanoTime();
+
+        report(target, (submitEnd - start) / 1e9, (end - start) / 1e9);
+    }
+
+    /**
+     * Odprta zanka: vsakih 10 ms odda rate/100 nalog, ne glede na to, ali se sistem dohaja.
+     */
+    private void submitFor(TaskomirService service) throws InterruptedException {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        double perTick = config.rate * TICK_MILLIS / 1000.0;
+        double[] carry = {0};
+        int totalWeight = config.mix.values().stream().mapToInt(Integer::intValue).sum();
+        ticker.scheduleAtFixedRate(() -> {
+            carry[0] += perTick;
+            int count = (int) carry[0];
+            carry[0] -= count;
+            for (int i = 0; i < count; i++) {
+                submit(service, pick(totalWeight));
+            }
+        }, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        Thread.sleep(config.duration.toMillis());
+        ticker.shutdownNow();
+        ticker.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private Workload pick(int totalWeight) {
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Workload, Integer> entry : config.mix.entrySet()) {
+            r -= entry.getValue();
+            if (r < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty workload mix");
+    }
+
+    private void submit(TaskomirService service, Workload workload) {
+        long submittedAt = System.nanoTime();
+        ProgressTask work = workload.create(config);
+        ProgressTask measured = progress -> {
+            queueWait.get(workload).record((System.nanoTime() - submittedAt) / 1_000);
+            try {
+                work.execute(progress);
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                throw e;
+            }
+        };
+        try {
+            inFlight.incrementAndGet();
+            CompletableFuture<TaskInfo> future = service.enqueue("Load " + workload.name().toLowerCase(), measured);
+            submitted.incrementAndGet();
+            future.whenComplete((info, error) -> {
+                completion.get(workload).record((System.nanoTime() - submittedAt) / 1_000);
+                completed.incrementAndGet();
+                inFlight.decrementAndGet();
+            });
+        } catch (RejectedExecutionException e) {
+            // Vrsta je polna (queueCapacity)
+            inFlight.decrementAndGet();
+            rejected.incrementAndGet();
+        }
+    }
+
+    private void report(LoadTarget target, double submitSeconds, double totalSeconds) {
+        System.out.println();
+        System.out.printf("Submitted: %d in %.1fs (%.1f/s), rejected (queue full): %d%n",
+                submitted.get(), submitSeconds, submitted.get() / submitSeconds, rejected.get());
+        System.out.printf("Completed: %d in %.1fs => throughput %.1f tasks/s, failed: %d, still in flight: %d%n",
+                completed.get(), totalSeconds, completed.get() / totalSeconds, failed.get(), inFlight.get());
+        System.out.printf("Cron children run: %d%n", LoadScheduledTask.RUNS.get());
+        System.out.println();
+        System.out.printf("%-8s %8s %14s %14s %14s %14s%n", "workload", "count", "wait p50 ms", "wait p99 ms", "done p50 ms", "done p99 ms");
+        for (Workload workload : Workload.values()) {
+            LatencyRecorder wait = queueWait.get(workload);
+            LatencyRecorder done = completion.get(workload);
+            if (done.count() == 0) {
+                continue;
+            }
+            System.out.printf("%-8s %8d %14.1f %14.1f %14.1f %14.1f%n", workload.name().toLowerCase(), done.count(),
+                    wait.percentile(50) / 1000.0, wait.percentile(99) / 1000.0,
+                    done.percentile(50) / 1000.0, done.percentile(99) / 1000.0);
+        }
+        System.out.println();
+        Map<String, Long> operations = target.databaseOperations();
+        long totalOps = operations.values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("Database operations: %d (%.1f per completed task)%n", totalOps,
+                completed.get() == 0 ? 0.0 : (double) totalOps / completed.get());
+        operations.forEach((op, count) -> System.out.printf("  %-20s %d%n", op, count));
+    }
+}
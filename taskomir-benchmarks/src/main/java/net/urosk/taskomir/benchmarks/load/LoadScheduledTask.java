@@ -0,0 +1,21 @@
+package net.urosk.taskomir.benchmarks.load;
+
+import net.urosk.taskomir.core.lib.AbstractScheduledTask;
+import net.urosk.taskomir.core.lib.ProgressUpdater;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logika cron masterjev v load testu: kratka CPU naloga, ki prešteje svoje zagone.
+ */
+public class LoadScheduledTask extends AbstractScheduledTask {
+
+    static final AtomicLong RUNS = new AtomicLong();
+
+    @Override
+    protected void runScheduledLogic(ProgressUpdater updater) {
+        Workload.burnCpu(2);
+        updater.update(1.0, "Cron child done");
+        RUNS.incrementAndGet();
+    }
+}
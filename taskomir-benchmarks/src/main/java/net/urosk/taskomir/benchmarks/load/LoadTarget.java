@@ -0,0 +1,202 @@
+package net.urosk.taskomir.benchmarks.load;
+
+import net.urosk.taskomir.benchmarks.BenchmarkFixtures;
+import net.urosk.taskomir.benchmarks.CountingTaskStore;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.metrics.SchedulerStats;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.service.ParallelTaskService;
+import net.urosk.taskomir.core.service.ScheduledTaskChecker;
+import net.urosk.taskomir.core.service.TaskLifecycleService;
+import net.urosk.taskomir.core.service.TaskResultService;
+import net.urosk.taskomir.core.service.TaskomirService;
+import net.urosk.taskomir.core.service.TaskomirSettingsService;
+import net.urosk.taskomir.core.service.WorkflowService;
+import net.urosk.taskomir.core.storage.memory.InMemoryLockStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskResultStore;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Taskomir instanca, proti kateri teče load test: v pomnilniku ali s pravim MongoDB.
+ */
+interface LoadTarget extends AutoCloseable {
+
+    TaskomirService service();
+
+    /**
+     * Število operacij na bazi od zadnjega {@link #resetOperationCounts()}, po vrsti operacije.
+     */
+    Map<String, Long> databaseOperations();
+
+    void resetOperationCounts();
+
+    @Override
+    void close();
+
+    static LoadTarget create(LoadTestConfig config) {
+        return switch (config.mode) {
+            case "mongo" -> new MongoTarget(config);
+            case "jdbc" -> new JdbcTarget(config);
+            default -> new MemoryTarget(config);
+        };
+    }
+
+    /**
+     * Servisi, sestavljeni ročno nad in-memory shrambo. Cron masterje preverja lasten timer.
+     */
+    final class MemoryTarget implements LoadTarget {
+
+        private final CountingTaskStore store = new CountingTaskStore();
+        private final ThreadPoolExecutor executor;
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        private final TaskomirService service;
+
+        MemoryTarget(LoadTestConfig config) {
+            executor = new ThreadPoolExecutor(config.poolSize, config.poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(config.queueCapacity));
+
+            TaskomirProperties properties = new TaskomirProperties();
+            properties.setPoolSize(config.poolSize);
+            properties.setQueueCapacity(config.queueCapacity);
+            properties.setInstanceId("load-generator");
+
+            TaskResultService resultService = new TaskResultService(new InMemoryTaskResultStore(), properties);
+            TaskLifecycleService lifecycleService = BenchmarkFixtures.lifecycleService(store, executor, properties,
+                    resultService);
+            SchedulerStats schedulerStats = new SchedulerStats();
+            ScheduledTaskChecker checker = new ScheduledTaskChecker(store.store(), lifecycleService, properties,
+                    TaskomirMetrics.NOOP, schedulerStats);
+            InMemoryLockStore lockStore = new InMemoryLockStore();
+            service = new TaskomirService(lifecycleService, properties, lockStore, schedulerStats,
+                    new WorkflowService(store.store(), lifecycleService, properties),
+                    new ParallelTaskService(store.store(), lifecycleService, properties),
+                    new TaskomirSettingsService(properties, lockStore, executor), resultService);
+            scheduler.scheduleWithFixedDelay(checker::checkScheduledTasks, 1, 1, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public TaskomirService service() {
+            return service;
+        }
+
+        @Override
+        public Map<String, Long> databaseOperations() {
+            return Map.of("store calls", store.operationCount());
+        }
+
+        @Override
+        public void resetOperationCounts() {
+            store.resetOperationCount();
+        }
+
+        @Override
+        public void close() {
+            scheduler.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Pravi Spring kontekst s Taskomir jedrom in MongoDB; primer za lokalni docker-compose Mongo.
+     */
+    final class MongoTarget implements LoadTarget {
+
+        private final ConfigurableApplicationContext context;
+        private final MongoLoadTestApplication.MongoCommandCounter counter;
+
+        MongoTarget(LoadTestConfig config) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("spring.data.mongodb.uri", config.mongoUri);
+            properties.put("spring.main.banner-mode", "off");
+            properties.put("taskomir.primary", "true");
+            properties.put("taskomir.instanceId", "load-generator");
+            properties.put("taskomir.poolSize", config.poolSize);
+            properties.put("taskomir.queueCapacity", config.queueCapacity);
+            properties.put("taskomir.scheduledCheckInterval", "1s");
+            context = new SpringApplicationBuilder(MongoLoadTestApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(properties)
+                    .run();
+            counter = context.getBean(MongoLoadTestApplication.MongoCommandCounter.class);
+        }
+
+        @Override
+        public TaskomirService service() {
+            return context.getBean(TaskomirService.class);
+        }
+
+        @Override
+        public Map<String, Long> databaseOperations() {
+            return counter.snapshot();
+        }
+
+        @Override
+        public void resetOperationCounts() {
+            counter.reset();
+        }
+
+        @Override
+        public void close() {
+            context.close();
+        }
+    }
+
+    /**
+     * Pravi Spring kontekst s Taskomir jedrom nad JDBC shrambo (H2 ali PostgreSQL), brez MongoDB.
+     */
+    final class JdbcTarget implements LoadTarget {
+
+        private final ConfigurableApplicationContext context;
+        private final JdbcLoadTestApplication.StatementCounter counter;
+
+        JdbcTarget(LoadTestConfig config) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("spring.datasource.url", config.jdbcUrl);
+            properties.put("spring.datasource.username", config.jdbcUser);
+            properties.put("spring.datasource.password", config.jdbcPassword);
+            properties.put("spring.datasource.hikari.maximum-pool-size", config.poolSize + 4);
+            properties.put("spring.main.banner-mode", "off");
+            properties.put("taskomir.storage", "jdbc");
+            properties.put("taskomir.primary", "true");
+            properties.put("taskomir.instanceId", "load-generator");
+            properties.put("taskomir.poolSize", config.poolSize);
+            properties.put("taskomir.queueCapacity", config.queueCapacity);
+            properties.put("taskomir.scheduledCheckInterval", "1s");
+            context = new SpringApplicationBuilder(JdbcLoadTestApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(properties)
+                    .run();
+            counter = context.getBean(JdbcLoadTestApplication.StatementCounter.class);
+        }
+
+        @Override
+        public TaskomirService service() {
+            return context.getBean(TaskomirService.class);
+        }
+
+        @Override
+        public Map<String, Long> databaseOperations() {
+            return counter.snapshot();
+        }
+
+        @Override
+        public void resetOperationCounts() {
+            counter.reset();
+        }
+
+        @Override
+        public void close() {
+            context.close();
+        }
+    }
+}
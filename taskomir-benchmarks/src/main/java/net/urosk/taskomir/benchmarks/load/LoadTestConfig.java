@@ -0,0 +1,104 @@
+package net.urosk.taskomir.benchmarks.load;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Nastavitve load testa, podane kot {@code key=value} argumenti ukazne vrstice.
+ *
+ * <pre>
+ * mode=memory|mongo|jdbc   in-memory task store, a real MongoDB or a JDBC database (default memory)
+ * mongoUri=...             used in mongo mode (default mongodb://localhost:27017/taskomir-load)
+ * jdbcUrl=... jdbcUser=... jdbcPassword=...   used in jdbc mode (default in-memory H2)
+ * duration=60s             how long tasks are submitted
+ * drainTimeout=120s        how long to wait for the queue to drain afterwards
+ * rate=200                 submitted tasks per second (open loop)
+ * mix=cpu:50,io:30,chatty:20   relative weights of the synthetic workloads
+ * masters=0                number of cron masters to register (each fires every cronSeconds)
+ * cronSeconds=5
+ * cpuMillis=5 ioMillis=200 chattySteps=100 chattyStepMillis=2
+ * poolSize=2 queueCapacity=100000   executor settings under test
+ * </pre>
+ */
+public class LoadTestConfig {
+
+    String mode = "memory";
+    String mongoUri = "mongodb://localhost:27017/taskomir-load";
+    String jdbcUrl = "jdbc:h2:mem:taskomir-load;DB_CLOSE_DELAY=-1";
+    String jdbcUser = "sa";
+    String jdbcPassword = "";
+    Duration duration = Duration.ofSeconds(60);
+    Duration drainTimeout = Duration.ofSeconds(120);
+    int rate = 200;
+    final Map<Workload, Integer> mix = new EnumMap<>(Workload.class);
+    int masters = 0;
+    int cronSeconds = 5;
+    int cpuMillis = 5;
+    int ioMillis = 200;
+    int chattySteps = 100;
+    int chattyStepMillis = 2;
+    int poolSize = 2;
+    int queueCapacity = 100_000;
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            values.put(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+
+        LoadTestConfig config = new LoadTestConfig();
+        config.mode = values.getOrDefault("mode", config.mode);
+        config.mongoUri = values.getOrDefault("mongoUri", config.mongoUri);
+        config.jdbcUrl = values.getOrDefault("jdbcUrl", config.jdbcUrl);
+        config.jdbcUser = values.getOrDefault("jdbcUser", config.jdbcUser);
+        config.jdbcPassword = values.getOrDefault("jdbcPassword", config.jdbcPassword);
+        config.duration = duration(values.get("duration"), config.duration);
+        config.drainTimeout = duration(values.get("drainTimeout"), config.drainTimeout);
+        config.rate = intValue(values.get("rate"), config.rate);
+        config.masters = intValue(values.get("masters"), config.masters);
+        config.cronSeconds = intValue(values.get("cronSeconds"), config.cronSeconds);
+        config.cpuMillis = intValue(values.get("cpuMillis"), config.cpuMillis);
+        config.ioMillis = intValue(values.get("ioMillis"), config.ioMillis);
+        config.chattySteps = intValue(values.get("chattySteps"), config.chattySteps);
+        config.chattyStepMillis = intValue(values.get("chattyStepMillis"), config.chattyStepMillis);
+        config.poolSize = intValue(values.get("poolSize"), config.poolSize);
+        config.queueCapacity = intValue(values.get("queueCapacity"), config.queueCapacity);
+
+        String mix = values.getOrDefault("mix", "cpu:50,io:30,chatty:20");
+        for (String part : mix.split(",")) {
+            String[] kv = part.split(":");
+            config.mix.put(Workload.valueOf(kv[0].trim().toUpperCase()), Integer.parseInt(kv[1].trim()));
+        }
+        if (!"memory".equals(config.mode) && !"mongo".equals(config.mode) && !"jdbc".equals(config.mode)) {
+            throw new IllegalArgumentException("mode must be memory, mongo or jdbc");
+        }
+        return config;
+    }
+
+    private static Duration duration(String value, Duration fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        String v = value.toLowerCase();
+        if (v.endsWith("ms")) return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        if (v.endsWith("s")) return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        if (v.endsWith("m")) return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+
+    private static int intValue(String value, int fallback) {
+        return value == null ? fallback : Integer.parseInt(value.replace("_", ""));
+    }
+
+    @Override
+    public String toString() {
+        return "mode=" + mode + ", duration=" + duration + ", rate=" + rate + "/s, mix=" + mix
+                + ", masters=" + masters + ", poolSize=" + poolSize + ", queueCapacity=" + queueCapacity;
+    }
+}
@@ -0,0 +1,55 @@
+package net.urosk.taskomir.benchmarks.load;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spring Boot aplikacija za load test proti pravemu MongoDB (mode=mongo).
+ * Registers a command listener on the Mongo client, so every command the driver sends is counted.
+ */
+@SpringBootApplication(scanBasePackages = "net.urosk.taskomir.core")
+@EnableMongoRepositories(basePackages = "net.urosk.taskomir.core.repository")
+public class MongoLoadTestApplication {
+
+    @Bean
+    public MongoCommandCounter mongoCommandCounter() {
+        return new MongoCommandCounter();
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer commandCounterCustomizer(MongoCommandCounter counter) {
+        return builder -> builder.addCommandListener(counter);
+    }
+
+    /**
+     * Šteje Mongo ukaze po imenu (insert, update, find, delete ...).
+     */
+    public static class MongoCommandCounter implements CommandListener {
+
+        private final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            counts.computeIfAbsent(event.getCommandName(), k -> new LongAdder()).increment();
+        }
+
+        public Map<String, Long> snapshot() {
+            Map<String, Long> result = new TreeMap<>();
+            counts.forEach((command, count) -> result.put(command, count.sum()));
+            return result;
+        }
+
+        public void reset() {
+            counts.clear();
+        }
+    }
+}
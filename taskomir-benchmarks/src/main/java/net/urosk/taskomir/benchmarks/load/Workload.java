@@ -0,0 +1,55 @@
+package net.urosk.taskomir.benchmarks.load;
+
+import net.urosk.taskomir.core.lib.ProgressTask;
+
+/**
+ * Sintetične vrste nalog za load test.
+ */
+public enum Workload {
+
+    /**
+     * Kratka CPU naloga: računanje brez čakanja.
+     */
+    CPU {
+        @Override
+        ProgressTask create(LoadTestConfig config) {
+            return progress -> burnCpu(config.cpuMillis);
+        }
+    },
+    /**
+     * Dolga IO naloga: nit večino časa čaka (simulira HTTP klic, branje datoteke ...).
+     */
+    IO {
+        @Override
+        ProgressTask create(LoadTestConfig config) {
+            return progress -> Thread.sleep(config.ioMillis);
+        }
+    },
+    /**
+     * Naloga, ki zelo pogosto poroča napredek; vsak update je zapis v bazo.
+     */
+    CHATTY {
+        @Override
+        ProgressTask create(LoadTestConfig config) {
+            return progress -> {
+                for (int i = 1; i <= config.chattySteps; i++) {
+                    progress.update((double) i / config.chattySteps, "Step " + i);
+                    if (config.chattyStepMillis > 0) {
+                        Thread.sleep(config.chattyStepMillis);
+                    }
+                }
+            };
+        }
+    };
+
+    abstract ProgressTask create(LoadTestConfig config);
+
+    static long burnCpu(long millis) {
+        long end = System.nanoTime() + millis * 1_000_000;
+        long acc = 0;
+        while (System.nanoTime() < end) {
+            acc += Long.rotateLeft(acc ^ System.nanoTime(), 7);
+        }
+        return acc;
+    }
+}
@@ -4,7 +4,6 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -22,7 +21,8 @@ public class ExecutorConfig {
                 poolSize,
                 0L,
                 TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>(queueCapacity)
+                // Kapaciteto lahko spremeni TaskomirSettingsService
+                new ResizableBlockingQueue<>(queueCapacity)
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package net.urosk.taskomir.core.config;
+
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Čakalna vrsta poola, ki ji lahko med delovanjem spremenimo kapaciteto ({@code queueCapacity}).
+ * Manjša kapaciteta ne zavrže že čakajočih nalog; nove se zavračajo, dokler vrsta ne pade pod mejo.
+ */
+public class ResizableBlockingQueue<E> extends LinkedBlockingQueue<E> {
+
+    private volatile int capacity;
+
+    public ResizableBlockingQueue(int capacity) {
+        super();
+        setCapacity(capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized boolean offer(E e) {
+        // Sinhronizirano, da sočasni klici ne prekoračijo meje; jemanje iz vrste ni zaklenjeno
+        return size() < capacity && super.offer(e);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+}
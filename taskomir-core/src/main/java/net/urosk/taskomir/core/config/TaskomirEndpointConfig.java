@@ -0,0 +1,20 @@
+package net.urosk.taskomir.core.config;
+
+import net.urosk.taskomir.core.endpoint.TaskomirSettingsEndpoint;
+import net.urosk.taskomir.core.service.TaskomirSettingsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Actuator endpoint se registrira samo, če je Spring Boot Actuator na classpathu.
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+public class TaskomirEndpointConfig {
+
+    @Bean
+    public TaskomirSettingsEndpoint taskomirSettingsEndpoint(TaskomirSettingsService settingsService) {
+        return new TaskomirSettingsEndpoint(settingsService);
+    }
+}
@@ -0,0 +1,24 @@
+package net.urosk.taskomir.core.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.urosk.taskomir.core.metrics.MicrometerTaskomirMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Micrometer instrumentacija se vklopi samo, če je Micrometer na classpathu; na MeterRegistry se poveže lenobno.
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+public class TaskomirMetricsConfig {
+
+    @Bean
+    public MicrometerTaskomirMetrics taskomirMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                                     ObjectProvider<ThreadPoolExecutor> executorService) {
+        return new MicrometerTaskomirMetrics(meterRegistry, executorService);
+    }
+}
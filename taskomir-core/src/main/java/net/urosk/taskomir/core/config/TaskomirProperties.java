@@ -5,6 +5,10 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @ConfigurationProperties(prefix = "taskomir")
@@ -17,8 +21,44 @@ public class TaskomirProperties {
     private Duration scheduledCheckInterval= Duration.ofSeconds(15); // 15 seconds
     private int poolSize = 2; // Number of parallel tasks
     private int queueCapacity = 100_000; //Number of tasks in the queue
+    private AdaptivePool adaptivePool = new AdaptivePool();
     private boolean primary=true;
+    private Duration settingsSyncInterval = Duration.ofSeconds(10); // How often the primary applies settings changed at runtime on another instance
     private String instanceId;
+    private Duration idempotencyWindow = Duration.ofHours(1); // Duplicate enqueues with the same idempotency key within this window are ignored
+    private Duration defaultTaskTimeout; // Max run time of a task unless set per task; null = no limit
+    private Duration drainTimeout = Duration.ofSeconds(30); // On shutdown running tasks get this long to finish, the rest is handed back as ENQUEUED
+    private Duration drainHandOffGrace = Duration.ofSeconds(2); // After the hand-off tasks polling isCancellationRequested() get this long to stop before their threads are interrupted
+    private Watchdog watchdog = new Watchdog();
+    private Recovery recovery = new Recovery();
+    private Retry retry = new Retry();
+    private Duration delayedCheckInterval = Duration.ofSeconds(30); // How often the primary picks up overdue delayed tasks (e.g. after a restart)
+    private int delayedBatchSize = 1_000; // Max overdue delayed tasks loaded per pass
+    private Duration parallelProgressInterval = Duration.ofSeconds(1); // How often ParallelTask and ProgressRecursiveTask write aggregated progress
+    private int forkJoinParallelism = 0; // Work-stealing threads for ProgressRecursiveTask splitting; 0 = available processors
+    private Map<String, RateLimit> rateLimits = new LinkedHashMap<>(); // Per task name or class name, see RateLimit
+    private StorageType storage = StorageType.MONGO; // Backend for tasks and locks
+    private Jdbc jdbc = new Jdbc();
+    private ReactiveWrites reactiveWrites = new ReactiveWrites();
+    private Results results = new Results();
+    private Payload payload = new Payload();
+    private TaskIdFormat taskIdFormat = TaskIdFormat.TIME_ORDERED; // Ids of new tasks; a TaskIdGenerator bean overrides it
+
+    public enum StorageType {
+        MONGO,
+        MEMORY,
+        JDBC
+    }
+
+    public enum TaskIdFormat {
+        TIME_ORDERED, // 26-character ULID, sorted by creation time
+        RANDOM_UUID
+    }
+
+    @Data
+    public static class Jdbc {
+        private boolean initializeSchema = true; // Run taskomir/schema-<db>.sql (CREATE ... IF NOT EXISTS) on startup
+    }
 
     public long getCleanupIntervalSeconds() {
         return cleanupInterval.toSeconds();
@@ -31,4 +71,75 @@ public class TaskomirProperties {
     public long getDeletedRetentionTimeSeconds() {
         return deletedRetentionTime.toSeconds();
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class Watchdog {
+        private boolean enabled = true;
+        private Duration checkInterval = Duration.ofSeconds(30); // How often PROCESSING tasks are inspected
+        private Duration heartbeatTimeout; // Fail tasks without progress/heartbeat for this long; null = only orphans
+        private WatchdogAction action = WatchdogAction.FAIL; // What to do with orphaned tasks (not running after a restart)
+    }
+
+    @Data
+    public static class Recovery {
+        private boolean enabled = true; // On startup of the primary, re-queue or fail tasks left ENQUEUED/PROCESSING by stopped instances
+        private WatchdogAction action; // What to do with them; null = same as watchdog.action
+        private int batchSize = 1_000; // Tasks read and written per round trip
+    }
+
+    @Data
+    public static class Retry {
+        private int maxAttempts = 1; // Default attempts per task (1 = no retries) unless the task or enqueue sets a RetryPolicy
+        private Duration initialDelay = Duration.ofSeconds(10); // Delay before the second attempt
+        private double multiplier = 2.0; // Growth of the delay for each further attempt
+        private Duration maxDelay = Duration.ofMinutes(10); // Upper bound of a single delay
+        private double jitter = 0.2; // Random +/- share of the delay
+    }
+
+    @Data
+    public static class AdaptivePool {
+        private boolean enabled = false; // Resize the pool at runtime between minSize and maxSize; poolSize is the starting size
+        private int minSize = 1;
+        private int maxSize = 16;
+        private Duration checkInterval = Duration.ofSeconds(15); // How often queue depth, queue wait and CPU load are evaluated
+        private Duration targetQueueWait = Duration.ofSeconds(5); // Grow when tasks wait longer than this for a thread
+        private double maxCpuLoad = 0.85; // Never grow above, shrink when the machine's CPU load exceeds this share
+    }
+
+    @Data
+    public static class RateLimit {
+        private double permitsPerSecond; // Started tasks per second; 0 = no rate limit
+        private int burst = 1; // Tasks that may start at once after an idle period
+        private int maxConcurrency; // Tasks running at the same time on one instance; 0 = unlimited
+        private boolean shared = false; // Share the token bucket across instances through the task database (Mongo only)
+    }
+
+    public enum WatchdogAction {
+        FAIL,
+        REQUEUE
+    }
+
+    @Data
+    public static class ReactiveWrites {
+        private boolean enabled = false; // Status/progress writes via ReactiveMongoTemplate, without blocking task threads
+        private int maxInFlight = 256; // Upper bound of concurrent async writes
+        private Duration shutdownTimeout = Duration.ofSeconds(10); // How long to wait for pending writes on shutdown
+    }
+
+    @Data
+    public static class Results {
+        private int inlineLimit = 256 * 1024; // Serialized results up to this many bytes are stored inline, larger ones in GridFS (Mongo)
+        private int cacheSize = 100; // Results up to inlineLimit kept in memory per instance (LRU); 0 = no cache
+        private List<String> allowedClasses = new ArrayList<>(); // Result classes allowed to be deserialized besides java.lang/util/time/math, e.g. com.example.reports.**
+        private int maxDepth = 64; // Deepest object nesting accepted when a result is read
+        private long maxRefs = 1_000_000; // Most objects and back-references accepted in one result
+        private int maxArrayLength = 10_000_000; // Longest array accepted in a result
+        private long maxBytes = 256L * 1024 * 1024; // Largest serialized result accepted when read
+    }
+
+    @Data
+    public static class Payload {
+        private String codec = "json"; // Codec for new payloads: json, cbor (needs jackson-dataformat-cbor) or a custom PayloadCodec bean
+        private int maxSize = 16 * 1024; // Encoded payloads larger than this many bytes are rejected at enqueue
+    }
+}
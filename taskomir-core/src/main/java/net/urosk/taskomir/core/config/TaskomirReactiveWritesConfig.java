@@ -0,0 +1,33 @@
+package net.urosk.taskomir.core.config;
+
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.storage.reactive.ReactiveMongoTaskUpdateWriter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+/**
+ * Neblokirajoči zapisi stanja nalog prek {@link ReactiveMongoTemplate}. Vklopi se s
+ * {@code taskomir.reactive-writes.enabled=true}; potreben je spring-boot-starter-data-mongodb-reactive.
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.data.mongodb.core.ReactiveMongoTemplate")
+@ConditionalOnProperty(name = "taskomir.reactive-writes.enabled", havingValue = "true")
+public class TaskomirReactiveWritesConfig {
+
+    @Bean
+    public ReactiveMongoTaskUpdateWriter reactiveMongoTaskUpdateWriter(ReactiveMongoTemplate reactiveMongoTemplate,
+                                                                       ObjectProvider<TaskomirMetrics> metrics,
+                                                                       TaskomirProperties taskomirProperties) {
+        if (taskomirProperties.getStorage() != TaskomirProperties.StorageType.MONGO) {
+            throw new IllegalStateException("taskomir.reactive-writes requires taskomir.storage=mongo, but is "
+                    + taskomirProperties.getStorage());
+        }
+        TaskomirProperties.ReactiveWrites settings = taskomirProperties.getReactiveWrites();
+        return new ReactiveMongoTaskUpdateWriter(reactiveMongoTemplate, metrics.getIfAvailable(),
+                settings.getMaxInFlight(), settings.getShutdownTimeout());
+    }
+}
@@ -0,0 +1,115 @@
+package net.urosk.taskomir.core.config;
+
+import net.urosk.taskomir.core.repository.AppLockRepository;
+import net.urosk.taskomir.core.repository.TaskInfoRepository;
+import net.urosk.taskomir.core.storage.LockStore;
+import net.urosk.taskomir.core.storage.TaskResultStore;
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.jdbc.JdbcDialect;
+import net.urosk.taskomir.core.storage.jdbc.JdbcLockStore;
+import net.urosk.taskomir.core.storage.jdbc.JdbcTaskResultStore;
+import net.urosk.taskomir.core.storage.jdbc.JdbcTaskStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryLockStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskResultStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import net.urosk.taskomir.core.storage.mongo.MongoLockStore;
+import net.urosk.taskomir.core.storage.mongo.MongoRateLimitStore;
+import net.urosk.taskomir.core.storage.mongo.MongoTaskResultStore;
+import net.urosk.taskomir.core.storage.mongo.MongoTaskStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Izbira shrambe nalog in lockov glede na {@code taskomir.storage} (mongo | memory | jdbc, privzeto mongo).
+ */
+@Configuration
+public class TaskomirStorageConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "taskomir.storage", havingValue = "mongo", matchIfMissing = true)
+    static class MongoStorage {
+
+        @Bean(initMethod = "ensureIndexes")
+        public MongoTaskStore mongoTaskStore(TaskInfoRepository taskInfoRepository, MongoTemplate mongoTemplate) {
+            return new MongoTaskStore(taskInfoRepository, mongoTemplate);
+        }
+
+        @Bean
+        public MongoLockStore mongoLockStore(AppLockRepository appLockRepository, MongoTemplate mongoTemplate) {
+            return new MongoLockStore(appLockRepository, mongoTemplate);
+        }
+
+        /**
+         * Token bucketi za {@code taskomir.rateLimits.*.shared=true}, deljeni med instancami.
+         */
+        @Bean
+        public MongoRateLimitStore mongoRateLimitStore(MongoTemplate mongoTemplate) {
+            return new MongoRateLimitStore(mongoTemplate);
+        }
+
+        @Bean
+        public MongoTaskResultStore mongoTaskResultStore(MongoTemplate mongoTemplate, TaskomirProperties taskomirProperties) {
+            return new MongoTaskResultStore(mongoTemplate, taskomirProperties.getResults().getInlineLimit());
+        }
+    }
+
+    /**
+     * Podatki ne preživijo restarta; primerno za teste, benchmarke in eno samo instanco.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "taskomir.storage", havingValue = "memory")
+    static class MemoryStorage {
+
+        @Bean
+        public TaskStore inMemoryTaskStore() {
+            return new InMemoryTaskStore();
+        }
+
+        @Bean
+        public LockStore inMemoryLockStore() {
+            return new InMemoryLockStore();
+        }
+
+        @Bean
+        public TaskResultStore inMemoryTaskResultStore() {
+            return new InMemoryTaskResultStore();
+        }
+    }
+
+    /**
+     * PostgreSQL ali H2 prek aplikacijskega DataSource (spring.datasource.*).
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.jdbc.core.JdbcTemplate")
+    @ConditionalOnProperty(name = "taskomir.storage", havingValue = "jdbc")
+    static class JdbcStorage {
+
+        @Bean
+        public JdbcDialect taskomirJdbcDialect(JdbcTemplate jdbcTemplate, TaskomirProperties taskomirProperties) {
+            JdbcDialect dialect = JdbcDialect.detect(jdbcTemplate);
+            if (taskomirProperties.getJdbc().isInitializeSchema()) {
+                dialect.initializeSchema(jdbcTemplate);
+            }
+            return dialect;
+        }
+
+        @Bean
+        public JdbcTaskStore jdbcTaskStore(JdbcTemplate jdbcTemplate, JdbcDialect taskomirJdbcDialect) {
+            return new JdbcTaskStore(jdbcTemplate, taskomirJdbcDialect);
+        }
+
+        @Bean
+        public JdbcLockStore jdbcLockStore(JdbcTemplate jdbcTemplate, JdbcDialect taskomirJdbcDialect) {
+            return new JdbcLockStore(jdbcTemplate, taskomirJdbcDialect);
+        }
+
+        @Bean
+        public JdbcTaskResultStore jdbcTaskResultStore(JdbcTemplate jdbcTemplate, JdbcDialect taskomirJdbcDialect) {
+            return new JdbcTaskResultStore(jdbcTemplate, taskomirJdbcDialect);
+        }
+    }
+}
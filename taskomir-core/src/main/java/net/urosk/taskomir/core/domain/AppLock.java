@@ -27,5 +27,11 @@ public class AppLock {
     private int poolSize;
     private int queueCapacity;
 
+    // Zadnja sprememba velikosti poola (taskomir.adaptivePool): čas in razlog; 0/null, če se ni spremenila
+    private long poolResizedAt;
+    private String poolResizeReason;
+
+    // Čas zadnje spremembe nastavitev prek TaskomirSettingsService; primarna instanca jih ob spremembi prevzame
+    private long settingsUpdatedAt;
 
 }
\ No newline at end of file
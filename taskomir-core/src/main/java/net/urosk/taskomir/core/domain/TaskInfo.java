@@ -29,6 +29,38 @@ public class TaskInfo {
     private String parentId;
     private List<String> logLines; // Lahko ali pa: private List<String> log; odvisno od potreb
 
+    // Workflow (DAG): id workflowa, id-ji nalog, od katerih je ta odvisna, in dolžina kritične poti
+    // od te naloge do konca workflowa (ocena v ms, vključno s to nalogo)
+    private String workflowId;
+    private List<String> dependsOn;
+    private Long criticalPath;
+
+    // Ključ za deduplikacijo oddaj (unikaten, kjer je nastavljen)
+    private String idempotencyKey;
+
+    // Največji čas izvajanja (null = privzeti taskomir.defaultTaskTimeout) in zadnji znak življenja naloge
+    private Long timeoutMillis;
+    private Long heartbeatAt;
+
+    // Ponovni poskusi: trenutni poskus (null = prvi), največ poskusov, zapis neuspelih poskusov
+    // in čas, pred katerim se naloga ne sme zagnati (naslednji poskus)
+    private Integer attempt;
+    private Integer maxAttempts;
+    private List<String> attemptHistory;
+    private Long runAt;
+
+    // Zadnja kontrolna točka dolge naloge (stanje, iz katerega nadaljuje ob ponovnem poskusu) in čas zapisa
+    private String checkpoint;
+    private Long checkpointAt;
+
+    // Instanca, ki je nalogo nazadnje oddala v svoj pool ali jo izvaja; ob zagonu prepozna osirotele naloge
+    private String ownerInstanceId;
+
+    // Parametri naloge, zakodirani s kodekom payloadCodec; dekodirajo se šele, ko jih naloga prebere
+    private byte[] payload;
+    private String payloadCodec;
+    private String payloadType;
+
     /**
      * If true, the task will be skipped if it is already running
      * Relevant just for Scheduled tasks
@@ -42,10 +74,56 @@ public class TaskInfo {
         this.name = taskName;
     }
 
+    /**
+     * Kopija naloge (seznam logLines je kopiran), za shrambe, ki ne smejo deliti instanc s klicatelji.
+     */
+    public TaskInfo copy() {
+        TaskInfo copy = new TaskInfo(id, name);
+        copy.progress = progress;
+        copy.currentProgress = currentProgress;
+        copy.status = status;
+        copy.running = running;
+        copy.error = error;
+        copy.deletedAt = deletedAt;
+        copy.createdAt = createdAt;
+        copy.startedAt = startedAt;
+        copy.endedAt = endedAt;
+        copy.className = className;
+        copy.cronExpression = cronExpression;
+        copy.lastRunTime = lastRunTime;
+        copy.parentId = parentId;
+        copy.logLines = logLines != null ? new ArrayList<>(logLines) : null;
+        copy.skipIfAlreadyRunning = skipIfAlreadyRunning;
+        copy.workflowId = workflowId;
+        copy.dependsOn = dependsOn != null ? new ArrayList<>(dependsOn) : null;
+        copy.criticalPath = criticalPath;
+        copy.idempotencyKey = idempotencyKey;
+        copy.timeoutMillis = timeoutMillis;
+        copy.heartbeatAt = heartbeatAt;
+        copy.attempt = attempt;
+        copy.maxAttempts = maxAttempts;
+        copy.attemptHistory = attemptHistory != null ? new ArrayList<>(attemptHistory) : null;
+        copy.runAt = runAt;
+        copy.checkpoint = checkpoint;
+        copy.checkpointAt = checkpointAt;
+        copy.ownerInstanceId = ownerInstanceId;
+        copy.payload = payload;
+        copy.payloadCodec = payloadCodec;
+        copy.payloadType = payloadType;
+        return copy;
+    }
+
     public void addLogLine(String line) {
         if (logLines == null) {
             logLines = new ArrayList<>();
         }
         logLines.add(line);
     }
+
+    public void addAttemptHistory(String line) {
+        if (attemptHistory == null) {
+            attemptHistory = new ArrayList<>();
+        }
+        attemptHistory.add(line);
+    }
 }
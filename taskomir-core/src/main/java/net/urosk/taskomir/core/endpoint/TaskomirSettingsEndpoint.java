@@ -0,0 +1,60 @@
+package net.urosk.taskomir.core.endpoint;
+
+import net.urosk.taskomir.core.service.TaskomirSettingsService;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+
+/**
+ * Actuator endpoint {@code /actuator/taskomir} za branje in spreminjanje nastavitev med delovanjem.
+ *
+ * <pre>
+ * curl -X POST localhost:8080/actuator/taskomir -H 'Content-Type: application/json' -d '{"poolSize": 16, "succeededRetentionTime": "2h"}'
+ * </pre>
+ *
+ * Izpuščena polja ostanejo nespremenjena, trajanja so v obliki kot v {@code application.yml}. Endpoint je treba
+ * izpostaviti z {@code management.endpoints.web.exposure.include}.
+ */
+@Endpoint(id = "taskomir")
+public class TaskomirSettingsEndpoint {
+
+    private final TaskomirSettingsService settingsService;
+
+    public TaskomirSettingsEndpoint(TaskomirSettingsService settingsService) {
+        this.settingsService = settingsService;
+    }
+
+    @ReadOperation
+    public TaskomirSettingsService.Settings settings() {
+        return settingsService.getSettings();
+    }
+
+    @WriteOperation
+    public TaskomirSettingsService.Settings update(@Nullable Integer poolSize,
+                                                   @Nullable Integer queueCapacity,
+                                                   @Nullable String cleanupInterval,
+                                                   @Nullable String succeededRetentionTime,
+                                                   @Nullable String deletedRetentionTime) {
+        try {
+            return settingsService.update(TaskomirSettingsService.Settings.builder()
+                    .poolSize(poolSize)
+                    .queueCapacity(queueCapacity)
+                    .cleanupInterval(duration(cleanupInterval))
+                    .succeededRetentionTime(duration(succeededRetentionTime))
+                    .deletedRetentionTime(duration(deletedRetentionTime))
+                    .build());
+        } catch (IllegalArgumentException e) {
+            // Neveljaven vnos vrne 400, ne 500
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+
+    private static Duration duration(String value) {
+        return value == null || value.isBlank() ? null : DurationStyle.detectAndParse(value);
+    }
+}
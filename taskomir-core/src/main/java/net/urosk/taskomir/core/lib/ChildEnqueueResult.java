@@ -0,0 +1,19 @@
+package net.urosk.taskomir.core.lib;
+
+/**
+ * Izid poskusa, da se za "master" SCHEDULED nalogo ustvari nov child.
+ */
+public enum ChildEnqueueResult {
+    /**
+     * Child je bil ustvarjen in oddan v izvajanje.
+     */
+    CREATED,
+    /**
+     * Preskočeno, ker ima master že aktiven child (skipIfAlreadyRunning).
+     */
+    SKIPPED_ACTIVE,
+    /**
+     * Logike naloge ni bilo mogoče ustvariti; master je označen kot FAILED.
+     */
+    FAILED
+}
@@ -0,0 +1,62 @@
+package net.urosk.taskomir.core.lib;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Dodatne nastavitve za enkratno oddajo naloge (enqueue).
+ *
+ * <pre>
+ * taskomirService.enqueue("Invoice " + id, task, EnqueueOptions.idempotent("invoice-" + id));
+ * </pre>
+ */
+@Getter
+@Builder(toBuilder = true)
+public class EnqueueOptions {
+
+    public static final EnqueueOptions DEFAULT = EnqueueOptions.builder().build();
+
+    /**
+     * Ključ za deduplikacijo: ponovna oddaja z istim ključem znotraj okna vrne obstoječo nalogo namesto nove.
+     */
+    private final String idempotencyKey;
+
+    /**
+     * Okno deduplikacije, merjeno od ustvarjanja obstoječe naloge; null pomeni {@code taskomir.idempotencyWindow}.
+     */
+    private final Duration idempotencyWindow;
+
+    /**
+     * Največji čas izvajanja; po izteku se nit prekine in naloga označi kot FAILED. Null pomeni
+     * {@code taskomir.defaultTaskTimeout}.
+     */
+    private final Duration timeout;
+
+    /**
+     * Ponovni poskusi ob izjemi; null pomeni {@link ProgressTask#retryPolicy()} oziroma {@code taskomir.retry}.
+     * Pravilo velja le na tej instanci (lambda se ne shrani), zato se po ponovnem zagonu ne uporabi.
+     */
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Čas zagona; do takrat naloga čaka v statusu ENQUEUED brez niti. Null pomeni takoj.
+     */
+    private final Instant runAt;
+
+    /**
+     * Parametri naloge; kodirajo se ob oddaji ({@code taskomir.payload.codec}) in shranijo z nalogo, naloga jih prebere
+     * s {@link ProgressUpdater#payload(Class)}. Ostanejo na voljo tudi ob ponovnem poskusu in po ponovnem zagonu.
+     */
+    private final Object payload;
+
+    public static EnqueueOptions idempotent(String idempotencyKey) {
+        return EnqueueOptions.builder().idempotencyKey(idempotencyKey).build();
+    }
+
+    public static EnqueueOptions withPayload(Object payload) {
+        return EnqueueOptions.builder().payload(payload).build();
+    }
+}
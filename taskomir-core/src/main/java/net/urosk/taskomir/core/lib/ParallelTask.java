@@ -0,0 +1,52 @@
+package net.urosk.taskomir.core.lib;
+
+import java.util.List;
+
+/**
+ * Naloga, ki se razdeli na več kosov (fan-out), ki tečejo vzporedno, na koncu pa se rezultati združijo (fan-in).
+ *
+ * <pre>
+ * taskomirService.enqueueParallel("Import", new ParallelTask&lt;Range, Integer&gt;() {
+ *     public List&lt;Range&gt; split() { return Range.of(0, rows, 10_000); }
+ *     public Integer map(Range range, ProgressUpdater progress) { return importRows(range, progress); }
+ *     public void reduce(List&lt;Integer&gt; imported, ProgressUpdater progress) { log.info("Imported {}", sum(imported)); }
+ * });
+ * </pre>
+ *
+ * Vsak kos je child naloga parenta; napredek parenta je tehtano povprečje kosov in se zapiše največ enkrat na
+ * {@code taskomir.parallel-progress-interval}.
+ *
+ * @param <C> opis enega kosa dela (npr. obseg vrstic)
+ * @param <R> rezultat enega kosa
+ */
+public interface ParallelTask<C, R> {
+
+    /**
+     * Razdeli delo na kose. Kliče se na niti, ki nalogo odda, zato naj bo poceni (npr. samo meje kosov).
+     */
+    List<C> split() throws Exception;
+
+    /**
+     * Obdela en kos; teče na niti iz poola, vzporedno z ostalimi kosi.
+     */
+    R map(C chunk, ProgressUpdater progress) throws Exception;
+
+    /**
+     * Združi rezultate vseh kosov (v vrstnem redu iz {@link #split()}); kliče se samo, če so vsi kosi uspeli.
+     */
+    void reduce(List<R> results, ProgressUpdater progress) throws Exception;
+
+    /**
+     * Relativna teža kosa pri izračunu skupnega napredka, npr. število vrstic.
+     */
+    default double weight(C chunk) {
+        return 1.0;
+    }
+
+    /**
+     * Največ hkrati oddanih kosov; 0 pomeni velikost poola.
+     */
+    default int parallelism() {
+        return 0;
+    }
+}
@@ -0,0 +1,110 @@
+package net.urosk.taskomir.core.lib;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RecursiveTask za CPU-intenzivno delo znotraj ene naloge, ki poroča napredek naloge.
+ *
+ * <pre>
+ * class Hash extends ProgressRecursiveTask&lt;Long&gt; {
+ *     Hash(byte[][] blocks, int from, int to) { ... }                        // koren
+ *     Hash(Hash parent, int from, int to) { super(parent); ... }             // podnaloga deli napredek s korenom
+ *
+ *     protected Long compute() {
+ *         if (to - from &lt;= 64) { long h = hashBlocks(from, to); worked(to - from); return h; }
+ *         int mid = (from + to) &gt;&gt;&gt; 1;
+ *         Hash left = new Hash(this, from, mid);
+ *         left.fork();
+ *         return new Hash(this, mid, to).compute() ^ left.join();
+ *     }
+ * }
+ * long hash = progress.invoke(new Hash(blocks, 0, blocks.length), blocks.length);
+ * </pre>
+ *
+ * Teče v work-stealing poolu ({@code taskomir.forkJoinParallelism}), ne v poolu nalog. Po preklicu
+ * {@link #worked(long)} vrže {@link CancellationException}, kar ustavi vse podnaloge.
+ *
+ * @param <V> rezultat (pod)naloge
+ */
+public abstract class ProgressRecursiveTask<V> extends RecursiveTask<V> {
+
+    private Tracker tracker;
+
+    /**
+     * Korenska naloga; napredek ji nastavi {@link ProgressUpdater#invoke(ProgressRecursiveTask, long)}.
+     */
+    protected ProgressRecursiveTask() {
+    }
+
+    /**
+     * Podnaloga, ki poroča napredek v isto nalogo kot {@code parent}.
+     */
+    protected ProgressRecursiveTask(ProgressRecursiveTask<?> parent) {
+        this.tracker = parent.tracker;
+    }
+
+    /**
+     * Zabeleži {@code units} opravljenih enot dela (od {@code totalUnits} korena).
+     */
+    protected void worked(long units) {
+        if (tracker != null) {
+            tracker.worked(units);
+        }
+    }
+
+    /**
+     * Ali je bila naloga preklicana; daljši listi lahko to preverjajo tudi med delom.
+     */
+    protected boolean isCancellationRequested() {
+        return tracker != null && tracker.updater.isCancellationRequested();
+    }
+
+    void attach(ProgressUpdater updater, long totalUnits, Duration interval) {
+        this.tracker = new Tracker(updater, totalUnits, interval);
+    }
+
+    void reportDone() {
+        if (tracker != null) {
+            tracker.report();
+        }
+    }
+
+    /**
+     * Skupni napredek korena in vseh podnalog.
+     */
+    private static final class Tracker {
+        private final ProgressUpdater updater;
+        private final long totalUnits;
+        private final long intervalNanos;
+        private final LongAdder done = new LongAdder();
+        private final AtomicLong lastReport = new AtomicLong(System.nanoTime());
+
+        Tracker(ProgressUpdater updater, long totalUnits, Duration interval) {
+            this.updater = updater;
+            this.totalUnits = Math.max(1, totalUnits);
+            this.intervalNanos = interval.toNanos();
+        }
+
+        void worked(long units) {
+            if (updater.isCancellationRequested()) {
+                throw new CancellationException("Task cancelled");
+            }
+            done.add(units);
+            long now = System.nanoTime();
+            long last = lastReport.get();
+            // Zapiše le ena nit na interval, ostale nadaljujejo brez čakanja
+            if (now - last >= intervalNanos && lastReport.compareAndSet(last, now)) {
+                report();
+            }
+        }
+
+        void report() {
+            long sum = Math.min(done.sum(), totalUnits);
+            updater.update((double) sum / totalUnits, sum + " / " + totalUnits);
+        }
+    }
+}
@@ -5,4 +5,12 @@ package net.urosk.taskomir.core.lib;
 @FunctionalInterface
 public interface ProgressTask {
     void execute(ProgressUpdater progress) throws Exception;
-}
\ No newline at end of file
+
+    /**
+     * Pravilo ponovnih poskusov za ta razred nalog (velja tudi za child naloge cron mastra).
+     * Null pomeni {@link EnqueueOptions#getRetryPolicy()} oziroma {@code taskomir.retry}.
+     */
+    default RetryPolicy retryPolicy() {
+        return null;
+    }
+}
@@ -3,27 +3,116 @@ package net.urosk.taskomir.core.lib;
 
 import lombok.extern.slf4j.Slf4j;
 import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.payload.TaskPayload;
 import net.urosk.taskomir.core.service.TaskLifecycleService;
 
+import java.util.function.DoubleConsumer;
+
 
 @Slf4j
 public class ProgressUpdater {
 
     private final TaskInfo taskInfo;
     private final TaskLifecycleService taskLifecycleService;
+    private final double from;
+    private final double to;
+    private final DoubleConsumer listener;
+    private TaskPayload payload;
 
     public ProgressUpdater(TaskInfo taskInfo, TaskLifecycleService taskLifecycleService) {
+        this(taskInfo, taskLifecycleService, 0.0, 1.0, null);
+    }
+
+    private ProgressUpdater(TaskInfo taskInfo, TaskLifecycleService taskLifecycleService,
+                            double from, double to, DoubleConsumer listener) {
         this.taskInfo = taskInfo;
         this.taskLifecycleService = taskLifecycleService;
+        this.from = from;
+        this.to = to;
+        this.listener = listener;
     }
 
     public void update(double progress, String progressText) {
         if (progress < 0.0 || progress > 1.0) {
             throw new IllegalArgumentException("Progress should be between 0.0 in 1.0");
         }
-        taskInfo.setProgress(progress);
+        taskInfo.setProgress(from + progress * (to - from));
         taskInfo.setCurrentProgress(progressText);
         taskLifecycleService.updateTask(taskInfo, TaskStatus.PROCESSING, true);
+        if (listener != null) {
+            listener.accept(progress);
+        }
      //   log.info("Napredek za task {}: {}%", taskInfo.getId(), (int) (progress * 100));
     }
-}
\ No newline at end of file
+
+    /**
+     * Znak življenja za watchdog pri dolgih korakih brez spremembe napredka.
+     */
+    public void heartbeat() {
+        taskLifecycleService.heartbeat(taskInfo);
+    }
+
+    /**
+     * Ali je bila naloga preklicana (ali prekinjena zaradi timeouta). Dolga naloga to preveri med koraki in se
+     * konča, npr. z {@code return} ali izjemo; izid po preklicu se ne zapiše.
+     */
+    public boolean isCancellationRequested() {
+        return taskLifecycleService.isCancellationRequested(taskInfo.getId()) || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Trajno shrani majhno stanje (npr. zadnji obdelan offset), od katerega naloga nadaljuje ob ponovnem poskusu
+     * ali po ponovnem zagonu instance. Klic je sinhron in šteje tudi kot heartbeat.
+     */
+    public void checkpoint(String state) {
+        taskLifecycleService.checkpoint(taskInfo, state);
+    }
+
+    /**
+     * Zadnja shranjena kontrolna točka ali null, če naloga začenja od začetka.
+     */
+    public String lastCheckpoint() {
+        return taskInfo.getCheckpoint();
+    }
+
+    /**
+     * Parametri naloge (EnqueueOptions#payload) ali null, če jih ni. Dekodirajo se ob prvem klicu.
+     *
+     * @throws IllegalStateException če payloada ni mogoče dekodirati v {@code type}
+     */
+    public <T> T payload(Class<T> type) {
+        if (payload == null) {
+            payload = taskLifecycleService.payloadOf(taskInfo);
+            if (payload == null) {
+                return null;
+            }
+        }
+        return payload.get(type);
+    }
+
+    /**
+     * Razdeli CPU-intenzivno delo v work-stealing pool in počaka na rezultat. Napredek naloge je delež opravljenih
+     * enot ({@link ProgressRecursiveTask#worked(long)}) od {@code totalUnits}.
+     */
+    public <V> V invoke(ProgressRecursiveTask<V> task, long totalUnits) {
+        task.attach(this, totalUnits, taskLifecycleService.getTaskomirProperties().getParallelProgressInterval());
+        V result = taskLifecycleService.getForkJoinPool().invoke(task);
+        task.reportDone();
+        return result;
+    }
+
+    /**
+     * Isti updater, ki o vsakem napredku (0.0 - 1.0) obvesti še {@code listener}.
+     */
+    public ProgressUpdater withListener(DoubleConsumer listener) {
+        return new ProgressUpdater(taskInfo, taskLifecycleService, from, to, listener);
+    }
+
+    /**
+     * Updater, ki napredek 0.0 - 1.0 preslika na interval [from, to] naloge, npr. za zadnjo fazo daljšega dela.
+     */
+    public ProgressUpdater scaled(double from, double to) {
+        double span = this.to - this.from;
+        return new ProgressUpdater(taskInfo, taskLifecycleService, this.from + from * span, this.from + to * span, listener);
+    }
+}
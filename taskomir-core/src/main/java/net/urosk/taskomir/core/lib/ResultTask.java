@@ -0,0 +1,29 @@
+package net.urosk.taskomir.core.lib;
+
+/**
+ * Naloga z rezultatom; rezultat se shrani ob nalogi in ga lahko prebere katerakoli instanca.
+ *
+ * <pre>
+ * CompletableFuture&lt;Report&gt; report = taskomirService.enqueueForResult("Monthly report",
+ *         progress -&gt; buildReport(month, progress));
+ * ...
+ * Optional&lt;Report&gt; later = taskomirService.getResult(taskId, Report.class);
+ * </pre>
+ *
+ * Rezultat mora biti {@link java.io.Serializable}; napaka pri serializaciji podre nalogo.
+ *
+ * @param <T> tip rezultata
+ */
+@FunctionalInterface
+public interface ResultTask<T> extends ProgressTask {
+
+    T compute(ProgressUpdater progress) throws Exception;
+
+    /**
+     * Izvedba, ki rezultat zavrže; {@code TaskLifecycleService} namesto nje kliče {@link #compute} in rezultat shrani.
+     */
+    @Override
+    default void execute(ProgressUpdater progress) throws Exception {
+        compute(progress);
+    }
+}
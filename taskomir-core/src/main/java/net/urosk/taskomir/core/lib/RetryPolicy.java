@@ -0,0 +1,80 @@
+package net.urosk.taskomir.core.lib;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pravilo ponovnih poskusov za nalogo, ki vrže izjemo.
+ *
+ * <p>Zamik pred poskusom {@code n + 1} je {@code initialDelay * multiplier^(n - 1)}, omejen z {@code maxDelay}
+ * in naključno raztresen za {@code ±jitter} (delež zamika), da se naloge, ki so padle hkrati, ne vrnejo hkrati.
+ * Ponovi se le izjeme, ki so instanca enega od razredov v {@code retryOn} (prazen seznam pomeni vse).
+ *
+ * <pre>
+ * RetryPolicy.builder()
+ *         .maxAttempts(5)
+ *         .initialDelay(Duration.ofSeconds(2))
+ *         .retryOn(IOException.class)
+ *         .build();
+ * </pre>
+ */
+@Getter
+@Builder(toBuilder = true)
+public class RetryPolicy {
+
+    /**
+     * Brez ponovnih poskusov.
+     */
+    public static final RetryPolicy NONE = RetryPolicy.builder().maxAttempts(1).build();
+
+    /**
+     * Skupno število poskusov, vključno s prvim.
+     */
+    @Builder.Default
+    private final int maxAttempts = 3;
+
+    @Builder.Default
+    private final Duration initialDelay = Duration.ofSeconds(10);
+
+    @Builder.Default
+    private final double multiplier = 2.0;
+
+    @Builder.Default
+    private final Duration maxDelay = Duration.ofMinutes(10);
+
+    /**
+     * Delež zamika (0–1), za katerega se zamik naključno zmanjša ali poveča.
+     */
+    @Builder.Default
+    private final double jitter = 0.2;
+
+    @Singular("retryOn")
+    private final List<Class<? extends Throwable>> retryOn;
+
+    /**
+     * Ali po neuspelem poskusu {@code attempt} (šteto od 1) sledi nov poskus.
+     */
+    public boolean shouldRetry(Throwable failure, int attempt) {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+        return retryOn.isEmpty() || retryOn.stream().anyMatch(type -> type.isInstance(failure));
+    }
+
+    /**
+     * Zamik pred naslednjim poskusom, ko je poskus {@code attempt} (šteto od 1) spodletel.
+     */
+    public Duration delayAfter(int attempt) {
+        double delay = initialDelay.toMillis() * Math.pow(multiplier, Math.max(0, attempt - 1));
+        delay = Math.min(delay, maxDelay.toMillis());
+        if (jitter > 0) {
+            delay += delay * jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        }
+        return Duration.ofMillis(Math.max(0, Math.round(delay)));
+    }
+}
@@ -0,0 +1,19 @@
+package net.urosk.taskomir.core.lib;
+
+import lombok.Getter;
+
+/**
+ * Naloga z rezultatom ni uspela (FAILED ali preklicana), zato rezultata ni.
+ */
+@Getter
+public class TaskFailedException extends RuntimeException {
+
+    private final String taskId;
+    private final TaskStatus status;
+
+    public TaskFailedException(String taskId, TaskStatus status, String error) {
+        super("Task " + taskId + " finished with status " + status + (error != null ? ": " + error : ""));
+        this.taskId = taskId;
+        this.status = status;
+    }
+}
@@ -0,0 +1,20 @@
+package net.urosk.taskomir.core.lib;
+
+import java.util.UUID;
+
+/**
+ * Generator id-jev nalog; aplikacija lahko registrira svojega kot Spring bean.
+ * Id-ji morajo biti unikatni med vsemi instancami, ki si delijo shrambo.
+ */
+@FunctionalInterface
+public interface TaskIdGenerator {
+
+    String nextId();
+
+    /**
+     * Naključni UUID (36 znakov), kot pred uvedbo urejenih id-jev.
+     */
+    static TaskIdGenerator randomUuid() {
+        return () -> UUID.randomUUID().toString();
+    }
+}
@@ -2,6 +2,7 @@ package net.urosk.taskomir.core.lib;
 
 public enum TaskStatus {
     ENQUEUED,
+    WAITING, // workflow naloga čaka, da se zaključijo naloge, od katerih je odvisna
     SCHEDULED,
     PROCESSING,
     SUCCEEDED,
@@ -0,0 +1,69 @@
+package net.urosk.taskomir.core.lib;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+
+/**
+ * Časovno urejeni id-ji nalog v obliki ULID: 26 znakov Crockford base32, 48 bitov časa in 80 naključnih bitov.
+ * Id-ji ene instance strogo naraščajo, tudi znotraj iste milisekunde.
+ */
+public class TimeOrderedTaskIdGenerator implements TaskIdGenerator {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+
+    private long lastMillis = -1;
+    // Naključni del: zgornjih 16 in spodnjih 64 bitov
+    private long randomHigh;
+    private long randomLow;
+
+    public TimeOrderedTaskIdGenerator() {
+        this(Clock.systemUTC());
+    }
+
+    public TimeOrderedTaskIdGenerator(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        long millis;
+        long high;
+        long low;
+        synchronized (this) {
+            long now = clock.millis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                randomHigh = random.nextInt(1 << 16);
+                randomLow = random.nextLong();
+            } else if (++randomLow == 0) {
+                randomHigh = (randomHigh + 1) & 0xFFFF;
+                if (randomHigh == 0) {
+                    // Naključni del je izčrpan, id vzame naslednjo milisekundo
+                    lastMillis++;
+                }
+            }
+            millis = lastMillis;
+            high = randomHigh;
+            low = randomLow;
+        }
+        return encode((millis << 16) | high, low);
+    }
+
+    /**
+     * 128 bitov v 26 znakov po 5 bitov, najpomembnejši znak prvi.
+     */
+    private static String encode(long mostSignificant, long leastSignificant) {
+        char[] chars = new char[26];
+        long high = mostSignificant;
+        long low = leastSignificant;
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (low & 31)];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+}
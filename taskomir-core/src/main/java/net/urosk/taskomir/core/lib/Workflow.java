@@ -0,0 +1,155 @@
+package net.urosk.taskomir.core.lib;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Usmerjen acikličen graf (DAG) nalog z deklariranimi odvisnostmi.
+ *
+ * <pre>
+ * Workflow etl = Workflow.builder("Nightly ETL")
+ *         .task("extract-a", extractA, Duration.ofMinutes(5))
+ *         .task("extract-b", extractB, Duration.ofMinutes(1))
+ *         .task("transform", transform, Duration.ofMinutes(3), "extract-a", "extract-b")
+ *         .task("load", load, "transform")
+ *         .build();
+ * </pre>
+ *
+ * Med hkrati pripravljenimi nalogami se prva odda tista z najdaljšo preostalo potjo (ocena trajanja, privzeto 1).
+ */
+@Getter
+public final class Workflow {
+
+    private final String name;
+    private final Map<String, Node> nodes;
+
+    private Workflow(String name, Map<String, Node> nodes) {
+        this.name = name;
+        this.nodes = Collections.unmodifiableMap(nodes);
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    @Getter
+    public static final class Node {
+        private final String key;
+        private final ProgressTask task;
+        private final List<String> dependsOn;
+        private final long weight;
+
+        Node(String key, ProgressTask task, List<String> dependsOn, long weight) {
+            this.key = key;
+            this.task = task;
+            this.dependsOn = List.copyOf(dependsOn);
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Ključi nalog v topološkem vrstnem redu (odvisnosti pred odvisnimi).
+     */
+    public List<String> topologicalOrder() {
+        Map<String, Integer> inDegree = new HashMap<>();
+        nodes.values().forEach(node -> inDegree.put(node.key, node.dependsOn.size()));
+        Map<String, List<String>> successors = successors();
+
+        Deque<String> ready = new ArrayDeque<>();
+        nodes.keySet().stream().filter(key -> inDegree.get(key) == 0).forEach(ready::add);
+        List<String> order = new ArrayList<>(nodes.size());
+        while (!ready.isEmpty()) {
+            String key = ready.poll();
+            order.add(key);
+            for (String next : successors.get(key)) {
+                if (inDegree.merge(next, -1, Integer::sum) == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+        if (order.size() != nodes.size()) {
+            throw new IllegalArgumentException("Workflow '" + name + "' contains a dependency cycle");
+        }
+        return order;
+    }
+
+    /**
+     * Za vsak ključ seznam nalog, ki so neposredno odvisne od njega.
+     */
+    public Map<String, List<String>> successors() {
+        Map<String, List<String>> successors = new LinkedHashMap<>();
+        nodes.keySet().forEach(key -> successors.put(key, new ArrayList<>()));
+        nodes.values().forEach(node -> node.dependsOn.forEach(dep -> successors.get(dep).add(node.key)));
+        return successors;
+    }
+
+    /**
+     * Dolžina kritične poti od posamezne naloge do konca workflowa (vsota uteži, vključno z nalogo samo).
+     */
+    public Map<String, Long> criticalPath() {
+        List<String> order = topologicalOrder();
+        Map<String, List<String>> successors = successors();
+        Map<String, Long> rank = new HashMap<>();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            String key = order.get(i);
+            long longestTail = successors.get(key).stream().mapToLong(rank::get).max().orElse(0);
+            rank.put(key, nodes.get(key).weight + longestTail);
+        }
+        return rank;
+    }
+
+    public static final class Builder {
+
+        private final String name;
+        private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder task(String key, ProgressTask task, String... dependsOn) {
+            return add(key, task, 1, dependsOn);
+        }
+
+        public Builder task(String key, ProgressTask task, Duration estimate, String... dependsOn) {
+            return add(key, task, Math.max(1, estimate.toMillis()), dependsOn);
+        }
+
+        private Builder add(String key, ProgressTask task, long weight, String... dependsOn) {
+            if (nodes.containsKey(key)) {
+                throw new IllegalArgumentException("Duplicate workflow task key: " + key);
+            }
+            nodes.put(key, new Node(key, task, Arrays.asList(dependsOn), weight));
+            return this;
+        }
+
+        /**
+         * Preveri, da odvisnosti obstajajo in da graf nima ciklov.
+         */
+        public Workflow build() {
+            if (nodes.isEmpty()) {
+                throw new IllegalArgumentException("Workflow '" + name + "' has no tasks");
+            }
+            for (Node node : nodes.values()) {
+                for (String dep : node.dependsOn) {
+                    if (!nodes.containsKey(dep)) {
+                        throw new IllegalArgumentException("Task '" + node.key + "' depends on unknown task '" + dep + "'");
+                    }
+                }
+            }
+            Workflow workflow = new Workflow(name, new LinkedHashMap<>(nodes));
+            workflow.topologicalOrder();
+            return workflow;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package net.urosk.taskomir.core.lib;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Vsaj ena naloga workflowa ni uspela; odvisne naloge niso bile zagnane.
+ */
+@Getter
+public class WorkflowFailedException extends RuntimeException {
+
+    private final String workflowId;
+    private final List<String> failedKeys;
+
+    public WorkflowFailedException(String workflowId, List<String> failedKeys) {
+        super("Workflow " + workflowId + " failed, tasks: " + failedKeys);
+        this.workflowId = workflowId;
+        this.failedKeys = List.copyOf(failedKeys);
+    }
+}
@@ -0,0 +1,24 @@
+package net.urosk.taskomir.core.lib;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Rezultat oddaje workflowa: id workflowa, id-ji nalog po ključih in future, ki se zaključi, ko so vse naloge končane
+ * (z {@link WorkflowFailedException}, če katera ni uspela).
+ */
+@Getter
+public class WorkflowHandle {
+
+    private final String workflowId;
+    private final Map<String, String> taskIds;
+    private final CompletableFuture<Void> completion;
+
+    public WorkflowHandle(String workflowId, Map<String, String> taskIds, CompletableFuture<Void> completion) {
+        this.workflowId = workflowId;
+        this.taskIds = Map.copyOf(taskIds);
+        this.completion = completion;
+    }
+}
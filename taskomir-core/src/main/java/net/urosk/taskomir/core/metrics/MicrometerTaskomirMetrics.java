@@ -0,0 +1,226 @@
+package net.urosk.taskomir.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ChildEnqueueResult;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer implementacija {@link TaskomirMetrics}. {@link MeterRegistry} se poišče, ko obstajajo vsi singletoni;
+ * do takrat (ali brez registryja) hooki ne naredijo ničesar.
+ */
+@Slf4j
+public class MicrometerTaskomirMetrics implements TaskomirMetrics, SmartInitializingSingleton {
+
+    static final String TAG_TASK = "task";
+    static final String TAG_CLASS = "class";
+    static final String TAG_STATUS = "status";
+    static final String TAG_MASTER = "master";
+    static final String TAG_OUTCOME = "outcome";
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private final ObjectProvider<ThreadPoolExecutor> executorProvider;
+
+    private volatile MeterRegistry registry;
+
+    public MicrometerTaskomirMetrics(ObjectProvider<MeterRegistry> registryProvider,
+                                     ObjectProvider<ThreadPoolExecutor> executorProvider) {
+        this.registryProvider = registryProvider;
+        this.executorProvider = executorProvider;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        MeterRegistry meterRegistry = registryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            log.debug("No MeterRegistry bean found, Taskomir metrics are disabled.");
+            return;
+        }
+        ThreadPoolExecutor executor = executorProvider.getIfAvailable();
+        if (executor != null) {
+            bindExecutor(meterRegistry, executor);
+        }
+        this.registry = meterRegistry;
+        log.info("Taskomir metrics bound to {}", meterRegistry.getClass().getSimpleName());
+    }
+
+    private void bindExecutor(MeterRegistry meterRegistry, ThreadPoolExecutor executor) {
+        Gauge.builder("taskomir.executor.pool.size", executor, ThreadPoolExecutor::getPoolSize)
+                .description("Current number of threads in the Taskomir pool")
+                .register(meterRegistry);
+        Gauge.builder("taskomir.executor.pool.core", executor, ThreadPoolExecutor::getCorePoolSize)
+                .description("Configured core size of the Taskomir pool")
+                .register(meterRegistry);
+        Gauge.builder("taskomir.executor.pool.max", executor, ThreadPoolExecutor::getMaximumPoolSize)
+                .description("Configured maximum size of the Taskomir pool")
+                .register(meterRegistry);
+        Gauge.builder("taskomir.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Threads currently executing tasks")
+                .register(meterRegistry);
+        Gauge.builder("taskomir.executor.queue.size", executor, e -> e.getQueue().size())
+                .description("Tasks waiting in the executor queue")
+                .register(meterRegistry);
+        Gauge.builder("taskomir.executor.queue.remaining", executor, e -> e.getQueue().remainingCapacity())
+                .description("Free slots left in the executor queue")
+                .register(meterRegistry);
+        FunctionCounter.builder("taskomir.executor.completed", executor, ThreadPoolExecutor::getCompletedTaskCount)
+                .description("Tasks completed by the executor")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void taskEnqueued(TaskInfo task) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        Counter.builder("taskomir.tasks.enqueued")
+                .tag(TAG_TASK, taskName(task))
+                .tag(TAG_CLASS, taskClass(task))
+                .register(r)
+                .increment();
+    }
+
+    @Override
+    public void taskStarted(TaskInfo task, long queueWaitMillis) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        Timer.builder("taskomir.task.queue.wait")
+                .description("Time between enqueue and start of execution")
+                .tag(TAG_TASK, taskName(task))
+                .tag(TAG_CLASS, taskClass(task))
+                .publishPercentileHistogram()
+                .register(r)
+                .record(Math.max(0, queueWaitMillis), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void taskCompleted(TaskInfo task, TaskStatus status, long durationNanos) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        Timer.builder("taskomir.task.duration")
+                .description("Task run duration")
+                .tag(TAG_TASK, taskName(task))
+                .tag(TAG_CLASS, taskClass(task))
+                .tag(TAG_STATUS, status.name())
+                .publishPercentileHistogram()
+                .register(r)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("taskomir.tasks.completed")
+                .tag(TAG_TASK, taskName(task))
+                .tag(TAG_CLASS, taskClass(task))
+                .tag(TAG_STATUS, status.name())
+                .register(r)
+                .increment();
+    }
+
+    @Override
+    public void taskRetryScheduled(TaskInfo task, int attempt, long delayMillis) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        Counter.builder("taskomir.tasks.retried")
+                .tag(TAG_TASK, taskName(task))
+                .tag(TAG_CLASS, taskClass(task))
+                .register(r)
+                .increment();
+    }
+
+    @Override
+    public void poolResized(int from, int to, String reason) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        Counter.builder("taskomir.executor.resized")
+                .description("Pool size changes made by the adaptive controller")
+                .tag("direction", to > from ? "up" : "down")
+                .register(r)
+                .increment();
+    }
+
+    @Override
+    public void taskCancelled(String taskId) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        r.counter("taskomir.tasks.cancelled").increment();
+    }
+
+    @Override
+    public void taskUpdateWritten(long durationNanos) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        Timer.builder("taskomir.task.update")
+                .description("Latency of persisting a task state change")
+                .publishPercentileHistogram()
+                .register(r)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void masterFired(TaskInfo master, long lagMillis, ChildEnqueueResult result) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        if (lagMillis >= 0) {
+            Timer.builder("taskomir.scheduler.lag")
+                    .description("Delay between the computed cron fire time and the actual fire, all masters")
+                    .publishPercentileHistogram()
+                    .register(r)
+                    .record(lagMillis, TimeUnit.MILLISECONDS);
+            Timer.builder("taskomir.scheduler.master.lag")
+                    .description("Delay between the computed cron fire time and the actual fire, per master")
+                    .tag(TAG_MASTER, taskName(master))
+                    .publishPercentileHistogram()
+                    .register(r)
+                    .record(lagMillis, TimeUnit.MILLISECONDS);
+        }
+        Counter.builder("taskomir.scheduler.children")
+                .description("Cron fires by outcome (created, skipped because a child is active, failed)")
+                .tag(TAG_MASTER, taskName(master))
+                .tag(TAG_OUTCOME, result.name().toLowerCase())
+                .register(r)
+                .increment();
+    }
+
+    @Override
+    public void schedulerPassCompleted(long durationNanos, int mastersEvaluated) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        r.timer("taskomir.scheduler.pass.duration").record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("taskomir.scheduler.pass.masters")
+                .description("SCHEDULED masters evaluated per check pass")
+                .register(r)
+                .record(mastersEvaluated);
+    }
+
+    @Override
+    public void cleanupCompleted(long durationNanos, int softDeleted, int removed) {
+        MeterRegistry r = registry;
+        if (r == null) return;
+        r.timer("taskomir.cleanup.duration").record(durationNanos, TimeUnit.NANOSECONDS);
+        r.counter("taskomir.cleanup.soft.deleted").increment(softDeleted);
+        r.counter("taskomir.cleanup.removed").increment(removed);
+    }
+
+    static String taskName(TaskInfo task) {
+        return task.getName() != null ? task.getName() : "unknown";
+    }
+
+    /**
+     * Lambda razredi imajo v imenu naključen sufiks ({@code $$Lambda/0x...}), ki bi razpihnil število serij.
+     */
+    static String taskClass(TaskInfo task) {
+        String className = task.getClassName();
+        if (className == null) {
+            return "unknown";
+        }
+        int lambda = className.indexOf("$$Lambda");
+        return lambda > 0 ? className.substring(0, lambda) + "$$Lambda" : className;
+    }
+}
@@ -0,0 +1,105 @@
+package net.urosk.taskomir.core.metrics;
+
+import lombok.Value;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ChildEnqueueResult;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistika cron schedulerja v pomnilniku te instance, za prikaz na dashboardu. Na sekundarnih instancah je prazna.
+ */
+@Component
+public class SchedulerStats {
+
+    private final ConcurrentHashMap<String, MasterCounters> masters = new ConcurrentHashMap<>();
+    private final AtomicLong totalCreated = new AtomicLong();
+    private final AtomicLong totalSkipped = new AtomicLong();
+
+    private volatile PassSummary lastPass;
+
+    /**
+     * Zabeleži proženje enega masterja; zamik -1 (prvo proženje) se ne zabeleži.
+     */
+    public void recordFire(TaskInfo master, long lagMillis, ChildEnqueueResult result) {
+        MasterCounters counters = masters.computeIfAbsent(master.getId(), id -> new MasterCounters());
+        counters.name = master.getName();
+        if (lagMillis >= 0) {
+            counters.lastLagMs = lagMillis;
+            counters.maxLagMs.accumulateAndGet(lagMillis, Math::max);
+        }
+        if (result == ChildEnqueueResult.CREATED) {
+            counters.created.incrementAndGet();
+            totalCreated.incrementAndGet();
+        } else if (result == ChildEnqueueResult.SKIPPED_ACTIVE) {
+            counters.skipped.incrementAndGet();
+            totalSkipped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Zabeleži zaključen prehod checkScheduledTasks.
+     */
+    public void recordPass(long startedAt, long durationNanos, int mastersEvaluated, int created, int skipped, long maxLagMs) {
+        this.lastPass = new PassSummary(startedAt, durationNanos / 1_000_000, mastersEvaluated, created, skipped, maxLagMs);
+    }
+
+    /**
+     * Master nalog, ki niso več SCHEDULED, ne prikazujemo.
+     */
+    public void retainMasters(Set<String> activeMasterIds) {
+        masters.keySet().retainAll(activeMasterIds);
+    }
+
+    public Snapshot snapshot() {
+        List<MasterLag> perMaster = new ArrayList<>();
+        masters.forEach((id, c) -> perMaster.add(new MasterLag(id, c.name, c.created.get(), c.skipped.get(), c.lastLagMs, c.maxLagMs.get())));
+        perMaster.sort(Comparator.comparingLong(MasterLag::getMaxLagMs).reversed());
+        return new Snapshot(lastPass, totalCreated.get(), totalSkipped.get(), perMaster);
+    }
+
+    private static class MasterCounters {
+        private volatile String name;
+        private volatile long lastLagMs;
+        private final AtomicLong maxLagMs = new AtomicLong();
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+    }
+
+    @Value
+    public static class PassSummary {
+        long startedAt;
+        long durationMs;
+        int mastersEvaluated;
+        int created;
+        int skipped;
+        long maxLagMs;
+    }
+
+    @Value
+    public static class MasterLag {
+        String masterId;
+        String name;
+        long created;
+        long skipped;
+        long lastLagMs;
+        long maxLagMs;
+    }
+
+    @Value
+    public static class Snapshot {
+        /**
+         * Null, dokler na tej instanci ni bilo nobenega prehoda.
+         */
+        PassSummary lastPass;
+        long totalCreated;
+        long totalSkipped;
+        List<MasterLag> masters;
+    }
+}
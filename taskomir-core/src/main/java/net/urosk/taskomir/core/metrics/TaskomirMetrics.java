@@ -0,0 +1,75 @@
+package net.urosk.taskomir.core.metrics;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ChildEnqueueResult;
+import net.urosk.taskomir.core.lib.TaskStatus;
+
+/**
+ * Hooks, ki jih Taskomir kliče ob pomembnih dogodkih v življenjskem ciklu nalog. Privzeto ne naredijo ničesar.
+ */
+public interface TaskomirMetrics {
+
+    TaskomirMetrics NOOP = new TaskomirMetrics() {
+    };
+
+    /**
+     * Naloga je bila shranjena in oddana v izvajanje.
+     */
+    default void taskEnqueued(TaskInfo task) {
+    }
+
+    /**
+     * Naloga je dobila nit; {@code queueWaitMillis} je čas od ustvarjanja do začetka izvajanja.
+     */
+    default void taskStarted(TaskInfo task, long queueWaitMillis) {
+    }
+
+    /**
+     * Naloga se je zaključila s statusom SUCCEEDED ali FAILED.
+     */
+    default void taskCompleted(TaskInfo task, TaskStatus status, long durationNanos) {
+    }
+
+    /**
+     * Poskus {@code attempt} je spodletel in naslednji je načrtovan čez {@code delayMillis}.
+     */
+    default void taskRetryScheduled(TaskInfo task, int attempt, long delayMillis) {
+    }
+
+    /**
+     * Naloga je bila preklicana (cancelTask).
+     */
+    default void taskCancelled(String taskId) {
+    }
+
+    /**
+     * Adaptivni kontroler je spremenil velikost poola z {@code from} na {@code to} niti.
+     */
+    default void poolResized(int from, int to, String reason) {
+    }
+
+    /**
+     * Trajanje enega zapisa stanja naloge v bazo (updateTask).
+     */
+    default void taskUpdateWritten(long durationNanos) {
+    }
+
+    /**
+     * Cron master je zapadel; {@code lagMillis} je zamik med izračunanim in dejanskim časom proženja, ob prvem
+     * proženju (master še nima lastRunTime) pa -1.
+     */
+    default void masterFired(TaskInfo master, long lagMillis, ChildEnqueueResult result) {
+    }
+
+    /**
+     * En prehod checkScheduledTasks: trajanje in število pregledanih master nalog.
+     */
+    default void schedulerPassCompleted(long durationNanos, int mastersEvaluated) {
+    }
+
+    /**
+     * En prehod čiščenja starih nalog (cleanupOldTasks).
+     */
+    default void cleanupCompleted(long durationNanos, int softDeleted, int removed) {
+    }
+}
@@ -0,0 +1,20 @@
+package net.urosk.taskomir.core.payload;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+/**
+ * Kompakten binarni kodek (CBOR, RFC 8949), na voljo, če ima aplikacija {@code jackson-dataformat-cbor}.
+ * Podatkovni model je enak kot pri {@link JacksonPayloadCodec#json()}.
+ */
+public class CborPayloadCodec extends JacksonPayloadCodec {
+
+    public static final String CBOR = "cbor";
+
+    public CborPayloadCodec() {
+        super(CBOR, CBORMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build());
+    }
+}
@@ -0,0 +1,46 @@
+package net.urosk.taskomir.core.payload;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+
+/**
+ * {@link PayloadCodec} nad Jacksonovim {@link ObjectMapper}; privzeti kodek je {@link #json()}.
+ */
+public class JacksonPayloadCodec implements PayloadCodec {
+
+    public static final String JSON = "json";
+
+    private final String name;
+    private final ObjectMapper mapper;
+
+    public JacksonPayloadCodec(String name, ObjectMapper mapper) {
+        this.name = name;
+        this.mapper = mapper;
+    }
+
+    public static JacksonPayloadCodec json() {
+        return new JacksonPayloadCodec(JSON, JsonMapper.builder()
+                .findAndAddModules()
+                // Novejša verzija naloge lahko prebere payload starejše in obratno
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build());
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public byte[] encode(Object payload) throws IOException {
+        return mapper.writeValueAsBytes(payload);
+    }
+
+    @Override
+    public <T> T decode(byte[] data, Class<T> type) throws IOException {
+        return mapper.readValue(data, type);
+    }
+}
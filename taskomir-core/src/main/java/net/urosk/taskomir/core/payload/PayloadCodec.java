@@ -0,0 +1,19 @@
+package net.urosk.taskomir.core.payload;
+
+import java.io.IOException;
+
+/**
+ * Pretvorba payloada naloge v bajte in nazaj. Ime kodeka se shrani ob payloadu, zato ostane berljiv tudi po menjavi
+ * {@code taskomir.payload.codec}.
+ */
+public interface PayloadCodec {
+
+    /**
+     * Ime, pod katerim je kodek izbran v {@code taskomir.payload.codec} in zapisan ob payloadu.
+     */
+    String name();
+
+    byte[] encode(Object payload) throws IOException;
+
+    <T> T decode(byte[] data, Class<T> type) throws IOException;
+}
@@ -0,0 +1,41 @@
+package net.urosk.taskomir.core.payload;
+
+import java.io.IOException;
+
+/**
+ * Payload naloge, ki se dekodira šele ob prvem branju; {@link #get(Class)} nato vrača isti objekt.
+ */
+public final class TaskPayload {
+
+    private final byte[] data;
+    private final PayloadCodec codec;
+    private Object value;
+    private boolean decoded;
+
+    public TaskPayload(byte[] data, PayloadCodec codec) {
+        this.data = data;
+        this.codec = codec;
+    }
+
+    /**
+     * Dekodiran payload.
+     *
+     * @throws IllegalStateException če payloada ni mogoče dekodirati v {@code type}
+     */
+    public synchronized <T> T get(Class<T> type) {
+        if (!decoded || (value != null && !type.isInstance(value))) {
+            try {
+                value = codec.decode(data, type);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot decode task payload as " + type.getName() + " with codec "
+                        + codec.name() + ": " + e.getMessage(), e);
+            }
+            decoded = true;
+        }
+        return type.cast(value);
+    }
+
+    public int size() {
+        return data.length;
+    }
+}
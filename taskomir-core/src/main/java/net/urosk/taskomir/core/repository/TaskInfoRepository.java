@@ -16,7 +16,11 @@ public interface TaskInfoRepository extends MongoRepository<TaskInfo, String> {
     Page<TaskInfo> findByStatusInOrderByCreatedAtDesc(Collection<TaskStatus> statuses, Pageable pageable);
     Page<TaskInfo> findByStatusOrderByCreatedAtDesc(TaskStatus status, Pageable pageable);
     void deleteByStatus(TaskStatus taskStatus);
+    long countByStatus(TaskStatus status);
     List<TaskInfo> findByStatusOrderByCreatedAtDesc(TaskStatus taskStatus);
     List<TaskInfo> findByParentIdAndStatusIn(String id, List<TaskStatus> list);
+    boolean existsByParentIdAndStatusIn(String id, List<TaskStatus> list);
     Optional<TaskInfo> findByNameAndStatus(String name, TaskStatus status);
+    List<TaskInfo> findByWorkflowId(String workflowId);
+    Optional<TaskInfo> findByIdempotencyKey(String idempotencyKey);
 }
\ No newline at end of file
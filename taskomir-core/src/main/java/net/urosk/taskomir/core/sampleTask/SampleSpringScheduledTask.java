@@ -11,15 +11,20 @@ public class SampleSpringScheduledTask extends AbstractScheduledTask {
     protected void runScheduledLogic(ProgressUpdater updater) throws Exception {
 
 
-        for (int i = 0; i <= 100; i++) {
+        // Po ponovnem poskusu nadaljujemo od zadnje kontrolne točke
+        int start = updater.lastCheckpoint() != null ? Integer.parseInt(updater.lastCheckpoint()) : 0;
+        for (int i = start; i <= 100; i++) {
 
 
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException("Task canceled");
+            if (updater.isCancellationRequested()) {
+                return;
             }
 
             double progress = i / 100.0;
             updater.update(progress,"");
+            if (i % 10 == 0) {
+                updater.checkpoint(String.valueOf(i));
+            }
 
             try {
                 Thread.sleep(200); // simulacija dela
@@ -0,0 +1,48 @@
+package net.urosk.taskomir.core.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aktivni otroci (ENQUEUED ali PROCESSING) posameznih master nalog na tej instanci, za skipIfAlreadyRunning.
+ * Neznan master ali master z aktivnimi otroki se preveri v shrambi, ker se otrok lahko konča tudi drugje.
+ */
+final class ActiveChildIndex {
+
+    // masterId -> id-ji aktivnih otrok; manjkajoč ključ pomeni, da stanje ni znano
+    private final ConcurrentHashMap<String, Set<String>> children = new ConcurrentHashMap<>();
+
+    /**
+     * Ali ima master aktivnega otroka: true/false, če je stanje znano, sicer null.
+     */
+    Boolean hasActiveChild(String masterId) {
+        Set<String> active = children.get(masterId);
+        return active != null ? !active.isEmpty() : null;
+    }
+
+    /**
+     * Baza je potrdila, da master nima aktivnega otroka.
+     */
+    void markEmpty(String masterId) {
+        children.put(masterId, ConcurrentHashMap.newKeySet());
+    }
+
+    void childEnqueued(String masterId, String childId) {
+        // Neznanega mastra ne označimo kot znanega: v bazi ima morda še otroke, ki jih ta instanca ne pozna
+        children.computeIfPresent(masterId, (id, active) -> {
+            active.add(childId);
+            return active;
+        });
+    }
+
+    void childFinished(String masterId, String childId) {
+        children.computeIfPresent(masterId, (id, active) -> {
+            active.remove(childId);
+            return active;
+        });
+    }
+
+    void forget(String masterId) {
+        children.remove(masterId);
+    }
+}
@@ -0,0 +1,147 @@
+package net.urosk.taskomir.core.service;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.storage.LockStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Prilagaja velikost poola obremenitvi ({@code taskomir.adaptivePool}).
+ * Na vsak {@code checkInterval} prebere globino vrste, najdaljše čakanje na nit in obremenitev CPU. Pool poveča, ko
+ * naloge čakajo dlje od {@code targetQueueWait}, in zmanjša, ko je CPU nad {@code maxCpuLoad} ali so niti proste.
+ * Velikost ostane med {@code minSize} in {@code maxSize} in se zapiše v PRIMARY {@link net.urosk.taskomir.core.domain.AppLock}.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "taskomir.adaptive-pool.enabled", havingValue = "true")
+public class AdaptivePoolController {
+
+    private static final int HISTORY_SIZE = 20;
+
+    private final ThreadPoolExecutor executor;
+    private final TaskLifecycleService taskLifecycleService;
+    private final LockStore lockStore;
+    private final TaskomirProperties taskomirProperties;
+    private final TaskomirMetrics metrics;
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final Deque<Decision> decisions = new ConcurrentLinkedDeque<>();
+
+    public AdaptivePoolController(@Autowired(required = false) ThreadPoolExecutor executor,
+                                  TaskLifecycleService taskLifecycleService,
+                                  LockStore lockStore,
+                                  TaskomirProperties taskomirProperties,
+                                  @Autowired(required = false) TaskomirMetrics metrics) {
+        this.executor = executor;
+        this.taskLifecycleService = taskLifecycleService;
+        this.lockStore = lockStore;
+        this.taskomirProperties = taskomirProperties;
+        this.metrics = metrics != null ? metrics : TaskomirMetrics.NOOP;
+    }
+
+    @Scheduled(fixedDelayString = "#{@taskomirProperties.adaptivePool.checkInterval.toMillis()}")
+    public void adjustPoolSize() {
+        if (executor == null) {
+            // Sekundarna instanca nima poola
+            return;
+        }
+        Decision decision = decide(executor.getCorePoolSize(), executor.getActiveCount(), executor.getQueue().size(),
+                taskLifecycleService.takeMaxQueueWaitMillis(), cpuLoad());
+        if (decision != null) {
+            apply(decision);
+        }
+    }
+
+    /**
+     * Zadnje spremembe velikosti poola, najnovejša prva.
+     */
+    public List<Decision> getDecisions() {
+        return new ArrayList<>(decisions);
+    }
+
+    /**
+     * Nova velikost poola glede na signale ali null, če sprememba ni potrebna.
+     *
+     * @param cpuLoad delež obremenitve CPU (0.0 - 1.0); negativna vrednost pomeni, da ni znana
+     */
+    Decision decide(int size, int active, int queued, long maxQueueWaitMillis, double cpuLoad) {
+        TaskomirProperties.AdaptivePool config = taskomirProperties.getAdaptivePool();
+        int min = Math.max(1, config.getMinSize());
+        int max = Math.max(min, config.getMaxSize());
+        boolean cpuKnown = cpuLoad >= 0;
+        boolean cpuSaturated = cpuKnown && cpuLoad > config.getMaxCpuLoad();
+
+        if (size < min || size > max) {
+            return decision(size, Math.min(max, Math.max(min, size)), "outside of " + min + ".." + max);
+        }
+        if (cpuSaturated && size > min) {
+            return decision(size, Math.max(min, size - Math.max(1, size / 4)),
+                    String.format("CPU load %.0f%% above %.0f%%", cpuLoad * 100, config.getMaxCpuLoad() * 100));
+        }
+        if (queued > 0 && maxQueueWaitMillis > config.getTargetQueueWait().toMillis() && !cpuSaturated && size < max) {
+            return decision(size, Math.min(max, size + Math.max(1, size / 2)),
+                    String.format("%d queued, waited up to %s (target %s)", queued,
+                            formatMillis(maxQueueWaitMillis), formatMillis(config.getTargetQueueWait().toMillis())));
+        }
+        if (queued == 0 && active < size / 2 && size > min) {
+            int target = Math.max(min, active);
+            return decision(size, size - Math.max(1, (size - target) / 2),
+                    String.format("queue empty, %d of %d threads busy", active, size));
+        }
+        return null;
+    }
+
+    private void apply(Decision decision) {
+        int to = decision.getTo();
+        PoolSizing.setPoolSize(executor, to);
+        decisions.addFirst(decision);
+        while (decisions.size() > HISTORY_SIZE) {
+            decisions.pollLast();
+        }
+        metrics.poolResized(decision.getFrom(), to, decision.getReason());
+        log.info("Pool size {} -> {}: {}", decision.getFrom(), to, decision.getReason());
+
+        // Samo stanje poola: nastavitve, ki jih je medtem zapisala druga instanca, ostanejo
+        lockStore.updatePoolSize("PRIMARY", taskomirProperties.getInstanceId(), to, decision.getAt(), decision.getReason());
+    }
+
+    private static Decision decision(int from, int to, String reason) {
+        return from == to ? null : new Decision(System.currentTimeMillis(), from, to, reason);
+    }
+
+    private double cpuLoad() {
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            double load = sunOs.getCpuLoad();
+            if (load >= 0) {
+                return load;
+            }
+        }
+        double average = os.getSystemLoadAverage();
+        return average >= 0 ? Math.min(1.0, average / os.getAvailableProcessors()) : -1;
+    }
+
+    private static String formatMillis(long millis) {
+        return Duration.ofMillis(millis).toString().substring(2).toLowerCase();
+    }
+
+    @Value
+    public static class Decision {
+        long at;
+        int from;
+        int to;
+        String reason;
+    }
+}
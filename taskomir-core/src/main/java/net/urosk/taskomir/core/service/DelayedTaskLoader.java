@@ -0,0 +1,74 @@
+package net.urosk.taskomir.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.TaskStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Prevzem zakasnjenih nalog (runAt), ki jih ne čaka noben časovnik, npr. po restartu ali vrnitvi ob zaustavitvi.
+ * Primarna instanca periodično prevzame paket zapadlih nalog ({@link TaskStore#claimDue}) in jih odda v svoj pool.
+ * Workflow naloge nadaljuje {@link WorkflowService}; otroci cron masterjev in kosi vzporednih nalog so FAILED.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "taskomir.primary", havingValue = "true", matchIfMissing = true)
+public class DelayedTaskLoader {
+
+    // Časovnik lastnika nalogo prevzame ob runAt; šele po tem zamiku velja za osirotelo
+    private static final long OVERDUE_GRACE_MILLIS = 5_000;
+
+    private final TaskStore taskStore;
+    private final TaskLifecycleService taskLifecycleService;
+    private final TaskomirProperties taskomirProperties;
+
+    public DelayedTaskLoader(TaskStore taskStore,
+                             TaskLifecycleService taskLifecycleService,
+                             TaskomirProperties taskomirProperties) {
+        this.taskStore = taskStore;
+        this.taskLifecycleService = taskLifecycleService;
+        this.taskomirProperties = taskomirProperties;
+    }
+
+    @Scheduled(fixedDelayString = "#{@taskomirProperties.delayedCheckInterval.toMillis()}")
+    public void loadOverdueTasks() {
+        if (taskLifecycleService.isDraining()) {
+            return;
+        }
+        long until = System.currentTimeMillis() - OVERDUE_GRACE_MILLIS;
+        int loaded = 0;
+        for (TaskInfo task : taskStore.claimDue(until, taskLifecycleService.overdueDelayedTaskIds(until),
+                taskomirProperties.getDelayedBatchSize())) {
+            if (task.getParentId() != null) {
+                taskLifecycleService.updateTask(task, TaskStatus.FAILED, false, "Not resumed after restart, parent is not running");
+                continue;
+            }
+            ProgressTask progressTask;
+            try {
+                progressTask = taskLifecycleService.instantiateTask(task.getClassName());
+            } catch (Exception | LinkageError e) {
+                log.warn("Delayed task {} cannot be re-created: {}", task.getId(), e.toString());
+                taskLifecycleService.updateTask(task, TaskStatus.FAILED, false, "Cannot re-create task: " + e.getMessage());
+                continue;
+            }
+            try {
+                taskLifecycleService.submit(task, progressTask);
+                loaded++;
+            } catch (RejectedExecutionException e) {
+                // Pool je poln ali se ustavlja: naloga ostane zapadla za naslednji prevzem
+                log.warn("Overdue task {} not submitted: {}", task.getId(), e.getMessage());
+                taskStore.transition(task.getId(), TaskStatus.PROCESSING, TaskStatus.ENQUEUED);
+            }
+        }
+        if (loaded > 0) {
+            log.info("Picked up {} overdue delayed tasks", loaded);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package net.urosk.taskomir.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ParallelTask;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.TaskStore;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Izvajanje {@link ParallelTask}: split na klicni niti, map kosov na poolu, reduce kot zadnji korak parent naloge.
+ * Hkrati teče največ {@code parallelism} kosov; napredek se v parent zapiše največ enkrat na
+ * {@code parallelProgressInterval}.
+ */
+@Service
+@Slf4j
+public class ParallelTaskService {
+
+    static final double MAP_SHARE = 0.9;
+
+    private final TaskStore taskStore;
+    private final TaskLifecycleService taskLifecycleService;
+    private final TaskomirProperties taskomirProperties;
+
+    public ParallelTaskService(TaskStore taskStore,
+                               TaskLifecycleService taskLifecycleService,
+                               TaskomirProperties taskomirProperties) {
+        this.taskStore = taskStore;
+        this.taskLifecycleService = taskLifecycleService;
+        this.taskomirProperties = taskomirProperties;
+    }
+
+    /**
+     * Stanje ene vzporedne naloge.
+     */
+    private static final class Run<C, R> {
+        final TaskInfo parent;
+        final ParallelTask<C, R> task;
+        final List<C> chunks;
+        final List<TaskInfo> children = new ArrayList<>();
+        final AtomicReferenceArray<R> results;
+        final AtomicLongArray progress;
+        final double[] weights;
+        final double totalWeight;
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicLong lastFlush = new AtomicLong(System.currentTimeMillis());
+        final CompletableFuture<TaskInfo> completion = new CompletableFuture<>();
+        boolean closed;
+
+        Run(TaskInfo parent, ParallelTask<C, R> task, List<C> chunks) {
+            this.parent = parent;
+            this.task = task;
+            this.chunks = chunks;
+            this.results = new AtomicReferenceArray<>(chunks.size());
+            this.progress = new AtomicLongArray(chunks.size());
+            this.weights = new double[chunks.size()];
+            double total = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                weights[i] = Math.max(0, task.weight(chunks.get(i)));
+                total += weights[i];
+            }
+            this.totalWeight = total;
+        }
+
+        double mapProgress() {
+            if (totalWeight <= 0) {
+                return (double) finished.get() / Math.max(1, chunks.size());
+            }
+            double sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i] * Double.longBitsToDouble(progress.get(i));
+            }
+            return sum / totalWeight;
+        }
+    }
+
+    /**
+     * Shrani parent nalogo in njene kose ter odda prve kose v izvajanje.
+     * Future vrne shranjen parent, ko je v statusu SUCCEEDED ali FAILED; njegov preklic (tudi prek
+     * {@link TaskLifecycleService#cancelTask(String)} za parent) prekliče še nedokončane kose.
+     */
+    public <C, R> CompletableFuture<TaskInfo> enqueue(String taskName, ParallelTask<C, R> task) {
+        TaskInfo parent = new TaskInfo(taskLifecycleService.newTaskId(), taskName);
+        parent.setClassName(task.getClass().getName());
+        parent.setStatus(TaskStatus.ENQUEUED);
+        taskStore.save(parent);
+
+        List<C> chunks;
+        try {
+            chunks = new ArrayList<>(task.split());
+        } catch (Exception e) {
+            log.error("Splitting parallel task {} failed", parent.getId(), e);
+            taskLifecycleService.updateTask(parent, TaskStatus.FAILED, false, "Split failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(taskLifecycleService.storedWithStatus(parent, TaskStatus.FAILED));
+        }
+
+        Run<C, R> run = new Run<>(parent, task, chunks);
+        for (int i = 0; i < chunks.size(); i++) {
+            TaskInfo child = new TaskInfo(taskLifecycleService.newTaskId(), taskName + " [" + (i + 1) + "/" + chunks.size() + "]");
+            child.setParentId(parent.getId());
+            child.setClassName(task.getClass().getName());
+            child.setStatus(TaskStatus.ENQUEUED);
+            taskStore.save(child);
+            run.children.add(child);
+        }
+        parent.setCurrentProgress("0/" + chunks.size() + " chunks");
+        taskLifecycleService.updateTask(parent, TaskStatus.PROCESSING, true);
+        log.info("Parallel task {} split into {} chunks", parent.getId(), chunks.size());
+
+        if (chunks.isEmpty()) {
+            reduce(run);
+            return run.completion;
+        }
+        // Parent nima niti, dokler tečejo kosi: brez zapisa bi ga watchdog štel za osirotelega
+        taskLifecycleService.track(parent.getId(), run.completion);
+        run.completion.whenComplete((info, error) -> {
+            if (run.completion.isCancelled()) {
+                cancelChunks(run);
+            }
+        });
+        int parallelism = task.parallelism() > 0 ? task.parallelism() : taskLifecycleService.getPoolSize();
+        for (int i = 0; i < Math.min(parallelism, chunks.size()); i++) {
+            submitNext(run);
+        }
+        return run.completion;
+    }
+
+    /**
+     * Odda naslednji kos; po napaki preostalih kosov ne zaganja več, ampak jih označi kot FAILED
+     * (po preklicu parenta kot DELETED).
+     */
+    private <C, R> void submitNext(Run<C, R> run) {
+        int index;
+        while ((index = run.next.getAndIncrement()) < run.chunks.size()) {
+            if (run.completion.isCancelled()) {
+                taskLifecycleService.cancelTask(run.children.get(index).getId());
+            } else if (!run.failed.get()) {
+                launch(run, index);
+                return;
+            } else {
+                taskLifecycleService.updateTask(run.children.get(index), TaskStatus.FAILED, false, "Skipped, another chunk failed");
+            }
+            chunkFinished(run, index, false);
+        }
+    }
+
+    private <C, R> void launch(Run<C, R> run, int index) {
+        C chunk = run.chunks.get(index);
+        ProgressTask chunkTask = updater ->
+                run.results.set(index, run.task.map(chunk, updater.withListener(p -> report(run, index, p))));
+        try {
+            taskLifecycleService.submit(run.children.get(index), chunkTask)
+                    .whenComplete((status, error) -> {
+                        chunkFinished(run, index, error == null && status == TaskStatus.SUCCEEDED);
+                        submitNext(run);
+                    });
+            if (run.completion.isCancelled()) {
+                // Parent preklican med oddajo tega kosa
+                taskLifecycleService.cancelTask(run.children.get(index).getId());
+            }
+        } catch (RuntimeException e) {
+            // Npr. RejectedExecutionException, ko je vrsta polna
+            log.error("Could not submit chunk {} of parallel task {}: {}", index, run.parent.getId(), e.getMessage());
+            taskLifecycleService.updateTask(run.children.get(index), TaskStatus.FAILED, false, e.getMessage());
+            chunkFinished(run, index, false);
+            submitNext(run);
+        }
+    }
+
+    private <C, R> void report(Run<C, R> run, int index, double progress) {
+        run.progress.set(index, Double.doubleToRawLongBits(progress));
+        flush(run);
+    }
+
+    private <C, R> void chunkFinished(Run<C, R> run, int index, boolean succeeded) {
+        if (succeeded) {
+            run.progress.set(index, Double.doubleToRawLongBits(1.0));
+        } else {
+            run.failures.incrementAndGet();
+            run.failed.set(true);
+        }
+        if (run.finished.incrementAndGet() == run.chunks.size()) {
+            if (run.completion.isCancelled()) {
+                log.info("Parallel task {} cancelled", run.parent.getId());
+            } else if (run.failed.get()) {
+                fail(run);
+            } else {
+                reduce(run);
+            }
+        } else {
+            flush(run);
+        }
+    }
+
+    /**
+     * Zapiše agregiran napredek v parent, a največ enkrat na interval.
+     */
+    private <C, R> void flush(Run<C, R> run) {
+        long now = System.currentTimeMillis();
+        long last = run.lastFlush.get();
+        if (now - last < taskomirProperties.getParallelProgressInterval().toMillis() || !run.lastFlush.compareAndSet(last, now)) {
+            return;
+        }
+        synchronized (run.parent) {
+            if (run.closed) {
+                return;
+            }
+            run.parent.setProgress(MAP_SHARE * run.mapProgress());
+            run.parent.setCurrentProgress(run.finished.get() + "/" + run.chunks.size() + " chunks");
+            taskLifecycleService.updateTask(run.parent, TaskStatus.PROCESSING, true);
+        }
+    }
+
+    /**
+     * Prekliče kose, ki so že oddani; preostale ob oddaji preskoči {@link #submitNext(Run)}.
+     */
+    private <C, R> void cancelChunks(Run<C, R> run) {
+        int launched = Math.min(run.next.get(), run.chunks.size());
+        for (int i = 0; i < launched; i++) {
+            String childId = run.children.get(i).getId();
+            if (taskLifecycleService.getRunningTasks().containsKey(childId)) {
+                taskLifecycleService.cancelTask(childId);
+            }
+        }
+    }
+
+    private <C, R> void fail(Run<C, R> run) {
+        synchronized (run.parent) {
+            run.closed = true;
+            run.parent.setProgress(MAP_SHARE * run.mapProgress());
+            run.parent.setCurrentProgress(run.finished.get() + "/" + run.chunks.size() + " chunks");
+            taskLifecycleService.updateTask(run.parent, TaskStatus.FAILED, false,
+                    run.failures.get() + " of " + run.chunks.size() + " chunks failed");
+        }
+        log.warn("Parallel task {} failed, {} chunks failed", run.parent.getId(), run.failures.get());
+        run.completion.complete(taskLifecycleService.storedWithStatus(run.parent, TaskStatus.FAILED));
+    }
+
+    /**
+     * Reduce teče kot parent naloga sama, zato jo TaskLifecycleService zaključi z SUCCEEDED/FAILED.
+     */
+    private <C, R> void reduce(Run<C, R> run) {
+        List<R> results = new ArrayList<>(run.chunks.size());
+        for (int i = 0; i < run.chunks.size(); i++) {
+            results.add(run.results.get(i));
+        }
+        synchronized (run.parent) {
+            run.closed = true;
+            run.parent.setProgress(MAP_SHARE);
+            run.parent.setCurrentProgress("Reducing " + run.chunks.size() + " results");
+        }
+        try {
+            taskLifecycleService.submit(run.parent, updater -> run.task.reduce(results, updater.scaled(MAP_SHARE, 1.0)))
+                    .whenComplete((status, error) -> run.completion.complete(taskLifecycleService.storedWithStatus(run.parent,
+                            error == null ? status : error instanceof CancellationException ? TaskStatus.DELETED : TaskStatus.FAILED)));
+        } catch (RuntimeException e) {
+            log.error("Could not submit reduce of parallel task {}: {}", run.parent.getId(), e.getMessage());
+            taskLifecycleService.updateTask(run.parent, TaskStatus.FAILED, false, e.getMessage());
+            run.completion.complete(taskLifecycleService.storedWithStatus(run.parent, TaskStatus.FAILED));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package net.urosk.taskomir.core.service;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Sprememba velikosti poola med delovanjem; core in max sta vedno enaka.
+ */
+final class PoolSizing {
+
+    private PoolSizing() {
+    }
+
+    static void setPoolSize(ThreadPoolExecutor executor, int size) {
+        // Vrstni red, da core nikoli ni večji od max
+        if (size > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+    }
+}
@@ -3,17 +3,25 @@ package net.urosk.taskomir.core.service;
 import lombok.extern.slf4j.Slf4j;
 import net.urosk.taskomir.core.config.TaskomirProperties;
 import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ChildEnqueueResult;
 import net.urosk.taskomir.core.lib.TaskStatus;
-import net.urosk.taskomir.core.repository.TaskInfoRepository;
+import net.urosk.taskomir.core.metrics.SchedulerStats;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.storage.TaskStore;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * This class is responsible for periodically checking the database for scheduled tasks that are ready to run
@@ -35,49 +43,76 @@ import java.util.List;
 @Service
 @Slf4j
 @ConditionalOnProperty(name="taskomir.primary", havingValue="true", matchIfMissing = true)
-public class ScheduledTaskChecker {
+public class ScheduledTaskChecker implements SchedulingConfigurer {
 
-    private final TaskInfoRepository repository;
+    private final TaskStore taskStore;
     private final TaskLifecycleService taskLifecycleService;
     private final TaskomirProperties taskomirProperties;
+    private final TaskomirMetrics metrics;
+    private final SchedulerStats schedulerStats;
 
-    public ScheduledTaskChecker(TaskInfoRepository repository,
+    public ScheduledTaskChecker(TaskStore taskStore,
                                 TaskLifecycleService taskLifecycleService,
-                                TaskomirProperties taskomirProperties) {
-        this.repository = repository;
+                                TaskomirProperties taskomirProperties,
+                                @Autowired(required = false) TaskomirMetrics metrics,
+                                SchedulerStats schedulerStats) {
+        this.taskStore = taskStore;
         this.taskLifecycleService = taskLifecycleService;
         this.taskomirProperties = taskomirProperties;
+        this.metrics = metrics != null ? metrics : TaskomirMetrics.NOOP;
+        this.schedulerStats = schedulerStats;
     }
+    /**
+     * Čiščenje se registrira s sprožilcem namesto z {@code @Scheduled}, ker se {@code cleanupInterval} lahko spremeni
+     * med delovanjem (TaskomirSettingsService); interval se prebere ob vsakem prehodu.
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addTriggerTask(this::cleanupOldTasks, context -> {
+            Instant last = context.lastCompletion();
+            return last == null ? Instant.now() : last.plus(taskomirProperties.getCleanupInterval());
+        });
+    }
+
     /**
      * Metoda se proži na podlagi konfiguracije (`cleanupInterval`).
      */
-    @Scheduled(fixedDelayString = "#{@taskomirProperties.cleanupInterval.toMillis()}")
     public void cleanupOldTasks() {
 
         log.debug("Cleaning up old tasks");
+        long start = System.nanoTime();
         long now = System.currentTimeMillis();
+        int softDeleted = 0;
+        int removed = 0;
 
         // 1) Avtomatsko prepis SUCCEEDED => DELETED po X sekundah
         long succeededThreshold = now - taskomirProperties.getSucceededRetentionTime().toMillis();
-        List<TaskInfo> succeeded = repository.findByStatusOrderByCreatedAtDesc(TaskStatus.SUCCEEDED);
+        List<TaskInfo> succeeded = taskStore.findByStatus(TaskStatus.SUCCEEDED);
         for (TaskInfo task : succeeded) {
             if (task.getEndedAt() != null && task.getEndedAt() < succeededThreshold) {
                 task.setStatus(TaskStatus.DELETED);
                 task.setDeletedAt(System.currentTimeMillis());
-                repository.save(task);
+                taskStore.save(task);
+                softDeleted++;
                 log.info("Auto-deleted SUCCEEDED task {}", task.getId());
             }
         }
 
         // 2) Popolni izbris DELETED nalog, starejših od Y sekund
         long deletedThreshold = now - taskomirProperties.getDeletedRetentionTime().toMillis();
-        List<TaskInfo> deleted = repository.findByStatusOrderByCreatedAtDesc(TaskStatus.DELETED);
+        List<TaskInfo> deleted = taskStore.findByStatus(TaskStatus.DELETED);
+        List<String> removedIds = new ArrayList<>();
         for (TaskInfo task : deleted) {
             if (task.getDeletedAt() != null && task.getDeletedAt() < deletedThreshold) {
-                repository.delete(task);
+                taskStore.delete(task);
+                removedIds.add(task.getId());
+                removed++;
                 log.info("Physically removed old DELETED task {}", task.getId());
             }
         }
+        // Rezultat (ResultTask) živi toliko kot naloga
+        taskLifecycleService.deleteResults(removedIds);
+        metrics.cleanupCompleted(System.nanoTime() - start, softDeleted, removed);
     }
     /**
      * Periodično preveri, ali obstaja SCHEDULED naloga, katere 'next execution time' je že pretekel.
@@ -87,11 +122,16 @@ public class ScheduledTaskChecker {
     public void checkScheduledTasks() {
 
         log.debug("Checking scheduled tasks...");
+        long passStart = System.nanoTime();
         long nowMillis = System.currentTimeMillis();
         Instant nowInstant = Instant.ofEpochMilli(nowMillis);
+        int evaluated = 0;
+        int created = 0;
+        int skipped = 0;
+        long maxLag = 0;
 
         // 1) Poiščemo vse master naloge v statusu SCHEDULED
-        List<TaskInfo> scheduledList = repository.findByStatusOrderByCreatedAtDesc(TaskStatus.SCHEDULED);
+        List<TaskInfo> scheduledList = taskStore.findByStatus(TaskStatus.SCHEDULED);
 
         for (TaskInfo master : scheduledList) {
             String cronExpr = master.getCronExpression();
@@ -99,6 +139,7 @@ public class ScheduledTaskChecker {
                 // Če ni crona, ni kaj delati
                 continue;
             }
+            evaluated++;
 
             try {
                 CronExpression cron = CronExpression.parse(cronExpr);
@@ -118,14 +159,32 @@ public class ScheduledTaskChecker {
                 Instant nextInstant = nextValid.atZone(ZoneId.systemDefault()).toInstant();
                 if (!nextInstant.isAfter(nowInstant)) {
                     // Čas je za nov child zagon
-                    taskLifecycleService.enqueueNewChildOf(master);
+                    ChildEnqueueResult result = taskLifecycleService.enqueueNewChildOf(master);
                     master.setLastRunTime(nowMillis);
-                    repository.save(master);
+                    taskStore.save(master);
+
+                    if (result == ChildEnqueueResult.CREATED) {
+                        created++;
+                    } else if (result == ChildEnqueueResult.SKIPPED_ACTIVE) {
+                        skipped++;
+                    }
+                    if (result != null) {
+                        // Prvi zagon (brez lastRunTime) bi pokazal zamik od epohe: štejemo ga, zamika pa ne
+                        long lagMillis = lastRun != null ? nowMillis - nextInstant.toEpochMilli() : -1;
+                        maxLag = Math.max(maxLag, lagMillis);
+                        metrics.masterFired(master, lagMillis, result);
+                        schedulerStats.recordFire(master, lagMillis, result);
+                    }
                 }
 
             } catch (Exception e) {
                 log.error("Error processing cron for task {}: {}", master.getId(), e.getMessage(), e);
             }
         }
+
+        long duration = System.nanoTime() - passStart;
+        schedulerStats.retainMasters(scheduledList.stream().map(TaskInfo::getId).collect(Collectors.toSet()));
+        metrics.schedulerPassCompleted(duration, evaluated);
+        schedulerStats.recordPass(nowMillis, duration, evaluated, created, skipped, maxLag);
     }
 }
@@ -0,0 +1,141 @@
+package net.urosk.taskomir.core.service;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ob zagonu primarne instance uredi naloge, ki so ostale ENQUEUED ali PROCESSING po nečisti zaustavitvi.
+ * Naloge, ki ne tečejo na tej instanci, se v paketih po {@code taskomir.recovery.batchSize} vrnejo v ENQUEUED ali
+ * označijo kot FAILED ({@code taskomir.recovery.action}). Otroci cron masterjev in kosi vzporednih nalog so vedno FAILED;
+ * zakasnjene naloge ostanejo {@link DelayedTaskLoader}, workflow naloge {@link WorkflowService}.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "taskomir.primary", havingValue = "true", matchIfMissing = true)
+public class StartupRecovery {
+
+    private final TaskStore taskStore;
+    private final TaskLifecycleService taskLifecycleService;
+    private final TaskomirProperties taskomirProperties;
+
+    public StartupRecovery(TaskStore taskStore,
+                           TaskLifecycleService taskLifecycleService,
+                           TaskomirProperties taskomirProperties) {
+        this.taskStore = taskStore;
+        this.taskLifecycleService = taskLifecycleService;
+        this.taskomirProperties = taskomirProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        if (taskomirProperties.getRecovery().isEnabled()) {
+            recover();
+        }
+    }
+
+    /**
+     * En prehod čez vse ENQUEUED in PROCESSING naloge.
+     */
+    public Result recover() {
+        TaskomirProperties.Recovery config = taskomirProperties.getRecovery();
+        TaskomirProperties.WatchdogAction action = config.getAction() != null
+                ? config.getAction() : taskomirProperties.getWatchdog().getAction();
+        long start = System.currentTimeMillis();
+        long[] scanned = new long[1];
+        int[] requeued = new int[1];
+        int[] failed = new int[1];
+        // Število osirotelih nalog po lastniku, za log
+        Map<String, Integer> byOwner = new TreeMap<>();
+
+        taskStore.forEachBatch(List.of(TaskStatus.ENQUEUED, TaskStatus.PROCESSING), Math.max(1, config.getBatchSize()), batch -> {
+            scanned[0] += batch.size();
+            Map<TaskStatus, List<TaskUpdate>> requeues = new EnumMap<>(TaskStatus.class);
+            Map<TaskStatus, List<TaskUpdate>> failures = new EnumMap<>(TaskStatus.class);
+            for (TaskInfo task : batch) {
+                if (!isOrphan(task)) {
+                    continue;
+                }
+                String owner = task.getOwnerInstanceId() != null ? task.getOwnerInstanceId() : "unknown";
+                byOwner.merge(owner, 1, Integer::sum);
+                boolean requeue = action == TaskomirProperties.WatchdogAction.REQUEUE && task.getParentId() == null;
+                (requeue ? requeues : failures).computeIfAbsent(task.getStatus(), status -> new ArrayList<>())
+                        .add(requeue ? requeued(task, owner) : failed(task, owner));
+            }
+            requeues.forEach((status, updates) -> requeued[0] += taskStore.updateAll(updates, status));
+            failures.forEach((status, updates) -> failed[0] += taskStore.updateAll(updates, status));
+        });
+
+        Result result = new Result(scanned[0], requeued[0], failed[0]);
+        if (result.getRequeued() + result.getFailed() > 0) {
+            log.warn("Recovered {} orphaned tasks in {} ms ({} re-queued, {} failed), by owner: {}",
+                    result.getRequeued() + result.getFailed(), System.currentTimeMillis() - start,
+                    result.getRequeued(), result.getFailed(), byOwner);
+        } else {
+            log.info("No orphaned tasks found ({} active tasks checked in {} ms)", result.getScanned(),
+                    System.currentTimeMillis() - start);
+        }
+        return result;
+    }
+
+    private boolean isOrphan(TaskInfo task) {
+        if (task.getWorkflowId() != null || taskLifecycleService.getRunningTasks().containsKey(task.getId())) {
+            return false;
+        }
+        // Zakasnjena naloga (ali že vrnjena ob zaustavitvi) čaka na DelayedTaskLoader
+        return !(task.getStatus() == TaskStatus.ENQUEUED && task.getRunAt() != null);
+    }
+
+    private TaskUpdate requeued(TaskInfo task, String owner) {
+        return TaskUpdate.builder()
+                .taskId(task.getId())
+                .status(TaskStatus.ENQUEUED)
+                .running(false)
+                .progress(task.getProgress())
+                .currentProgress(task.getCurrentProgress())
+                .error(task.getError())
+                .runAt(System.currentTimeMillis())
+                .logLines(List.of(logLine("re-queued", owner)))
+                .build();
+    }
+
+    private TaskUpdate failed(TaskInfo task, String owner) {
+        return TaskUpdate.builder()
+                .taskId(task.getId())
+                .status(TaskStatus.FAILED)
+                .running(false)
+                .progress(task.getProgress())
+                .currentProgress(task.getCurrentProgress())
+                .error("Instance " + owner + " stopped before the task finished")
+                .endedAt(System.currentTimeMillis())
+                .logLines(List.of(logLine("failed", owner)))
+                .build();
+    }
+
+    private String logLine(String outcome, String owner) {
+        return String.format("[%s] Found orphaned on startup of %s (owner %s), %s", LocalDateTime.now(),
+                taskomirProperties.getInstanceId(), owner, outcome);
+    }
+
+    @Value
+    public static class Result {
+        long scanned;
+        int requeued;
+        int failed;
+    }
+}
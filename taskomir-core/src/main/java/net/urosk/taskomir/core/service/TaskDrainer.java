@@ -0,0 +1,105 @@
+package net.urosk.taskomir.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Urejena zaustavitev primarne instance: pool se izprazni, nedokončane naloge se vrnejo v ENQUEUED.
+ * Tekoče naloge imajo {@code taskomir.drainTimeout} za dokončanje in nato {@code taskomir.drainHandOffGrace}, da se
+ * ustavijo same; šele potem se prekinejo. Naloge prevzame naslednja primarna instanca ({@link DelayedTaskLoader}).
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "taskomir.primary", havingValue = "true", matchIfMissing = true)
+public class TaskDrainer implements SmartLifecycle {
+
+    private final ThreadPoolExecutor executor;
+    private final TaskLifecycleService taskLifecycleService;
+    private final TaskomirProperties taskomirProperties;
+
+    private volatile boolean running;
+
+    public TaskDrainer(@Autowired(required = false) ThreadPoolExecutor executor,
+                       TaskLifecycleService taskLifecycleService,
+                       TaskomirProperties taskomirProperties) {
+        this.executor = executor;
+        this.taskLifecycleService = taskLifecycleService;
+        this.taskomirProperties = taskomirProperties;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        try {
+            drain();
+        } finally {
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Po ustavitvi spletnega strežnika (DEFAULT_PHASE - 2048), da medtem ne prihajajo nove naloge
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Ustavi sprejem nalog, počaka na tekoče do {@code drainTimeout} in vrne nedokončane v ENQUEUED.
+     *
+     * @return število vrnjenih nalog
+     */
+    public int drain() {
+        if (executor == null || taskLifecycleService.isDraining()) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        Duration timeout = taskomirProperties.getDrainTimeout();
+        log.info("Draining task pool: {} running, {} queued, waiting up to {}", executor.getActiveCount(),
+                executor.getQueue().size(), timeout);
+        taskLifecycleService.startDraining();
+        executor.shutdown();
+
+        boolean terminated = awaitTermination(timeout);
+        // Pred shutdownNow: prekinjene naloge morajo biti že vrnjene, da njihova napaka ne prepiše ENQUEUED
+        int handedOff = taskLifecycleService.handOffUnfinished();
+        if (!terminated) {
+            // Naloge, ki preverjajo isCancellationRequested(), se ustavijo same; prekinemo samo preostale
+            terminated = awaitTermination(taskomirProperties.getDrainHandOffGrace());
+        }
+        if (!terminated) {
+            executor.shutdownNow();
+        }
+        log.info("Task pool drained in {} ms, {} tasks handed back as ENQUEUED", System.currentTimeMillis() - start,
+                handedOff);
+        return handedOff;
+    }
+
+    private boolean awaitTermination(Duration timeout) {
+        if (timeout == null || Thread.currentThread().isInterrupted()) {
+            return executor.isTerminated();
+        }
+        try {
+            return executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return executor.isTerminated();
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package net.urosk.taskomir.core.service;
 
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
 import net.urosk.taskomir.core.domain.TaskInfo;
 import net.urosk.taskomir.core.lib.*;
-import net.urosk.taskomir.core.repository.TaskInfoRepository;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.payload.TaskPayload;
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import net.urosk.taskomir.core.storage.TaskUpdateWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.MessageSource;
@@ -15,34 +20,125 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 @Service
 @Slf4j
 public class TaskLifecycleService {
 
-    private final TaskInfoRepository repository;
+    private final TaskStore taskStore;
     private final ThreadPoolExecutor executorService;
     private final MessageSource messageSource;
-    private final ApplicationContext applicationContext;
+    private final TaskomirMetrics metrics;
+    // Če je nastavljen, se status in napredek zapisujeta asinhrono (taskomir.reactive-writes.enabled)
+    private final TaskUpdateWriter updateWriter;
+    // Omejitve hitrosti in sočasnosti po imenu ali razredu naloge (taskomir.rateLimits)
+    private final TaskRateLimiter rateLimiter;
+    // Rezultati nalog ResultTask
+    private final TaskResultService resultService;
+    // Parametri nalog (payload)
+    private final TaskPayloadService payloadService;
+    private final TaskIdGenerator idGenerator;
+    @Getter
+    private final TaskomirProperties taskomirProperties;
 
     // Beležimo vse, ki so trenutno v teku (ENQUEUED ali PROCESSING)
     @Getter
     private final ConcurrentHashMap<String, Future<?>> runningTasks = new ConcurrentHashMap<>();
 
-    public TaskLifecycleService(TaskInfoRepository repository,
+    // Niti, ki ta hip izvajajo nalogo (za prekinitev ob timeoutu), in razlogi za prekinjene naloge
+    private final ConcurrentHashMap<String, Thread> executingThreads = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> abortReasons = new ConcurrentHashMap<>();
+    // Preklicane naloge, ki se še izvajajo ali čakajo v vrsti poola; končajo same (ProgressUpdater.isCancellationRequested)
+    private final Set<String> cancellationRequests = ConcurrentHashMap.newKeySet();
+
+    // Instanca se ustavlja (TaskDrainer): novih nalog ne sprejema, naloge iz vrste se ne zaženejo več
+    private volatile boolean draining;
+    // Naloge, vrnjene v ENQUEUED ob zaustavitvi; nit, ki jih morda še izvaja, jih ne sme več prepisati
+    private final Set<String> handedOff = ConcurrentHashMap.newKeySet();
+    // Aktivni otroci master nalog za skipIfAlreadyRunning, da cron ob vsakem proženju ne bere otrok iz baze
+    private final ActiveChildIndex activeChildren = new ActiveChildIndex();
+    // Razredi nalog, razrešeni enkrat (bean ali konstruktor), za cron childe in obnovljene naloge
+    private final TaskTypeRegistry taskTypes;
+
+    // Pravila ponovnih poskusov iz EnqueueOptions (samo na tej instanci)
+    private final ConcurrentHashMap<String, RetryPolicy> retryPolicies = new ConcurrentHashMap<>();
+    // Časovnik za naloge z runAt (zakasnjene naloge in ponovni poskusi); naloga med čakanjem ne zaseda niti iz poola
+    private final ScheduledExecutorService delayScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "taskomir-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Naloge, ki čakajo v delaySchedulerju, po runAt; DelayedTaskLoader jih ne prevzema, ker jih časovnik zažene sam
+    private final ConcurrentSkipListSet<DelayedKey> delayedTasks = new ConcurrentSkipListSet<>();
+    // Najdaljše čakanje na nit od zadnjega branja (signal za AdaptivePoolController)
+    private final AtomicLong maxQueueWaitMillis = new AtomicLong();
+    // Work-stealing pool za delitev dela znotraj naloge (ProgressRecursiveTask); ločen od poola nalog, da čakanje
+    // na podnaloge ne zasede niti, ki izvajajo cele naloge
+    @Getter
+    private final ForkJoinPool forkJoinPool;
+
+    public TaskLifecycleService(TaskStore taskStore,
                                 @Autowired(required = false) ThreadPoolExecutor executorService,
                                 MessageSource messageSource,
-                                ApplicationContext applicationContext) {
-        this.repository = repository;
+                                ApplicationContext applicationContext,
+                                @Autowired(required = false) TaskomirMetrics metrics,
+                                @Autowired(required = false) TaskUpdateWriter updateWriter,
+                                @Autowired(required = false) TaskRateLimiter rateLimiter,
+                                @Autowired(required = false) TaskResultService resultService,
+                                @Autowired(required = false) TaskPayloadService payloadService,
+                                @Autowired(required = false) TaskIdGenerator idGenerator,
+                                TaskomirProperties taskomirProperties) {
+        this.taskStore = taskStore;
         this.executorService = executorService;
         this.messageSource = messageSource;
-        this.applicationContext = applicationContext;
+        this.taskTypes = new TaskTypeRegistry(applicationContext);
+        this.metrics = metrics != null ? metrics : TaskomirMetrics.NOOP;
+        this.updateWriter = updateWriter;
+        if (updateWriter != null) {
+            // Asinhroni zapis napredka izve za preklic na drugi instanci šele iz baze
+            updateWriter.setCancellationListener(cancellationRequests::add);
+        }
+        this.taskomirProperties = taskomirProperties != null ? taskomirProperties : new TaskomirProperties();
+        this.rateLimiter = rateLimiter != null ? rateLimiter : new TaskRateLimiter(this.taskomirProperties, null);
+        this.resultService = resultService != null ? resultService : new TaskResultService(null, this.taskomirProperties);
+        this.payloadService = payloadService != null ? payloadService : new TaskPayloadService(null, this.taskomirProperties);
+        if (idGenerator != null) {
+            this.idGenerator = idGenerator;
+        } else if (this.taskomirProperties.getTaskIdFormat() == TaskomirProperties.TaskIdFormat.RANDOM_UUID) {
+            this.idGenerator = TaskIdGenerator.randomUuid();
+        } else {
+            this.idGenerator = new TimeOrderedTaskIdGenerator();
+        }
+        int parallelism = this.taskomirProperties.getForkJoinParallelism();
+        this.forkJoinPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("taskomir-fj-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdownDelayed() {
+        delayScheduler.shutdownNow();
+        forkJoinPool.shutdownNow();
     }
 
     /**
@@ -53,18 +149,53 @@ public class TaskLifecycleService {
                                         ProgressTask progressTask,
                                         String cronExpression,
                                         boolean skipIfAlreadyRunning) {
+        return createScheduledTask(taskName, progressTask, cronExpression, skipIfAlreadyRunning, null);
+    }
+
+    /**
+     * Kot zgoraj, a z idempotencyKey: če SCHEDULED master s tem ključem že obstaja, se vrne ta (brez tekme find-then-create).
+     */
+    public TaskInfo createScheduledTask(String taskName,
+                                        ProgressTask progressTask,
+                                        String cronExpression,
+                                        boolean skipIfAlreadyRunning,
+                                        String idempotencyKey) {
+        return createScheduledTask(taskName, progressTask, cronExpression, skipIfAlreadyRunning, idempotencyKey, null);
+    }
+
+    /**
+     * Kot zgoraj, s payloadom, ki ga dobi vsak child ({@link ProgressUpdater#payload(Class)}).
+     *
+     * @throws IllegalArgumentException če je payload večji od {@code taskomir.payload.maxSize}
+     */
+    public TaskInfo createScheduledTask(String taskName,
+                                        ProgressTask progressTask,
+                                        String cronExpression,
+                                        boolean skipIfAlreadyRunning,
+                                        String idempotencyKey,
+                                        Object payload) {
         // Preveri, če je veljaven cron (vrže izjemo, če ne)
         CronExpression.parse(cronExpression);
 
-        String masterId = UUID.randomUUID().toString();
+        String masterId = newTaskId();
         TaskInfo masterTask = new TaskInfo(masterId, taskName);
         masterTask.setStatus(TaskStatus.SCHEDULED);
         masterTask.setCronExpression(cronExpression);
         // className == klasa implementacije (lahko Spring bean ali plain)
         masterTask.setClassName(progressTask.getClass().getName());
         masterTask.setSkipIfAlreadyRunning(skipIfAlreadyRunning);
+        masterTask.setIdempotencyKey(idempotencyKey);
+        payloadService.write(masterTask, payload);
 
-        repository.save(masterTask);
+        if (idempotencyKey == null) {
+            taskStore.save(masterTask);
+        } else {
+            Optional<TaskInfo> existing = insertUnique(masterTask, master -> master.getStatus() == TaskStatus.SCHEDULED);
+            if (existing.isPresent()) {
+                log.info("Master SCHEDULED task {} already exists for key {}", existing.get().getId(), idempotencyKey);
+                return existing.get();
+            }
+        }
 
         log.info("Master SCHEDULED task {} created with cron {}", masterId, cronExpression);
         return masterTask;
@@ -74,40 +205,113 @@ public class TaskLifecycleService {
      * Za enkraten zagon brez crona.
      */
     public CompletableFuture<TaskInfo> enqueue(String taskName, ProgressTask task) {
-        String taskId = UUID.randomUUID().toString();
+        return enqueue(taskName, task, EnqueueOptions.DEFAULT);
+    }
+
+    /**
+     * Enkraten zagon ob danem času; do takrat naloga čaka v statusu ENQUEUED z nastavljenim runAt.
+     */
+    public CompletableFuture<TaskInfo> enqueueAt(String taskName, ProgressTask task, Instant runAt) {
+        return enqueue(taskName, task, EnqueueOptions.builder().runAt(runAt).build());
+    }
+
+    /**
+     * Enkraten zagon z nastavitvami. Pri idempotencyKey se ponovna oddaja znotraj okna (idempotencyWindow,
+     * null = brez omejitve) ne izvede znova; vrne se future obstoječe naloge. Z runAt naloga počaka na dani čas.
+     */
+    public CompletableFuture<TaskInfo> enqueue(String taskName, ProgressTask task, EnqueueOptions options) {
+        if (draining) {
+            throw new RejectedExecutionException("Taskomir instance " + taskomirProperties.getInstanceId() + " is shutting down");
+        }
+        String taskId = newTaskId();
 
         TaskInfo taskInfo = new TaskInfo(taskId, taskName);
         taskInfo.setClassName(task.getClass().getName());
         taskInfo.setStatus(TaskStatus.ENQUEUED);
-        repository.save(taskInfo);
-
-
-        CompletableFuture<TaskInfo> future = CompletableFuture.supplyAsync(() -> {
-            updateTask(taskInfo, TaskStatus.PROCESSING, true);
-            try {
-                ProgressUpdater updater = new ProgressUpdater(taskInfo, this);
-                task.execute(updater);
-                taskInfo.setProgress(1.0);
-                updateTask(taskInfo, TaskStatus.SUCCEEDED, false);
-                return taskInfo; // Vrne TaskInfo
-            } catch (Exception e) {
-                updateTask(taskInfo, TaskStatus.FAILED, false, e.getMessage());
+        taskInfo.setOwnerInstanceId(taskomirProperties.getInstanceId());
+        taskInfo.setIdempotencyKey(options.getIdempotencyKey());
+        payloadService.write(taskInfo, options.getPayload());
+        if (options.getTimeout() != null) {
+            taskInfo.setTimeoutMillis(options.getTimeout().toMillis());
+        }
+        if (options.getRunAt() != null) {
+            taskInfo.setRunAt(options.getRunAt().toEpochMilli());
+        }
+        if (options.getIdempotencyKey() == null) {
+            taskStore.save(taskInfo);
+        } else {
+            long since = options.getIdempotencyWindow() != null
+                    ? taskInfo.getCreatedAt() - options.getIdempotencyWindow().toMillis()
+                    : Long.MIN_VALUE;
+            Optional<TaskInfo> duplicate = insertUnique(taskInfo,
+                    existing -> existing.getCreatedAt() != null && existing.getCreatedAt() >= since);
+            if (duplicate.isPresent()) {
+                log.info("Task {} with key {} already submitted, not enqueuing again", duplicate.get().getId(),
+                        options.getIdempotencyKey());
+                return futureOf(duplicate.get());
             }
+        }
+        if (options.getRetryPolicy() != null) {
+            retryPolicies.put(taskId, options.getRetryPolicy());
+        }
 
-            return taskInfo;
-
-        }, executorService);
+        CompletableFuture<TaskStatus> outcome = taskInfo.getRunAt() != null
+                ? runLater(taskInfo, task)
+                : runAttempts(taskInfo, task);
+        // Vrne shranjen TaskInfo, ko je naloga končana (po zadnjem poskusu); lokalni objekt status ne spremlja
+        CompletableFuture<TaskInfo> future = outcome.thenApply(status -> storedWithStatus(taskInfo, status));
 
         runningTasks.put(taskId, future);
-        log.info("Enqueued task {}", taskId);
+        metrics.taskEnqueued(taskInfo);
+        if (taskInfo.getRunAt() != null) {
+            log.info("Enqueued task {} to run at {}", taskId, Instant.ofEpochMilli(taskInfo.getRunAt()));
+        } else {
+            log.info("Enqueued task {}", taskId);
+        }
         return future;
     }
 
+    /**
+     * Shranjena naloga s končnim statusom; pri asinhronem zapisu se pred branjem zapišejo njene čakajoče spremembe.
+     */
+    TaskInfo storedWithStatus(TaskInfo taskInfo, TaskStatus status) {
+        flushPending(taskInfo.getId());
+        TaskInfo stored = taskStore.findById(taskInfo.getId()).orElse(taskInfo);
+        stored.setStatus(status);
+        return stored;
+    }
+
+    /**
+     * Vstavi nalogo z idempotencyKey. Če ključ že ima naloga, ki je {@code reusable}, vrne njo; sicer ji ključ
+     * odvzame (npr. je izven okna) in nalogo vstavi.
+     */
+    private Optional<TaskInfo> insertUnique(TaskInfo taskInfo, Predicate<TaskInfo> reusable) {
+        String key = taskInfo.getIdempotencyKey();
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Optional<TaskInfo> owner = taskStore.insertIfAbsent(taskInfo);
+            if (owner.isEmpty() || reusable.test(owner.get())) {
+                return owner;
+            }
+            taskStore.clearIdempotencyKey(owner.get().getId(), key);
+        }
+        throw new IllegalStateException("Could not claim idempotency key " + key);
+    }
+
+    /**
+     * Future obstoječe naloge: če teče na tej instanci, se zaključi ob koncu izvajanja, sicer takoj.
+     */
+    private CompletableFuture<TaskInfo> futureOf(TaskInfo existing) {
+        if (runningTasks.get(existing.getId()) instanceof CompletableFuture<?> running) {
+            return running.handle((result, error) -> taskStore.findById(existing.getId()).orElse(existing));
+        }
+        return CompletableFuture.completedFuture(existing);
+    }
+
     /**
      * Kliče se iz ScheduledTaskChecker, ko cron definicija pravi, da je čas za nov "child".
      * Preveri skipIfAlreadyRunning, ustvari (ali dobi) instanco logic (Spring bean?), zažene child.
      */
-    public void enqueueNewChildOf(TaskInfo masterTask) {
+    public ChildEnqueueResult enqueueNewChildOf(TaskInfo masterTask) {
         if (masterTask.isSkipIfAlreadyRunning() && hasActiveChild(masterTask)) {
             String msg = messageSource.getMessage(
                     "child.skip.active",
@@ -115,65 +319,411 @@ public class TaskLifecycleService {
                     LocaleContextHolder.getLocale()
             );
             log.debug(msg);
-            return;
+            return ChildEnqueueResult.SKIPPED_ACTIVE;
         }
 
         AbstractScheduledTask logic = buildScheduledTask(masterTask);
         if (logic == null) {
             // Napaka pri kreiranju => označi master kot FAILED
             updateTask(masterTask, TaskStatus.FAILED, false, "Error instantiating scheduled task");
-            return;
+            return ChildEnqueueResult.FAILED;
         }
         enqueueNewChildOf(masterTask, logic);
+        return ChildEnqueueResult.CREATED;
     }
 
     /**
      * Sprejme konkretno ProgressTask instanco in jo zažene kot child.
      */
     public void enqueueNewChildOf(TaskInfo masterTask, ProgressTask progressTask) {
-        String childId = UUID.randomUUID().toString();
+        String childId = newTaskId();
         TaskInfo child = new TaskInfo(childId, masterTask.getName() + " [CHILD]");
         child.setParentId(masterTask.getId());
         child.setStatus(TaskStatus.ENQUEUED);
         child.setClassName(masterTask.getClassName());
-        repository.save(child);
+        child.setOwnerInstanceId(taskomirProperties.getInstanceId());
+        // Payload mastra se kopira nespremenjen, brez ponovnega kodiranja
+        child.setPayload(masterTask.getPayload());
+        child.setPayloadCodec(masterTask.getPayloadCodec());
+        child.setPayloadType(masterTask.getPayloadType());
+        taskStore.save(child);
+        activeChildren.childEnqueued(masterTask.getId(), childId);
 
-        Future<?> future = executorService.submit(() -> {
-            updateTask(child, TaskStatus.PROCESSING, true);
-            try {
-                ProgressUpdater updater = new ProgressUpdater(child, this);
-                progressTask.execute(updater);
-                child.setProgress(1.0);
-                updateTask(child, TaskStatus.SUCCEEDED, false);
-            } catch (Exception e) {
-                updateTask(child, TaskStatus.FAILED, false, e.getMessage());
-            }
-        });
+        Future<?> future = rateLimiter.isLimited(child)
+                ? runAttempts(child, progressTask)
+                : executorService.submit(() -> runTask(child, progressTask));
 
         runningTasks.put(childId, future);
+        metrics.taskEnqueued(child);
         log.info("Enqueued child {} for master {}", childId, masterTask.getId());
     }
 
     /**
-     * Poskusi pridobiti Spring bean iz className, sicer navadno newInstance.
+     * Zažene nalogo, ki je že shranjena (npr. workflow naloga v statusu ENQUEUED).
+     * Future vrne končni status (SUCCEEDED ali FAILED); ob preklicu se zaključi s CancellationException.
      */
-    private AbstractScheduledTask buildScheduledTask(TaskInfo masterTask) {
-        try {
-            String className = masterTask.getClassName();
-            Class<?> clz = Class.forName(className);
+    public CompletableFuture<TaskStatus> submit(TaskInfo taskInfo, ProgressTask task) {
+        CompletableFuture<TaskStatus> future = runAttempts(taskInfo, task);
+        runningTasks.put(taskInfo.getId(), future);
+        metrics.taskEnqueued(taskInfo);
+        log.info("Submitted task {}", taskInfo.getId());
+        return future;
+    }
 
-            if (!AbstractScheduledTask.class.isAssignableFrom(clz)) {
-                log.error("Class {} is not a AbstractScheduledTask", className);
-                return null;
+    /**
+     * Zabeleži nalogo, ki teče brez lastne niti (npr. parent vzporedne naloge med map fazo), med tekoče naloge te
+     * instance: watchdog je ne šteje za osirotelo, {@link #cancelTask(String)} pa prekliče podani future.
+     * Zapis se odstrani, ko gre naloga v SUCCEEDED/FAILED.
+     */
+    public void track(String taskId, Future<?> future) {
+        runningTasks.put(taskId, future);
+    }
+
+    /**
+     * Id-ji nalog, ki čakajo v časovniku te instance in so zapadle do {@code until}. Časovnik jih prevzame sam,
+     * zato jih {@link DelayedTaskLoader} izpusti iz svojega prevzema.
+     */
+    public Set<String> overdueDelayedTaskIds(long until) {
+        Set<String> ids = new HashSet<>();
+        for (DelayedKey key : delayedTasks) {
+            if (key.runAt() > until) {
+                break;
             }
+            ids.add(key.taskId());
+        }
+        return ids;
+    }
+
+    /**
+     * Skupno izvajanje naloge na niti iz poola: PROCESSING => SUCCEEDED/FAILED.
+     */
+    private void runTask(TaskInfo taskInfo, ProgressTask task) {
+        if (executeTask(taskInfo, task) == TaskStatus.ENQUEUED) {
+            runLater(taskInfo, task);
+        }
+    }
+
+    /**
+     * Izvede poskus na poolu; če je načrtovan ponovni poskus, ga izvede po zamiku. Future vrne končni status.
+     * Naloga z omejitvijo hitrosti počaka na dovoljenje, preden dobi nit.
+     */
+    private CompletableFuture<TaskStatus> runAttempts(TaskInfo taskInfo, ProgressTask task) {
+        CompletableFuture<Void> permit = rateLimiter.acquire(taskInfo);
+        CompletableFuture<TaskStatus> attempt = permit.isDone()
+                // Takoj: zavrnitev polnega poola gre do klicatelja kot prej
+                ? startAttempt(taskInfo, task)
+                : permit.thenCompose(granted -> startPermittedAttempt(taskInfo, task));
+        return attempt.thenCompose(status -> status == TaskStatus.ENQUEUED
+                ? runLater(taskInfo, task)
+                : CompletableFuture.completedFuture(status));
+    }
+
+    private CompletableFuture<TaskStatus> startAttempt(TaskInfo taskInfo, ProgressTask task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> executeTask(taskInfo, task), executorService)
+                    .whenComplete((status, e) -> rateLimiter.release(taskInfo));
+        } catch (RejectedExecutionException e) {
+            rateLimiter.release(taskInfo);
+            throw e;
+        }
+    }
+
+    /**
+     * Zagon po čakanju na omejitev: naloga je bila morda medtem preklicana, zavrnitve ni več mogoče vrniti klicatelju.
+     */
+    private CompletableFuture<TaskStatus> startPermittedAttempt(TaskInfo taskInfo, ProgressTask task) {
+        if (draining) {
+            // Pool je ustavljen; nalogo je že vrnil handOffUnfinished
+            rateLimiter.release(taskInfo);
+            return CompletableFuture.completedFuture(TaskStatus.ENQUEUED);
+        }
+        TaskStatus current = taskStore.findById(taskInfo.getId()).map(TaskInfo::getStatus).orElse(null);
+        if (current == TaskStatus.DELETED) {
+            cancellationRequests.remove(taskInfo.getId());
+            rateLimiter.release(taskInfo);
+            return CompletableFuture.completedFuture(current);
+        }
+        try {
+            return startAttempt(taskInfo, task);
+        } catch (RejectedExecutionException e) {
+            log.error("Rate-limited task {} rejected: {}", taskInfo.getId(), e.getMessage());
+            updateTask(taskInfo, TaskStatus.FAILED, false, e.getMessage());
+            return CompletableFuture.completedFuture(TaskStatus.FAILED);
+        }
+    }
 
-            AbstractScheduledTask logic;
+    /**
+     * Počaka do {@code runAt} v delaySchedulerju, nalogo prevzame (ENQUEUED => PROCESSING) in jo odda v pool.
+     * Če je bila naloga medtem preklicana, izbrisana ali jo je prevzela druga instanca, se ne izvede in
+     * future vrne njen trenutni status. Med zaustavitvijo naloga ostane ENQUEUED z runAt, prevzame jo
+     * {@link DelayedTaskLoader} na naslednji primarni instanci.
+     */
+    private CompletableFuture<TaskStatus> runLater(TaskInfo taskInfo, ProgressTask task) {
+        CompletableFuture<TaskStatus> next = new CompletableFuture<>();
+        if (draining) {
+            next.complete(TaskStatus.ENQUEUED);
+            return next;
+        }
+        // cancelTask med čakanjem prekliče ta future
+        runningTasks.put(taskInfo.getId(), next);
+        DelayedKey key = new DelayedKey(taskInfo.getRunAt(), taskInfo.getId());
+        delayedTasks.add(key);
+        long delay = Math.max(0, taskInfo.getRunAt() - System.currentTimeMillis());
+        delayScheduler.schedule(() -> {
             try {
-                logic = (AbstractScheduledTask) applicationContext.getBean(clz);
-            } catch (NoSuchBeanDefinitionException e) {
-                logic = (AbstractScheduledTask) clz.getDeclaredConstructor().newInstance();
+                startDelayed(taskInfo, task, next);
+            } finally {
+                // Šele po prehodu v PROCESSING, da je DelayedTaskLoader medtem ne prevzame
+                delayedTasks.remove(key);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        return next;
+    }
+
+    private void startDelayed(TaskInfo taskInfo, ProgressTask task, CompletableFuture<TaskStatus> next) {
+        if (next.isDone()) {
+            cancellationRequests.remove(taskInfo.getId());
+            return;
+        }
+        if (draining) {
+            next.complete(TaskStatus.ENQUEUED);
+            return;
+        }
+        if (!taskStore.transition(taskInfo.getId(), TaskStatus.ENQUEUED, TaskStatus.PROCESSING)) {
+            next.complete(taskStore.findById(taskInfo.getId()).map(TaskInfo::getStatus).orElse(TaskStatus.DELETED));
+            return;
+        }
+        try {
+            runAttempts(taskInfo, task).whenComplete((status, e) -> {
+                if (e != null) {
+                    next.completeExceptionally(e);
+                } else {
+                    next.complete(status);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Delayed task {} rejected: {}", taskInfo.getId(), e.getMessage());
+            updateTask(taskInfo, TaskStatus.FAILED, false, e.getMessage());
+            next.complete(TaskStatus.FAILED);
+        }
+    }
+
+    /**
+     * Izvede en poskus: PROCESSING => SUCCEEDED/FAILED, ali ENQUEUED, če pravilo ponovnih poskusov predvidi nov poskus.
+     */
+    private TaskStatus executeTask(TaskInfo taskInfo, ProgressTask task) {
+        if (cancellationRequests.remove(taskInfo.getId())) {
+            // Preklicana, medtem ko je čakala v vrsti poola
+            return TaskStatus.DELETED;
+        }
+        if (draining) {
+            // Čakala je v vrsti poola, ko se je instanca začela ustavljati
+            handOff(taskInfo.getId());
+            return TaskStatus.ENQUEUED;
+        }
+        long queuedSince = taskInfo.getRunAt() != null ? taskInfo.getRunAt() : taskInfo.getCreatedAt();
+        long queueWait = System.currentTimeMillis() - queuedSince;
+        metrics.taskStarted(taskInfo, queueWait);
+        maxQueueWaitMillis.accumulateAndGet(queueWait, Math::max);
+        long start = System.nanoTime();
+        String taskId = taskInfo.getId();
+        executingThreads.put(taskId, Thread.currentThread());
+        CompletableFuture<Void> deadline = scheduleTimeout(taskInfo);
+        updateTask(taskInfo, TaskStatus.PROCESSING, true);
+        TaskStatus finalStatus;
+        String error = null;
+        Exception failure = null;
+        try {
+            ProgressUpdater updater = new ProgressUpdater(taskInfo, this);
+            if (task instanceof ResultTask<?> resultTask) {
+                Object result = resultTask.compute(updater);
+                // Pred statusom SUCCEEDED, da klicatelj ob koncu naloge rezultat že najde; izid po preklicu se zavrže
+                if (!isCancellationRequested(taskId) && !abortReasons.containsKey(taskId)) {
+                    resultService.save(taskId, result);
+                }
+            } else {
+                task.execute(updater);
             }
+            finalStatus = TaskStatus.SUCCEEDED;
+        } catch (Exception e) {
+            finalStatus = TaskStatus.FAILED;
+            error = e.getMessage();
+            failure = e;
+        } finally {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            // Po odstranitvi abort() niti ne more več prekiniti
+            executingThreads.remove(taskId);
+        }
+        if (cancellationRequests.remove(taskId)) {
+            // Preklicana med izvajanjem: status DELETED je že zapisan, izid poskusa zavržemo
+            retryPolicies.remove(taskId);
+            log.info("Task {} stopped after cancellation", taskId);
+            return TaskStatus.DELETED;
+        }
+        if (handedOff.remove(taskId)) {
+            // Vrnjena v vrsto ob zaustavitvi: izid poskusa zavržemo, nalogo nadaljuje naslednja primarna instanca
+            abortReasons.remove(taskId);
+            Thread.interrupted();
+            retryPolicies.remove(taskId);
+            log.info("Task {} stopped after hand-off", taskId);
+            return TaskStatus.ENQUEUED;
+        }
+        String abortReason = abortReasons.remove(taskId);
+        if (abortReason != null) {
+            // Prekinjena (timeout, watchdog): zastavico počistimo, da se ne prenese na naslednjo nalogo v poolu
+            Thread.interrupted();
+            finalStatus = TaskStatus.FAILED;
+            error = abortReason;
+        } else if (failure != null && scheduleRetry(taskInfo, task, failure)) {
+            return TaskStatus.ENQUEUED;
+        }
+        retryPolicies.remove(taskId);
+        if (finalStatus == TaskStatus.SUCCEEDED) {
+            taskInfo.setProgress(1.0);
+            updateTask(taskInfo, TaskStatus.SUCCEEDED, false);
+        } else {
+            updateTask(taskInfo, TaskStatus.FAILED, false, error);
+        }
+        metrics.taskCompleted(taskInfo, finalStatus, System.nanoTime() - start);
+        return finalStatus;
+    }
 
+    /**
+     * Po neuspelem poskusu preveri pravilo ponovnih poskusov. Če sledi nov poskus, nalogo vrne v ENQUEUED
+     * z {@code runAt} in zapisom v attemptHistory; zamik nato prevzame {@link #runLater}.
+     */
+    private boolean scheduleRetry(TaskInfo taskInfo, ProgressTask task, Exception failure) {
+        RetryPolicy policy = retryPolicyOf(taskInfo, task);
+        int attempt = taskInfo.getAttempt() != null ? taskInfo.getAttempt() : 1;
+        // Prekinjena nit pomeni preklic (cancelTask), ne napake
+        if (failure instanceof InterruptedException || !policy.shouldRetry(failure, attempt)) {
+            return false;
+        }
+        Duration delay = policy.delayAfter(attempt);
+        String line = String.format("[%s] Attempt %d/%d failed: %s - next attempt in %s",
+                LocalDateTime.now(), attempt, policy.getMaxAttempts(), failure, formatDuration(delay));
+
+        taskInfo.setAttempt(attempt + 1);
+        taskInfo.setMaxAttempts(policy.getMaxAttempts());
+        taskInfo.setRunAt(System.currentTimeMillis() + delay.toMillis());
+        taskInfo.setProgress(0.0);
+        taskInfo.setCurrentProgress(null);
+        taskInfo.addAttemptHistory(line);
+
+        // Čakajoči asinhroni zapisi napredka ne smejo prepisati ENQUEUED
+        flushPending(taskInfo.getId());
+        TaskInfo stored = taskStore.findById(taskInfo.getId()).orElse(taskInfo);
+        stored.setStatus(TaskStatus.ENQUEUED);
+        stored.setRunning(false);
+        stored.setError(failure.getMessage());
+        stored.setProgress(0.0);
+        stored.setCurrentProgress(null);
+        stored.setAttempt(taskInfo.getAttempt());
+        stored.setMaxAttempts(taskInfo.getMaxAttempts());
+        stored.setRunAt(taskInfo.getRunAt());
+        stored.setAttemptHistory(new ArrayList<>(taskInfo.getAttemptHistory()));
+        stored.addLogLine(line);
+        taskStore.save(stored);
+
+        metrics.taskRetryScheduled(taskInfo, attempt, delay.toMillis());
+        log.warn("Task {} attempt {}/{} failed ({}), retrying in {}", taskInfo.getId(), attempt,
+                policy.getMaxAttempts(), failure.getMessage(), formatDuration(delay));
+        return true;
+    }
+
+    /**
+     * Pravilo iz EnqueueOptions, sicer iz razreda naloge, sicer privzeto iz {@code taskomir.retry}.
+     */
+    private RetryPolicy retryPolicyOf(TaskInfo taskInfo, ProgressTask task) {
+        RetryPolicy policy = retryPolicies.get(taskInfo.getId());
+        if (policy == null) {
+            policy = task.retryPolicy();
+        }
+        if (policy != null) {
+            return policy;
+        }
+        TaskomirProperties.Retry retry = taskomirProperties.getRetry();
+        return RetryPolicy.builder()
+                .maxAttempts(retry.getMaxAttempts())
+                .initialDelay(retry.getInitialDelay())
+                .multiplier(retry.getMultiplier())
+                .maxDelay(retry.getMaxDelay())
+                .jitter(retry.getJitter())
+                .build();
+    }
+
+    private static String formatDuration(Duration duration) {
+        return duration.toString().substring(2).toLowerCase();
+    }
+
+    private CompletableFuture<Void> scheduleTimeout(TaskInfo taskInfo) {
+        Duration defaultTimeout = taskomirProperties.getDefaultTaskTimeout();
+        long timeoutMillis = taskInfo.getTimeoutMillis() != null ? taskInfo.getTimeoutMillis()
+                : defaultTimeout != null ? defaultTimeout.toMillis() : 0;
+        if (timeoutMillis <= 0) {
+            return null;
+        }
+        String reason = "Timed out after " + formatDuration(Duration.ofMillis(timeoutMillis));
+        return CompletableFuture.runAsync(() -> abort(taskInfo.getId(), reason),
+                CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Prekine nit, ki izvaja nalogo, in nalogo označi kot FAILED z danim razlogom.
+     * Naloga mora biti prekinljiva (blokirajoč I/O brez timeouta nit lahko zadrži tudi po prekinitvi),
+     * status pa je FAILED v vsakem primeru in nadaljnje posodobitve napredka se ignorirajo.
+     *
+     * @return true, če je naloga na tej instanci ravno v izvajanju
+     */
+    public boolean abort(String taskId, String reason) {
+        boolean[] interrupted = new boolean[1];
+        executingThreads.computeIfPresent(taskId, (id, thread) -> {
+            abortReasons.putIfAbsent(id, reason);
+            thread.interrupt();
+            interrupted[0] = true;
+            return thread;
+        });
+        if (interrupted[0]) {
+            log.warn("Task {} aborted: {}", taskId, reason);
+            taskStore.findById(taskId).ifPresent(info -> updateTask(info, TaskStatus.FAILED, false, reason));
+        }
+        return interrupted[0];
+    }
+
+    /**
+     * Trenutna velikost poola (lahko se spreminja, glej {@link AdaptivePoolController}).
+     */
+    public int getPoolSize() {
+        return executorService != null ? executorService.getCorePoolSize() : taskomirProperties.getPoolSize();
+    }
+
+    /**
+     * Najdaljši čas od zapadlosti do začetka izvajanja med nalogami, ki so začele od prejšnjega klica; ponastavi
+     * vrednost na 0.
+     */
+    public long takeMaxQueueWaitMillis() {
+        return maxQueueWaitMillis.getAndSet(0);
+    }
+
+    /**
+     * Ali nalogo ta hip izvaja nit te instance.
+     */
+    public boolean isExecuting(String taskId) {
+        return executingThreads.containsKey(taskId);
+    }
+
+    /**
+     * Poskusi pridobiti Spring bean iz className, sicer konstruktor brez argumentov.
+     */
+    private AbstractScheduledTask buildScheduledTask(TaskInfo masterTask) {
+        try {
+            ProgressTask task = instantiateTask(masterTask.getClassName());
+            if (!(task instanceof AbstractScheduledTask logic)) {
+                log.error("Class {} is not a AbstractScheduledTask", masterTask.getClassName());
+                return null;
+            }
             logic.setTaskInfo(masterTask);
             return logic;
 
@@ -183,15 +733,31 @@ public class TaskLifecycleService {
         }
     }
 
+    /**
+     * Ustvari ProgressTask iz imena razreda: Spring bean, če obstaja, sicer konstruktor brez argumentov.
+     * Razred se razreši ob prvi uporabi ({@link TaskTypeRegistry}). Lambde in anonimni razredi niso podprti.
+     */
+    ProgressTask instantiateTask(String className) throws ReflectiveOperationException {
+        return taskTypes.newInstance(className);
+    }
+
     /**
      * Preveri, ali obstaja aktiven child (ENQUEUED ali PROCESSING).
+     * Običajen primer (prejšnji child je končan) odgovori indeks te instance brez poizvedbe; neznan master ali
+     * master z aktivnim otrokom preveri baza z eno poizvedbo z omejitvijo 1.
      */
     private boolean hasActiveChild(TaskInfo master) {
-        List<TaskInfo> activeChildren = repository.findByParentIdAndStatusIn(
+        if (Boolean.FALSE.equals(activeChildren.hasActiveChild(master.getId()))) {
+            return false;
+        }
+        boolean active = taskStore.existsByParentIdAndStatusIn(
                 master.getId(),
                 Arrays.asList(TaskStatus.ENQUEUED, TaskStatus.PROCESSING)
         );
-        return !activeChildren.isEmpty();
+        if (!active) {
+            activeChildren.markEmpty(master.getId());
+        }
+        return active;
     }
 
     /**
@@ -202,19 +768,43 @@ public class TaskLifecycleService {
     }
 
     public void updateTask(TaskInfo taskInfo, TaskStatus newStatus, boolean running, String error) {
-        TaskInfo stored = repository.findById(taskInfo.getId()).orElse(null);
+        if (newStatus == TaskStatus.PROCESSING && abortReasons.containsKey(taskInfo.getId())) {
+            // Prekinjena naloga, ki še poroča napredek, ne sme prepisati FAILED
+            return;
+        }
+        if (newStatus != TaskStatus.DELETED && cancellationRequests.contains(taskInfo.getId())) {
+            // Preklicana naloga, ki še teče, ne sme prepisati DELETED
+            return;
+        }
+        if (handedOff.contains(taskInfo.getId())) {
+            // Vrnjena v vrsto ob zaustavitvi: ENQUEUED ostane, dokler je ne prevzame druga instanca
+            return;
+        }
+        if (taskInfo.getParentId() != null && (newStatus == TaskStatus.SUCCEEDED || newStatus == TaskStatus.FAILED
+                || newStatus == TaskStatus.DELETED)) {
+            activeChildren.childFinished(taskInfo.getParentId(), taskInfo.getId());
+        }
+        if (updateWriter != null) {
+            writeUpdateAsync(taskInfo, newStatus, running, error);
+            return;
+        }
+        long start = System.nanoTime();
+        TaskInfo stored = taskStore.findById(taskInfo.getId()).orElse(null);
+        if (stored != null && stored.getStatus() == TaskStatus.DELETED && newStatus == TaskStatus.PROCESSING) {
+            // Preklicana na drugi instanci: naloga to izve ob naslednjem napredku
+            cancellationRequests.add(taskInfo.getId());
+            return;
+        }
         if (stored != null) {
             stored.setProgress(taskInfo.getProgress());
             stored.setStatus(newStatus);
             stored.setCurrentProgress(taskInfo.getCurrentProgress());
-            //stored.addLogLine("[" + LocalDateTime.now() + "] Progress: " + (taskInfo.getProgress() * 100) + "%" + " - " + taskInfo.getCurrentProgress());
-
-            stored.addLogLine(String.format("[%s] Progress: %.2f%% - %s",
-                    LocalDateTime.now(),
-                    taskInfo.getProgress() * 100,
-                    taskInfo.getCurrentProgress() != null ? taskInfo.getCurrentProgress() : ""
-            ));
+            stored.addLogLine(progressLogLine(taskInfo));
 
+            if (newStatus == TaskStatus.PROCESSING) {
+                stored.setHeartbeatAt(System.currentTimeMillis());
+                stored.setOwnerInstanceId(taskomirProperties.getInstanceId());
+            }
             if (newStatus == TaskStatus.PROCESSING && stored.getStartedAt() == null) {
                 stored.setStartedAt(System.currentTimeMillis());
             } else if (newStatus == TaskStatus.SUCCEEDED || newStatus == TaskStatus.FAILED) {
@@ -226,7 +816,7 @@ public class TaskLifecycleService {
             if (newStatus == TaskStatus.DELETED) {
                 stored.setDeletedAt(System.currentTimeMillis());
             }
-            repository.save(stored);
+            taskStore.save(stored);
         } else {
             // fallback, če je ni v bazi
             taskInfo.setStatus(newStatus);
@@ -235,8 +825,171 @@ public class TaskLifecycleService {
             if (newStatus == TaskStatus.DELETED) {
                 taskInfo.setDeletedAt(System.currentTimeMillis());
             }
-            repository.save(taskInfo);
+            taskStore.save(taskInfo);
+        }
+        metrics.taskUpdateWritten(System.nanoTime() - start);
+    }
+
+    /**
+     * Enaka sprememba kot v updateTask, a brez branja iz baze: zapis prevzame {@link TaskUpdateWriter},
+     * nit naloge pa takoj nadaljuje z delom.
+     */
+    private void writeUpdateAsync(TaskInfo taskInfo, TaskStatus newStatus, boolean running, String error) {
+        long now = System.currentTimeMillis();
+        boolean finished = newStatus == TaskStatus.SUCCEEDED || newStatus == TaskStatus.FAILED;
+        if (finished) {
+            runningTasks.remove(taskInfo.getId());
+        }
+        updateWriter.write(TaskUpdate.builder()
+                .taskId(taskInfo.getId())
+                .status(newStatus)
+                .running(running)
+                .progress(taskInfo.getProgress())
+                .currentProgress(taskInfo.getCurrentProgress())
+                .error(error)
+                .startedAt(newStatus == TaskStatus.PROCESSING ? now : null)
+                .endedAt(finished ? now : null)
+                .deletedAt(newStatus == TaskStatus.DELETED ? now : null)
+                .heartbeatAt(newStatus == TaskStatus.PROCESSING ? now : null)
+                .ownerInstanceId(newStatus == TaskStatus.PROCESSING ? taskomirProperties.getInstanceId() : null)
+                .logLines(List.of(progressLogLine(taskInfo)))
+                .build());
+    }
+
+    /**
+     * Znak življenja dolge naloge brez spremembe napredka (in brez nove vrstice v logu), za watchdog.
+     */
+    public void heartbeat(TaskInfo taskInfo) {
+        if (abortReasons.containsKey(taskInfo.getId()) || cancellationRequests.contains(taskInfo.getId())
+                || handedOff.contains(taskInfo.getId())) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (updateWriter != null) {
+            updateWriter.write(TaskUpdate.builder()
+                    .taskId(taskInfo.getId())
+                    .status(TaskStatus.PROCESSING)
+                    .running(true)
+                    .progress(taskInfo.getProgress())
+                    .currentProgress(taskInfo.getCurrentProgress())
+                    .heartbeatAt(now)
+                    .build());
+            return;
+        }
+        taskStore.findById(taskInfo.getId()).ifPresent(stored -> {
+            stored.setHeartbeatAt(now);
+            taskStore.save(stored);
+        });
+    }
+
+    /**
+     * Ali je bila naloga preklicana ali ob zaustavitvi instance vrnjena v vrsto, medtem ko se izvaja. Dolge naloge to
+     * preverjajo med koraki in se končajo same, brez zanašanja na prekinitev niti.
+     */
+    public boolean isCancellationRequested(String taskId) {
+        return cancellationRequests.contains(taskId) || handedOff.contains(taskId);
+    }
+
+    /**
+     * Trajno shrani kontrolno točko naloge. Ob ponovnem poskusu ali ponovnem zagonu po izpadu jo naloga dobi prek
+     * {@link ProgressUpdater#lastCheckpoint()} in nadaljuje od tam. Zapis je sinhron; pred njim se zapišejo
+     * čakajoče asinhrone spremembe te naloge, da ga ne prepišejo.
+     */
+    public void checkpoint(TaskInfo taskInfo, String state) {
+        String taskId = taskInfo.getId();
+        if (abortReasons.containsKey(taskId) || cancellationRequests.contains(taskId) || handedOff.contains(taskId)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        taskInfo.setCheckpoint(state);
+        taskInfo.setCheckpointAt(now);
+        flushPending(taskId);
+        taskStore.findById(taskId).ifPresent(stored -> {
+            if (stored.getStatus() == TaskStatus.DELETED) {
+                cancellationRequests.add(taskId);
+                return;
+            }
+            stored.setCheckpoint(state);
+            stored.setCheckpointAt(now);
+            stored.setHeartbeatAt(now);
+            taskStore.save(stored);
+        });
+    }
+
+    /**
+     * Začetek zaustavitve: nove naloge se zavrnejo, naloge iz vrste poola in časovnika se ne zaženejo več.
+     */
+    public void startDraining() {
+        draining = true;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Vse nedokončane naloge te instance (v vrsti, v časovniku, v izvajanju) vrne v ENQUEUED z {@code runAt = now},
+     * da jih {@link DelayedTaskLoader} naslednje primarne instance prevzame in zažene znova. Kontrolna točka ostane,
+     * zato naloga nadaljuje od nje. Kliče se ob zaustavitvi, po {@link #startDraining()}.
+     *
+     * @return število vrnjenih nalog
+     */
+    public int handOffUnfinished() {
+        int count = 0;
+        for (String taskId : new ArrayList<>(runningTasks.keySet())) {
+            if (handOff(taskId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean handOff(String taskId) {
+        // Zastavica pred zapisom: napredek niti, ki nalogo še izvaja, ne prepiše ENQUEUED
+        if (!handedOff.add(taskId)) {
+            return false;
+        }
+        flushPending(taskId);
+        TaskInfo stored = taskStore.findById(taskId).orElse(null);
+        if (stored == null || (stored.getStatus() != TaskStatus.ENQUEUED && stored.getStatus() != TaskStatus.PROCESSING)) {
+            handedOff.remove(taskId);
+            return false;
         }
+        long now = System.currentTimeMillis();
+        boolean wasProcessing = stored.getStatus() == TaskStatus.PROCESSING;
+        stored.setStatus(TaskStatus.ENQUEUED);
+        stored.setRunning(false);
+        if (wasProcessing || stored.getRunAt() == null) {
+            stored.setRunAt(now);
+        }
+        stored.addLogLine(String.format("[%s] Handed back on shutdown of instance %s", LocalDateTime.now(),
+                taskomirProperties.getInstanceId()));
+        taskStore.save(stored);
+        runningTasks.remove(taskId);
+        if (!executingThreads.containsKey(taskId)) {
+            // Ne teče: nobena nit ne bo zastavice pobrala
+            handedOff.remove(taskId);
+        }
+        log.info("Task {} handed back as ENQUEUED{}", taskId, wasProcessing ? " (was running)" : "");
+        return true;
+    }
+
+    /**
+     * Pred sinhronim branjem in zapisom naloge počaka na njene čakajoče asinhrone spremembe (ne na spremembe drugih nalog).
+     */
+    private void flushPending(String taskId) {
+        if (updateWriter != null
+                && !updateWriter.flush(taskId, taskomirProperties.getReactiveWrites().getShutdownTimeout())) {
+            log.warn("Pending async updates of task {} were not written in time", taskId);
+        }
+    }
+
+    private static String progressLogLine(TaskInfo taskInfo) {
+        return String.format("[%s] Progress: %.2f%% - %s",
+                LocalDateTime.now(),
+                taskInfo.getProgress() * 100,
+                taskInfo.getCurrentProgress() != null ? taskInfo.getCurrentProgress() : ""
+        );
     }
 
     /**
@@ -245,17 +998,22 @@ public class TaskLifecycleService {
     public boolean cancelTask(String taskId) {
         Future<?> future = runningTasks.remove(taskId);
         if (future != null) {
+            // Zastavica pred cancel(): naloga, ki teče, jo vidi, preden je status DELETED zapisan
+            cancellationRequests.add(taskId);
             boolean cancelled = future.cancel(true);
             if (cancelled) {
-                TaskInfo info = repository.findById(taskId).orElse(null);
+                metrics.taskCancelled(taskId);
+                TaskInfo info = taskStore.findById(taskId).orElse(null);
                 if (info != null) {
                     updateTask(info, TaskStatus.DELETED, false);
                 }
+            } else {
+                cancellationRequests.remove(taskId);
             }
             return cancelled;
         } else {
             // Ni v runningTasks, vseeno označimo kot DELETED, če obstaja v bazi
-            TaskInfo info = repository.findById(taskId).orElse(null);
+            TaskInfo info = taskStore.findById(taskId).orElse(null);
             if (info != null) {
                 updateTask(info, TaskStatus.DELETED, false);
             }
@@ -265,29 +1023,69 @@ public class TaskLifecycleService {
 
     // Primer dodatnih metod
     public TaskInfo getTask(String id) {
-        return repository.findById(id).orElse(null);
+        return taskStore.findById(id).orElse(null);
     }
 
     public List<TaskInfo> getAllTasks() {
-        return repository.findAll();
+        return taskStore.findAll();
     }
 
     public Page<TaskInfo> getTasksByStatus(TaskStatus status, Pageable pageable) {
-        return repository.findByStatusOrderByCreatedAtDesc(status, pageable);
+        return taskStore.findByStatus(status, pageable);
+    }
+
+    public long countTasksByStatus(TaskStatus status) {
+        return taskStore.countByStatus(status);
     }
 
     public void deleteTasksByStatus(TaskStatus taskStatus) {
-        List<TaskInfo> tasks = repository.findByStatusOrderByCreatedAtDesc(taskStatus);
+        List<TaskInfo> tasks = taskStore.findByStatus(taskStatus);
         for (TaskInfo task : tasks) {
             runningTasks.remove(task.getId());
-            repository.delete(task);
+            taskStore.delete(task);
+            if (task.getParentId() != null) {
+                activeChildren.childFinished(task.getParentId(), task.getId());
+            }
+            activeChildren.forget(task.getId());
         }
+        resultService.delete(tasks.stream().map(TaskInfo::getId).toList());
         String msg = messageSource.getMessage("task.deleted", new Object[]{taskStatus}, LocaleContextHolder.getLocale());
         log.info(msg);
     }
 
+    /**
+     * Odstrani rezultate izbrisanih nalog (čiščenje starih nalog).
+     */
+    public void deleteResults(Collection<String> taskIds) {
+        resultService.delete(taskIds);
+    }
+
+    /**
+     * Nov id naloge ({@code taskomir.taskIdFormat} ali bean {@link TaskIdGenerator}).
+     */
+    public String newTaskId() {
+        return idGenerator.nextId();
+    }
+
+    /**
+     * Payload naloge (dekodira se ob prvem branju) ali null, če ga naloga nima.
+     */
+    public TaskPayload payloadOf(TaskInfo taskInfo) {
+        return payloadService.read(taskInfo);
+    }
+
     public Optional<TaskInfo> findByNameAndStatus(String taskName, TaskStatus taskStatus) {
-        return repository.findByNameAndStatus(taskName, taskStatus);
+        return taskStore.findByNameAndStatus(taskName, taskStatus);
     }
 
+    /**
+     * Zakasnjena naloga v časovniku, urejena po runAt.
+     */
+    private record DelayedKey(long runAt, String taskId) implements Comparable<DelayedKey> {
+        @Override
+        public int compareTo(DelayedKey other) {
+            int byTime = Long.compare(runAt, other.runAt);
+            return byTime != 0 ? byTime : taskId.compareTo(other.taskId);
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.payload.CborPayloadCodec;
+import net.urosk.taskomir.core.payload.JacksonPayloadCodec;
+import net.urosk.taskomir.core.payload.PayloadCodec;
+import net.urosk.taskomir.core.payload.TaskPayload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zapis in branje parametrov (payloada) nalog. Payload se kodira enkrat ob oddaji ({@code taskomir.payload.codec}),
+ * dekodira pa šele, ko ga naloga prebere ({@link TaskPayload}).
+ */
+@Service
+public class TaskPayloadService {
+
+    private final Map<String, PayloadCodec> codecs = new ConcurrentHashMap<>();
+    private final TaskomirProperties taskomirProperties;
+
+    public TaskPayloadService(@Autowired(required = false) List<PayloadCodec> customCodecs,
+                              TaskomirProperties taskomirProperties) {
+        this.taskomirProperties = taskomirProperties != null ? taskomirProperties : new TaskomirProperties();
+        register(JacksonPayloadCodec.json());
+        if (ClassUtils.isPresent("com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper", getClass().getClassLoader())) {
+            register(new CborPayloadCodec());
+        }
+        if (customCodecs != null) {
+            customCodecs.forEach(this::register);
+        }
+    }
+
+    private void register(PayloadCodec codec) {
+        codecs.put(codec.name(), codec);
+    }
+
+    /**
+     * Kodira payload v nalogo; null pobriše obstoječega.
+     *
+     * @throws IllegalArgumentException če kodek ne obstaja ali je payload večji od {@code taskomir.payload.maxSize}
+     */
+    public void write(TaskInfo taskInfo, Object payload) {
+        if (payload == null) {
+            taskInfo.setPayload(null);
+            taskInfo.setPayloadCodec(null);
+            taskInfo.setPayloadType(null);
+            return;
+        }
+        TaskomirProperties.Payload settings = taskomirProperties.getPayload();
+        PayloadCodec codec = codec(settings.getCodec());
+        byte[] data;
+        try {
+            data = codec.encode(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot encode payload " + payload.getClass().getName() + " with codec "
+                    + codec.name(), e);
+        }
+        if (data.length > settings.getMaxSize()) {
+            throw new IllegalArgumentException("Task payload is " + data.length + " bytes, taskomir.payload.maxSize is "
+                    + settings.getMaxSize());
+        }
+        taskInfo.setPayload(data);
+        taskInfo.setPayloadCodec(codec.name());
+        taskInfo.setPayloadType(payload.getClass().getName());
+    }
+
+    /**
+     * Payload naloge (še nedekodiran) ali null, če ga naloga nima.
+     */
+    public TaskPayload read(TaskInfo taskInfo) {
+        if (taskInfo.getPayload() == null) {
+            return null;
+        }
+        String name = taskInfo.getPayloadCodec() != null ? taskInfo.getPayloadCodec() : JacksonPayloadCodec.JSON;
+        return new TaskPayload(taskInfo.getPayload(), codec(name));
+    }
+
+    private PayloadCodec codec(String name) {
+        PayloadCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown payload codec '" + name + "', available: " + codecs.keySet());
+        }
+        return codec;
+    }
+}
@@ -0,0 +1,172 @@
+package net.urosk.taskomir.core.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.storage.RateLimitStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryRateLimitStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Omejevanje hitrosti in sočasnosti nalog po imenu ali razredu ({@code taskomir.rateLimits}).
+ * Naloga, ki čaka na prosto mesto ali žeton, ostane ENQUEUED in ne zaseda niti. Vedra s {@code shared=true} so v
+ * {@link RateLimitStore}, sočasnost pa je vedno omejena na instanco.
+ */
+@Service
+@Slf4j
+public class TaskRateLimiter {
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private final TaskomirProperties taskomirProperties;
+    // Deljena vedra (Mongo); null, če shramba tega ne podpira
+    private final RateLimitStore sharedStore;
+    private final RateLimitStore localStore = new InMemoryRateLimitStore();
+    private final ConcurrentHashMap<String, Slots> slots = new ConcurrentHashMap<>();
+    private final Set<String> warnedUnshared = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "taskomir-rate-limit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TaskRateLimiter(TaskomirProperties taskomirProperties,
+                           @Autowired(required = false) RateLimitStore sharedStore) {
+        this.taskomirProperties = taskomirProperties;
+        this.sharedStore = sharedStore;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Ali za nalogo velja kakšna omejitev.
+     */
+    public boolean isLimited(TaskInfo task) {
+        return limitKey(task) != null;
+    }
+
+    /**
+     * Future se zaključi, ko naloga sme v pool. Po izvedbi je treba klicati {@link #release(TaskInfo)}.
+     */
+    public CompletableFuture<Void> acquire(TaskInfo task) {
+        String key = limitKey(task);
+        if (key == null) {
+            return GRANTED;
+        }
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        tryAcquire(key, taskomirProperties.getRateLimits().get(key), permit);
+        return permit;
+    }
+
+    /**
+     * Sprosti mesto naloge in zbudi naslednjo, ki čaka na isto omejitev.
+     */
+    public void release(TaskInfo task) {
+        String key = limitKey(task);
+        Slots keySlots = key != null ? slots.get(key) : null;
+        if (keySlots != null && keySlots.leave()) {
+            keySlots.wakeOne();
+        }
+    }
+
+    private void tryAcquire(String key, TaskomirProperties.RateLimit limit, CompletableFuture<Void> permit) {
+        if (permit.isDone()) {
+            return;
+        }
+        Slots keySlots = slots.computeIfAbsent(key, k -> new Slots());
+        if (!keySlots.tryEnter(limit.getMaxConcurrency())) {
+            keySlots.waiters.add(() -> tryAcquire(key, limit, permit));
+            // Mesto se je lahko sprostilo, preden smo se uvrstili v vrsto
+            if (keySlots.hasRoom(limit.getMaxConcurrency())) {
+                keySlots.wakeOne();
+            }
+            return;
+        }
+        long wait = limit.getPermitsPerSecond() > 0
+                ? bucketStore(key, limit).tryAcquire(key, limit.getPermitsPerSecond(), Math.max(1, limit.getBurst()))
+                : 0;
+        if (wait > 0) {
+            // Mesto vrnemo; čakajoče na mesto zbudi šele naslednja zaključena naloga, saj tudi one nimajo žetona
+            keySlots.leave();
+            timer.schedule(() -> tryAcquire(key, limit, permit), wait, TimeUnit.MILLISECONDS);
+            return;
+        }
+        permit.complete(null);
+    }
+
+    private RateLimitStore bucketStore(String key, TaskomirProperties.RateLimit limit) {
+        if (!limit.isShared()) {
+            return localStore;
+        }
+        if (sharedStore == null) {
+            if (warnedUnshared.add(key)) {
+                log.warn("Rate limit {} is shared, but the task store cannot share it; limiting per instance", key);
+            }
+            return localStore;
+        }
+        return sharedStore;
+    }
+
+    private String limitKey(TaskInfo task) {
+        var limits = taskomirProperties.getRateLimits();
+        if (limits.isEmpty()) {
+            return null;
+        }
+        if (task.getName() != null && limits.containsKey(task.getName())) {
+            return task.getName();
+        }
+        if (task.getClassName() != null && limits.containsKey(task.getClassName())) {
+            return task.getClassName();
+        }
+        return null;
+    }
+
+    /**
+     * Zasedena mesta ene omejitve in naloge, ki čakajo na prosto mesto.
+     */
+    private static class Slots {
+        private final AtomicInteger running = new AtomicInteger();
+        private final ConcurrentLinkedQueue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+
+        boolean tryEnter(int max) {
+            while (true) {
+                int current = running.get();
+                if (max > 0 && current >= max) {
+                    return false;
+                }
+                if (running.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean leave() {
+            return running.getAndUpdate(current -> Math.max(0, current - 1)) > 0;
+        }
+
+        boolean hasRoom(int max) {
+            return max <= 0 || running.get() < max;
+        }
+
+        void wakeOne() {
+            Runnable waiter = waiters.poll();
+            if (waiter != null) {
+                waiter.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package net.urosk.taskomir.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.storage.TaskResultStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskResultStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Shranjevanje in branje rezultatov nalog {@link net.urosk.taskomir.core.lib.ResultTask}.
+ * Majhni rezultati so tudi v LRU predpomnilniku instance; deljene objekte se samo bere. Branje gre prek
+ * {@link ObjectInputFilter}, ki dovoli le JDK tipe in {@code taskomir.results.allowedClasses} ter omeji velikost
+ * ({@code taskomir.results.max*}).
+ */
+@Service
+@Slf4j
+public class TaskResultService {
+
+    static final String JDK_TYPES = "java.lang.*;java.util.*;java.time.*;java.math.*";
+
+    private final TaskResultStore resultStore;
+    private final TaskomirProperties taskomirProperties;
+    private final Map<String, Optional<Object>> cache;
+    private final ObjectInputFilter resultFilter;
+
+    public TaskResultService(@Autowired(required = false) TaskResultStore resultStore,
+                             TaskomirProperties taskomirProperties) {
+        this.resultStore = resultStore != null ? resultStore : new InMemoryTaskResultStore();
+        this.taskomirProperties = taskomirProperties != null ? taskomirProperties : new TaskomirProperties();
+        int cacheSize = this.taskomirProperties.getResults().getCacheSize();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<Object>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.resultFilter = ObjectInputFilter.Config.createFilter(filterPattern(this.taskomirProperties.getResults()));
+    }
+
+    /**
+     * Vzorec filtra: omejitve velikosti grafa, JDK tipi, dovoljeni razredi iz nastavitev, vse ostalo zavrnjeno.
+     */
+    static String filterPattern(TaskomirProperties.Results results) {
+        StringJoiner pattern = new StringJoiner(";");
+        // Tudi dovoljene JDK zbirke lahko z gnezdenjem ali velikostjo izčrpajo heap ali CPU
+        pattern.add("maxdepth=" + results.getMaxDepth());
+        pattern.add("maxrefs=" + results.getMaxRefs());
+        pattern.add("maxarray=" + results.getMaxArrayLength());
+        pattern.add("maxbytes=" + results.getMaxBytes());
+        pattern.add(JDK_TYPES);
+        List<String> allowedClasses = results.getAllowedClasses();
+        if (allowedClasses != null) {
+            allowedClasses.stream().map(String::trim).filter(allowed -> !allowed.isEmpty()).forEach(pattern::add);
+        }
+        return pattern.add("!*").toString();
+    }
+
+    /**
+     * Shrani rezultat naloge (Java serializacija).
+     *
+     * @throws IOException če rezultata ni mogoče serializirati ali zapisati
+     */
+    public void save(String taskId, Object result) throws IOException {
+        long[] size = new long[1];
+        resultStore.save(taskId, out -> {
+            CountingOutputStream counted = new CountingOutputStream(out);
+            ObjectOutputStream objects = new ObjectOutputStream(counted);
+            objects.writeObject(result);
+            objects.flush();
+            size[0] = counted.count;
+        });
+        cacheIfSmall(taskId, Optional.ofNullable(result), size[0]);
+        log.debug("Stored result of task {} ({} bytes)", taskId, size[0]);
+    }
+
+    /**
+     * Rezultat naloge ali prazno, če ga ni (naloga še teče, ni uspela, ni ResultTask ali je bil rezultat null).
+     *
+     * @throws IllegalStateException če razred rezultata ni dovoljen ali ni na voljo
+     */
+    public Optional<Object> getResult(String taskId) {
+        synchronized (cache) {
+            Optional<Object> cached = cache.get(taskId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        try {
+            Optional<InputStream> stored = resultStore.open(taskId);
+            if (stored.isEmpty()) {
+                return Optional.empty();
+            }
+            try (CountingInputStream counted = new CountingInputStream(new BufferedInputStream(stored.get()));
+                 ObjectInputStream objects = new ObjectInputStream(counted)) {
+                objects.setObjectInputFilter(resultFilter);
+                Optional<Object> result = Optional.ofNullable(objects.readObject());
+                cacheIfSmall(taskId, result, counted.count);
+                return result;
+            }
+        } catch (InvalidClassException e) {
+            // Zavrnil ga je filter (ali razred se ne ujema več s serializiranim)
+            throw new IllegalStateException("Result of task " + taskId + " cannot be deserialized, add its classes to"
+                    + " taskomir.results.allowedClasses or raise the taskomir.results limits: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read result of task " + taskId, e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Result class of task " + taskId + " is not available: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rezultat naloge kot dani tip.
+     *
+     * @throws ClassCastException če rezultat ni tega tipa
+     */
+    public <T> Optional<T> getResult(String taskId, Class<T> type) {
+        return getResult(taskId).map(type::cast);
+    }
+
+    public void delete(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        synchronized (cache) {
+            taskIds.forEach(cache::remove);
+        }
+        resultStore.delete(taskIds);
+    }
+
+    private void cacheIfSmall(String taskId, Optional<Object> result, long size) {
+        if (size <= taskomirProperties.getResults().getInlineLimit()) {
+            synchronized (cache) {
+                cache.put(taskId, result);
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            // FilterOutputStream bi pisal bajt po bajt
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
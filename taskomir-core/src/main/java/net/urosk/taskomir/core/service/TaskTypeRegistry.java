@@ -0,0 +1,73 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.lib.ProgressTask;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tovarna nalog po imenu razreda ({@code TaskInfo.className}), razrešena enkrat na razred.
+ * Naloga se ustvari iz Spring beana tega tipa, če obstaja (prototype bean vsakič znova), sicer s konstruktorjem brez
+ * argumentov. Nerazrešljiva imena (lambde, odstranjeni razredi) se ne predpomnijo.
+ */
+final class TaskTypeRegistry {
+
+    private static final MethodType NO_ARG = MethodType.methodType(void.class);
+    private static final MethodType FACTORY = MethodType.methodType(ProgressTask.class);
+
+    private final ApplicationContext applicationContext;
+    private final ConcurrentHashMap<String, Instantiator> instantiators = new ConcurrentHashMap<>();
+
+    TaskTypeRegistry(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    ProgressTask newInstance(String className) throws ReflectiveOperationException {
+        Instantiator instantiator = instantiators.get(className);
+        if (instantiator == null) {
+            // Sočasni razrešitvi istega razreda sta enakovredni, obdrži se prva
+            Instantiator resolved = resolve(className);
+            Instantiator existing = instantiators.putIfAbsent(className, resolved);
+            instantiator = existing != null ? existing : resolved;
+        }
+        return instantiator.create();
+    }
+
+    /**
+     * Število razrešenih razredov.
+     */
+    int size() {
+        return instantiators.size();
+    }
+
+    private Instantiator resolve(String className) throws ReflectiveOperationException {
+        Class<?> clz = Class.forName(className);
+        if (!ProgressTask.class.isAssignableFrom(clz)) {
+            throw new IllegalArgumentException("Class " + className + " is not a ProgressTask");
+        }
+        if (applicationContext.getBeanNamesForType(clz).length > 0) {
+            ObjectProvider<?> bean = applicationContext.getBeanProvider(clz);
+            return () -> (ProgressTask) bean.getObject();
+        }
+        MethodHandle constructor = MethodHandles.lookup().findConstructor(clz, NO_ARG).asType(FACTORY);
+        return () -> {
+            try {
+                return (ProgressTask) constructor.invokeExact();
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e, "Constructor of " + className + " failed");
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Instantiator {
+        ProgressTask create() throws ReflectiveOperationException;
+    }
+}
@@ -0,0 +1,122 @@
+package net.urosk.taskomir.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Watchdog za naloge v statusu PROCESSING.
+ * Naloga na tej instanci brez heartbeata za {@code watchdog.heartbeatTimeout} se prekine in označi kot FAILED.
+ * Osirotela naloga (PROCESSING v shrambi, a tu ne teče) se označi kot FAILED ali z {@code watchdog.action=requeue}
+ * odda znova. Workflow naloge nadaljuje {@link WorkflowService}.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "taskomir.primary", havingValue = "true", matchIfMissing = true)
+public class TaskWatchdog {
+
+    private final TaskStore taskStore;
+    private final TaskLifecycleService taskLifecycleService;
+    private final TaskomirProperties taskomirProperties;
+    private final MessageSource messageSource;
+
+    public TaskWatchdog(TaskStore taskStore,
+                        TaskLifecycleService taskLifecycleService,
+                        TaskomirProperties taskomirProperties,
+                        MessageSource messageSource) {
+        this.taskStore = taskStore;
+        this.taskLifecycleService = taskLifecycleService;
+        this.taskomirProperties = taskomirProperties;
+        this.messageSource = messageSource;
+    }
+
+    @Scheduled(fixedDelayString = "#{@taskomirProperties.watchdog.checkInterval.toMillis()}")
+    public void checkProcessingTasks() {
+        TaskomirProperties.Watchdog config = taskomirProperties.getWatchdog();
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Duration heartbeatTimeout = config.getHeartbeatTimeout();
+        for (TaskInfo task : taskStore.findByStatus(TaskStatus.PROCESSING)) {
+            long idleMillis = now - lastSignOfLife(task);
+            if (taskLifecycleService.isExecuting(task.getId())) {
+                if (heartbeatTimeout != null && idleMillis > heartbeatTimeout.toMillis()) {
+                    taskLifecycleService.abort(task.getId(), "No progress or heartbeat for "
+                            + Duration.ofMillis(idleMillis).toSeconds() + "s");
+                }
+            } else if (!taskLifecycleService.getRunningTasks().containsKey(task.getId())
+                    && task.getWorkflowId() == null
+                    // Naloga, ki je ravno dobila nit, še ni zabeležena; počakamo vsaj en interval
+                    && idleMillis > config.getCheckInterval().toMillis()) {
+                recoverOrphan(task, config.getAction());
+            }
+        }
+    }
+
+    private void recoverOrphan(TaskInfo task, TaskomirProperties.WatchdogAction action) {
+        if (action == TaskomirProperties.WatchdogAction.REQUEUE && task.getParentId() == null) {
+            ProgressTask progressTask = null;
+            try {
+                progressTask = taskLifecycleService.instantiateTask(task.getClassName());
+            } catch (Exception | LinkageError e) {
+                log.warn("Task {} cannot be re-queued: {}", task.getId(), e.toString());
+            }
+            if (progressTask != null) {
+                // Če se je status medtem spremenil, naloge ne zaganjamo znova
+                if (taskStore.transition(task.getId(), TaskStatus.PROCESSING, TaskStatus.ENQUEUED)) {
+                    log.info(messageSource.getMessage("requeue.info", new Object[]{task.getId(), TaskStatus.PROCESSING},
+                            LocaleContextHolder.getLocale()));
+                    task.setStatus(TaskStatus.ENQUEUED);
+                    try {
+                        taskLifecycleService.submit(task, progressTask);
+                    } catch (RejectedExecutionException e) {
+                        // Vrsta je polna: z runAt jo prevzame DelayedTaskLoader, ko se pool sprosti
+                        log.warn("Re-queued task {} rejected ({}), leaving it to the delayed task loader", task.getId(),
+                                e.getMessage());
+                        taskStore.updateAll(List.of(TaskUpdate.builder()
+                                .taskId(task.getId())
+                                .status(TaskStatus.ENQUEUED)
+                                .running(false)
+                                .progress(task.getProgress())
+                                .currentProgress(task.getCurrentProgress())
+                                .error(task.getError())
+                                .runAt(System.currentTimeMillis())
+                                .build()), TaskStatus.ENQUEUED);
+                    }
+                }
+                return;
+            }
+        }
+        log.warn(messageSource.getMessage("watchdog.orphan.failed", new Object[]{task.getId()}, LocaleContextHolder.getLocale()));
+        taskLifecycleService.updateTask(task, TaskStatus.FAILED, false, "Not running anymore (instance restarted or thread lost)");
+    }
+
+    private static long lastSignOfLife(TaskInfo task) {
+        long last = task.getCreatedAt() != null ? task.getCreatedAt() : 0;
+        if (task.getStartedAt() != null) {
+            last = Math.max(last, task.getStartedAt());
+        }
+        if (task.getHeartbeatAt() != null) {
+            last = Math.max(last, task.getHeartbeatAt());
+        }
+        // Zakasnjena naloga je prevzeta ob runAt, a startedAt dobi šele, ko dobi nit
+        if (task.getRunAt() != null) {
+            last = Math.max(last, task.getRunAt());
+        }
+        return last;
+    }
+}
@@ -1,6 +1,5 @@
 package net.urosk.taskomir.core.service;
 
-import com.mongodb.DuplicateKeyException;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.Getter;
@@ -8,13 +7,23 @@ import lombok.extern.slf4j.Slf4j;
 import net.urosk.taskomir.core.config.TaskomirProperties;
 import net.urosk.taskomir.core.domain.AppLock;
 import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.EnqueueOptions;
+import net.urosk.taskomir.core.lib.ParallelTask;
 import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.ResultTask;
+import net.urosk.taskomir.core.lib.TaskFailedException;
 import net.urosk.taskomir.core.lib.TaskStatus;
-import net.urosk.taskomir.core.repository.AppLockRepository;
+import net.urosk.taskomir.core.lib.Workflow;
+import net.urosk.taskomir.core.lib.WorkflowHandle;
+import net.urosk.taskomir.core.metrics.SchedulerStats;
+import net.urosk.taskomir.core.storage.LockStore;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -27,15 +36,28 @@ import java.util.concurrent.CompletableFuture;
 public class TaskomirService {
 
     private final TaskLifecycleService taskLifecycleService;
-    private final AppLockRepository appLockRepository;
+    private final LockStore lockStore;
+    private final SchedulerStats schedulerStats;
+    private final WorkflowService workflowService;
+    private final ParallelTaskService parallelTaskService;
+    private final TaskomirSettingsService settingsService;
+    private final TaskResultService resultService;
 
     @Getter
     private final TaskomirProperties taskomirProperties;
 
-    public TaskomirService(TaskLifecycleService taskLifecycleService, TaskomirProperties taskomirProperties, AppLockRepository appLockRepository) {
+    public TaskomirService(TaskLifecycleService taskLifecycleService, TaskomirProperties taskomirProperties, LockStore lockStore,
+                           SchedulerStats schedulerStats, WorkflowService workflowService,
+                           ParallelTaskService parallelTaskService, TaskomirSettingsService settingsService,
+                           TaskResultService resultService) {
         this.taskLifecycleService = taskLifecycleService;
         this.taskomirProperties = taskomirProperties;
-        this.appLockRepository = appLockRepository;
+        this.lockStore = lockStore;
+        this.schedulerStats = schedulerStats;
+        this.workflowService = workflowService;
+        this.parallelTaskService = parallelTaskService;
+        this.settingsService = settingsService;
+        this.resultService = resultService;
     }
 
     /**
@@ -54,6 +76,19 @@ public class TaskomirService {
         return taskLifecycleService.createScheduledTask(taskName, progressTask, cronExpression, skipIfAlreadyRunning);
     }
 
+    /**
+     * Kot zgoraj, s parametri, ki jih vsak child prebere z {@code ProgressUpdater#payload(Class)}.
+     */
+    public TaskInfo createScheduledTask(String taskName,
+                                        ProgressTask progressTask,
+                                        String cronExpression,
+                                        boolean skipIfAlreadyRunning,
+                                        Object payload) {
+        log.info("Creating scheduled task: name={}, cron={}, skipIfRunning={}, payload={}",
+                taskName, cronExpression, skipIfAlreadyRunning, payload != null ? payload.getClass().getSimpleName() : null);
+        return taskLifecycleService.createScheduledTask(taskName, progressTask, cronExpression, skipIfAlreadyRunning, null, payload);
+    }
+
     /**
      * Enkratno pognati ProgressTask (brez crona).
      */
@@ -62,6 +97,88 @@ public class TaskomirService {
         return taskLifecycleService.enqueue(taskName, task);
     }
 
+    /**
+     * Enkratni zagon z nastavitvami, npr. idempotencyKey za deduplikacijo ponovljenih oddaj.
+     */
+    public CompletableFuture<TaskInfo> enqueue(String taskName, ProgressTask task, EnqueueOptions options) {
+        log.info("Enqueuing immediate task: name={}, idempotencyKey={}", taskName, options.getIdempotencyKey());
+        if (options.getIdempotencyKey() != null && options.getIdempotencyWindow() == null) {
+            options = options.toBuilder().idempotencyWindow(taskomirProperties.getIdempotencyWindow()).build();
+        }
+        return taskLifecycleService.enqueue(taskName, task, options);
+    }
+
+    /**
+     * Enkratni zagon ob danem času. Naloga do takrat čaka v bazi (status ENQUEUED, runAt) in ne zaseda niti.
+     */
+    public CompletableFuture<TaskInfo> enqueueAt(String taskName, ProgressTask task, Instant runAt) {
+        log.info("Enqueuing delayed task: name={}, runAt={}", taskName, runAt);
+        return taskLifecycleService.enqueueAt(taskName, task, runAt);
+    }
+
+    /**
+     * Enkratni zagon po danem zamiku.
+     */
+    public CompletableFuture<TaskInfo> enqueueAfter(String taskName, ProgressTask task, Duration delay) {
+        return enqueueAt(taskName, task, Instant.now().plus(delay));
+    }
+
+    /**
+     * Enkratni zagon naloge z rezultatom. Future se zaključi z rezultatom, ko je naloga SUCCEEDED, sicer s
+     * {@link TaskFailedException}. Rezultat ostane shranjen ob nalogi, glej {@link #getResult(String, Class)}.
+     */
+    public <T> CompletableFuture<T> enqueueForResult(String taskName, ResultTask<T> task) {
+        return enqueueForResult(taskName, task, EnqueueOptions.DEFAULT);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> enqueueForResult(String taskName, ResultTask<T> task, EnqueueOptions options) {
+        return enqueue(taskName, task, options).thenApply(info -> {
+            // Rezultat je zapisan pred statusom SUCCEEDED (ta je pri asinhronih zapisih lahko še na poti)
+            Optional<Object> result = resultService.getResult(info.getId());
+            if (result.isPresent()) {
+                return (T) result.get();
+            }
+            TaskInfo stored = taskLifecycleService.getTask(info.getId());
+            if (stored != null && stored.getStatus() == TaskStatus.SUCCEEDED) {
+                return null;
+            }
+            throw new TaskFailedException(info.getId(), stored != null ? stored.getStatus() : null,
+                    stored != null ? stored.getError() : null);
+        });
+    }
+
+    /**
+     * Rezultat naloge {@link ResultTask} po id-ju, na katerikoli instanci; prazno, dokler naloga ni uspešno končana.
+     */
+    public <T> Optional<T> getResult(String taskId, Class<T> type) {
+        return resultService.getResult(taskId, type);
+    }
+
+    /**
+     * Razdeli nalogo na kose, ki tečejo vzporedno, in na koncu združi rezultate.
+     * Future se zaključi s parent nalogo, ko je ta SUCCEEDED ali FAILED.
+     */
+    public <C, R> CompletableFuture<TaskInfo> enqueueParallel(String taskName, ParallelTask<C, R> task) {
+        log.info("Enqueuing parallel task: name={}", taskName);
+        return parallelTaskService.enqueue(taskName, task);
+    }
+
+    /**
+     * Odda workflow (DAG nalog); naloge se zaženejo, ko so vse njihove odvisnosti uspešno zaključene.
+     */
+    public WorkflowHandle submitWorkflow(Workflow workflow) {
+        log.info("Submitting workflow: name={}, tasks={}", workflow.getName(), workflow.getNodes().size());
+        return workflowService.submit(workflow);
+    }
+
+    /**
+     * Vse naloge workflowa (v poljubnem statusu).
+     */
+    public List<TaskInfo> getWorkflowTasks(String workflowId) {
+        return workflowService.getWorkflowTasks(workflowId);
+    }
+
     /**
      * Cancel/prekliči nalogo (če je v teku).
      */
@@ -89,11 +206,28 @@ public class TaskomirService {
         return taskLifecycleService.getTasksByStatus(status, pageable);
     }
 
+    public long countTasksByStatus(TaskStatus status) {
+        return taskLifecycleService.countTasksByStatus(status);
+    }
+
     public TaskInfo createScheduledTaskIfNotExists(
             String taskName,
             ProgressTask progressTask,
             String cronExpression,
             boolean skipIfAlreadyRunning
+    ) {
+        return createScheduledTaskIfNotExists(taskName, progressTask, cronExpression, skipIfAlreadyRunning, null);
+    }
+
+    /**
+     * Kot zgoraj, s payloadom za nov master; obstoječi master obdrži svoj payload.
+     */
+    public TaskInfo createScheduledTaskIfNotExists(
+            String taskName,
+            ProgressTask progressTask,
+            String cronExpression,
+            boolean skipIfAlreadyRunning,
+            Object payload
     ) {
         // Najprej preverimo, ali obstaja takšna SCHEDULED naloga:
         Optional<TaskInfo> existing = taskLifecycleService.findByNameAndStatus(taskName, TaskStatus.SCHEDULED);
@@ -108,13 +242,15 @@ public class TaskomirService {
             }
         }
 
-        // Če ni obstajala, jo ustvarimo
-        return createScheduledTask(taskName, progressTask, cronExpression, skipIfAlreadyRunning);
+        // Če ni obstajala, jo ustvarimo; ključ prepreči dva enaka masterja ob sočasnem klicu
+        String idempotencyKey = "scheduled:" + taskName + ":" + progressTask.getClass().getName() + ":" + cronExpression;
+        return taskLifecycleService.createScheduledTask(taskName, progressTask, cronExpression, skipIfAlreadyRunning,
+                idempotencyKey, payload);
     }
 
 
     /**
-     * After construction, check if we're primary. If yes, attempt to insert the "PRIMARY" lock in Mongo.
+     * After construction, check if we're primary. If yes, attempt to insert the "PRIMARY" lock into the lock store.
      * If a lock already exists, we throw an exception (or shut down).
      */
     @PostConstruct
@@ -123,14 +259,14 @@ public class TaskomirService {
         if (taskomirProperties.isPrimary()) {
             log.info("Trying to become PRIMARY, instanceId={}", instanceId);
 
-            Optional<AppLock> existing = appLockRepository.findById("PRIMARY");
+            Optional<AppLock> existing = lockStore.findById("PRIMARY");
             if (existing.isPresent()) {
                 AppLock lock = existing.get();
                 if (lock.getInstanceId().equals(instanceId)) {
                     // To je ista instanca, ki se je ponovno zagnala.
                     // Lahko le posodobimo lockedAt (opcijsko):
                     lock.setLockedAt(System.currentTimeMillis());
-                    appLockRepository.save(lock);
+                    lockStore.save(lock);
                     log.info("This instance was already PRIMARY (same ownerId). Updated the timestamp.");
                 } else {
                     // Nek drug owner je zasedel PRIMARY => conflict
@@ -148,13 +284,12 @@ public class TaskomirService {
                 newLock.setPoolSize(taskomirProperties.getPoolSize());
                 newLock.setQueueCapacity(taskomirProperties.getQueueCapacity());
 
-                try {
-                    appLockRepository.insert(newLock);
+                if (lockStore.insert(newLock)) {
                     log.info("Successfully inserted PRIMARY lock for this instanceId={}.", instanceId);
-                } catch (DuplicateKeyException e) {
+                } else {
                     // Race condition => spet conflict
-                    log.error("Another instance took PRIMARY at the same time!", e);
-                    throw new IllegalStateException("Multiple primary instances not allowed!", e);
+                    log.error("Another instance took PRIMARY at the same time!");
+                    throw new IllegalStateException("Multiple primary instances not allowed!");
                 }
             }
         } else {
@@ -168,16 +303,39 @@ public class TaskomirService {
     public void releasePrimaryLock() {
         if (taskomirProperties.isPrimary()) {
             // Naj poizkusi zbrisati "PRIMARY" doc
-            appLockRepository.deleteById("PRIMARY");
+            lockStore.deleteById("PRIMARY");
             log.info("Removed PRIMARY lock from the database on shutdown.");
         }
     }
 
     public Optional<AppLock> getAppLockByName(String name) {
-        return appLockRepository.findById(name);
+        return lockStore.findById(name);
+    }
+
+    /**
+     * Nastavitve poola in čiščenja, ki jih je mogoče spremeniti med delovanjem.
+     */
+    public TaskomirSettingsService.Settings getSettings() {
+        return settingsService.getSettings();
+    }
+
+    /**
+     * Spremeni nastavitve poola in čiščenja brez ponovnega zagona; polja, ki so null, ostanejo nespremenjena.
+     *
+     * @throws IllegalArgumentException če je katera vrednost neveljavna
+     */
+    public TaskomirSettingsService.Settings updateSettings(TaskomirSettingsService.Settings changes) {
+        return settingsService.update(changes);
+    }
+
+    /**
+     * Statistika cron schedulerja (zamiki proženja, trajanje prehodov) na tej instanci.
+     */
+    public SchedulerStats.Snapshot getSchedulerStats() {
+        return schedulerStats.snapshot();
     }
 
     public Optional<AppLock> getExistingPrimary() {
-        return appLockRepository.findById("PRIMARY");
+        return lockStore.findById("PRIMARY");
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package net.urosk.taskomir.core.service;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.ResizableBlockingQueue;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.AppLock;
+import net.urosk.taskomir.core.storage.LockStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Spreminjanje nastavitev poola in čiščenja med delovanjem, brez ponovnega zagona.
+ * Nastavitve so v PRIMARY {@link AppLock}; primarna instanca jih uveljavi takoj ali v {@code taskomir.settingsSyncInterval}.
+ */
+@Service
+@Slf4j
+public class TaskomirSettingsService {
+
+    private final TaskomirProperties taskomirProperties;
+    private final LockStore lockStore;
+    // Samo na primarni instanci
+    private final ThreadPoolExecutor executor;
+
+    // settingsUpdatedAt zadnje prevzete spremembe
+    private volatile long appliedAt;
+
+    public TaskomirSettingsService(TaskomirProperties taskomirProperties,
+                                   LockStore lockStore,
+                                   @Autowired(required = false) ThreadPoolExecutor executor) {
+        this.taskomirProperties = taskomirProperties;
+        this.lockStore = lockStore;
+        this.executor = executor;
+    }
+
+    /**
+     * Veljavne nastavitve: iz PRIMARY locka, če obstaja, sicer iz te instance.
+     */
+    public Settings getSettings() {
+        return lockStore.findById("PRIMARY").map(TaskomirSettingsService::fromLock).orElseGet(this::fromProperties);
+    }
+
+    /**
+     * Spremeni nastavitve; polja, ki so null, ostanejo nespremenjena.
+     *
+     * @return nove veljavne nastavitve
+     * @throws IllegalArgumentException če je katera vrednost neveljavna
+     */
+    public Settings update(Settings changes) {
+        validate(changes);
+        Optional<AppLock> primary = lockStore.findById("PRIMARY");
+        Settings updated = merge(primary.map(TaskomirSettingsService::fromLock).orElseGet(this::fromProperties), changes);
+        long now = System.currentTimeMillis();
+        if (primary.isPresent()) {
+            // Samo polja nastavitev: lastnik locka in sprememba velikosti poola z druge instance ostaneta
+            AppLock settings = new AppLock();
+            settings.setPoolSize(updated.getPoolSize());
+            settings.setQueueCapacity(updated.getQueueCapacity());
+            settings.setCleanupIntervalMs(updated.getCleanupInterval().toMillis());
+            settings.setSucceededRetentionMs(updated.getSucceededRetentionTime().toMillis());
+            settings.setDeletedRetentionMs(updated.getDeletedRetentionTime().toMillis());
+            settings.setSettingsUpdatedAt(now);
+            lockStore.updateSettings("PRIMARY", settings);
+        }
+        log.info("Taskomir settings changed: {}", updated);
+        if (isPrimaryHere(primary)) {
+            apply(updated);
+            appliedAt = now;
+        }
+        return updated;
+    }
+
+    /**
+     * Primarna instanca prevzame nastavitve, ki jih je v PRIMARY lock zapisala druga instanca.
+     */
+    @Scheduled(fixedDelayString = "#{@taskomirProperties.settingsSyncInterval.toMillis()}")
+    public void syncFromLock() {
+        Optional<AppLock> primary = lockStore.findById("PRIMARY");
+        if (!isPrimaryHere(primary) || primary.get().getSettingsUpdatedAt() <= appliedAt) {
+            return;
+        }
+        log.info("Applying Taskomir settings changed at {}", primary.get().getSettingsUpdatedAt());
+        apply(fromLock(primary.get()));
+        appliedAt = primary.get().getSettingsUpdatedAt();
+    }
+
+    private boolean isPrimaryHere(Optional<AppLock> primary) {
+        if (!taskomirProperties.isPrimary()) {
+            return false;
+        }
+        // Brez locka (npr. v testih) veljajo nastavitve te instance
+        return primary.isEmpty() || primary.get().getInstanceId() == null
+                || primary.get().getInstanceId().equals(taskomirProperties.getInstanceId());
+    }
+
+    private void apply(Settings settings) {
+        taskomirProperties.setPoolSize(settings.getPoolSize());
+        taskomirProperties.setQueueCapacity(settings.getQueueCapacity());
+        taskomirProperties.setCleanupInterval(settings.getCleanupInterval());
+        taskomirProperties.setSucceededRetentionTime(settings.getSucceededRetentionTime());
+        taskomirProperties.setDeletedRetentionTime(settings.getDeletedRetentionTime());
+        if (executor == null) {
+            return;
+        }
+        PoolSizing.setPoolSize(executor, settings.getPoolSize());
+        if (executor.getQueue() instanceof ResizableBlockingQueue<?> queue) {
+            queue.setCapacity(settings.getQueueCapacity());
+        } else {
+            log.warn("Queue capacity cannot be changed at runtime, the executor queue is {}",
+                    executor.getQueue().getClass().getSimpleName());
+        }
+    }
+
+    private static void validate(Settings changes) {
+        if (changes.getPoolSize() != null && changes.getPoolSize() < 1) {
+            throw new IllegalArgumentException("poolSize must be at least 1");
+        }
+        if (changes.getQueueCapacity() != null && changes.getQueueCapacity() < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1");
+        }
+        requirePositive("cleanupInterval", changes.getCleanupInterval());
+        requirePositive("succeededRetentionTime", changes.getSucceededRetentionTime());
+        requirePositive("deletedRetentionTime", changes.getDeletedRetentionTime());
+    }
+
+    private static void requirePositive(String name, Duration duration) {
+        if (duration != null && (duration.isNegative() || duration.isZero())) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+    }
+
+    private static Settings merge(Settings current, Settings changes) {
+        return Settings.builder()
+                .poolSize(changes.getPoolSize() != null ? changes.getPoolSize() : current.getPoolSize())
+                .queueCapacity(changes.getQueueCapacity() != null ? changes.getQueueCapacity() : current.getQueueCapacity())
+                .cleanupInterval(changes.getCleanupInterval() != null ? changes.getCleanupInterval() : current.getCleanupInterval())
+                .succeededRetentionTime(changes.getSucceededRetentionTime() != null
+                        ? changes.getSucceededRetentionTime() : current.getSucceededRetentionTime())
+                .deletedRetentionTime(changes.getDeletedRetentionTime() != null
+                        ? changes.getDeletedRetentionTime() : current.getDeletedRetentionTime())
+                .build();
+    }
+
+    private static Settings fromLock(AppLock lock) {
+        return Settings.builder()
+                .poolSize(lock.getPoolSize())
+                .queueCapacity(lock.getQueueCapacity())
+                .cleanupInterval(Duration.ofMillis(lock.getCleanupIntervalMs()))
+                .succeededRetentionTime(Duration.ofMillis(lock.getSucceededRetentionMs()))
+                .deletedRetentionTime(Duration.ofMillis(lock.getDeletedRetentionMs()))
+                .build();
+    }
+
+    private Settings fromProperties() {
+        return Settings.builder()
+                .poolSize(taskomirProperties.getPoolSize())
+                .queueCapacity(taskomirProperties.getQueueCapacity())
+                .cleanupInterval(taskomirProperties.getCleanupInterval())
+                .succeededRetentionTime(taskomirProperties.getSucceededRetentionTime())
+                .deletedRetentionTime(taskomirProperties.getDeletedRetentionTime())
+                .build();
+    }
+
+    /**
+     * Nastavitve, ki jih je mogoče spremeniti med delovanjem. Pri {@link #update(Settings)} null pomeni "brez spremembe".
+     */
+    @Value
+    @Builder
+    public static class Settings {
+        Integer poolSize;
+        Integer queueCapacity;
+        Duration cleanupInterval;
+        Duration succeededRetentionTime;
+        Duration deletedRetentionTime;
+    }
+}
@@ -0,0 +1,311 @@
+package net.urosk.taskomir.core.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.lib.Workflow;
+import net.urosk.taskomir.core.lib.WorkflowFailedException;
+import net.urosk.taskomir.core.lib.WorkflowHandle;
+import net.urosk.taskomir.core.storage.TaskStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Izvajanje workflowov (DAG nalog).
+ * Ko vozlišče uspe, se sprostijo nasledniki brez nedokončanih vhodov, najdaljša kritična pot najprej. Ob neuspehu
+ * so vsi potomci FAILED brez zagona. Po restartu primarna instanca nadaljuje nedokončane workflowe.
+ */
+@Service
+@Slf4j
+public class WorkflowService {
+
+    private final TaskStore taskStore;
+    private final TaskLifecycleService taskLifecycleService;
+    private final TaskomirProperties taskomirProperties;
+
+    // Workflowi, ki se izvajajo na tej instanci
+    private final ConcurrentHashMap<String, Run> runs = new ConcurrentHashMap<>();
+
+    public WorkflowService(TaskStore taskStore,
+                           TaskLifecycleService taskLifecycleService,
+                           TaskomirProperties taskomirProperties) {
+        this.taskStore = taskStore;
+        this.taskLifecycleService = taskLifecycleService;
+        this.taskomirProperties = taskomirProperties;
+    }
+
+    /**
+     * Stanje enega workflowa med izvajanjem.
+     */
+    private static final class Run {
+        final String workflowId;
+        final Map<String, Node> nodes = new LinkedHashMap<>();
+        final AtomicInteger open = new AtomicInteger();
+        final ConcurrentLinkedQueue<String> failed = new ConcurrentLinkedQueue<>();
+        final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        Run(String workflowId) {
+            this.workflowId = workflowId;
+        }
+    }
+
+    private static final class Node {
+        final String key;
+        final TaskInfo info;
+        final long rank;
+        final List<String> successors = new ArrayList<>();
+        final AtomicInteger remaining = new AtomicInteger();
+        final AtomicBoolean finished = new AtomicBoolean();
+        ProgressTask task;
+
+        Node(String key, TaskInfo info, ProgressTask task, long rank) {
+            this.key = key;
+            this.info = info;
+            this.task = task;
+            this.rank = rank;
+        }
+    }
+
+    /**
+     * Shrani vse naloge workflowa in zažene tiste brez odvisnosti.
+     */
+    public WorkflowHandle submit(Workflow workflow) {
+        String workflowId = taskLifecycleService.newTaskId();
+        List<String> order = workflow.topologicalOrder();
+        Map<String, Long> ranks = workflow.criticalPath();
+        Map<String, String> taskIds = new LinkedHashMap<>();
+        order.forEach(key -> taskIds.put(key, taskLifecycleService.newTaskId()));
+
+        Run run = new Run(workflowId);
+        for (String key : order) {
+            Workflow.Node definition = workflow.getNodes().get(key);
+            TaskInfo info = new TaskInfo(taskIds.get(key), workflow.getName() + " / " + key);
+            info.setWorkflowId(workflowId);
+            info.setDependsOn(definition.getDependsOn().stream().map(taskIds::get).toList());
+            info.setCriticalPath(ranks.get(key));
+            info.setClassName(definition.getTask().getClass().getName());
+            info.setStatus(definition.getDependsOn().isEmpty() ? TaskStatus.ENQUEUED : TaskStatus.WAITING);
+            taskStore.save(info);
+
+            Node node = new Node(key, info, definition.getTask(), ranks.get(key));
+            node.remaining.set(definition.getDependsOn().size());
+            run.nodes.put(key, node);
+        }
+        workflow.successors().forEach((key, next) -> run.nodes.get(key).successors.addAll(next));
+        run.open.set(run.nodes.size());
+        runs.put(workflowId, run);
+
+        log.info("Workflow {} '{}' submitted with {} tasks", workflowId, workflow.getName(), order.size());
+        release(run, run.nodes.values().stream().filter(node -> node.remaining.get() == 0).toList());
+        return new WorkflowHandle(workflowId, taskIds, run.completion);
+    }
+
+    public List<TaskInfo> getWorkflowTasks(String workflowId) {
+        return taskStore.findByWorkflowId(workflowId);
+    }
+
+    /**
+     * Ob zagonu primarne instance nadaljuje nedokončane workflowe iz shranjenega grafa.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeWorkflows() {
+        if (!taskomirProperties.isPrimary()) {
+            return;
+        }
+        Set<String> workflowIds = new LinkedHashSet<>();
+        for (TaskStatus status : List.of(TaskStatus.WAITING, TaskStatus.ENQUEUED, TaskStatus.PROCESSING)) {
+            taskStore.findByStatus(status).stream()
+                    .map(TaskInfo::getWorkflowId)
+                    .filter(id -> id != null && !runs.containsKey(id))
+                    .forEach(workflowIds::add);
+        }
+        workflowIds.forEach(this::resume);
+    }
+
+    private void resume(String workflowId) {
+        List<TaskInfo> tasks = taskStore.findByWorkflowId(workflowId);
+        Run run = new Run(workflowId);
+        tasks.forEach(info -> run.nodes.put(info.getId(),
+                new Node(info.getId(), info, null, info.getCriticalPath() != null ? info.getCriticalPath() : 1)));
+        for (Node node : run.nodes.values()) {
+            List<String> deps = node.info.getDependsOn() != null ? node.info.getDependsOn() : List.of();
+            deps.stream().map(run.nodes::get).filter(dep -> dep != null).forEach(dep -> dep.successors.add(node.key));
+            node.remaining.set((int) deps.stream()
+                    .map(run.nodes::get)
+                    .filter(dep -> dep == null || dep.info.getStatus() != TaskStatus.SUCCEEDED)
+                    .count());
+        }
+
+        List<Node> failed = new ArrayList<>();
+        List<Node> orphaned = new ArrayList<>();
+        List<Node> ready = new ArrayList<>();
+        int open = 0;
+        for (Node node : run.nodes.values()) {
+            switch (node.info.getStatus()) {
+                case SUCCEEDED -> node.finished.set(true);
+                case FAILED, DELETED -> {
+                    node.finished.set(true);
+                    failed.add(node);
+                }
+                default -> {
+                    open++;
+                    if (node.info.getDependsOn() != null
+                            && !run.nodes.keySet().containsAll(node.info.getDependsOn())) {
+                        orphaned.add(node);
+                    }
+                }
+            }
+        }
+        run.open.set(open);
+        if (open == 0) {
+            return;
+        }
+        runs.put(workflowId, run);
+        log.info("Resuming workflow {} with {} unfinished tasks", workflowId, open);
+
+        for (Node node : failed) {
+            run.failed.add(node.key);
+            skipDescendants(run, node);
+        }
+        for (Node node : orphaned) {
+            // Odvisnosti ni več v shranjenem grafu (npr. izbrisana): ne bo se končala, zato šteje kot neuspela
+            if (node.finished.compareAndSet(false, true)) {
+                taskLifecycleService.updateTask(node.info, TaskStatus.FAILED, false, "Upstream task is missing");
+                run.failed.add(node.key);
+                skipDescendants(run, node);
+                close(run);
+            }
+        }
+        for (Node node : run.nodes.values()) {
+            if (node.finished.get() || node.remaining.get() > 0) {
+                continue;
+            }
+            if (node.info.getStatus() == TaskStatus.PROCESSING) {
+                // Prekinjena z restartom, zaženemo znova
+                taskLifecycleService.updateTask(node.info, TaskStatus.ENQUEUED, false);
+                node.info.setStatus(TaskStatus.ENQUEUED);
+            }
+            ready.add(node);
+        }
+        release(run, ready);
+    }
+
+    /**
+     * Odda pripravljene naloge, najdaljša kritična pot najprej.
+     */
+    private void release(Run run, List<Node> ready) {
+        List<Node> ordered = new ArrayList<>(ready);
+        ordered.sort(Comparator.comparingLong((Node node) -> node.rank).reversed());
+        for (Node node : ordered) {
+            if (node.task == null) {
+                try {
+                    node.task = taskLifecycleService.instantiateTask(node.info.getClassName());
+                } catch (Exception | LinkageError e) {
+                    log.warn("Workflow task {} cannot be resumed: {}", node.info.getId(), e.toString());
+                    taskLifecycleService.updateTask(node.info, TaskStatus.FAILED, false, "Cannot be resumed after restart: " + e);
+                    finished(run, node, false);
+                    continue;
+                }
+            }
+            if (node.info.getStatus() == TaskStatus.WAITING) {
+                taskStore.transition(node.info.getId(), TaskStatus.WAITING, TaskStatus.ENQUEUED);
+                node.info.setStatus(TaskStatus.ENQUEUED);
+            }
+            try {
+                taskLifecycleService.submit(node.info, node.task)
+                        .whenComplete((status, error) -> {
+                            if (error == null && status == TaskStatus.ENQUEUED) {
+                                // Vrnjena v vrsto ob zaustavitvi instance; workflow nadaljuje naslednja primarna instanca
+                                return;
+                            }
+                            finished(run, node, error == null && status == TaskStatus.SUCCEEDED);
+                        });
+            } catch (RuntimeException e) {
+                // Npr. RejectedExecutionException, ko je vrsta polna
+                log.error("Could not submit workflow task {}: {}", node.info.getId(), e.getMessage());
+                taskLifecycleService.updateTask(node.info, TaskStatus.FAILED, false, e.getMessage());
+                finished(run, node, false);
+            }
+        }
+    }
+
+    private void finished(Run run, Node node, boolean succeeded) {
+        if (!node.finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (succeeded) {
+            List<Node> ready = new ArrayList<>();
+            for (String key : node.successors) {
+                Node next = run.nodes.get(key);
+                if (next.remaining.decrementAndGet() == 0) {
+                    ready.add(next);
+                }
+            }
+            release(run, ready);
+        } else {
+            run.failed.add(node.key);
+            skipDescendants(run, node);
+        }
+        close(run);
+    }
+
+    /**
+     * Vse naloge, ki so (posredno) odvisne od neuspele, označi kot FAILED, ne da bi jih zagnali.
+     */
+    private void skipDescendants(Run run, Node failedNode) {
+        Deque<String> pending = new ArrayDeque<>(failedNode.successors);
+        Set<String> seen = new LinkedHashSet<>();
+        while (!pending.isEmpty()) {
+            String key = pending.poll();
+            if (!seen.add(key)) {
+                continue;
+            }
+            Node node = run.nodes.get(key);
+            if (node.finished.compareAndSet(false, true)) {
+                taskLifecycleService.updateTask(node.info, TaskStatus.FAILED, false,
+                        "Upstream task '" + failedNode.key + "' did not succeed");
+                close(run);
+            }
+            pending.addAll(node.successors);
+        }
+    }
+
+    private void close(Run run) {
+        if (run.open.decrementAndGet() != 0) {
+            return;
+        }
+        runs.remove(run.workflowId);
+        if (run.failed.isEmpty()) {
+            log.info("Workflow {} succeeded", run.workflowId);
+            run.completion.complete(null);
+        } else {
+            log.warn("Workflow {} failed: {}", run.workflowId, run.failed);
+            run.completion.completeExceptionally(new WorkflowFailedException(run.workflowId, new ArrayList<>(run.failed)));
+        }
+    }
+
+    /**
+     * Število workflowov, ki se trenutno izvajajo na tej instanci.
+     */
+    public int activeWorkflows() {
+        return runs.size();
+    }
+}
@@ -0,0 +1,39 @@
+package net.urosk.taskomir.core.storage;
+
+import net.urosk.taskomir.core.domain.AppLock;
+
+import java.util.Optional;
+
+/**
+ * Shramba aplikacijskih lockov (SPI), npr. "PRIMARY".
+ */
+public interface LockStore {
+
+    Optional<AppLock> findById(String name);
+
+    /**
+     * Vstavi nov lock.
+     *
+     * @return false, če lock z istim imenom že obstaja
+     */
+    boolean insert(AppLock lock);
+
+    AppLock save(AppLock lock);
+
+    /**
+     * Zapiše velikost poola ter čas in razlog spremembe, če lock drži dana instanca. Ostala polja ostanejo.
+     *
+     * @return false, če lock ne obstaja ali ga drži druga instanca
+     */
+    boolean updatePoolSize(String name, String instanceId, int poolSize, long resizedAt, String reason);
+
+    /**
+     * Zapiše nastavitve iz {@code settings} (poolSize, queueCapacity, čiščenje, settingsUpdatedAt). Lastnik locka in
+     * zadnja sprememba velikosti poola ostaneta.
+     *
+     * @return false, če lock ne obstaja
+     */
+    boolean updateSettings(String name, AppLock settings);
+
+    void deleteById(String name);
+}
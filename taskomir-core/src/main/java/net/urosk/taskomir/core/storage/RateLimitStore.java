@@ -0,0 +1,14 @@
+package net.urosk.taskomir.core.storage;
+
+/**
+ * Shramba stanja token bucketov za omejevanje hitrosti nalog (SPI). Žeton se vzame atomarno, tudi med instancami.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Poskusi vzeti en žeton iz vedra {@code key}, ki se polni s {@code permitsPerSecond} do največ {@code burst} žetonov.
+     *
+     * @return 0, če je bil žeton vzet, sicer čas v ms do naslednjega žetona
+     */
+    long tryAcquire(String key, double permitsPerSecond, int burst);
+}
@@ -0,0 +1,30 @@
+package net.urosk.taskomir.core.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Shramba rezultatov nalog {@code ResultTask} (SPI), po id-ju naloge. Rezultat se piše in bere kot tok bajtov.
+ */
+public interface TaskResultStore {
+
+    /**
+     * Shrani (ali zamenja) rezultat naloge; {@code writer} vanj zapiše serializiran rezultat.
+     */
+    void save(String taskId, ResultWriter writer) throws IOException;
+
+    /**
+     * Tok s serializiranim rezultatom ali prazno, če naloga rezultata nima. Klicatelj tok zapre.
+     */
+    Optional<InputStream> open(String taskId) throws IOException;
+
+    void delete(Collection<String> taskIds);
+
+    @FunctionalInterface
+    interface ResultWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,111 @@
+package net.urosk.taskomir.core.storage;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Shramba nalog (SPI). Taskomir servisi dostopajo do nalog samo prek tega vmesnika,
+ * zato je MongoDB le ena izmed možnih implementacij.
+ * Vrnjene instance so ločene od shrambe; sprememba velja šele po {@link #save(TaskInfo)}.
+ */
+public interface TaskStore {
+
+    /**
+     * Vstavi ali prepiše nalogo z istim id-jem.
+     */
+    TaskInfo save(TaskInfo task);
+
+    Optional<TaskInfo> findById(String id);
+
+    List<TaskInfo> findAll();
+
+    /**
+     * Vse naloge v danem statusu, najnovejše najprej.
+     */
+    List<TaskInfo> findByStatus(TaskStatus status);
+
+    /**
+     * Stran nalog v danem statusu, najnovejše najprej. Vrnjene naloge so lahko brez payloada.
+     */
+    Page<TaskInfo> findByStatus(TaskStatus status, Pageable pageable);
+
+    long countByStatus(TaskStatus status);
+
+    List<TaskInfo> findByParentIdAndStatusIn(String parentId, Collection<TaskStatus> statuses);
+
+    /**
+     * Ali ima naloga vsaj enega otroka v danih statusih; za razliko od {@link #findByParentIdAndStatusIn} ne prebere
+     * nobene naloge (poizvedba z omejitvijo 1).
+     */
+    boolean existsByParentIdAndStatusIn(String parentId, Collection<TaskStatus> statuses);
+
+    Optional<TaskInfo> findByNameAndStatus(String name, TaskStatus status);
+
+    /**
+     * Vstavi nalogo, če nobena druga naloga nima enakega {@code idempotencyKey}; sicer vrne obstoječo.
+     * Preverjanje in vstavljanje sta en atomaren korak (unikaten indeks na ključu). Naloga brez ključa se vedno vstavi.
+     *
+     * @return prazno, če je bila naloga vstavljena, sicer naloga, ki ima ključ že v lasti
+     */
+    Optional<TaskInfo> insertIfAbsent(TaskInfo task);
+
+    Optional<TaskInfo> findByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Odstrani ključ z naloge (npr. ko je izven okna deduplikacije), a samo če ga naloga še ima.
+     *
+     * @return true, če je bil ključ odstranjen
+     */
+    boolean clearIdempotencyKey(String id, String idempotencyKey);
+
+    /**
+     * Vse naloge danega workflowa (DAG).
+     */
+    List<TaskInfo> findByWorkflowId(String workflowId);
+
+    /**
+     * Atomarno spremeni status naloge, a samo če je trenutno v statusu {@code expected}.
+     *
+     * @return true, če je bil prehod izveden
+     */
+    boolean transition(String id, TaskStatus expected, TaskStatus next);
+
+    /**
+     * Atomarno prevzame do {@code limit} zapadlih nalog (ENQUEUED z {@code runAt <= until}, ki niso del workflowa),
+     * najprej tiste z najstarejšim runAt, in jih prestavi v PROCESSING s {@code heartbeatAt = now}. Naloge z id-ji iz
+     * {@code excludeIds} ostanejo nedotaknjene. Dva sočasna klica nikoli ne dobita iste naloge.
+     *
+     * @return prevzete naloge, že v statusu PROCESSING
+     */
+    List<TaskInfo> claimDue(long until, Collection<String> excludeIds, int limit);
+
+    /**
+     * Prebere vse naloge v danih statusih in jih v paketih po {@code batchSize} preda {@code handler}.
+     * V pomnilniku je le trenutni paket. Naloga, ki jo handler spremeni, lahko pride ponovno; vrnjene naloge so lahko
+     * brez vrstic loga, zgodovine poskusov in payloada.
+     */
+    void forEachBatch(Collection<TaskStatus> statuses, int batchSize, Consumer<List<TaskInfo>> handler);
+
+    /**
+     * Zapiše delne spremembe več nalog v enem paketnem zahtevku; sprememba se uporabi samo, če je naloga še v
+     * statusu {@code expected}.
+     *
+     * @return število spremenjenih nalog
+     */
+    int updateAll(List<TaskUpdate> updates, TaskStatus expected);
+
+    void delete(TaskInfo task);
+
+    void deleteById(String id);
+
+    void deleteByStatus(TaskStatus status);
+
+    void deleteAll();
+}
@@ -0,0 +1,67 @@
+package net.urosk.taskomir.core.storage;
+
+import lombok.Builder;
+import lombok.Getter;
+import net.urosk.taskomir.core.lib.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delna sprememba stanja naloge (status, napredek, časovni žigi, nove vrstice loga), ki se zapiše brez branja
+ * celotnega dokumenta. {@code startedAt} se premika le nazaj, ostali časovni žigi obdržijo najnovejšo vrednost.
+ */
+@Getter
+@Builder
+public class TaskUpdate {
+
+    private final String taskId;
+    private final TaskStatus status;
+    private final boolean running;
+    private final double progress;
+    private final String currentProgress;
+    private final String error;
+    private final Long startedAt;
+    private final Long endedAt;
+    private final Long deletedAt;
+    private final Long heartbeatAt;
+    private final Long runAt;
+    private final String ownerInstanceId;
+    @Builder.Default
+    private final List<String> logLines = List.of();
+
+    /**
+     * Združi to (starejšo) spremembo z novejšo v eno, ki ima enak učinek kot obe zapored.
+     */
+    public TaskUpdate merge(TaskUpdate newer) {
+        List<String> lines = new ArrayList<>(logLines.size() + newer.logLines.size());
+        lines.addAll(logLines);
+        lines.addAll(newer.logLines);
+        return TaskUpdate.builder()
+                .taskId(taskId)
+                .status(newer.status)
+                .running(newer.running)
+                .progress(newer.progress)
+                .currentProgress(newer.currentProgress)
+                .error(newer.error)
+                .startedAt(earlier(startedAt, newer.startedAt))
+                .endedAt(newer.endedAt != null ? newer.endedAt : endedAt)
+                .deletedAt(newer.deletedAt != null ? newer.deletedAt : deletedAt)
+                .heartbeatAt(newer.heartbeatAt != null ? newer.heartbeatAt : heartbeatAt)
+                .runAt(newer.runAt != null ? newer.runAt : runAt)
+                .ownerInstanceId(newer.ownerInstanceId != null ? newer.ownerInstanceId : ownerInstanceId)
+                .logLines(lines)
+                .build();
+    }
+
+    private static Long earlier(Long a, Long b) {
+        // Brez mešanja Long in long v ternarnem izrazu, ki bi null odpakiral v NPE
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return Math.min(a, b);
+    }
+}
@@ -0,0 +1,34 @@
+package net.urosk.taskomir.core.storage;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Asinhron zapis sprememb stanja nalog. {@link #write(TaskUpdate)} se vrne takoj; implementacija zagotavlja,
+ * da se spremembe iste naloge uveljavijo v vrstnem redu klicev.
+ */
+public interface TaskUpdateWriter {
+
+    void write(TaskUpdate update);
+
+    /**
+     * Poslušalec za naloge, katerih sprememba ENQUEUED ali PROCESSING ni bila zapisana, ker so v bazi že DELETED
+     * (preklicane na drugi instanci). Enako kot sinhroni zapis takšne spremembe ne prepiše DELETED.
+     */
+    default void setCancellationListener(Consumer<String> listener) {
+    }
+
+    /**
+     * Počaka, da se zapišejo vse čakajoče spremembe.
+     *
+     * @return false, če se v danem času niso
+     */
+    boolean flush(Duration timeout);
+
+    /**
+     * Počaka, da se zapišejo čakajoče spremembe dane naloge; spremembe drugih nalog ga ne zadržijo.
+     *
+     * @return false, če se v danem času niso
+     */
+    boolean flush(String taskId, Duration timeout);
+}
@@ -0,0 +1,34 @@
+package net.urosk.taskomir.core.storage;
+
+/**
+ * Stanje enega token bucketa: število žetonov ob času {@code updatedAt}. Žetoni se dopolnjujejo lenobno ob branju.
+ */
+public record TokenBucket(double tokens, long updatedAt) {
+
+    public static TokenBucket full(int burst, long now) {
+        return new TokenBucket(burst, now);
+    }
+
+    /**
+     * Stanje ob času {@code now}, dopolnjeno s {@code permitsPerSecond}, a ne nad {@code burst}.
+     */
+    public TokenBucket refilled(long now, double permitsPerSecond, int burst) {
+        long elapsed = Math.max(0, now - updatedAt);
+        return new TokenBucket(Math.min(burst, tokens + elapsed * permitsPerSecond / 1000.0), Math.max(now, updatedAt));
+    }
+
+    public boolean hasToken() {
+        return tokens >= 1.0;
+    }
+
+    public TokenBucket take() {
+        return new TokenBucket(tokens - 1.0, updatedAt);
+    }
+
+    /**
+     * Čas v ms, dokler ne bo na voljo en cel žeton.
+     */
+    public long millisUntilToken(double permitsPerSecond) {
+        return Math.max(1, (long) Math.ceil((1.0 - tokens) * 1000.0 / permitsPerSecond));
+    }
+}
@@ -0,0 +1,84 @@
+package net.urosk.taskomir.core.storage.jdbc;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+/**
+ * Razlike med podprtimi bazami: upsert, claim v enem stavku (RETURNING) in lokacija sheme.
+ */
+public enum JdbcDialect {
+
+    POSTGRESQL("taskomir/schema-postgresql.sql", true) {
+        @Override
+        String upsert(String table, String[] columns, String key) {
+            String updates = Arrays.stream(columns)
+                    .filter(column -> !column.equals(key))
+                    .map(column -> column + " = EXCLUDED." + column)
+                    .collect(Collectors.joining(", "));
+            return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + placeholders(columns.length)
+                    + ") ON CONFLICT (" + key + ") DO UPDATE SET " + updates;
+        }
+    },
+
+    H2("taskomir/schema-h2.sql", false) {
+        @Override
+        String upsert(String table, String[] columns, String key) {
+            return "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY (" + key + ") VALUES ("
+                    + placeholders(columns.length) + ")";
+        }
+    };
+
+    private final String schemaLocation;
+    private final boolean supportsUpdateReturning;
+
+    JdbcDialect(String schemaLocation, boolean supportsUpdateReturning) {
+        this.schemaLocation = schemaLocation;
+        this.supportsUpdateReturning = supportsUpdateReturning;
+    }
+
+    /**
+     * INSERT ali UPDATE po ključu v enem stavku.
+     */
+    abstract String upsert(String table, String[] columns, String key);
+
+    /**
+     * Ali baza podpira {@code UPDATE ... RETURNING}, da claim opravi en sam krog do baze.
+     */
+    boolean supportsUpdateReturning() {
+        return supportsUpdateReturning;
+    }
+
+    /**
+     * Izvede idempotentno shemo (CREATE ... IF NOT EXISTS).
+     */
+    public void initializeSchema(JdbcTemplate jdbcTemplate) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(schemaLocation));
+        populator.execute(jdbcTemplate.getDataSource());
+    }
+
+    /**
+     * Ugotovi dialekt iz metapodatkov povezave.
+     */
+    public static JdbcDialect detect(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (product != null && product.toLowerCase().contains("postgres")) {
+            return POSTGRESQL;
+        }
+        if (product != null && product.toLowerCase().contains("h2")) {
+            return H2;
+        }
+        throw new IllegalStateException("Unsupported database for Taskomir JDBC storage: " + product
+                + " (supported: PostgreSQL, H2)");
+    }
+
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
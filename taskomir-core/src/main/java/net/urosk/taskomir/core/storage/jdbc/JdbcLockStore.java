@@ -0,0 +1,108 @@
+package net.urosk.taskomir.core.storage.jdbc;
+
+import net.urosk.taskomir.core.domain.AppLock;
+import net.urosk.taskomir.core.storage.LockStore;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.Optional;
+
+/**
+ * JDBC implementacija {@link LockStore}, tabela {@code taskomir_lock}. Unikatnost zagotavlja primarni ključ.
+ */
+public class JdbcLockStore implements LockStore {
+
+    static final String TABLE = "taskomir_lock";
+
+    static final String[] COLUMNS = {
+            "name", "instance_id", "locked_at", "cleanup_interval_ms", "succeeded_retention_ms", "deleted_retention_ms",
+            "pool_size", "queue_capacity", "pool_resized_at", "pool_resize_reason",
+            "settings_updated_at"
+    };
+
+    private static final RowMapper<AppLock> ROW_MAPPER = (rs, rowNum) -> {
+        AppLock lock = new AppLock();
+        lock.setName(rs.getString("name"));
+        lock.setInstanceId(rs.getString("instance_id"));
+        lock.setLockedAt(rs.getLong("locked_at"));
+        lock.setCleanupIntervalMs(rs.getLong("cleanup_interval_ms"));
+        lock.setSucceededRetentionMs(rs.getLong("succeeded_retention_ms"));
+        lock.setDeletedRetentionMs(rs.getLong("deleted_retention_ms"));
+        lock.setPoolSize(rs.getInt("pool_size"));
+        lock.setQueueCapacity(rs.getInt("queue_capacity"));
+        lock.setPoolResizedAt(rs.getLong("pool_resized_at"));
+        lock.setPoolResizeReason(rs.getString("pool_resize_reason"));
+        lock.setSettingsUpdatedAt(rs.getLong("settings_updated_at"));
+        return lock;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertSql;
+    private final String upsertSql;
+
+    public JdbcLockStore(JdbcTemplate jdbcTemplate, JdbcDialect dialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = "INSERT INTO " + TABLE + " (" + String.join(", ", COLUMNS) + ") VALUES ("
+                + JdbcDialect.placeholders(COLUMNS.length) + ")";
+        this.upsertSql = dialect.upsert(TABLE, COLUMNS, "name");
+    }
+
+    @Override
+    public Optional<AppLock> findById(String name) {
+        return jdbcTemplate.query("SELECT " + String.join(", ", COLUMNS) + " FROM " + TABLE + " WHERE name = ?",
+                ROW_MAPPER, name).stream().findFirst();
+    }
+
+    @Override
+    public boolean insert(AppLock lock) {
+        try {
+            jdbcTemplate.update(insertSql, values(lock));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public AppLock save(AppLock lock) {
+        jdbcTemplate.update(upsertSql, values(lock));
+        return lock;
+    }
+
+    @Override
+    public boolean updatePoolSize(String name, String instanceId, int poolSize, long resizedAt, String reason) {
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET pool_size = ?, pool_resized_at = ?, pool_resize_reason = ?"
+                + " WHERE name = ? AND instance_id = ?", poolSize, resizedAt, reason, name, instanceId) > 0;
+    }
+
+    @Override
+    public boolean updateSettings(String name, AppLock settings) {
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET pool_size = ?, queue_capacity = ?, cleanup_interval_ms = ?,"
+                        + " succeeded_retention_ms = ?, deleted_retention_ms = ?, settings_updated_at = ? WHERE name = ?",
+                settings.getPoolSize(), settings.getQueueCapacity(), settings.getCleanupIntervalMs(),
+                settings.getSucceededRetentionMs(), settings.getDeletedRetentionMs(), settings.getSettingsUpdatedAt(),
+                name) > 0;
+    }
+
+    @Override
+    public void deleteById(String name) {
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE name = ?", name);
+    }
+
+    private static Object[] values(AppLock lock) {
+        return new Object[]{
+                lock.getName(),
+                lock.getInstanceId(),
+                lock.getLockedAt(),
+                lock.getCleanupIntervalMs(),
+                lock.getSucceededRetentionMs(),
+                lock.getDeletedRetentionMs(),
+                lock.getPoolSize(),
+                lock.getQueueCapacity(),
+                lock.getPoolResizedAt(),
+                lock.getPoolResizeReason(),
+                lock.getSettingsUpdatedAt()
+        };
+    }
+}
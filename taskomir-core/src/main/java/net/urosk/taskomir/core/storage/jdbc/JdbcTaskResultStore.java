@@ -0,0 +1,55 @@
+package net.urosk.taskomir.core.storage.jdbc;
+
+import net.urosk.taskomir.core.storage.TaskResultStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * JDBC implementacija {@link TaskResultStore}, tabela {@code taskomir_task_result}. Rezultat je vedno inline
+ * (BYTEA oziroma BLOB); velike izhode je smiselneje shranjevati v Mongo (GridFS).
+ */
+public class JdbcTaskResultStore implements TaskResultStore {
+
+    static final String TABLE = "taskomir_task_result";
+
+    static final String[] COLUMNS = {"task_id", "data", "byte_size", "created_at"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsertSql;
+
+    public JdbcTaskResultStore(JdbcTemplate jdbcTemplate, JdbcDialect dialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertSql = dialect.upsert(TABLE, COLUMNS, "task_id");
+    }
+
+    @Override
+    public void save(String taskId, ResultWriter writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        byte[] data = out.toByteArray();
+        jdbcTemplate.update(upsertSql, taskId, data, (long) data.length, System.currentTimeMillis());
+    }
+
+    @Override
+    public Optional<InputStream> open(String taskId) {
+        return jdbcTemplate.query("SELECT data FROM " + TABLE + " WHERE task_id = ?",
+                        (rs, rowNum) -> rs.getBytes("data"), taskId).stream()
+                .findFirst()
+                .map(ByteArrayInputStream::new);
+    }
+
+    @Override
+    public void delete(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE task_id IN (" + JdbcDialect.placeholders(taskIds.size()) + ")",
+                taskIds.toArray());
+    }
+}
@@ -0,0 +1,391 @@
+package net.urosk.taskomir.core.storage.jdbc;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * JDBC implementacija {@link TaskStore} (PostgreSQL, H2), tabela {@code taskomir_task}.
+ * {@link #claimDue(long, Collection, int)} prevzame paket z {@code FOR UPDATE SKIP LOCKED}. Vrstice loga so v enem
+ * stolpcu, ločene z novo vrstico.
+ */
+public class JdbcTaskStore implements TaskStore {
+
+    static final String TABLE = "taskomir_task";
+
+    static final String[] COLUMNS = {
+            "id", "name", "progress", "current_progress", "status", "running", "error", "deleted_at", "created_at",
+            "started_at", "ended_at", "class_name", "cron_expression", "last_run_time", "parent_id", "log_lines",
+            "skip_if_already_running", "workflow_id", "depends_on", "critical_path", "idempotency_key",
+            "timeout_ms", "heartbeat_at", "attempt", "max_attempts", "attempt_history", "run_at",
+            "checkpoint", "checkpoint_at", "owner_instance_id", "payload", "payload_codec", "payload_type"
+    };
+
+    private static final String SELECT = "SELECT " + String.join(", ", COLUMNS) + " FROM " + TABLE;
+    // Strani za seznam nalog (dashboard) in paketni pregledi ne berejo payloada
+    private static final String SELECT_WITHOUT_PAYLOAD = "SELECT "
+            + String.join(", ", COLUMNS).replace(", payload,", ", NULL AS payload,") + " FROM " + TABLE;
+
+    private static final RowMapper<TaskInfo> ROW_MAPPER = JdbcTaskStore::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcDialect dialect;
+    private final TransactionTemplate transactionTemplate;
+    private final String upsertSql;
+    private final String insertSql;
+
+    public JdbcTaskStore(JdbcTemplate jdbcTemplate, JdbcDialect dialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = dialect;
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        this.upsertSql = dialect.upsert(TABLE, COLUMNS, "id");
+        this.insertSql = "INSERT INTO " + TABLE + " (" + String.join(", ", COLUMNS) + ") VALUES ("
+                + JdbcDialect.placeholders(COLUMNS.length) + ")";
+    }
+
+    @Override
+    public TaskInfo save(TaskInfo task) {
+        jdbcTemplate.update(upsertSql, values(task));
+        return task;
+    }
+
+    @Override
+    public Optional<TaskInfo> findById(String id) {
+        return jdbcTemplate.query(SELECT + " WHERE id = ?", ROW_MAPPER, id).stream().findFirst();
+    }
+
+    @Override
+    public List<TaskInfo> findAll() {
+        return jdbcTemplate.query(SELECT, ROW_MAPPER);
+    }
+
+    @Override
+    public List<TaskInfo> findByStatus(TaskStatus status) {
+        return jdbcTemplate.query(SELECT + " WHERE status = ? ORDER BY created_at DESC", ROW_MAPPER, status.name());
+    }
+
+    @Override
+    public Page<TaskInfo> findByStatus(TaskStatus status, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            List<TaskInfo> all = findByStatus(status);
+            return new PageImpl<>(all, pageable, all.size());
+        }
+        List<TaskInfo> content = jdbcTemplate.query(
+                SELECT_WITHOUT_PAYLOAD + " WHERE status = ? ORDER BY created_at DESC LIMIT ? OFFSET ?",
+                ROW_MAPPER, status.name(), pageable.getPageSize(), pageable.getOffset());
+        return new PageImpl<>(content, pageable, countByStatus(status));
+    }
+
+    @Override
+    public long countByStatus(TaskStatus status) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE + " WHERE status = ?", Long.class, status.name());
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public List<TaskInfo> findByParentIdAndStatusIn(String parentId, Collection<TaskStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(parentId);
+        statuses.forEach(status -> args.add(status.name()));
+        return jdbcTemplate.query(
+                SELECT + " WHERE parent_id = ? AND status IN (" + JdbcDialect.placeholders(statuses.size()) + ")",
+                ROW_MAPPER, args.toArray());
+    }
+
+    @Override
+    public boolean existsByParentIdAndStatusIn(String parentId, Collection<TaskStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return false;
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(parentId);
+        statuses.forEach(status -> args.add(status.name()));
+        return !jdbcTemplate.queryForList("SELECT 1 FROM " + TABLE + " WHERE parent_id = ? AND status IN ("
+                + JdbcDialect.placeholders(statuses.size()) + ") LIMIT 1", Integer.class, args.toArray()).isEmpty();
+    }
+
+    @Override
+    public Optional<TaskInfo> findByNameAndStatus(String name, TaskStatus status) {
+        return jdbcTemplate.query(SELECT + " WHERE name = ? AND status = ? ORDER BY created_at DESC LIMIT 1",
+                ROW_MAPPER, name, status.name()).stream().findFirst();
+    }
+
+    @Override
+    public Optional<TaskInfo> insertIfAbsent(TaskInfo task) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                jdbcTemplate.update(insertSql, values(task));
+                return Optional.empty();
+            } catch (DuplicateKeyException e) {
+                Optional<TaskInfo> owner = task.getIdempotencyKey() != null
+                        ? findByIdempotencyKey(task.getIdempotencyKey())
+                        : Optional.empty();
+                // Lastnik je lahko medtem ključ sprostil, zato poskusimo znova
+                if (owner.isPresent()) {
+                    return owner;
+                }
+                if (attempt >= 2) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<TaskInfo> findByIdempotencyKey(String idempotencyKey) {
+        return jdbcTemplate.query(SELECT + " WHERE idempotency_key = ?", ROW_MAPPER, idempotencyKey).stream().findFirst();
+    }
+
+    @Override
+    public boolean clearIdempotencyKey(String id, String idempotencyKey) {
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET idempotency_key = NULL WHERE id = ? AND idempotency_key = ?",
+                id, idempotencyKey) > 0;
+    }
+
+    @Override
+    public List<TaskInfo> findByWorkflowId(String workflowId) {
+        return jdbcTemplate.query(SELECT + " WHERE workflow_id = ?", ROW_MAPPER, workflowId);
+    }
+
+    @Override
+    public boolean transition(String id, TaskStatus expected, TaskStatus next) {
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET status = ? WHERE id = ? AND status = ?",
+                next.name(), id, expected.name()) > 0;
+    }
+
+    @Override
+    public List<TaskInfo> claimDue(long until, Collection<String> excludeIds, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        String exclude = excludeIds.isEmpty() ? "" : " AND id NOT IN (" + JdbcDialect.placeholders(excludeIds.size()) + ")";
+        String lockBatch = "SELECT id FROM " + TABLE + " WHERE status = ? AND run_at <= ? AND workflow_id IS NULL" + exclude
+                + " ORDER BY run_at LIMIT ? FOR UPDATE SKIP LOCKED";
+        List<Object> lockArgs = new ArrayList<>(List.of(TaskStatus.ENQUEUED.name(), until));
+        lockArgs.addAll(excludeIds);
+        lockArgs.add(limit);
+        long now = System.currentTimeMillis();
+
+        if (dialect.supportsUpdateReturning()) {
+            List<Object> args = new ArrayList<>(List.of(TaskStatus.PROCESSING.name(), now));
+            args.addAll(lockArgs);
+            List<TaskInfo> claimed = new ArrayList<>(jdbcTemplate.query(
+                    "UPDATE " + TABLE + " SET status = ?, heartbeat_at = ? WHERE id IN (" + lockBatch + ") RETURNING "
+                            + String.join(", ", COLUMNS),
+                    ROW_MAPPER, args.toArray()));
+            // RETURNING ne zagotavlja vrstnega reda
+            claimed.sort(Comparator.comparing(TaskInfo::getRunAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+            return claimed;
+        }
+
+        return transactionTemplate.execute(status -> {
+            List<String> ids = jdbcTemplate.queryForList(lockBatch, String.class, lockArgs.toArray());
+            if (ids.isEmpty()) {
+                return List.<TaskInfo>of();
+            }
+            String in = " WHERE id IN (" + JdbcDialect.placeholders(ids.size()) + ")";
+            List<Object> args = new ArrayList<>(List.of(TaskStatus.PROCESSING.name(), now));
+            args.addAll(ids);
+            jdbcTemplate.update("UPDATE " + TABLE + " SET status = ?, heartbeat_at = ?" + in, args.toArray());
+            return jdbcTemplate.query(SELECT + in + " ORDER BY run_at", ROW_MAPPER, ids.toArray());
+        });
+    }
+
+    @Override
+    public void forEachBatch(Collection<TaskStatus> statuses, int batchSize, Consumer<List<TaskInfo>> handler) {
+        String page = SELECT_WITHOUT_PAYLOAD + " WHERE status = ? AND (created_at > ? OR (created_at = ? AND id > ?))"
+                + " ORDER BY created_at, id LIMIT ?";
+        for (TaskStatus status : statuses.stream().distinct().toList()) {
+            long createdAt = Long.MIN_VALUE;
+            String id = "";
+            while (true) {
+                List<TaskInfo> batch = jdbcTemplate.query(page, ROW_MAPPER, status.name(), createdAt, createdAt, id, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                TaskInfo last = batch.get(batch.size() - 1);
+                // Ključ strani vzamemo pred handlerjem, ki lahko naloge spremeni
+                createdAt = last.getCreatedAt() != null ? last.getCreatedAt() : Long.MIN_VALUE;
+                id = last.getId();
+                handler.accept(batch);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int updateAll(List<TaskUpdate> updates, TaskStatus expected) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE " + TABLE + " SET status = ?, running = ?, progress = ?, current_progress = ?, error = ?,"
+                // LEAST vrne na H2 NULL, če je ena stran NULL
+                + " heartbeat_at = COALESCE(?, heartbeat_at), started_at = COALESCE(LEAST(started_at, ?), started_at, ?),"
+                + " ended_at = COALESCE(?, ended_at), deleted_at = COALESCE(?, deleted_at), run_at = COALESCE(?, run_at),"
+                + " owner_instance_id = COALESCE(?, owner_instance_id),"
+                // Nove vrstice loga se dodajo na konec (prazen dodatek pusti stolpec nespremenjen)
+                + " log_lines = COALESCE(log_lines || ?, ?, log_lines)"
+                + " WHERE id = ? AND status = ?";
+        List<Object[]> args = new ArrayList<>(updates.size());
+        for (TaskUpdate patch : updates) {
+            String lines = joinLogLines(patch.getLogLines());
+            args.add(new Object[]{
+                    patch.getStatus().name(), patch.isRunning(), patch.getProgress(), patch.getCurrentProgress(),
+                    patch.getError(), patch.getHeartbeatAt(), patch.getStartedAt(), patch.getStartedAt(), patch.getEndedAt(),
+                    patch.getDeletedAt(), patch.getRunAt(), patch.getOwnerInstanceId(),
+                    lines != null ? "\n" + lines : null, lines, patch.getTaskId(), expected.name()
+            });
+        }
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(sql, args)) {
+            // Nekateri gonilniki pri batchu ne vrnejo števila vrstic
+            updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+        }
+        return updated;
+    }
+
+    @Override
+    public void delete(TaskInfo task) {
+        deleteById(task.getId());
+    }
+
+    @Override
+    public void deleteById(String id) {
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id = ?", id);
+    }
+
+    @Override
+    public void deleteByStatus(TaskStatus status) {
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE status = ?", status.name());
+    }
+
+    @Override
+    public void deleteAll() {
+        jdbcTemplate.update("DELETE FROM " + TABLE);
+    }
+
+    /**
+     * Vrednosti v vrstnem redu {@link #COLUMNS}.
+     */
+    static Object[] values(TaskInfo task) {
+        return new Object[]{
+                task.getId(),
+                task.getName(),
+                task.getProgress(),
+                task.getCurrentProgress(),
+                task.getStatus() != null ? task.getStatus().name() : TaskStatus.ENQUEUED.name(),
+                task.isRunning(),
+                task.getError(),
+                task.getDeletedAt(),
+                task.getCreatedAt(),
+                task.getStartedAt(),
+                task.getEndedAt(),
+                task.getClassName(),
+                task.getCronExpression(),
+                task.getLastRunTime(),
+                task.getParentId(),
+                joinLogLines(task.getLogLines()),
+                task.isSkipIfAlreadyRunning(),
+                task.getWorkflowId(),
+                task.getDependsOn() != null ? String.join(",", task.getDependsOn()) : null,
+                task.getCriticalPath(),
+                task.getIdempotencyKey(),
+                task.getTimeoutMillis(),
+                task.getHeartbeatAt(),
+                task.getAttempt(),
+                task.getMaxAttempts(),
+                joinLogLines(task.getAttemptHistory()),
+                task.getRunAt(),
+                task.getCheckpoint(),
+                task.getCheckpointAt(),
+                task.getOwnerInstanceId(),
+                task.getPayload(),
+                task.getPayloadCodec(),
+                task.getPayloadType()
+        };
+    }
+
+    static TaskInfo mapRow(ResultSet rs, int rowNum) throws SQLException {
+        TaskInfo task = new TaskInfo(rs.getString("id"), rs.getString("name"));
+        task.setProgress(rs.getDouble("progress"));
+        task.setCurrentProgress(rs.getString("current_progress"));
+        task.setStatus(TaskStatus.valueOf(rs.getString("status")));
+        task.setRunning(rs.getBoolean("running"));
+        task.setError(rs.getString("error"));
+        task.setDeletedAt(rs.getObject("deleted_at", Long.class));
+        task.setCreatedAt(rs.getObject("created_at", Long.class));
+        task.setStartedAt(rs.getObject("started_at", Long.class));
+        task.setEndedAt(rs.getObject("ended_at", Long.class));
+        task.setClassName(rs.getString("class_name"));
+        task.setCronExpression(rs.getString("cron_expression"));
+        task.setLastRunTime(rs.getObject("last_run_time", Long.class));
+        task.setParentId(rs.getString("parent_id"));
+        task.setLogLines(splitLogLines(rs.getString("log_lines")));
+        task.setSkipIfAlreadyRunning(rs.getBoolean("skip_if_already_running"));
+        task.setWorkflowId(rs.getString("workflow_id"));
+        String dependsOn = rs.getString("depends_on");
+        task.setDependsOn(dependsOn == null ? null
+                : dependsOn.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(dependsOn.split(","))));
+        task.setCriticalPath(rs.getObject("critical_path", Long.class));
+        task.setIdempotencyKey(rs.getString("idempotency_key"));
+        task.setTimeoutMillis(rs.getObject("timeout_ms", Long.class));
+        task.setHeartbeatAt(rs.getObject("heartbeat_at", Long.class));
+        task.setAttempt(rs.getObject("attempt", Integer.class));
+        task.setMaxAttempts(rs.getObject("max_attempts", Integer.class));
+        task.setAttemptHistory(splitLogLines(rs.getString("attempt_history")));
+        task.setRunAt(rs.getObject("run_at", Long.class));
+        task.setCheckpoint(rs.getString("checkpoint"));
+        task.setCheckpointAt(rs.getObject("checkpoint_at", Long.class));
+        task.setOwnerInstanceId(rs.getString("owner_instance_id"));
+        task.setPayload(rs.getBytes("payload"));
+        task.setPayloadCodec(rs.getString("payload_codec"));
+        task.setPayloadType(rs.getString("payload_type"));
+        return task;
+    }
+
+    static String joinLogLines(List<String> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return null;
+        }
+        StringBuilder joined = new StringBuilder();
+        for (String line : lines) {
+            if (!joined.isEmpty()) {
+                joined.append('\n');
+            }
+            joined.append(line != null ? line.replace('\n', ' ').replace('\r', ' ') : "");
+        }
+        return joined.toString();
+    }
+
+    static List<String> splitLogLines(String joined) {
+        if (joined == null) {
+            return null;
+        }
+        return new ArrayList<>(Arrays.asList(joined.split("\n", -1)));
+    }
+}
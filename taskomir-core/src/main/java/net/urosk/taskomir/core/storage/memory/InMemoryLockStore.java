@@ -0,0 +1,65 @@
+package net.urosk.taskomir.core.storage.memory;
+
+import net.urosk.taskomir.core.domain.AppLock;
+import net.urosk.taskomir.core.storage.LockStore;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory implementacija {@link LockStore}. Locki veljajo samo znotraj ene JVM.
+ */
+public class InMemoryLockStore implements LockStore {
+
+    private final ConcurrentHashMap<String, AppLock> locks = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<AppLock> findById(String name) {
+        return Optional.ofNullable(locks.get(name));
+    }
+
+    @Override
+    public boolean insert(AppLock lock) {
+        return locks.putIfAbsent(lock.getName(), lock) == null;
+    }
+
+    @Override
+    public AppLock save(AppLock lock) {
+        locks.put(lock.getName(), lock);
+        return lock;
+    }
+
+    @Override
+    public boolean updatePoolSize(String name, String instanceId, int poolSize, long resizedAt, String reason) {
+        boolean[] updated = new boolean[1];
+        locks.computeIfPresent(name, (key, lock) -> {
+            if (Objects.equals(lock.getInstanceId(), instanceId)) {
+                lock.setPoolSize(poolSize);
+                lock.setPoolResizedAt(resizedAt);
+                lock.setPoolResizeReason(reason);
+                updated[0] = true;
+            }
+            return lock;
+        });
+        return updated[0];
+    }
+
+    @Override
+    public boolean updateSettings(String name, AppLock settings) {
+        return locks.computeIfPresent(name, (key, lock) -> {
+            lock.setPoolSize(settings.getPoolSize());
+            lock.setQueueCapacity(settings.getQueueCapacity());
+            lock.setCleanupIntervalMs(settings.getCleanupIntervalMs());
+            lock.setSucceededRetentionMs(settings.getSucceededRetentionMs());
+            lock.setDeletedRetentionMs(settings.getDeletedRetentionMs());
+            lock.setSettingsUpdatedAt(settings.getSettingsUpdatedAt());
+            return lock;
+        }) != null;
+    }
+
+    @Override
+    public void deleteById(String name) {
+        locks.remove(name);
+    }
+}
@@ -0,0 +1,30 @@
+package net.urosk.taskomir.core.storage.memory;
+
+import net.urosk.taskomir.core.storage.RateLimitStore;
+import net.urosk.taskomir.core.storage.TokenBucket;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory implementacija {@link RateLimitStore}. Vedra veljajo samo znotraj ene JVM.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String key, double permitsPerSecond, int burst) {
+        long now = System.currentTimeMillis();
+        long[] wait = new long[1];
+        buckets.compute(key, (k, current) -> {
+            TokenBucket bucket = current != null ? current.refilled(now, permitsPerSecond, burst) : TokenBucket.full(burst, now);
+            if (bucket.hasToken()) {
+                wait[0] = 0;
+                return bucket.take();
+            }
+            wait[0] = bucket.millisUntilToken(permitsPerSecond);
+            return bucket;
+        });
+        return wait[0];
+    }
+}
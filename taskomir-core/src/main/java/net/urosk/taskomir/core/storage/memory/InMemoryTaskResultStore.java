@@ -0,0 +1,37 @@
+package net.urosk.taskomir.core.storage.memory;
+
+import net.urosk.taskomir.core.storage.TaskResultStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rezultati nalog v pomnilniku; ne preživijo restarta.
+ */
+public class InMemoryTaskResultStore implements TaskResultStore {
+
+    private final Map<String, byte[]> results = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(String taskId, ResultWriter writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        results.put(taskId, out.toByteArray());
+    }
+
+    @Override
+    public Optional<InputStream> open(String taskId) {
+        return Optional.ofNullable(results.get(taskId)).map(ByteArrayInputStream::new);
+    }
+
+    @Override
+    public void delete(Collection<String> taskIds) {
+        taskIds.forEach(results::remove);
+    }
+}
@@ -0,0 +1,379 @@
+package net.urosk.taskomir.core.storage.memory;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * In-memory implementacija {@link TaskStore} za teste, benchmarke in enkratne (ne-trajne) namestitve.
+ * Vsak status ima urejen indeks, zato seznami in štetja ne pregledujejo cele shrambe. Pisanja iste naloge se
+ * serializirajo prek {@link ConcurrentHashMap#compute}; shranjene in vrnjene instance so kopije.
+ */
+public class InMemoryTaskStore implements TaskStore {
+
+    private static final Comparator<IndexKey> ORDER =
+            Comparator.comparingLong(IndexKey::at).thenComparing(IndexKey::id);
+
+    private final ConcurrentHashMap<String, TaskInfo> tasks = new ConcurrentHashMap<>();
+    private final Map<TaskStatus, ConcurrentSkipListSet<IndexKey>> byStatus = new EnumMap<>(TaskStatus.class);
+    private final Map<TaskStatus, LongAdder> counts = new EnumMap<>(TaskStatus.class);
+    // ENQUEUED naloge z runAt, urejene po (runAt, id)
+    private final ConcurrentSkipListSet<IndexKey> byRunAt = new ConcurrentSkipListSet<>(ORDER);
+    // idempotencyKey -> id naloge, ki ima ključ v lasti (kot unikaten indeks)
+    private final ConcurrentHashMap<String, String> idempotencyKeys = new ConcurrentHashMap<>();
+
+    public InMemoryTaskStore() {
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListSet<>(ORDER));
+            counts.put(status, new LongAdder());
+        }
+    }
+
+    @Override
+    public TaskInfo save(TaskInfo task) {
+        TaskInfo stored = task.copy();
+        tasks.compute(stored.getId(), (id, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(stored);
+            return stored;
+        });
+        return task;
+    }
+
+    @Override
+    public Optional<TaskInfo> insertIfAbsent(TaskInfo task) {
+        String key = task.getIdempotencyKey();
+        if (key == null) {
+            save(task);
+            return Optional.empty();
+        }
+        TaskInfo[] owner = new TaskInfo[1];
+        idempotencyKeys.compute(key, (k, ownerId) -> {
+            TaskInfo current = ownerId != null ? tasks.get(ownerId) : null;
+            if (current != null && key.equals(current.getIdempotencyKey())) {
+                owner[0] = current.copy();
+                return ownerId;
+            }
+            save(task);
+            return task.getId();
+        });
+        return Optional.ofNullable(owner[0]);
+    }
+
+    @Override
+    public Optional<TaskInfo> findByIdempotencyKey(String idempotencyKey) {
+        return Optional.ofNullable(idempotencyKeys.get(idempotencyKey))
+                .map(tasks::get)
+                .filter(task -> idempotencyKey.equals(task.getIdempotencyKey()))
+                .map(TaskInfo::copy);
+    }
+
+    @Override
+    public boolean clearIdempotencyKey(String id, String idempotencyKey) {
+        boolean[] cleared = new boolean[1];
+        tasks.computeIfPresent(id, (key, current) -> {
+            if (!idempotencyKey.equals(current.getIdempotencyKey())) {
+                return current;
+            }
+            cleared[0] = true;
+            TaskInfo updated = current.copy();
+            updated.setIdempotencyKey(null);
+            return updated;
+        });
+        if (cleared[0]) {
+            idempotencyKeys.remove(idempotencyKey, id);
+        }
+        return cleared[0];
+    }
+
+    @Override
+    public Optional<TaskInfo> findById(String id) {
+        return Optional.ofNullable(tasks.get(id)).map(TaskInfo::copy);
+    }
+
+    @Override
+    public List<TaskInfo> findAll() {
+        return tasks.values().stream().map(TaskInfo::copy).toList();
+    }
+
+    @Override
+    public List<TaskInfo> findByStatus(TaskStatus status) {
+        return newestFirst(status).map(TaskInfo::copy).toList();
+    }
+
+    @Override
+    public Page<TaskInfo> findByStatus(TaskStatus status, Pageable pageable) {
+        Stream<TaskInfo> stream = newestFirst(status);
+        if (pageable.isPaged()) {
+            stream = stream.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return new PageImpl<>(stream.map(TaskInfo::copy).toList(), pageable, countByStatus(status));
+    }
+
+    @Override
+    public long countByStatus(TaskStatus status) {
+        return counts.get(status).sum();
+    }
+
+    @Override
+    public List<TaskInfo> findByParentIdAndStatusIn(String parentId, Collection<TaskStatus> statuses) {
+        Predicate<TaskInfo> childOf = task -> parentId.equals(task.getParentId());
+        return statuses.stream()
+                .distinct()
+                .flatMap(status -> newestFirst(status).filter(childOf))
+                .map(TaskInfo::copy)
+                .toList();
+    }
+
+    @Override
+    public boolean existsByParentIdAndStatusIn(String parentId, Collection<TaskStatus> statuses) {
+        return statuses.stream()
+                .distinct()
+                .flatMap(this::newestFirst)
+                .anyMatch(task -> parentId.equals(task.getParentId()));
+    }
+
+    @Override
+    public Optional<TaskInfo> findByNameAndStatus(String name, TaskStatus status) {
+        return newestFirst(status)
+                .filter(task -> name.equals(task.getName()))
+                .findFirst()
+                .map(TaskInfo::copy);
+    }
+
+    @Override
+    public List<TaskInfo> findByWorkflowId(String workflowId) {
+        // Workflowi so redki in majhni, zato brez posebnega indeksa
+        return tasks.values().stream()
+                .filter(task -> workflowId.equals(task.getWorkflowId()))
+                .map(TaskInfo::copy)
+                .toList();
+    }
+
+    @Override
+    public boolean transition(String id, TaskStatus expected, TaskStatus next) {
+        boolean[] moved = new boolean[1];
+        tasks.computeIfPresent(id, (key, current) -> {
+            if (current.getStatus() != expected) {
+                return current;
+            }
+            moved[0] = true;
+            return moved(current, next, false);
+        });
+        return moved[0];
+    }
+
+    @Override
+    public List<TaskInfo> claimDue(long until, Collection<String> excludeIds, int limit) {
+        List<TaskInfo> claimed = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (IndexKey key : byRunAt) {
+            if (key.at() > until || claimed.size() >= limit) {
+                break;
+            }
+            if (excludeIds.contains(key.id())) {
+                continue;
+            }
+            tasks.computeIfPresent(key.id(), (id, current) -> {
+                if (current.getStatus() != TaskStatus.ENQUEUED || current.getWorkflowId() != null
+                        || current.getRunAt() == null || current.getRunAt() != key.at()) {
+                    return current;
+                }
+                TaskInfo updated = moved(current, TaskStatus.PROCESSING, false);
+                updated.setHeartbeatAt(now);
+                claimed.add(updated.copy());
+                return updated;
+            });
+        }
+        return claimed;
+    }
+
+    @Override
+    public void forEachBatch(Collection<TaskStatus> statuses, int batchSize, Consumer<List<TaskInfo>> handler) {
+        List<TaskInfo> batch = new ArrayList<>(batchSize);
+        for (TaskStatus status : statuses.stream().distinct().toList()) {
+            for (IndexKey key : byStatus.get(status)) {
+                TaskInfo task = tasks.get(key.id());
+                if (task == null || task.getStatus() != status) {
+                    continue;
+                }
+                batch.add(task.copy());
+                if (batch.size() == batchSize) {
+                    handler.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            handler.accept(batch);
+        }
+    }
+
+    @Override
+    public int updateAll(List<TaskUpdate> updates, TaskStatus expected) {
+        int updated = 0;
+        for (TaskUpdate patch : updates) {
+            boolean[] applied = new boolean[1];
+            tasks.computeIfPresent(patch.getTaskId(), (id, current) -> {
+                if (current.getStatus() != expected) {
+                    return current;
+                }
+                applied[0] = true;
+                return patched(current, patch);
+            });
+            if (applied[0]) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public void delete(TaskInfo task) {
+        deleteById(task.getId());
+    }
+
+    @Override
+    public void deleteById(String id) {
+        TaskInfo[] removed = new TaskInfo[1];
+        tasks.computeIfPresent(id, (key, current) -> {
+            unindex(current);
+            removed[0] = current;
+            return null;
+        });
+        releaseKey(removed[0]);
+    }
+
+    @Override
+    public void deleteByStatus(TaskStatus status) {
+        for (IndexKey key : byStatus.get(status)) {
+            TaskInfo[] removed = new TaskInfo[1];
+            tasks.computeIfPresent(key.id(), (id, current) -> {
+                if (current.getStatus() != status) {
+                    return current;
+                }
+                unindex(current);
+                removed[0] = current;
+                return null;
+            });
+            releaseKey(removed[0]);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        for (String id : tasks.keySet()) {
+            deleteById(id);
+        }
+    }
+
+    /**
+     * Klicano znotraj compute, zato sta indeks in mapa za ta id usklajena.
+     */
+    private TaskInfo moved(TaskInfo current, TaskStatus next, boolean running) {
+        TaskInfo updated = current.copy();
+        updated.setStatus(next);
+        updated.setRunning(running);
+        unindex(current);
+        index(updated);
+        return updated;
+    }
+
+    /**
+     * Enaka pravila kot {@link TaskUpdate}; klicano znotraj compute.
+     */
+    private TaskInfo patched(TaskInfo current, TaskUpdate patch) {
+        TaskInfo updated = current.copy();
+        updated.setStatus(patch.getStatus());
+        updated.setRunning(patch.isRunning());
+        updated.setProgress(patch.getProgress());
+        updated.setCurrentProgress(patch.getCurrentProgress());
+        updated.setError(patch.getError());
+        if (patch.getHeartbeatAt() != null) {
+            updated.setHeartbeatAt(patch.getHeartbeatAt());
+        }
+        if (patch.getStartedAt() != null && (updated.getStartedAt() == null || patch.getStartedAt() < updated.getStartedAt())) {
+            updated.setStartedAt(patch.getStartedAt());
+        }
+        if (patch.getEndedAt() != null) {
+            updated.setEndedAt(patch.getEndedAt());
+        }
+        if (patch.getDeletedAt() != null) {
+            updated.setDeletedAt(patch.getDeletedAt());
+        }
+        if (patch.getRunAt() != null) {
+            updated.setRunAt(patch.getRunAt());
+        }
+        if (patch.getOwnerInstanceId() != null) {
+            updated.setOwnerInstanceId(patch.getOwnerInstanceId());
+        }
+        patch.getLogLines().forEach(updated::addLogLine);
+        unindex(current);
+        index(updated);
+        return updated;
+    }
+
+    /**
+     * Klicano izven compute na {@code tasks}, da se zakleni obeh map nikoli ne prepleteta.
+     */
+    private void releaseKey(TaskInfo removed) {
+        if (removed != null && removed.getIdempotencyKey() != null) {
+            idempotencyKeys.remove(removed.getIdempotencyKey(), removed.getId());
+        }
+    }
+
+    private Stream<TaskInfo> newestFirst(TaskStatus status) {
+        return byStatus.get(status).descendingSet().stream()
+                .map(key -> tasks.get(key.id()))
+                .filter(task -> task != null && task.getStatus() == status);
+    }
+
+    private void index(TaskInfo task) {
+        TaskStatus status = task.getStatus();
+        if (status != null && byStatus.get(status).add(IndexKey.of(task))) {
+            counts.get(status).increment();
+        }
+        if (status == TaskStatus.ENQUEUED && task.getRunAt() != null) {
+            byRunAt.add(new IndexKey(task.getRunAt(), task.getId()));
+        }
+    }
+
+    private void unindex(TaskInfo task) {
+        TaskStatus status = task.getStatus();
+        if (status != null && byStatus.get(status).remove(IndexKey.of(task))) {
+            counts.get(status).decrement();
+        }
+        if (status == TaskStatus.ENQUEUED && task.getRunAt() != null) {
+            byRunAt.remove(new IndexKey(task.getRunAt(), task.getId()));
+        }
+    }
+
+    /**
+     * {@code at} je createdAt v indeksih po statusu in runAt v {@link #byRunAt}.
+     */
+    private record IndexKey(long at, String id) {
+        static IndexKey of(TaskInfo task) {
+            return new IndexKey(task.getCreatedAt() != null ? task.getCreatedAt() : 0L, task.getId());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package net.urosk.taskomir.core.storage.mongo;
+
+import net.urosk.taskomir.core.domain.AppLock;
+import net.urosk.taskomir.core.repository.AppLockRepository;
+import net.urosk.taskomir.core.storage.LockStore;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Optional;
+
+/**
+ * MongoDB implementacija {@link LockStore}; unikatnost zagotavlja _id v kolekciji app_locks.
+ */
+public class MongoLockStore implements LockStore {
+
+    private final AppLockRepository repository;
+    private final MongoTemplate mongoTemplate;
+
+    public MongoLockStore(AppLockRepository repository, MongoTemplate mongoTemplate) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<AppLock> findById(String name) {
+        return repository.findById(name);
+    }
+
+    @Override
+    public boolean insert(AppLock lock) {
+        try {
+            repository.insert(lock);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Spring prevede Mongo napako E11000 v DuplicateKeyException
+            return false;
+        }
+    }
+
+    @Override
+    public AppLock save(AppLock lock) {
+        return repository.save(lock);
+    }
+
+    @Override
+    public boolean updatePoolSize(String name, String instanceId, int poolSize, long resizedAt, String reason) {
+        Query owned = Query.query(Criteria.where("_id").is(name).and("instanceId").is(instanceId));
+        Update update = new Update()
+                .set("poolSize", poolSize)
+                .set("poolResizedAt", resizedAt)
+                .set("poolResizeReason", reason);
+        return mongoTemplate.updateFirst(owned, update, AppLock.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean updateSettings(String name, AppLock settings) {
+        Update update = new Update()
+                .set("poolSize", settings.getPoolSize())
+                .set("queueCapacity", settings.getQueueCapacity())
+                .set("cleanupIntervalMs", settings.getCleanupIntervalMs())
+                .set("succeededRetentionMs", settings.getSucceededRetentionMs())
+                .set("deletedRetentionMs", settings.getDeletedRetentionMs())
+                .set("settingsUpdatedAt", settings.getSettingsUpdatedAt());
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(name)), update, AppLock.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public void deleteById(String name) {
+        repository.deleteById(name);
+    }
+}
@@ -0,0 +1,65 @@
+package net.urosk.taskomir.core.storage.mongo;
+
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.storage.RateLimitStore;
+import net.urosk.taskomir.core.storage.TokenBucket;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * MongoDB implementacija {@link RateLimitStore}: vedra so deljena med vsemi instancami, ki uporabljajo isto bazo.
+ * Žeton se vzame s pogojnim updateom na prebrane vrednosti (compare-and-set).
+ */
+@Slf4j
+public class MongoRateLimitStore implements RateLimitStore {
+
+    static final String COLLECTION = "taskomir_rate_limits";
+    private static final int MAX_ATTEMPTS = 10;
+    // Ob pretirani tekmi za isto vedro klicatelj poskusi znova čez kratek čas
+    private static final long CONTENDED_WAIT_MILLIS = 10;
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoRateLimitStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public long tryAcquire(String key, double permitsPerSecond, int burst) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long now = System.currentTimeMillis();
+            Document stored = mongoTemplate.findById(key, Document.class, COLLECTION);
+            TokenBucket bucket = stored != null
+                    ? new TokenBucket(stored.get("tokens", Number.class).doubleValue(), stored.getLong("updatedAt"))
+                            .refilled(now, permitsPerSecond, burst)
+                    : TokenBucket.full(burst, now);
+            if (!bucket.hasToken()) {
+                return bucket.millisUntilToken(permitsPerSecond);
+            }
+            TokenBucket taken = bucket.take();
+            if (stored == null) {
+                try {
+                    mongoTemplate.insert(new Document("_id", key)
+                            .append("tokens", taken.tokens())
+                            .append("updatedAt", taken.updatedAt()), COLLECTION);
+                    return 0;
+                } catch (DuplicateKeyException e) {
+                    continue;
+                }
+            }
+            Query unchanged = Query.query(Criteria.where("_id").is(key)
+                    .and("tokens").is(stored.get("tokens"))
+                    .and("updatedAt").is(stored.get("updatedAt")));
+            Update update = new Update().set("tokens", taken.tokens()).set("updatedAt", taken.updatedAt());
+            if (mongoTemplate.updateFirst(unchanged, update, COLLECTION).getModifiedCount() > 0) {
+                return 0;
+            }
+        }
+        log.debug("Rate limit bucket {} is contended, retrying later", key);
+        return CONTENDED_WAIT_MILLIS;
+    }
+}
@@ -0,0 +1,164 @@
+package net.urosk.taskomir.core.storage.mongo;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.storage.TaskResultStore;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * MongoDB implementacija {@link TaskResultStore}: majhni rezultati inline, veliki v GridFS (bucket {@code taskomir_results}).
+ */
+@Slf4j
+public class MongoTaskResultStore implements TaskResultStore {
+
+    static final String COLLECTION = "taskomir_task_results";
+    static final String BUCKET = "taskomir_results";
+
+    private final MongoTemplate mongoTemplate;
+    private final GridFSBucket bucket;
+    private final int inlineLimit;
+
+    public MongoTaskResultStore(MongoTemplate mongoTemplate, int inlineLimit) {
+        this.mongoTemplate = mongoTemplate;
+        this.bucket = GridFSBuckets.create(mongoTemplate.getDb(), BUCKET);
+        this.inlineLimit = inlineLimit;
+    }
+
+    @Override
+    public void save(String taskId, ResultWriter writer) throws IOException {
+        SpillingOutputStream out = new SpillingOutputStream(taskId);
+        try {
+            writer.writeTo(out);
+            out.close();
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        }
+        Document entry = new Document("_id", taskId)
+                .append("size", out.size)
+                .append("createdAt", System.currentTimeMillis());
+        if (out.upload != null) {
+            entry.append("fileId", out.upload.getObjectId());
+        } else {
+            entry.append("data", new Binary(out.buffer.toByteArray()));
+        }
+        Document previous;
+        try {
+            previous = mongoTemplate.findAndReplace(Query.query(Criteria.where("_id").is(taskId)), entry,
+                    FindAndReplaceOptions.options().upsert(), COLLECTION);
+        } catch (RuntimeException e) {
+            if (out.upload != null) {
+                deleteFile(out.upload.getObjectId());
+            }
+            throw e;
+        }
+        if (previous != null && previous.get("fileId") instanceof ObjectId fileId) {
+            deleteFile(fileId);
+        }
+    }
+
+    @Override
+    public Optional<InputStream> open(String taskId) {
+        Document entry = mongoTemplate.findById(taskId, Document.class, COLLECTION);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.get("fileId") instanceof ObjectId fileId) {
+            return Optional.of(bucket.openDownloadStream(fileId));
+        }
+        Object data = entry.get("data");
+        return Optional.of(new ByteArrayInputStream(data instanceof Binary binary ? binary.getData() : (byte[]) data));
+    }
+
+    @Override
+    public void delete(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        Query files = Query.query(Criteria.where("_id").in(taskIds).and("fileId").exists(true));
+        files.fields().include("fileId");
+        mongoTemplate.find(files, Document.class, COLLECTION)
+                .forEach(entry -> deleteFile(entry.getObjectId("fileId")));
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(taskIds)), COLLECTION);
+    }
+
+    private void deleteFile(ObjectId fileId) {
+        try {
+            bucket.delete(fileId);
+        } catch (MongoGridFSException e) {
+            log.debug("Result file {} already removed", fileId);
+        }
+    }
+
+    /**
+     * Hrani bajte v pomnilniku do {@code inlineLimit}, nato preklopi na GridFS.
+     */
+    private final class SpillingOutputStream extends OutputStream {
+        private final String taskId;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private GridFSUploadStream upload;
+        private long size;
+        private boolean closed;
+
+        SpillingOutputStream(String taskId) {
+            this.taskId = taskId;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (upload == null && buffer.size() + len > inlineLimit) {
+                upload = bucket.openUploadStream(taskId);
+                buffer.writeTo(upload);
+                buffer = null;
+            }
+            if (upload != null) {
+                upload.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+            size += len;
+        }
+
+        @Override
+        public void close() {
+            // Serializator tok lahko zapre sam
+            if (!closed) {
+                closed = true;
+                if (upload != null) {
+                    upload.close();
+                }
+            }
+        }
+
+        void abort() {
+            if (upload != null && !closed) {
+                closed = true;
+                upload.abort();
+            } else if (upload != null) {
+                deleteFile(upload.getObjectId());
+            }
+        }
+    }
+}
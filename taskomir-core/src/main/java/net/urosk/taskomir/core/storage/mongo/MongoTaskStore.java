@@ -0,0 +1,270 @@
+package net.urosk.taskomir.core.storage.mongo;
+
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.repository.TaskInfoRepository;
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * MongoDB implementacija {@link TaskStore} (privzeta). Preproste poizvedbe gredo prek {@link TaskInfoRepository},
+ * atomarni prehodi statusov pa prek {@link MongoTemplate} (updateFirst / findAndModify s pogojem na status).
+ */
+@Slf4j
+public class MongoTaskStore implements TaskStore {
+
+    private final TaskInfoRepository repository;
+    private final MongoTemplate mongoTemplate;
+
+    public MongoTaskStore(TaskInfoRepository repository, MongoTemplate mongoTemplate) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Indeksi za poizvedbe, ki jih Taskomir izvaja na vsakem prehodu (status + createdAt, otroci po parentId).
+     */
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(TaskInfo.class);
+        indexOps.ensureIndex(new Index().on("status", Sort.Direction.ASC).on("createdAt", Sort.Direction.DESC)
+                .named("status_createdAt"));
+        indexOps.ensureIndex(new Index().on("parentId", Sort.Direction.ASC).on("status", Sort.Direction.ASC)
+                .named("parentId_status"));
+        indexOps.ensureIndex(new Index().on("workflowId", Sort.Direction.ASC).sparse().named("workflowId"));
+        // Samo čakajoče zakasnjene naloge
+        indexOps.ensureIndex(new Index().on("runAt", Sort.Direction.ASC)
+                .partial(PartialIndexFilter.of(Criteria.where("runAt").exists(true).and("status").is(TaskStatus.ENQUEUED.name())))
+                .named("runAt_enqueued"));
+        // Unikaten samo med nalogami, ki ključ imajo
+        indexOps.ensureIndex(new Index().on("idempotencyKey", Sort.Direction.ASC).unique()
+                .partial(PartialIndexFilter.of(Criteria.where("idempotencyKey").exists(true)))
+                .named("idempotencyKey"));
+        log.debug("Taskomir task indexes ensured");
+    }
+
+    @Override
+    public TaskInfo save(TaskInfo task) {
+        return repository.save(task);
+    }
+
+    @Override
+    public Optional<TaskInfo> findById(String id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public List<TaskInfo> findAll() {
+        return repository.findAll();
+    }
+
+    @Override
+    public List<TaskInfo> findByStatus(TaskStatus status) {
+        return repository.findByStatusOrderByCreatedAtDesc(status);
+    }
+
+    @Override
+    public Page<TaskInfo> findByStatus(TaskStatus status, Pageable pageable) {
+        Query query = Query.query(Criteria.where("status").is(status)).with(Sort.by(Sort.Direction.DESC, "createdAt"));
+        // Payload se dekodira šele ob zagonu naloge; strani seznama (dashboard) ga ne berejo
+        query.fields().exclude("payload");
+        query.with(pageable);
+        return PageableExecutionUtils.getPage(mongoTemplate.find(query, TaskInfo.class), pageable,
+                () -> countByStatus(status));
+    }
+
+    @Override
+    public long countByStatus(TaskStatus status) {
+        return repository.countByStatus(status);
+    }
+
+    @Override
+    public List<TaskInfo> findByParentIdAndStatusIn(String parentId, Collection<TaskStatus> statuses) {
+        return repository.findByParentIdAndStatusIn(parentId, List.copyOf(statuses));
+    }
+
+    @Override
+    public boolean existsByParentIdAndStatusIn(String parentId, Collection<TaskStatus> statuses) {
+        return repository.existsByParentIdAndStatusIn(parentId, List.copyOf(statuses));
+    }
+
+    @Override
+    public Optional<TaskInfo> findByNameAndStatus(String name, TaskStatus status) {
+        return repository.findByNameAndStatus(name, status);
+    }
+
+    @Override
+    public Optional<TaskInfo> insertIfAbsent(TaskInfo task) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                mongoTemplate.insert(task);
+                return Optional.empty();
+            } catch (DuplicateKeyException e) {
+                Optional<TaskInfo> owner = task.getIdempotencyKey() != null
+                        ? repository.findByIdempotencyKey(task.getIdempotencyKey())
+                        : Optional.empty();
+                // Lastnik je lahko medtem ključ sprostil, zato poskusimo znova
+                if (owner.isPresent()) {
+                    return owner;
+                }
+                if (attempt >= 2) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<TaskInfo> findByIdempotencyKey(String idempotencyKey) {
+        return repository.findByIdempotencyKey(idempotencyKey);
+    }
+
+    @Override
+    public boolean clearIdempotencyKey(String id, String idempotencyKey) {
+        Query query = Query.query(Criteria.where("_id").is(id).and("idempotencyKey").is(idempotencyKey));
+        return mongoTemplate.updateFirst(query, new Update().unset("idempotencyKey"), TaskInfo.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public List<TaskInfo> findByWorkflowId(String workflowId) {
+        return repository.findByWorkflowId(workflowId);
+    }
+
+    @Override
+    public boolean transition(String id, TaskStatus expected, TaskStatus next) {
+        Query query = Query.query(Criteria.where("_id").is(id).and("status").is(expected));
+        return mongoTemplate.updateFirst(query, Update.update("status", next), TaskInfo.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public List<TaskInfo> claimDue(long until, Collection<String> excludeIds, int limit) {
+        List<TaskInfo> claimed = new ArrayList<>();
+        Criteria criteria = Criteria.where("status").is(TaskStatus.ENQUEUED).and("runAt").lte(until)
+                .and("workflowId").is(null);
+        if (!excludeIds.isEmpty()) {
+            criteria = criteria.and("_id").nin(excludeIds);
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "runAt"));
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+        while (claimed.size() < limit) {
+            Update update = new Update().set("status", TaskStatus.PROCESSING).set("heartbeatAt", System.currentTimeMillis());
+            // findAndModify je atomaren po dokumentu, zato dva klicatelja ne prevzameta iste naloge
+            TaskInfo task = mongoTemplate.findAndModify(query, update, options, TaskInfo.class);
+            if (task == null) {
+                break;
+            }
+            claimed.add(task);
+        }
+        return claimed;
+    }
+
+    @Override
+    public void forEachBatch(Collection<TaskStatus> statuses, int batchSize, Consumer<List<TaskInfo>> handler) {
+        Query query = Query.query(Criteria.where("status").in(statuses)).cursorBatchSize(batchSize);
+        // Seznami so lahko dolgi, klicatelj potrebuje samo stanje
+        query.fields().exclude("logLines").exclude("attemptHistory").exclude("payload");
+        try (Stream<TaskInfo> stream = mongoTemplate.stream(query, TaskInfo.class)) {
+            List<TaskInfo> batch = new ArrayList<>(batchSize);
+            Iterator<TaskInfo> cursor = stream.iterator();
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    handler.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                handler.accept(batch);
+            }
+        }
+    }
+
+    @Override
+    public int updateAll(List<TaskUpdate> updates, TaskStatus expected) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TaskInfo.class);
+        for (TaskUpdate patch : updates) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(patch.getTaskId()).and("status").is(expected)),
+                    toUpdate(patch));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    /**
+     * Sprememba kot en {@code $set}/{@code $min}/{@code $push}, brez branja dokumenta.
+     */
+    public static Update toUpdate(TaskUpdate patch) {
+        Update update = new Update()
+                .set("status", patch.getStatus())
+                .set("running", patch.isRunning())
+                .set("progress", patch.getProgress())
+                .set("currentProgress", patch.getCurrentProgress())
+                .set("error", patch.getError());
+        if (patch.getHeartbeatAt() != null) {
+            update.set("heartbeatAt", patch.getHeartbeatAt());
+        }
+        if (patch.getStartedAt() != null) {
+            update.min("startedAt", patch.getStartedAt());
+        }
+        if (patch.getEndedAt() != null) {
+            update.set("endedAt", patch.getEndedAt());
+        }
+        if (patch.getDeletedAt() != null) {
+            update.set("deletedAt", patch.getDeletedAt());
+        }
+        if (patch.getRunAt() != null) {
+            update.set("runAt", patch.getRunAt());
+        }
+        if (patch.getOwnerInstanceId() != null) {
+            update.set("ownerInstanceId", patch.getOwnerInstanceId());
+        }
+        if (!patch.getLogLines().isEmpty()) {
+            update.push("logLines").each(patch.getLogLines().toArray());
+        }
+        return update;
+    }
+
+    @Override
+    public void delete(TaskInfo task) {
+        repository.delete(task);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        repository.deleteById(id);
+    }
+
+    @Override
+    public void deleteByStatus(TaskStatus status) {
+        repository.deleteByStatus(status);
+    }
+
+    @Override
+    public void deleteAll() {
+        repository.deleteAll();
+    }
+}
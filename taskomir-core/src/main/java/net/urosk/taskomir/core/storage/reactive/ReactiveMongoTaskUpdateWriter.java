@@ -0,0 +1,189 @@
+package net.urosk.taskomir.core.storage.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import net.urosk.taskomir.core.storage.TaskUpdateWriter;
+import net.urosk.taskomir.core.storage.mongo.MongoTaskStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * {@link TaskUpdateWriter} nad {@link ReactiveMongoTemplate}: zapisi stanja nalog ne blokirajo delovnih niti.
+ * Na nalogo je v teku največ en zapis, vmesne spremembe se združijo v enega. Ko ENQUEUED ali PROCESSING zapis ne najde
+ * naloge, ki ni DELETED, se obvesti poslušalec preklica.
+ */
+@Slf4j
+public class ReactiveMongoTaskUpdateWriter implements TaskUpdateWriter, DisposableBean {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TaskomirMetrics metrics;
+    private final Semaphore permits;
+    private final Duration shutdownTimeout;
+    private volatile Consumer<String> cancellationListener = taskId -> {
+    };
+
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Slot> ready = new ConcurrentLinkedQueue<>();
+
+    public ReactiveMongoTaskUpdateWriter(ReactiveMongoTemplate mongoTemplate, TaskomirMetrics metrics,
+                                         int maxInFlight, Duration shutdownTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.metrics = metrics != null ? metrics : TaskomirMetrics.NOOP;
+        this.permits = new Semaphore(maxInFlight);
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public void setCancellationListener(Consumer<String> listener) {
+        this.cancellationListener = listener;
+    }
+
+    /**
+     * Stanje ene naloge: čakajoča (združena) sprememba in ali je zapis v teku.
+     */
+    private static final class Slot {
+        final String taskId;
+        TaskUpdate pending;
+        boolean writing;
+        boolean queued;
+        boolean removed;
+
+        Slot(String taskId) {
+            this.taskId = taskId;
+        }
+    }
+
+    @Override
+    public void write(TaskUpdate update) {
+        while (true) {
+            Slot slot = slots.computeIfAbsent(update.getTaskId(), Slot::new);
+            synchronized (slot) {
+                if (slot.removed) {
+                    // Slot je bil ravno sproščen, vzamemo novega
+                    continue;
+                }
+                slot.pending = slot.pending == null ? update : slot.pending.merge(update);
+                if (slot.writing || slot.queued) {
+                    return;
+                }
+                slot.queued = true;
+            }
+            ready.add(slot);
+            drain();
+            return;
+        }
+    }
+
+    private void drain() {
+        while (!ready.isEmpty() && permits.tryAcquire()) {
+            Slot slot = ready.poll();
+            if (slot == null) {
+                permits.release();
+                continue;
+            }
+            TaskUpdate patch;
+            synchronized (slot) {
+                patch = slot.pending;
+                slot.pending = null;
+                slot.queued = false;
+                slot.writing = true;
+            }
+            send(slot, patch);
+        }
+    }
+
+    private void send(Slot slot, TaskUpdate patch) {
+        long start = System.nanoTime();
+        Criteria criteria = Criteria.where("_id").is(patch.getTaskId());
+        boolean active = patch.getStatus() == TaskStatus.ENQUEUED || patch.getStatus() == TaskStatus.PROCESSING;
+        if (active) {
+            // Napredek ne sme obuditi naloge, preklicane na drugi instanci
+            criteria.and("status").ne(TaskStatus.DELETED);
+        }
+        try {
+            mongoTemplate.updateFirst(Query.query(criteria), MongoTaskStore.toUpdate(patch), TaskInfo.class)
+                    .doFinally(signal -> completed(slot, start))
+                    .subscribe(result -> {
+                        if (active && result.getMatchedCount() == 0) {
+                            cancellationListener.accept(patch.getTaskId());
+                        }
+                    }, error -> log.warn("Async update of task {} failed: {}", patch.getTaskId(), error.getMessage()));
+        } catch (RuntimeException e) {
+            log.warn("Async update of task {} could not be issued: {}", patch.getTaskId(), e.getMessage());
+            completed(slot, start);
+        }
+    }
+
+    private void completed(Slot slot, long start) {
+        metrics.taskUpdateWritten(System.nanoTime() - start);
+        boolean requeue;
+        synchronized (slot) {
+            slot.writing = false;
+            requeue = slot.pending != null;
+            if (requeue) {
+                slot.queued = true;
+            } else {
+                slot.removed = true;
+                slots.remove(slot.taskId, slot);
+            }
+        }
+        if (requeue) {
+            ready.add(slot);
+        }
+        permits.release();
+        drain();
+    }
+
+    /**
+     * Število nalog, ki imajo zapis v teku ali čakajočo spremembo.
+     */
+    public int backlog() {
+        return slots.size();
+    }
+
+    @Override
+    public boolean flush(Duration timeout) {
+        return awaitEmpty(slots::isEmpty, timeout);
+    }
+
+    @Override
+    public boolean flush(String taskId, Duration timeout) {
+        return awaitEmpty(() -> !slots.containsKey(taskId), timeout);
+    }
+
+    private boolean awaitEmpty(BooleanSupplier empty, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!empty.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+        if (!flush(shutdownTimeout)) {
+            log.warn("{} task updates were still pending on shutdown", backlog());
+        }
+    }
+}
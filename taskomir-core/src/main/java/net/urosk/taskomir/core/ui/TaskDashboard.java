@@ -7,10 +7,14 @@ import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.*;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.progressbar.ProgressBar;
 import com.vaadin.flow.component.tabs.Tab;
+import com.vaadin.flow.component.textfield.IntegerField;
+import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.provider.DataProvider;
 import com.vaadin.flow.data.provider.Query;
 import com.vaadin.flow.dom.ThemeList;
@@ -19,9 +23,12 @@ import net.urosk.taskomir.core.domain.AppLock;
 import net.urosk.taskomir.core.domain.TaskInfo;
 import net.urosk.taskomir.core.lib.ConfigEntry;
 import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.metrics.SchedulerStats;
 import net.urosk.taskomir.core.sampleTask.SampleScheduledTask;
 import net.urosk.taskomir.core.sampleTask.SampleSpringScheduledTask;
 import net.urosk.taskomir.core.service.TaskomirService;
+import net.urosk.taskomir.core.service.TaskomirSettingsService;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.data.domain.Page;
@@ -34,6 +41,8 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
@@ -50,12 +59,19 @@ public class TaskDashboard extends VerticalLayout {
 
     // Gridi za posamezne statuse
     private final Grid<TaskInfo> enqueuedGrid = new Grid<>(TaskInfo.class, false);
+    private final Grid<TaskInfo> waitingGrid = new Grid<>(TaskInfo.class, false);
     private final Grid<TaskInfo> scheduledGrid = new Grid<>(TaskInfo.class, false);
     private final Grid<TaskInfo> processingGrid = new Grid<>(TaskInfo.class, false);
     private final Grid<TaskInfo> succeededGrid = new Grid<>(TaskInfo.class, false);
     private final Grid<TaskInfo> failedGrid = new Grid<>(TaskInfo.class, false);
     private final Grid<TaskInfo> deletedGrid = new Grid<>(TaskInfo.class, false);
 
+    // Statistika schedulerja
+    // Nastavitve primarne instance
+    private final Grid<ConfigEntry> configGrid = new Grid<>(ConfigEntry.class, false);
+    private final Grid<ConfigEntry> schedulerSummaryGrid = new Grid<>(ConfigEntry.class, false);
+    private final Grid<SchedulerStats.MasterLag> schedulerMastersGrid = new Grid<>(SchedulerStats.MasterLag.class, false);
+
     public TaskDashboard(TaskomirService taskomirService, MessageSource messageSource, boolean showSampleTasks) {
         this.taskomirService = taskomirService;
         this.messageSource = messageSource;
@@ -84,6 +100,8 @@ public class TaskDashboard extends VerticalLayout {
 
         add(createConfigPanel(taskomirService.getTaskomirProperties()));
         add(new Hr());
+        add(createSchedulerPanel());
+        add(new Hr());
         // SCHEDULED tasks
         H3 scheduledCounter = new H3("0");
         add(getHeader(LineAwesomeIcon.CALENDAR_ALT, messageSource.getMessage("ui.scheduledHeader", null, LocaleContextHolder.getLocale()), "var(--lumo-primary-color)", scheduledCounter));
@@ -98,6 +116,13 @@ public class TaskDashboard extends VerticalLayout {
         enqueuedGrid.setDataProvider(createDataProvider(TaskStatus.ENQUEUED, count -> enqueuedCounter.setText(String.valueOf(count))));
         add(enqueuedGrid);
 
+        // WAITING tasks (workflow naloge, ki čakajo na odvisnosti)
+        H3 waitingCounter = new H3("0");
+        add(getHeader(LineAwesomeIcon.PROJECT_DIAGRAM_SOLID, messageSource.getMessage("ui.waitingHeader", null, LocaleContextHolder.getLocale()), "var(--lumo-primary-color)", waitingCounter));
+        configureDefaultColumns(waitingGrid, false, true, false, false);
+        waitingGrid.setDataProvider(createDataProvider(TaskStatus.WAITING, count -> waitingCounter.setText(String.valueOf(count))));
+        add(waitingGrid);
+
         // PROCESSING tasks
         H3 processingCounter = new H3("0");
         add(getHeader(LineAwesomeIcon.RUNNING_SOLID, messageSource.getMessage("ui.processingHeader", null, LocaleContextHolder.getLocale()), "var(--lumo-primary-color)", processingCounter));
@@ -139,11 +164,14 @@ public class TaskDashboard extends VerticalLayout {
 
     public void refreshAll() {
         enqueuedGrid.getDataProvider().refreshAll();
+        waitingGrid.getDataProvider().refreshAll();
         scheduledGrid.getDataProvider().refreshAll();
         processingGrid.getDataProvider().refreshAll();
         succeededGrid.getDataProvider().refreshAll();
         failedGrid.getDataProvider().refreshAll();
         deletedGrid.getDataProvider().refreshAll();
+        refreshConfig();
+        refreshSchedulerStats();
     }
 
     public HorizontalLayout getHeader(LineAwesomeIcon icon, String text, String color, Component... components) {
@@ -268,8 +296,7 @@ public class TaskDashboard extends VerticalLayout {
                 return Stream.empty();
             }
         }, (Query<TaskInfo, Void> query) -> {
-            Pageable pageable = PageRequest.of(0, 1);
-            int count = (int) taskomirService.getTasksByStatus(status, pageable).getTotalElements();
+            int count = (int) taskomirService.countTasksByStatus(status);
             countUpdater.accept(count);
             return count;
         });
@@ -364,20 +391,35 @@ public class TaskDashboard extends VerticalLayout {
                 + " :: " + roleSuffix;
 
         // Dodaj ikono in barvo v header
+        Button editSettingsButton = new Button(
+                messageSource.getMessage("ui.config.edit", null, LocaleContextHolder.getLocale()),
+                LineAwesomeIcon.EDIT.create(), event -> openSettingsDialog());
         var configHeader = getHeader(LineAwesomeIcon.COG_SOLID,
                 messageSource.getMessage(headerText, null, LocaleContextHolder.getLocale()),
-                "var(--lumo-primary-color)");
+                "var(--lumo-primary-color)", editSettingsButton);
+
 
 
+        refreshConfig();
+
+        configGrid.addColumn(ConfigEntry::getKey).setHeader(messageSource.getMessage("ui.config.parameter", null, LocaleContextHolder.getLocale()));
+        configGrid.addColumn(ConfigEntry::getValue).setHeader(messageSource.getMessage("ui.config.value", null, LocaleContextHolder.getLocale()));
+
+        configLayout.add(configHeader, configGrid);
+        return configLayout;
+    }
 
-        Grid<ConfigEntry> configGrid = new Grid<>(ConfigEntry.class, false);
+    /**
+     * Nastavitve iz PRIMARY locka; velikost poola se ob adaptivnem poolu spreminja, zato jih osvežujemo.
+     */
+    private void refreshConfig() {
         // Najprej poskusimo dobiti PRIMARY lock iz baze.
         Optional<AppLock> lockOpt = taskomirService.getAppLockByName("PRIMARY");
         if (lockOpt.isPresent()) {
             // Če PRIMARY obstaja, uporabljamo lock-ove nastavitve
             AppLock lock = lockOpt.get();
 
-            configGrid.setItems(
+            List<ConfigEntry> entries = new ArrayList<>(List.of(
                     new ConfigEntry(
                             messageSource.getMessage("ui.config.instanceId", null, LocaleContextHolder.getLocale()),
                             lock.getInstanceId()
@@ -402,16 +444,115 @@ public class TaskDashboard extends VerticalLayout {
                             messageSource.getMessage("ui.config.queueCapacity", null, LocaleContextHolder.getLocale()),
                             String.valueOf(lock.getQueueCapacity())
                     )
+            ));
+            if (lock.getPoolResizedAt() > 0) {
+                entries.add(new ConfigEntry(
+                        messageSource.getMessage("ui.config.poolResized", null, LocaleContextHolder.getLocale()),
+                        UiUtils.formatTime(lock.getPoolResizedAt()) + " - " + lock.getPoolResizeReason()
+                ));
+            }
+            configGrid.setItems(entries);
+        }
+    }
 
-            );
+    /**
+     * Obrazec za spremembo nastavitev poola in čiščenja med delovanjem.
+     */
+    private void openSettingsDialog() {
+        TaskomirSettingsService.Settings current = taskomirService.getSettings();
+        Locale locale = LocaleContextHolder.getLocale();
+
+        IntegerField poolSize = new IntegerField(messageSource.getMessage("ui.config.poolSize", null, locale));
+        poolSize.setMin(1);
+        poolSize.setValue(current.getPoolSize());
+        IntegerField queueCapacity = new IntegerField(messageSource.getMessage("ui.config.queueCapacity", null, locale));
+        queueCapacity.setMin(1);
+        queueCapacity.setValue(current.getQueueCapacity());
+        TextField cleanupInterval = durationField("ui.config.cleanupInterval", current.getCleanupInterval());
+        TextField succeededRetention = durationField("ui.config.succeededRetentionTime", current.getSucceededRetentionTime());
+        TextField deletedRetention = durationField("ui.config.deletedRetentionTime", current.getDeletedRetentionTime());
+
+        Dialog dialog = new Dialog();
+        dialog.setHeaderTitle(messageSource.getMessage("ui.config.edit", null, locale));
+        dialog.add(new VerticalLayout(poolSize, queueCapacity, cleanupInterval, succeededRetention, deletedRetention));
+
+        Button save = new Button(messageSource.getMessage("ui.config.save", null, locale), event -> {
+            try {
+                taskomirService.updateSettings(TaskomirSettingsService.Settings.builder()
+                        .poolSize(poolSize.getValue())
+                        .queueCapacity(queueCapacity.getValue())
+                        .cleanupInterval(parseDuration(cleanupInterval.getValue()))
+                        .succeededRetentionTime(parseDuration(succeededRetention.getValue()))
+                        .deletedRetentionTime(parseDuration(deletedRetention.getValue()))
+                        .build());
+                refreshConfig();
+                dialog.close();
+            } catch (IllegalArgumentException e) {
+                Notification.show(messageSource.getMessage("ui.config.invalid", new Object[]{e.getMessage()}, locale))
+                        .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            }
+        });
+        save.addThemeVariants(LUMO_PRIMARY);
+        Button cancel = new Button(messageSource.getMessage("ui.config.cancel", null, locale), event -> dialog.close());
+        dialog.getFooter().add(cancel, save);
+        dialog.open();
+    }
 
-        }
+    private TextField durationField(String labelKey, Duration value) {
+        TextField field = new TextField(messageSource.getMessage(labelKey, null, LocaleContextHolder.getLocale()));
+        field.setValue(value.toString());
+        field.setHelperText("30s, 2h, 7d, PT10M");
+        return field;
+    }
 
-        configGrid.addColumn(ConfigEntry::getKey).setHeader(messageSource.getMessage("ui.config.parameter", null, LocaleContextHolder.getLocale()));
-        configGrid.addColumn(ConfigEntry::getValue).setHeader(messageSource.getMessage("ui.config.value", null, LocaleContextHolder.getLocale()));
+    private static Duration parseDuration(String value) {
+        // Prazno polje pomeni "brez spremembe"; neveljaven zapis vrže IllegalArgumentException
+        return value == null || value.isBlank() ? null : DurationStyle.detectAndParse(value.trim());
+    }
 
-        configLayout.add(configHeader, configGrid);
-        return configLayout;
+    private Component createSchedulerPanel() {
+        VerticalLayout schedulerLayout = new VerticalLayout();
+        schedulerLayout.setPadding(true);
+        schedulerLayout.setSpacing(true);
+
+        var header = getHeader(LineAwesomeIcon.CLOCK,
+                messageSource.getMessage("ui.scheduler.header", null, LocaleContextHolder.getLocale()),
+                "var(--lumo-primary-color)");
+
+        schedulerSummaryGrid.addColumn(ConfigEntry::getKey).setHeader(messageSource.getMessage("ui.config.parameter", null, LocaleContextHolder.getLocale()));
+        schedulerSummaryGrid.addColumn(ConfigEntry::getValue).setHeader(messageSource.getMessage("ui.config.value", null, LocaleContextHolder.getLocale()));
+        schedulerSummaryGrid.setAllRowsVisible(true);
+
+        schedulerMastersGrid.addColumn(SchedulerStats.MasterLag::getName).setHeader(messageSource.getMessage("ui.scheduler.column.master", null, LocaleContextHolder.getLocale())).setResizable(true);
+        schedulerMastersGrid.addColumn(SchedulerStats.MasterLag::getCreated).setHeader(messageSource.getMessage("ui.scheduler.column.created", null, LocaleContextHolder.getLocale()));
+        schedulerMastersGrid.addColumn(SchedulerStats.MasterLag::getSkipped).setHeader(messageSource.getMessage("ui.scheduler.column.skipped", null, LocaleContextHolder.getLocale()));
+        schedulerMastersGrid.addColumn(m -> m.getLastLagMs() + " ms").setHeader(messageSource.getMessage("ui.scheduler.column.lastLag", null, LocaleContextHolder.getLocale()));
+        schedulerMastersGrid.addColumn(m -> m.getMaxLagMs() + " ms").setHeader(messageSource.getMessage("ui.scheduler.column.maxLag", null, LocaleContextHolder.getLocale()));
+        schedulerMastersGrid.setAllRowsVisible(true);
+
+        refreshSchedulerStats();
+        schedulerLayout.add(header, schedulerSummaryGrid, schedulerMastersGrid);
+        return schedulerLayout;
+    }
+
+    private void refreshSchedulerStats() {
+        SchedulerStats.Snapshot snapshot = taskomirService.getSchedulerStats();
+        SchedulerStats.PassSummary pass = snapshot.getLastPass();
+        if (pass == null) {
+            schedulerSummaryGrid.setItems(new ConfigEntry(
+                    messageSource.getMessage("ui.scheduler.lastPass", null, LocaleContextHolder.getLocale()),
+                    messageSource.getMessage("ui.scheduler.noData", null, LocaleContextHolder.getLocale())));
+        } else {
+            schedulerSummaryGrid.setItems(
+                    new ConfigEntry(messageSource.getMessage("ui.scheduler.lastPass", null, LocaleContextHolder.getLocale()), UiUtils.formatTime(pass.getStartedAt())),
+                    new ConfigEntry(messageSource.getMessage("ui.scheduler.passDuration", null, LocaleContextHolder.getLocale()), pass.getDurationMs() + " ms"),
+                    new ConfigEntry(messageSource.getMessage("ui.scheduler.mastersEvaluated", null, LocaleContextHolder.getLocale()), String.valueOf(pass.getMastersEvaluated())),
+                    new ConfigEntry(messageSource.getMessage("ui.scheduler.maxLag", null, LocaleContextHolder.getLocale()), pass.getMaxLagMs() + " ms"),
+                    new ConfigEntry(messageSource.getMessage("ui.scheduler.childrenCreated", null, LocaleContextHolder.getLocale()), pass.getCreated() + " / " + snapshot.getTotalCreated()),
+                    new ConfigEntry(messageSource.getMessage("ui.scheduler.childrenSkipped", null, LocaleContextHolder.getLocale()), pass.getSkipped() + " / " + snapshot.getTotalSkipped())
+            );
+        }
+        schedulerMastersGrid.setItems(snapshot.getMasters());
     }
 
     private String formatMillisAsDuration(long ms) {
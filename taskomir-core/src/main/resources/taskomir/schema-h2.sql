@@ -0,0 +1,68 @@
+-- Taskomir JDBC shema za H2 (testi, lokalni razvoj). H2 ne pozna delnih indeksov,
+-- zato je namesto njih en sestavljen indeks (status, created_at).
+
+CREATE TABLE IF NOT EXISTS taskomir_task (
+    id                      VARCHAR(64)      NOT NULL PRIMARY KEY,
+    name                    VARCHAR(512),
+    progress                DOUBLE PRECISION DEFAULT 0 NOT NULL,
+    current_progress        CHARACTER LARGE OBJECT,
+    status                  VARCHAR(16)      NOT NULL,
+    running                 BOOLEAN          DEFAULT FALSE NOT NULL,
+    error                   CHARACTER LARGE OBJECT,
+    deleted_at              BIGINT,
+    created_at              BIGINT,
+    started_at              BIGINT,
+    ended_at                BIGINT,
+    class_name              VARCHAR(512),
+    cron_expression         VARCHAR(128),
+    last_run_time           BIGINT,
+    parent_id               VARCHAR(64),
+    log_lines               CHARACTER LARGE OBJECT,
+    skip_if_already_running BOOLEAN          DEFAULT FALSE NOT NULL,
+    workflow_id             VARCHAR(64),
+    depends_on              CHARACTER LARGE OBJECT,
+    critical_path           BIGINT,
+    idempotency_key         VARCHAR(255),
+    timeout_ms              BIGINT,
+    heartbeat_at            BIGINT,
+    attempt                 INTEGER,
+    max_attempts            INTEGER,
+    attempt_history         CHARACTER LARGE OBJECT,
+    run_at                  BIGINT,
+    checkpoint              CHARACTER LARGE OBJECT,
+    checkpoint_at           BIGINT,
+    owner_instance_id       VARCHAR(255),
+    payload                 BINARY LARGE OBJECT,
+    payload_codec           VARCHAR(32),
+    payload_type            VARCHAR(512)
+);
+
+CREATE INDEX IF NOT EXISTS taskomir_task_status_created_idx ON taskomir_task (status, created_at);
+CREATE INDEX IF NOT EXISTS taskomir_task_parent_idx ON taskomir_task (parent_id, status);
+CREATE INDEX IF NOT EXISTS taskomir_task_workflow_idx ON taskomir_task (workflow_id);
+CREATE INDEX IF NOT EXISTS taskomir_task_run_at_idx ON taskomir_task (status, run_at);
+CREATE INDEX IF NOT EXISTS taskomir_task_name_status_idx ON taskomir_task (name, status);
+-- H2 dovoli več NULL vrednosti v unikatnem indeksu
+CREATE UNIQUE INDEX IF NOT EXISTS taskomir_task_idempotency_idx ON taskomir_task (idempotency_key);
+
+CREATE TABLE IF NOT EXISTS taskomir_lock (
+    name                   VARCHAR(64) NOT NULL PRIMARY KEY,
+    instance_id            VARCHAR(255),
+    locked_at              BIGINT      NOT NULL,
+    cleanup_interval_ms    BIGINT      NOT NULL,
+    succeeded_retention_ms BIGINT      NOT NULL,
+    deleted_retention_ms   BIGINT      NOT NULL,
+    pool_size              INTEGER     NOT NULL,
+    queue_capacity         INTEGER     NOT NULL,
+    pool_resized_at        BIGINT      DEFAULT 0 NOT NULL,
+    pool_resize_reason     VARCHAR(512),
+    settings_updated_at    BIGINT      DEFAULT 0 NOT NULL
+);
+
+-- Rezultati nalog ResultTask
+CREATE TABLE IF NOT EXISTS taskomir_task_result (
+    task_id    VARCHAR(64)         NOT NULL PRIMARY KEY,
+    data       BINARY LARGE OBJECT,
+    byte_size  BIGINT              NOT NULL,
+    created_at BIGINT              NOT NULL
+);
@@ -0,0 +1,80 @@
+-- Taskomir JDBC shema za PostgreSQL. Idempotentna, izvede se ob zagonu (taskomir.jdbc.initialize-schema).
+
+CREATE TABLE IF NOT EXISTS taskomir_task (
+    id                      VARCHAR(64)      NOT NULL PRIMARY KEY,
+    name                    VARCHAR(512),
+    progress                DOUBLE PRECISION NOT NULL DEFAULT 0,
+    current_progress        TEXT,
+    status                  VARCHAR(16)      NOT NULL,
+    running                 BOOLEAN          NOT NULL DEFAULT FALSE,
+    error                   TEXT,
+    deleted_at              BIGINT,
+    created_at              BIGINT,
+    started_at              BIGINT,
+    ended_at                BIGINT,
+    class_name              VARCHAR(512),
+    cron_expression         VARCHAR(128),
+    last_run_time           BIGINT,
+    parent_id               VARCHAR(64),
+    log_lines               TEXT,
+    skip_if_already_running BOOLEAN          NOT NULL DEFAULT FALSE,
+    workflow_id             VARCHAR(64),
+    depends_on              TEXT,
+    critical_path           BIGINT,
+    idempotency_key         VARCHAR(255),
+    timeout_ms              BIGINT,
+    heartbeat_at            BIGINT,
+    attempt                 INTEGER,
+    max_attempts            INTEGER,
+    attempt_history         TEXT,
+    run_at                  BIGINT,
+    checkpoint              TEXT,
+    checkpoint_at           BIGINT,
+    owner_instance_id       VARCHAR(255),
+    payload                 BYTEA,
+    payload_codec           VARCHAR(32),
+    payload_type            VARCHAR(512)
+);
+
+-- Delno indeksirane vrste po statusu: vsak indeks vsebuje samo vrstice v svojem statusu,
+-- zato ostanejo majhni tudi ob milijonih SUCCEEDED/DELETED nalog.
+CREATE INDEX IF NOT EXISTS taskomir_task_enqueued_idx   ON taskomir_task (created_at) WHERE status = 'ENQUEUED';
+CREATE INDEX IF NOT EXISTS taskomir_task_waiting_idx    ON taskomir_task (created_at) WHERE status = 'WAITING';
+CREATE INDEX IF NOT EXISTS taskomir_task_processing_idx ON taskomir_task (created_at) WHERE status = 'PROCESSING';
+CREATE INDEX IF NOT EXISTS taskomir_task_scheduled_idx  ON taskomir_task (created_at) WHERE status = 'SCHEDULED';
+CREATE INDEX IF NOT EXISTS taskomir_task_succeeded_idx  ON taskomir_task (created_at) WHERE status = 'SUCCEEDED';
+CREATE INDEX IF NOT EXISTS taskomir_task_failed_idx     ON taskomir_task (created_at) WHERE status = 'FAILED';
+CREATE INDEX IF NOT EXISTS taskomir_task_deleted_idx    ON taskomir_task (created_at) WHERE status = 'DELETED';
+
+-- Aktivni otroci cron masterjev (skipIfAlreadyRunning)
+CREATE INDEX IF NOT EXISTS taskomir_task_active_child_idx ON taskomir_task (parent_id)
+    WHERE parent_id IS NOT NULL AND status IN ('ENQUEUED', 'PROCESSING');
+CREATE INDEX IF NOT EXISTS taskomir_task_workflow_idx ON taskomir_task (workflow_id) WHERE workflow_id IS NOT NULL;
+-- Zakasnjene naloge (enqueueAt) in ponovni poskusi
+CREATE INDEX IF NOT EXISTS taskomir_task_run_at_idx ON taskomir_task (run_at)
+    WHERE run_at IS NOT NULL AND status = 'ENQUEUED';
+CREATE INDEX IF NOT EXISTS taskomir_task_name_status_idx ON taskomir_task (name, status);
+CREATE UNIQUE INDEX IF NOT EXISTS taskomir_task_idempotency_idx ON taskomir_task (idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
+
+CREATE TABLE IF NOT EXISTS taskomir_lock (
+    name                   VARCHAR(64) NOT NULL PRIMARY KEY,
+    instance_id            VARCHAR(255),
+    locked_at              BIGINT      NOT NULL,
+    cleanup_interval_ms    BIGINT      NOT NULL,
+    succeeded_retention_ms BIGINT      NOT NULL,
+    deleted_retention_ms   BIGINT      NOT NULL,
+    pool_size              INTEGER     NOT NULL,
+    queue_capacity         INTEGER     NOT NULL,
+    pool_resized_at        BIGINT      NOT NULL DEFAULT 0,
+    pool_resize_reason     VARCHAR(512),
+    settings_updated_at    BIGINT      NOT NULL DEFAULT 0
+);
+
+-- Rezultati nalog ResultTask
+CREATE TABLE IF NOT EXISTS taskomir_task_result (
+    task_id    VARCHAR(64) NOT NULL PRIMARY KEY,
+    data       BYTEA,
+    byte_size  BIGINT      NOT NULL,
+    created_at BIGINT      NOT NULL
+);
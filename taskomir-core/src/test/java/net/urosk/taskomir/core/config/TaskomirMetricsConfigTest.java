@@ -0,0 +1,64 @@
+package net.urosk.taskomir.core.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test for TaskomirMetricsConfig.
+ *
+ * Verifies that the Micrometer instrumentation binds to a MeterRegistry when one is present
+ * and stays a harmless no-op otherwise.
+ */
+class TaskomirMetricsConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(TaskomirMetricsConfig.class);
+
+    @Test
+    void whenMeterRegistryPresent_thenExecutorGaugesAndTaskMetersRegistered() {
+        contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withBean(ThreadPoolExecutor.class, () -> new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10)))
+                .run(context -> {
+                    MeterRegistry registry = context.getBean(MeterRegistry.class);
+                    TaskomirMetrics metrics = context.getBean(TaskomirMetrics.class);
+
+                    TaskInfo task = new TaskInfo("metrics-1", "MetricsTask");
+                    task.setClassName("net.urosk.Sample$$Lambda/0x0000001");
+                    metrics.taskEnqueued(task);
+                    metrics.taskStarted(task, 25);
+                    metrics.taskCompleted(task, TaskStatus.FAILED, 1_000_000);
+
+                    // Gauge za prosta mesta v vrsti
+                    assertThat(registry.get("taskomir.executor.queue.remaining").gauge().value()).isEqualTo(10.0);
+                    // Lambda sufiks je odrezan, da ne ustvarja novih serij
+                    assertThat(registry.get("taskomir.task.duration")
+                            .tag("status", "FAILED")
+                            .tag("class", "net.urosk.Sample$$Lambda")
+                            .timer().count()).isEqualTo(1);
+                    assertThat(registry.get("taskomir.tasks.enqueued").tag("task", "MetricsTask").counter().count()).isEqualTo(1.0);
+                });
+    }
+
+    @Test
+    void whenNoMeterRegistry_thenHooksAreNoOps() {
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(TaskomirMetrics.class);
+            TaskomirMetrics metrics = context.getBean(TaskomirMetrics.class);
+            // Ne sme vreči izjeme
+            metrics.taskEnqueued(new TaskInfo("metrics-2", "NoRegistry"));
+            metrics.taskUpdateWritten(1000);
+        });
+    }
+}
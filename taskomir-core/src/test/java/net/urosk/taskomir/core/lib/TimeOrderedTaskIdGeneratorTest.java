@@ -0,0 +1,88 @@
+package net.urosk.taskomir.core.lib;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TimeOrderedTaskIdGenerator}.
+ */
+class TimeOrderedTaskIdGeneratorTest {
+
+    @Test
+    void idsAreCompactAndSortByCreationTime() {
+        MutableClock clock = new MutableClock(1_700_000_000_000L);
+        TimeOrderedTaskIdGenerator generator = new TimeOrderedTaskIdGenerator(clock);
+
+        String first = generator.nextId();
+        clock.millis += 1;
+        String second = generator.nextId();
+
+        assertThat(first).hasSize(26).matches("[0-9A-HJKMNP-TV-Z]+");
+        assertThat(second).isGreaterThan(first);
+        // Prvih 10 znakov je čas
+        assertThat(second.substring(0, 10)).isGreaterThan(first.substring(0, 10));
+    }
+
+    @Test
+    void idsWithinOneMillisecondOrAfterClockStepBackStillIncrease() {
+        MutableClock clock = new MutableClock(1_700_000_000_000L);
+        TimeOrderedTaskIdGenerator generator = new TimeOrderedTaskIdGenerator(clock);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            ids.add(generator.nextId());
+        }
+        clock.millis -= 5_000;
+        ids.add(generator.nextId());
+
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void separateGeneratorsDoNotCollide() {
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(1_700_000_000_000L), ZoneOffset.UTC);
+        HashSet<String> ids = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(new TimeOrderedTaskIdGenerator(clock).nextId());
+        }
+
+        assertThat(ids).hasSize(100);
+    }
+
+    private static class MutableClock extends Clock {
+        private long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
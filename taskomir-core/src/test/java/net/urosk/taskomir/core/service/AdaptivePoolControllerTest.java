@@ -0,0 +1,131 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.AppLock;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.storage.memory.InMemoryLockStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AdaptivePoolController}.
+ */
+class AdaptivePoolControllerTest {
+
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private final InMemoryLockStore lockStore = new InMemoryLockStore();
+    private ThreadPoolExecutor executor;
+    private TaskLifecycleService lifecycleService;
+    private AdaptivePoolController controller;
+
+    @BeforeEach
+    void setUp() {
+        properties.setInstanceId("node-1");
+        properties.getAdaptivePool().setEnabled(true);
+        properties.getAdaptivePool().setMinSize(2);
+        properties.getAdaptivePool().setMaxSize(12);
+        properties.getAdaptivePool().setTargetQueueWait(Duration.ofSeconds(1));
+        properties.getAdaptivePool().setMaxCpuLoad(0.8);
+        executor = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(100));
+        lifecycleService = lifecycleService(new InMemoryTaskStore(), executor).properties(properties).build();
+        controller = new AdaptivePoolController(executor, lifecycleService, lockStore, properties, TaskomirMetrics.NOOP);
+
+        AppLock lock = new AppLock();
+        lock.setName("PRIMARY");
+        lock.setInstanceId("node-1");
+        lock.setPoolSize(4);
+        lockStore.insert(lock);
+    }
+
+    @AfterEach
+    void shutdown() {
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void growsWhenTasksWaitAndCpuIsFree() {
+        AdaptivePoolController.Decision decision = controller.decide(4, 4, 50, 3_000, 0.3);
+
+        assertThat(decision).isNotNull();
+        assertThat(decision.getTo()).isEqualTo(6);
+        assertThat(controller.decide(10, 10, 50, 3_000, 0.3).getTo()).isEqualTo(12);
+        // Na zgornji meji ne raste več
+        assertThat(controller.decide(12, 12, 50, 3_000, 0.3)).isNull();
+    }
+
+    @Test
+    void doesNotGrowWhenCpuIsSaturated() {
+        AdaptivePoolController.Decision decision = controller.decide(8, 8, 50, 3_000, 0.95);
+
+        assertThat(decision.getTo()).isEqualTo(6);
+        assertThat(decision.getReason()).contains("CPU load 95%");
+        assertThat(controller.decide(2, 2, 50, 3_000, 0.95)).isNull();
+    }
+
+    @Test
+    void shrinksTowardsBusyThreadsWhenIdle() {
+        assertThat(controller.decide(8, 0, 0, 0, 0.1).getTo()).isEqualTo(5);
+        assertThat(controller.decide(3, 0, 0, 0, 0.1).getTo()).isEqualTo(2);
+        // Kratko čakanje ali polovica zasedenih niti ne spremeni ničesar
+        assertThat(controller.decide(4, 4, 3, 200, 0.1)).isNull();
+        assertThat(controller.decide(4, 2, 0, 0, 0.1)).isNull();
+    }
+
+    @Test
+    void unknownCpuLoadDoesNotBlockGrowth() {
+        assertThat(controller.decide(4, 4, 10, 3_000, -1).getTo()).isEqualTo(6);
+    }
+
+    @Test
+    void resizesExecutorAndPrimaryLock() throws Exception {
+        properties.getAdaptivePool().setMaxCpuLoad(1.1);
+        // Zapadla pred 5 s: čakanje na nit je daljše od targetQueueWait
+        lifecycleService.enqueueAt("Overdue", progress -> { }, Instant.now().minusSeconds(5)).get(5, TimeUnit.SECONDS);
+        // Future se zaključi, preden nit naloge konča; šele prosta nit vzame prvega blokerja iz vrste
+        awaitUntil(() -> executor.getActiveCount() == 0);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 14; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        awaitUntil(() -> executor.getActiveCount() == 4 && executor.getQueue().size() == 10);
+
+        controller.adjustPoolSize();
+        release.countDown();
+
+        assertThat(executor.getCorePoolSize()).isEqualTo(6);
+        assertThat(executor.getMaximumPoolSize()).isEqualTo(6);
+        assertThat(controller.getDecisions()).hasSize(1);
+        AppLock lock = lockStore.findById("PRIMARY").orElseThrow();
+        assertThat(lock.getPoolSize()).isEqualTo(6);
+        assertThat(lock.getPoolResizedAt()).isPositive();
+        assertThat(lock.getPoolResizeReason()).contains("10 queued");
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.ProgressUpdater;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for delayed tasks ({@code enqueueAt}) in {@link TaskLifecycleService} and for {@link DelayedTaskLoader}.
+ */
+class DelayedTaskTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskLifecycleService lifecycleService;
+    private DelayedTaskLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10));
+        lifecycleService = lifecycleService(store, executor).properties(properties).build();
+        loader = new DelayedTaskLoader(store, lifecycleService, properties);
+    }
+
+    @AfterEach
+    void shutdown() {
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Naloga, ki jo je mogoče ustvariti iz imena razreda (po ponovnem zagonu).
+     */
+    public static class RecordingTask implements ProgressTask {
+        static final CountDownLatch RAN = new CountDownLatch(1);
+
+        @Override
+        public void execute(ProgressUpdater progress) {
+            progress.update(1.0, "done");
+            RAN.countDown();
+        }
+    }
+
+    @Test
+    void runsAtGivenTimeWithoutHoldingThread() throws Exception {
+        AtomicLong ranAt = new AtomicLong();
+        Instant runAt = Instant.now().plusMillis(300);
+
+        CompletableFuture<TaskInfo> delayed = lifecycleService.enqueueAt("Later",
+                progress -> ranAt.set(System.currentTimeMillis()), runAt);
+
+        assertThat(delayed).isNotDone();
+        TaskInfo pending = store.findByStatus(TaskStatus.ENQUEUED).get(0);
+        assertThat(pending.getRunAt()).isEqualTo(runAt.toEpochMilli());
+        // Edina nit poola je med čakanjem prosta
+        TaskInfo other = lifecycleService.enqueue("Now", progress -> progress.update(1.0, "done")).get(1, TimeUnit.SECONDS);
+        assertThat(store.findById(other.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+
+        TaskInfo result = delayed.get(5, TimeUnit.SECONDS);
+        assertThat(ranAt.get()).isGreaterThanOrEqualTo(runAt.toEpochMilli());
+        assertThat(store.findById(result.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+    }
+
+    @Test
+    void cancelledBeforeRunAtNeverRuns() throws Exception {
+        AtomicLong calls = new AtomicLong();
+        CompletableFuture<TaskInfo> delayed = lifecycleService.enqueueAt("Cancelled",
+                progress -> calls.incrementAndGet(), Instant.now().plusMillis(200));
+        String taskId = store.findByStatus(TaskStatus.ENQUEUED).get(0).getId();
+
+        assertThat(lifecycleService.cancelTask(taskId)).isTrue();
+        Thread.sleep(400);
+
+        assertThat(calls).hasValue(0);
+        assertThat(delayed).isCompletedExceptionally();
+        assertThat(store.findById(taskId).orElseThrow().getStatus()).isEqualTo(TaskStatus.DELETED);
+    }
+
+    @Test
+    void loaderPicksUpOverdueTasksAfterRestart() throws Exception {
+        TaskInfo overdue = new TaskInfo("overdue-1", "Overdue");
+        overdue.setClassName(RecordingTask.class.getName());
+        overdue.setRunAt(System.currentTimeMillis() - 60_000);
+        store.save(overdue);
+        TaskInfo future = new TaskInfo("future-1", "Future");
+        future.setClassName(RecordingTask.class.getName());
+        future.setRunAt(System.currentTimeMillis() + 3_600_000);
+        store.save(future);
+        TaskInfo orphanChild = new TaskInfo("child-1", "Child");
+        orphanChild.setParentId("master-1");
+        orphanChild.setRunAt(System.currentTimeMillis() - 60_000);
+        store.save(orphanChild);
+
+        loader.loadOverdueTasks();
+
+        assertThat(RecordingTask.RAN.await(5, TimeUnit.SECONDS)).isTrue();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.findById("overdue-1").orElseThrow().getStatus() != TaskStatus.SUCCEEDED) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        assertThat(store.findById("future-1").orElseThrow().getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+        assertThat(store.findById("child-1").orElseThrow().getStatus()).isEqualTo(TaskStatus.FAILED);
+    }
+
+    @Test
+    void tasksWaitingInLocalTimerAreLeftToIt() throws Exception {
+        lifecycleService.enqueueAt("Held", progress -> { }, Instant.now().plusSeconds(3600));
+        String heldId = store.findByStatus(TaskStatus.ENQUEUED).get(0).getId();
+
+        // Časovnik te instance nalogo zažene sam; prevzem zapadlih nalog jo mora izpustiti
+        assertThat(lifecycleService.overdueDelayedTaskIds(Long.MAX_VALUE)).containsExactly(heldId);
+        assertThat(lifecycleService.overdueDelayedTaskIds(System.currentTimeMillis())).isEmpty();
+        assertThat(store.claimDue(Long.MAX_VALUE, lifecycleService.overdueDelayedTaskIds(Long.MAX_VALUE), 10)).isEmpty();
+        assertThat(store.findById(heldId).orElseThrow().getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+    }
+}
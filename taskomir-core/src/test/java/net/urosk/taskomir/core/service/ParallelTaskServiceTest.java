@@ -0,0 +1,152 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ParallelTask;
+import net.urosk.taskomir.core.lib.ProgressUpdater;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ParallelTaskService}: chunk fan-out, ordered reduce, throttled parent progress and failure handling.
+ */
+class ParallelTaskServiceTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private ThreadPoolExecutor executor;
+    private TaskLifecycleService lifecycleService;
+    private ParallelTaskService parallelTaskService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(3, 3, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(100));
+        TaskomirProperties properties = new TaskomirProperties();
+        properties.setPoolSize(3);
+        // Dovolj dolg interval, da se med testom napredek parenta ne zapiše
+        properties.setParallelProgressInterval(Duration.ofHours(1));
+        lifecycleService = lifecycleService(store, executor).properties(properties).build();
+        parallelTaskService = new ParallelTaskService(store, lifecycleService, properties);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sešteje kvadrate števil; vsak kos poroča napredek desetkrat.
+     */
+    private static class SquareSum implements ParallelTask<Integer, Integer> {
+        final AtomicReference<List<Integer>> reduced = new AtomicReference<>();
+        final int failOn;
+
+        SquareSum(int failOn) {
+            this.failOn = failOn;
+        }
+
+        @Override
+        public List<Integer> split() {
+            return IntStream.rangeClosed(1, 8).boxed().toList();
+        }
+
+        @Override
+        public Integer map(Integer chunk, ProgressUpdater progress) {
+            if (chunk == failOn) {
+                throw new IllegalStateException("bad chunk " + chunk);
+            }
+            for (int i = 1; i <= 10; i++) {
+                progress.update(i / 10.0, "step " + i);
+            }
+            return chunk * chunk;
+        }
+
+        @Override
+        public void reduce(List<Integer> results, ProgressUpdater progress) {
+            reduced.set(results);
+        }
+    }
+
+    @Test
+    void chunksRunAsChildrenAndReduceSeesResultsInOrder() throws Exception {
+        SquareSum task = new SquareSum(-1);
+
+        TaskInfo parent = parallelTaskService.enqueue("Squares", task).get(5, TimeUnit.SECONDS);
+
+        assertThat(task.reduced.get()).containsExactly(1, 4, 9, 16, 25, 36, 49, 64);
+        assertThat(parent.getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(parent.getProgress()).isEqualTo(1.0);
+        List<TaskInfo> children = store.findByParentIdAndStatusIn(parent.getId(), List.of(TaskStatus.SUCCEEDED));
+        assertThat(children).hasSize(8);
+        // 80 posodobitev kosov, parent pa je zapisan samo ob začetku in med reduce
+        assertThat(parent.getLogLines()).hasSizeLessThan(5);
+    }
+
+    @Test
+    void failedChunkFailsParentWithoutReduce() throws Exception {
+        SquareSum task = new SquareSum(3);
+
+        TaskInfo parent = parallelTaskService.enqueue("Squares", task).get(5, TimeUnit.SECONDS);
+
+        assertThat(task.reduced.get()).isNull();
+        assertThat(parent.getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(parent.getError()).contains("chunks failed");
+        assertThat(store.findByParentIdAndStatusIn(parent.getId(), List.of(TaskStatus.FAILED))).isNotEmpty();
+    }
+
+    @Test
+    void parentIsTrackedDuringMapPhaseAndCancelStopsChunks() throws Exception {
+        CountDownLatch started = new CountDownLatch(3);
+        ParallelTask<Integer, Integer> task = new ParallelTask<>() {
+            @Override
+            public List<Integer> split() {
+                return IntStream.rangeClosed(1, 6).boxed().toList();
+            }
+
+            @Override
+            public Integer map(Integer chunk, ProgressUpdater progress) throws InterruptedException {
+                started.countDown();
+                // Kos teče v poolu kot druge naloge in se ustavi sodelovalno
+                while (!progress.isCancellationRequested()) {
+                    Thread.sleep(5);
+                }
+                return chunk;
+            }
+
+            @Override
+            public void reduce(List<Integer> results, ProgressUpdater progress) {
+            }
+        };
+
+        CompletableFuture<TaskInfo> future = parallelTaskService.enqueue("Slow", task);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        TaskInfo parent = store.findAll().stream().filter(t -> t.getParentId() == null).findFirst().orElseThrow();
+        // Parent nima niti, a je med tekočimi nalogami, zato ga watchdog ne šteje za osirotelega
+        assertThat(lifecycleService.getRunningTasks()).containsKey(parent.getId());
+
+        assertThat(lifecycleService.cancelTask(parent.getId())).isTrue();
+
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(store.findById(parent.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.DELETED);
+        assertThat(store.findByParentIdAndStatusIn(parent.getId(), List.of(TaskStatus.DELETED))).hasSize(6);
+    }
+}
@@ -0,0 +1,129 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ProgressRecursiveTask;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ProgressRecursiveTask} run through {@code ProgressUpdater.invoke}.
+ */
+class ProgressRecursiveTaskTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskLifecycleService lifecycleService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setForkJoinParallelism(4);
+        properties.setParallelProgressInterval(Duration.ZERO);
+        // Ena nit za naloge: čakanje na podnaloge je ne sme zapreti
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10));
+        lifecycleService = lifecycleService(store, executor).properties(properties).build();
+    }
+
+    @AfterEach
+    void shutdown() {
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Vsota števil na intervalu [from, to), razdeljena na liste po 100.
+     */
+    static class Sum extends ProgressRecursiveTask<Long> {
+        final int from;
+        final int to;
+        final Set<String> threads;
+
+        Sum(int from, int to, Set<String> threads) {
+            this.from = from;
+            this.to = to;
+            this.threads = threads;
+        }
+
+        Sum(Sum parent, int from, int to) {
+            super(parent);
+            this.from = from;
+            this.to = to;
+            this.threads = parent.threads;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= 100) {
+                threads.add(Thread.currentThread().getName());
+                long sum = 0;
+                for (int i = from; i < to; i++) {
+                    sum += i;
+                }
+                worked(to - from);
+                return sum;
+            }
+            int mid = (from + to) >>> 1;
+            Sum left = new Sum(this, from, mid);
+            left.fork();
+            return new Sum(this, mid, to).compute() + left.join();
+        }
+    }
+
+    @Test
+    void splitWorkRunsInForkJoinPoolAndReportsProgress() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicLong result = new AtomicLong();
+
+        TaskInfo task = lifecycleService.enqueue("Sum", progress ->
+                result.set(progress.invoke(new Sum(0, 100_000, threads), 100_000))).get(5, TimeUnit.SECONDS);
+
+        assertThat(result).hasValue(100_000L * 99_999 / 2);
+        assertThat(threads).allMatch(name -> name.startsWith("taskomir-fj-"));
+        TaskInfo stored = store.findById(task.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(stored.getLogLines()).anyMatch(line -> line.contains("100000 / 100000"));
+    }
+
+    @Test
+    void cancellationStopsSubtasks() throws Exception {
+        properties.setParallelProgressInterval(Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicLong leaves = new AtomicLong();
+        ProgressRecursiveTask<Void> endless = new ProgressRecursiveTask<>() {
+            @Override
+            protected Void compute() {
+                started.countDown();
+                while (true) {
+                    leaves.incrementAndGet();
+                    worked(1);
+                }
+            }
+        };
+        lifecycleService.enqueue("Endless", progress -> progress.invoke(endless, Long.MAX_VALUE));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        String taskId = store.findByStatus(TaskStatus.PROCESSING).get(0).getId();
+
+        assertThat(lifecycleService.cancelTask(taskId)).isTrue();
+
+        // Edina nit poola se sprosti, ko worked() po preklicu vrže izjemo
+        lifecycleService.enqueue("Next", progress -> progress.update(1.0, "done")).get(5, TimeUnit.SECONDS);
+        assertThat(endless.isCompletedAbnormally()).isTrue();
+        assertThat(store.findById(taskId).orElseThrow().getStatus()).isEqualTo(TaskStatus.DELETED);
+    }
+}
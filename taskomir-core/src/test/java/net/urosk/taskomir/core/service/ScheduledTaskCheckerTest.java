@@ -2,8 +2,11 @@ package net.urosk.taskomir.core.service;
 
 import net.urosk.taskomir.core.config.TaskomirProperties;
 import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ChildEnqueueResult;
 import net.urosk.taskomir.core.lib.TaskStatus;
-import net.urosk.taskomir.core.repository.TaskInfoRepository;
+import net.urosk.taskomir.core.metrics.SchedulerStats;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.storage.TaskStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,17 +25,19 @@ import static org.mockito.Mockito.when;
 class ScheduledTaskCheckerTest {
 
     @Mock
-    TaskInfoRepository repository;
+    TaskStore repository;
     @Mock
     TaskLifecycleService lifecycleService;
     @Mock
     TaskomirProperties properties;
 
     ScheduledTaskChecker checker; // Testiran razred
+    SchedulerStats schedulerStats;
 
     @BeforeEach
     void setUp() {
-        checker = new ScheduledTaskChecker(repository, lifecycleService, properties);
+        schedulerStats = new SchedulerStats();
+        checker = new ScheduledTaskChecker(repository, lifecycleService, properties, TaskomirMetrics.NOOP, schedulerStats);
     }
 
     @Test
@@ -50,9 +55,9 @@ class ScheduledTaskCheckerTest {
         deleted.setStatus(TaskStatus.DELETED);
         deleted.setDeletedAt(System.currentTimeMillis() - 8L * 24 * 3600_000); // >7 dni nazaj
 
-        when(repository.findByStatusOrderByCreatedAtDesc(TaskStatus.SUCCEEDED))
+        when(repository.findByStatus(TaskStatus.SUCCEEDED))
                 .thenReturn(List.of(succeeded));
-        when(repository.findByStatusOrderByCreatedAtDesc(TaskStatus.DELETED))
+        when(repository.findByStatus(TaskStatus.DELETED))
                 .thenReturn(List.of(deleted));
 
         // 3) Pokličemo metodo
@@ -66,4 +71,46 @@ class ScheduledTaskCheckerTest {
                 task.getId().equals("del-321")
         ));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCheckScheduledTasksRecordsFireLag() {
+        // Master, ki bi se moral sprožiti vsako minuto, nazadnje pa je tekel pred dvema urama
+        TaskInfo master = new TaskInfo("master-lag", "LaggingMaster");
+        master.setStatus(TaskStatus.SCHEDULED);
+        master.setCronExpression("0 * * * * ?");
+        master.setLastRunTime(System.currentTimeMillis() - 2 * 3600_000L);
+
+        when(repository.findByStatus(TaskStatus.SCHEDULED)).thenReturn(List.of(master));
+        when(lifecycleService.enqueueNewChildOf(master)).thenReturn(ChildEnqueueResult.CREATED);
+
+        checker.checkScheduledTasks();
+
+        SchedulerStats.Snapshot snapshot = schedulerStats.snapshot();
+        assertNotNull(snapshot.getLastPass());
+        assertEquals(1, snapshot.getLastPass().getMastersEvaluated());
+        assertEquals(1, snapshot.getLastPass().getCreated());
+        assertEquals(1, snapshot.getMasters().size());
+        // Zamik mora biti vsaj ena ura (izračunan čas proženja je bil ~1h59min nazaj)
+        assertTrue(snapshot.getMasters().get(0).getLastLagMs() > 3600_000L);
+    }
+
+    @Test
+    void testFirstFireIsCountedWithoutLag() {
+        // Master brez lastRunTime: prvo proženje se šteje, zamika od epohe pa ne beležimo
+        TaskInfo master = new TaskInfo("master-new", "NewMaster");
+        master.setStatus(TaskStatus.SCHEDULED);
+        master.setCronExpression("0 * * * * ?");
+
+        when(repository.findByStatus(TaskStatus.SCHEDULED)).thenReturn(List.of(master));
+        when(lifecycleService.enqueueNewChildOf(master)).thenReturn(ChildEnqueueResult.CREATED);
+
+        checker.checkScheduledTasks();
+
+        SchedulerStats.Snapshot snapshot = schedulerStats.snapshot();
+        assertEquals(1, snapshot.getTotalCreated());
+        assertEquals(1, snapshot.getMasters().size());
+        assertEquals(1, snapshot.getMasters().get(0).getCreated());
+        assertEquals(0, snapshot.getMasters().get(0).getMaxLagMs());
+        assertEquals(0, snapshot.getLastPass().getMaxLagMs());
+    }
+}
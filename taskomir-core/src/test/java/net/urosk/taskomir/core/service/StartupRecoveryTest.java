@@ -0,0 +1,119 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link StartupRecovery}.
+ */
+class StartupRecoveryTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskLifecycleService lifecycleService;
+    private StartupRecovery recovery;
+
+    @BeforeEach
+    void setUp() {
+        properties.setInstanceId("node-2");
+        properties.getRecovery().setBatchSize(2);
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10));
+        lifecycleService = lifecycleService(store, executor).properties(properties).build();
+        recovery = new StartupRecovery(store, lifecycleService, properties);
+    }
+
+    @AfterEach
+    void shutdown() {
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    private TaskInfo orphan(String id, TaskStatus status) {
+        TaskInfo task = new TaskInfo(id, "Task " + id);
+        task.setStatus(status);
+        task.setRunning(status == TaskStatus.PROCESSING);
+        task.setOwnerInstanceId("node-1");
+        task.setClassName("com.acme.Import");
+        store.save(task);
+        return task;
+    }
+
+    @Test
+    void requeuesTopLevelTasksAndFailsChildren() {
+        properties.getRecovery().setAction(TaskomirProperties.WatchdogAction.REQUEUE);
+        orphan("running", TaskStatus.PROCESSING);
+        orphan("queued", TaskStatus.ENQUEUED);
+        TaskInfo child = orphan("child", TaskStatus.PROCESSING);
+        child.setParentId("master");
+        store.save(child);
+
+        StartupRecovery.Result result = recovery.recover();
+
+        assertThat(result.getRequeued()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        TaskInfo running = store.findById("running").orElseThrow();
+        assertThat(running.getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+        assertThat(running.isRunning()).isFalse();
+        assertThat(running.getRunAt()).isNotNull();
+        assertThat(store.findById("queued").orElseThrow().getRunAt()).isNotNull();
+        TaskInfo failedChild = store.findById("child").orElseThrow();
+        assertThat(failedChild.getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(failedChild.getError()).contains("node-1");
+        // Aktivnih otrok ni več, cron master s skipIfAlreadyRunning se spet sproži
+        assertThat(store.findByParentIdAndStatusIn("master", List.of(TaskStatus.ENQUEUED, TaskStatus.PROCESSING)))
+                .isEmpty();
+        assertThat(store.countByStatus(TaskStatus.PROCESSING)).isZero();
+    }
+
+    @Test
+    void failsOrphansByDefaultAndLeavesDelayedAndWorkflowTasks() {
+        orphan("running", TaskStatus.PROCESSING);
+        TaskInfo delayed = orphan("delayed", TaskStatus.ENQUEUED);
+        delayed.setRunAt(System.currentTimeMillis() + 60_000);
+        store.save(delayed);
+        TaskInfo node = orphan("node", TaskStatus.PROCESSING);
+        node.setWorkflowId("wf");
+        store.save(node);
+
+        StartupRecovery.Result result = recovery.recover();
+
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getRequeued()).isZero();
+        assertThat(store.findById("running").orElseThrow().getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(store.findById("delayed").orElseThrow().getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+        assertThat(store.findById("node").orElseThrow().getStatus()).isEqualTo(TaskStatus.PROCESSING);
+    }
+
+    @Test
+    void leavesTasksOfThisInstanceAlone() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        lifecycleService.enqueue("Live", progress -> {
+            started.countDown();
+            release.await();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        StartupRecovery.Result result = recovery.recover();
+
+        assertThat(result.getFailed() + result.getRequeued()).isZero();
+        TaskInfo live = store.findByStatus(TaskStatus.PROCESSING).get(0);
+        assertThat(live.getOwnerInstanceId()).isEqualTo("node-2");
+        release.countDown();
+    }
+}
@@ -0,0 +1,117 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.EnqueueOptions;
+import net.urosk.taskomir.core.lib.RetryPolicy;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for cooperative cancellation and checkpoints ({@code ProgressUpdater.checkpoint}) in {@link TaskLifecycleService}.
+ */
+class TaskCheckpointTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskLifecycleService lifecycleService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10));
+        lifecycleService = lifecycleService(store, executor).properties(properties).build();
+    }
+
+    @AfterEach
+    void shutdown() {
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void runningTaskStopsCooperativelyAndStaysDeleted() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        lifecycleService.enqueue("Long", progress -> {
+            started.countDown();
+            while (!progress.isCancellationRequested()) {
+                Thread.sleep(5);
+            }
+            // Napredek po preklicu se ne sme zapisati
+            progress.update(1.0, "finished anyway");
+            stopped.countDown();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        String taskId = store.findByStatus(TaskStatus.PROCESSING).get(0).getId();
+
+        assertThat(lifecycleService.cancelTask(taskId)).isTrue();
+
+        assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+        // Ena nit: naslednja naloga se izvede šele, ko preklicana sprosti nit
+        lifecycleService.enqueue("Next", progress -> progress.update(1.0, "done")).get(5, TimeUnit.SECONDS);
+        TaskInfo stored = store.findById(taskId).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(TaskStatus.DELETED);
+        assertThat(stored.getCurrentProgress()).isNotEqualTo("finished anyway");
+    }
+
+    @Test
+    void cancelledWhileQueuedNeverStarts() throws Exception {
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        lifecycleService.enqueue("Blocker", progress -> {
+            blocking.countDown();
+            release.await();
+        });
+        assertThat(blocking.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicBoolean ran = new AtomicBoolean();
+        lifecycleService.enqueue("Queued", progress -> ran.set(true));
+        String queuedId = store.findByStatus(TaskStatus.ENQUEUED).get(0).getId();
+
+        assertThat(lifecycleService.cancelTask(queuedId)).isTrue();
+        release.countDown();
+        lifecycleService.enqueue("After", progress -> progress.update(1.0, "done")).get(5, TimeUnit.SECONDS);
+
+        assertThat(ran).isFalse();
+        assertThat(store.findById(queuedId).orElseThrow().getStatus()).isEqualTo(TaskStatus.DELETED);
+    }
+
+    @Test
+    void retryResumesFromLastCheckpoint() throws Exception {
+        RetryPolicy retry = RetryPolicy.builder().maxAttempts(2).initialDelay(Duration.ofMillis(20)).jitter(0).build();
+        List<String> resumedFrom = new CopyOnWriteArrayList<>();
+
+        TaskInfo result = lifecycleService.enqueue("Import", progress -> {
+            resumedFrom.add(String.valueOf(progress.lastCheckpoint()));
+            int offset = progress.lastCheckpoint() != null ? Integer.parseInt(progress.lastCheckpoint()) : 0;
+            for (; offset < 10; offset++) {
+                if (offset == 5 && resumedFrom.size() == 1) {
+                    throw new IOException("connection lost");
+                }
+                progress.checkpoint(String.valueOf(offset + 1));
+            }
+        }, EnqueueOptions.builder().retryPolicy(retry).build()).get(5, TimeUnit.SECONDS);
+
+        assertThat(resumedFrom).containsExactly("null", "5");
+        TaskInfo stored = store.findById(result.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(stored.getCheckpoint()).isEqualTo("10");
+        assertThat(stored.getCheckpointAt()).isNotNull();
+    }
+}
@@ -0,0 +1,116 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link TaskDrainer}.
+ */
+class TaskDrainerTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskLifecycleService lifecycleService;
+    private TaskDrainer drainer;
+
+    @BeforeEach
+    void setUp() {
+        properties.setInstanceId("node-1");
+        properties.setDrainTimeout(Duration.ofMillis(300));
+        executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10));
+        lifecycleService = lifecycleService(store, executor).properties(properties).build();
+        drainer = new TaskDrainer(executor, lifecycleService, properties);
+    }
+
+    @AfterEach
+    void shutdown() {
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shortTaskFinishesAndLongTaskIsHandedBackWithCheckpoint() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch finishShort = new CountDownLatch(1);
+        CountDownLatch longStopped = new CountDownLatch(1);
+        lifecycleService.enqueue("Short", progress -> {
+            started.countDown();
+            finishShort.await();
+        });
+        lifecycleService.enqueue("Long", progress -> {
+            progress.checkpoint("42");
+            started.countDown();
+            while (!progress.isCancellationRequested()) {
+                Thread.sleep(5);
+            }
+            // Napredek po predaji se ne sme zapisati
+            progress.update(0.9, "after hand-off");
+            longStopped.countDown();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        String shortId = store.findAll().stream().filter(t -> t.getName().equals("Short")).findFirst().orElseThrow().getId();
+        String longId = store.findAll().stream().filter(t -> t.getName().equals("Long")).findFirst().orElseThrow().getId();
+
+        finishShort.countDown();
+        int handedOff = drainer.drain();
+
+        assertThat(longStopped.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handedOff).isEqualTo(1);
+        assertThat(store.findById(shortId).orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        TaskInfo handed = store.findById(longId).orElseThrow();
+        assertThat(handed.getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+        assertThat(handed.getRunAt()).isNotNull();
+        assertThat(handed.getCheckpoint()).isEqualTo("42");
+        assertThat(handed.getCurrentProgress()).isNotEqualTo("after hand-off");
+    }
+
+    @Test
+    void queuedTasksAreNotStartedButHandedBack() throws Exception {
+        CountDownLatch blocking = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            lifecycleService.enqueue("Blocker " + i, progress -> {
+                blocking.countDown();
+                while (!progress.isCancellationRequested()) {
+                    Thread.sleep(5);
+                }
+            });
+        }
+        assertThat(blocking.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicBoolean ran = new AtomicBoolean();
+        lifecycleService.enqueue("Queued", progress -> ran.set(true));
+
+        assertThat(drainer.drain()).isEqualTo(3);
+
+        assertThat(ran).isFalse();
+        assertThat(store.findByStatus(TaskStatus.ENQUEUED)).hasSize(3)
+                .allSatisfy(task -> assertThat(task.getRunAt()).isNotNull());
+        assertThat(store.findByStatus(TaskStatus.PROCESSING)).isEmpty();
+    }
+
+    @Test
+    void rejectsNewTasksWhileDraining() {
+        drainer.drain();
+
+        assertThatThrownBy(() -> lifecycleService.enqueue("Late", progress -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(store.findAll()).isEmpty();
+    }
+}
@@ -0,0 +1,100 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.lib.TaskIdGenerator;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.TaskUpdateWriter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Sestavi {@link TaskLifecycleService} za teste brez Spring konteksta. Neobvezni sodelavci ostanejo prazni, zato
+ * servis uporabi svoje privzete.
+ */
+final class TaskLifecycleServiceBuilder {
+
+    private final TaskStore store;
+    private final ThreadPoolExecutor executor;
+    private MessageSource messageSource = messageSource();
+    private ApplicationContext applicationContext = new StaticApplicationContext();
+    private TaskomirMetrics metrics = TaskomirMetrics.NOOP;
+    private TaskUpdateWriter updateWriter;
+    private TaskRateLimiter rateLimiter;
+    private TaskResultService resultService;
+    private TaskPayloadService payloadService;
+    private TaskIdGenerator idGenerator;
+    private TaskomirProperties properties = new TaskomirProperties();
+
+    private TaskLifecycleServiceBuilder(TaskStore store, ThreadPoolExecutor executor) {
+        this.store = store;
+        this.executor = executor;
+    }
+
+    static TaskLifecycleServiceBuilder lifecycleService(TaskStore store, ThreadPoolExecutor executor) {
+        return new TaskLifecycleServiceBuilder(store, executor);
+    }
+
+    /**
+     * Message source, ki namesto prevoda vrne kodo sporočila.
+     */
+    static StaticMessageSource messageSource() {
+        StaticMessageSource messageSource = new StaticMessageSource();
+        messageSource.setUseCodeAsDefaultMessage(true);
+        return messageSource;
+    }
+
+    TaskLifecycleServiceBuilder properties(TaskomirProperties properties) {
+        this.properties = properties;
+        return this;
+    }
+
+    TaskLifecycleServiceBuilder messageSource(MessageSource messageSource) {
+        this.messageSource = messageSource;
+        return this;
+    }
+
+    TaskLifecycleServiceBuilder applicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+        return this;
+    }
+
+    TaskLifecycleServiceBuilder metrics(TaskomirMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    TaskLifecycleServiceBuilder updateWriter(TaskUpdateWriter updateWriter) {
+        this.updateWriter = updateWriter;
+        return this;
+    }
+
+    TaskLifecycleServiceBuilder rateLimiter(TaskRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    TaskLifecycleServiceBuilder resultService(TaskResultService resultService) {
+        this.resultService = resultService;
+        return this;
+    }
+
+    TaskLifecycleServiceBuilder payloadService(TaskPayloadService payloadService) {
+        this.payloadService = payloadService;
+        return this;
+    }
+
+    TaskLifecycleServiceBuilder idGenerator(TaskIdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+        return this;
+    }
+
+    TaskLifecycleService build() {
+        return new TaskLifecycleService(store, executor, messageSource, applicationContext, metrics, updateWriter,
+                rateLimiter, resultService, payloadService, idGenerator, properties);
+    }
+}
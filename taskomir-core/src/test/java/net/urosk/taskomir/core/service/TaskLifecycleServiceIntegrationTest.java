@@ -108,7 +108,7 @@ class TaskLifecycleServiceIntegrationTest {
 
         // Assert
         assertNotNull(result);
-        assertThat(result.getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+        assertThat(result.getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
     }
 
     /**
@@ -2,10 +2,15 @@ package net.urosk.taskomir.core.service;
 
 import net.urosk.taskomir.core.domain.TaskInfo;
 import net.urosk.taskomir.core.lib.AbstractScheduledTask;
+import net.urosk.taskomir.core.lib.ChildEnqueueResult;
+import net.urosk.taskomir.core.lib.EnqueueOptions;
 import net.urosk.taskomir.core.lib.ProgressTask;
 import net.urosk.taskomir.core.lib.ProgressUpdater;
 import net.urosk.taskomir.core.lib.TaskStatus;
-import net.urosk.taskomir.core.repository.TaskInfoRepository;
+import net.urosk.taskomir.core.storage.TaskStore;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import net.urosk.taskomir.core.storage.TaskUpdateWriter;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,7 +18,7 @@ import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.MessageSource;
 import org.springframework.scheduling.support.CronExpression;
@@ -27,12 +32,13 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for {@link TaskLifecycleService}.
  *
- * These tests use Mockito to mock dependencies such as {@link TaskInfoRepository},
+ * These tests use Mockito to mock dependencies such as {@link TaskStore},
  * {@link ThreadPoolExecutor}, {@link MessageSource}, and {@link ApplicationContext},
  * so that we can verify the internal logic without requiring a real database or asynchronous execution.
  *
@@ -43,7 +49,7 @@ import static org.mockito.Mockito.*;
 class TaskLifecycleServiceTest {
 
     @Mock
-    private TaskInfoRepository repository;
+    private TaskStore repository;
 
     @Mock
     private ThreadPoolExecutor executorService;
@@ -84,6 +90,17 @@ class TaskLifecycleServiceTest {
         }
     }
 
+    /**
+     * Stubs the application context so that TaskTypeRegistry resolves the task class to the given bean.
+     */
+    @SuppressWarnings("unchecked")
+    private void stubTaskBean(ProgressTask bean) {
+        ObjectProvider<Object> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(bean);
+        when(applicationContext.getBeanNamesForType(any(Class.class))).thenReturn(new String[]{"task"});
+        doReturn(provider).when(applicationContext).getBeanProvider(any(Class.class));
+    }
+
     /**
      * Set up default stubs before each test.
      * We stub repository.findById() to return an empty Optional by default and
@@ -193,6 +210,49 @@ class TaskLifecycleServiceTest {
         assertTrue(succeededFound, "Expected a repository.save() invocation that sets the task status to SUCCEEDED with progress 1.0");
     }
 
+    /**
+     * A duplicate submission within the idempotency window returns the existing task and runs nothing.
+     */
+    @Test
+    void testEnqueueWithIdempotencyKeyReturnsExistingTask() throws Exception {
+        TaskInfo existing = new TaskInfo("existing-1", "Invoice 42");
+        existing.setIdempotencyKey("invoice-42");
+        existing.setStatus(TaskStatus.SUCCEEDED);
+        when(repository.insertIfAbsent(any(TaskInfo.class))).thenReturn(Optional.of(existing));
+        ProgressTask mockTask = mock(ProgressTask.class);
+
+        TaskInfo result = taskLifecycleService.enqueue("Invoice 42", mockTask, EnqueueOptions.builder()
+                .idempotencyKey("invoice-42")
+                .idempotencyWindow(Duration.ofMinutes(5))
+                .build()).get(5, TimeUnit.SECONDS);
+
+        assertThat(result.getId()).isEqualTo("existing-1");
+        verify(mockTask, never()).execute(any());
+        verify(repository, never()).save(any());
+        verify(repository, never()).clearIdempotencyKey(anyString(), anyString());
+    }
+
+    /**
+     * Outside the window the old task loses its key and the new submission runs.
+     */
+    @Test
+    void testEnqueueWithExpiredIdempotencyKeyRunsAgain() throws Exception {
+        TaskInfo old = new TaskInfo("old-1", "Invoice 42");
+        old.setIdempotencyKey("invoice-42");
+        old.setCreatedAt(System.currentTimeMillis() - Duration.ofHours(2).toMillis());
+        when(repository.insertIfAbsent(any(TaskInfo.class))).thenReturn(Optional.of(old), Optional.empty());
+        ProgressTask mockTask = mock(ProgressTask.class);
+
+        TaskInfo result = taskLifecycleService.enqueue("Invoice 42", mockTask, EnqueueOptions.builder()
+                .idempotencyKey("invoice-42")
+                .idempotencyWindow(Duration.ofHours(1))
+                .build()).get(5, TimeUnit.SECONDS);
+
+        assertThat(result.getId()).isNotEqualTo("old-1");
+        verify(repository).clearIdempotencyKey("old-1", "invoice-42");
+        verify(mockTask).execute(any());
+    }
+
     /**
      * Test enqueue() when the ProgressTask throws an exception.
      * In this case, the final status should be FAILED.
@@ -223,8 +283,7 @@ class TaskLifecycleServiceTest {
         master.setSkipIfAlreadyRunning(true);
 
         // Simulate an active child exists.
-        when(repository.findByParentIdAndStatusIn(eq("master-123"), anyList()))
-                .thenReturn(List.of(new TaskInfo("child-running", "SomeChild")));
+        when(repository.existsByParentIdAndStatusIn(eq("master-123"), anyList())).thenReturn(true);
 
         // Stub messageSource for the skip message.
         when(messageSource.getMessage(eq("child.skip.active"), any(), any()))
@@ -250,16 +309,11 @@ class TaskLifecycleServiceTest {
         master.setClassName(DummyScheduledTask.class.getName());
 
         // Simulate that there is no active child.
-        when(repository.findByParentIdAndStatusIn(eq("master-999"), anyList()))
-                .thenReturn(Collections.emptyList());
+        when(repository.existsByParentIdAndStatusIn(eq("master-999"), anyList())).thenReturn(false);
 
-        // Stub applicationContext.getBean(...) to return a mock AbstractScheduledTask.
+        // Stub the application context to provide a mock AbstractScheduledTask bean.
         AbstractScheduledTask mockLogic = mock(AbstractScheduledTask.class);
-        try {
-            when(applicationContext.getBean(any(Class.class))).thenReturn(mockLogic);
-        } catch (NoSuchBeanDefinitionException e) {
-            fail("Should not throw NoSuchBeanDefinitionException in test stub");
-        }
+        stubTaskBean(mockLogic);
 
         // When: call enqueueNewChildOf()
         taskLifecycleService.enqueueNewChildOf(master);
@@ -278,6 +332,47 @@ class TaskLifecycleServiceTest {
         verify(executorService).submit(any(Runnable.class));
     }
 
+    /**
+     * Once the store confirmed that a skipIfAlreadyRunning master has no active child, the next fires are answered
+     * from the in-memory index: the finished child was removed from it, so no further query is made.
+     */
+    @Test
+    void testEnqueueNewChildOf_skipIfAlreadyRunningUsesActiveChildIndex() {
+        TaskInfo master = new TaskInfo("master-777", "MasterScheduled");
+        master.setSkipIfAlreadyRunning(true);
+        master.setClassName(DummyScheduledTask.class.getName());
+        when(repository.existsByParentIdAndStatusIn(eq("master-777"), anyList())).thenReturn(false);
+        stubTaskBean(mock(AbstractScheduledTask.class));
+
+        // Executor je sinhron: child se konča že v klicu
+        assertThat(taskLifecycleService.enqueueNewChildOf(master)).isEqualTo(ChildEnqueueResult.CREATED);
+        assertThat(taskLifecycleService.enqueueNewChildOf(master)).isEqualTo(ChildEnqueueResult.CREATED);
+        assertThat(taskLifecycleService.enqueueNewChildOf(master)).isEqualTo(ChildEnqueueResult.CREATED);
+
+        verify(repository, times(1)).existsByParentIdAndStatusIn(eq("master-777"), anyList());
+        verify(repository, never()).findByParentIdAndStatusIn(anyString(), anyCollection());
+    }
+
+    /**
+     * A child that is still running keeps the master busy; the skip is confirmed with a single exists query.
+     */
+    @Test
+    void testEnqueueNewChildOf_activeChildInIndexIsConfirmedInStore() {
+        TaskInfo master = new TaskInfo("master-888", "MasterScheduled");
+        master.setSkipIfAlreadyRunning(true);
+        master.setClassName(DummyScheduledTask.class.getName());
+        when(repository.existsByParentIdAndStatusIn(eq("master-888"), anyList())).thenReturn(false, true);
+        stubTaskBean(mock(AbstractScheduledTask.class));
+        when(messageSource.getMessage(eq("child.skip.active"), any(), any())).thenReturn("Child is active, skipping.");
+        // Child ostane v vrsti poola
+        doReturn(new CompletableFuture<>()).when(executorService).submit(any(Runnable.class));
+
+        assertThat(taskLifecycleService.enqueueNewChildOf(master)).isEqualTo(ChildEnqueueResult.CREATED);
+        assertThat(taskLifecycleService.enqueueNewChildOf(master)).isEqualTo(ChildEnqueueResult.SKIPPED_ACTIVE);
+
+        verify(repository, times(2)).existsByParentIdAndStatusIn(eq("master-888"), anyList());
+    }
+
 
     /**
      * Test cancelTask() for a task present in runningTasks.
@@ -371,4 +466,50 @@ class TaskLifecycleServiceTest {
         assertThat(result).isSameAs(info);
         verify(repository).findById("someId");
     }
+
+    /**
+     * With an async {@link TaskUpdateWriter}, updateTask() must not read or write the store on the calling thread.
+     */
+    @Test
+    void testUpdateTaskWithAsyncWriter() {
+        TaskUpdateWriter writer = mock(TaskUpdateWriter.class);
+        TaskLifecycleService service = new TaskLifecycleService(repository, executorService, messageSource,
+                applicationContext, null, writer, null, null, null, null, null);
+        service.getRunningTasks().put("async-1", mock(Future.class));
+
+        TaskInfo info = new TaskInfo("async-1", "Async");
+        info.setProgress(1.0);
+        service.updateTask(info, TaskStatus.SUCCEEDED, false);
+
+        ArgumentCaptor<TaskUpdate> captor = ArgumentCaptor.forClass(TaskUpdate.class);
+        verify(writer).write(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(captor.getValue().getEndedAt()).isNotNull();
+        assertThat(captor.getValue().getLogLines()).hasSize(1);
+        verifyNoInteractions(repository);
+        assertThat(service.getRunningTasks()).doesNotContainKey("async-1");
+    }
+
+    /**
+     * With an async {@link TaskUpdateWriter}, the enqueue future flushes the task's pending updates and reports the
+     * final status even if the stored row has not caught up.
+     */
+    @Test
+    void testEnqueueFutureWithAsyncWriterReportsFinalStatus() throws Exception {
+        TaskUpdateWriter writer = mock(TaskUpdateWriter.class);
+        when(writer.flush(anyString(), any(Duration.class))).thenReturn(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        TaskLifecycleService service = TaskLifecycleServiceBuilder.lifecycleService(new InMemoryTaskStore(), executor)
+                .updateWriter(writer)
+                .build();
+        try {
+            TaskInfo result = service.enqueue("Async", new DummyProgressTask()).get(5, TimeUnit.SECONDS);
+
+            assertThat(result.getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+            verify(writer).flush(eq(result.getId()), any(Duration.class));
+        } finally {
+            service.shutdownDelayed();
+            executor.shutdownNow();
+        }
+    }
 }
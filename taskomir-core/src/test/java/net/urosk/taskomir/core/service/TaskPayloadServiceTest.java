@@ -0,0 +1,192 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.AbstractScheduledTask;
+import net.urosk.taskomir.core.lib.EnqueueOptions;
+import net.urosk.taskomir.core.lib.ProgressUpdater;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.payload.PayloadCodec;
+import net.urosk.taskomir.core.payload.TaskPayload;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link TaskPayloadService} and task payloads in {@link TaskLifecycleService}.
+ */
+class TaskPayloadServiceTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskPayloadService payloadService;
+    private TaskLifecycleService lifecycleService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10));
+        payloadService = new TaskPayloadService(null, properties);
+        lifecycleService = lifecycleService(store, executor).properties(properties).payloadService(payloadService).build();
+        ParamsTask.received.set(null);
+        ParamsTask.all.clear();
+    }
+
+    @AfterEach
+    void shutdown() {
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void enqueuedTaskReadsItsPayload() throws Exception {
+        AtomicReference<Params> received = new AtomicReference<>();
+
+        TaskInfo info = lifecycleService.enqueue("Import", progress -> received.set(progress.payload(Params.class)),
+                EnqueueOptions.withPayload(new Params("eu", 50))).get(5, TimeUnit.SECONDS);
+
+        assertThat(received.get()).isEqualTo(new Params("eu", 50));
+        TaskInfo stored = store.findById(info.getId()).orElseThrow();
+        assertThat(stored.getPayloadCodec()).isEqualTo("json");
+        assertThat(stored.getPayloadType()).isEqualTo(Params.class.getName());
+    }
+
+    @Test
+    void taskWithoutPayloadReadsNull() throws Exception {
+        AtomicReference<Object> received = new AtomicReference<>("unset");
+
+        lifecycleService.enqueue("Plain", progress -> received.set(progress.payload(Params.class)))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(received.get()).isNull();
+    }
+
+    @Test
+    void cborPayloadIsSmallerAndStillReadableAfterCodecChange() {
+        Params params = new Params("eu", 50);
+        TaskInfo json = new TaskInfo("j", "Json");
+        payloadService.write(json, params);
+        properties.getPayload().setCodec("cbor");
+        TaskInfo cbor = new TaskInfo("c", "Cbor");
+        payloadService.write(cbor, params);
+
+        assertThat(cbor.getPayloadCodec()).isEqualTo("cbor");
+        assertThat(cbor.getPayload().length).isLessThan(json.getPayload().length);
+        // Payload, zapisan s prejšnjim kodekom, se bere s kodekom, zapisanim ob njem
+        assertThat(payloadService.read(json).get(Params.class)).isEqualTo(params);
+        assertThat(payloadService.read(cbor).get(Params.class)).isEqualTo(params);
+    }
+
+    @Test
+    void payloadOverMaxSizeIsRejected() {
+        properties.getPayload().setMaxSize(32);
+
+        assertThatThrownBy(() -> lifecycleService.enqueue("Big", progress -> { },
+                EnqueueOptions.withPayload("x".repeat(100))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("taskomir.payload.maxSize");
+        assertThat(store.findAll()).isEmpty();
+    }
+
+    @Test
+    void payloadIsDecodedOnceAndOnlyWhenRead() {
+        CountingCodec codec = new CountingCodec();
+        properties.getPayload().setCodec(codec.name());
+        TaskPayloadService service = new TaskPayloadService(List.of(codec), properties);
+        TaskInfo task = new TaskInfo("t1", "Task");
+        service.write(task, "hello");
+
+        TaskPayload payload = service.read(task);
+        assertThat(codec.decoded).hasValue(0);
+        assertThat(payload.get(String.class)).isEqualTo("hello");
+        assertThat(payload.get(String.class)).isEqualTo("hello");
+        assertThat(codec.decoded).hasValue(1);
+    }
+
+    @Test
+    void scheduledChildGetsPayloadOfMaster() throws Exception {
+        TaskInfo master = lifecycleService.createScheduledTask("Nightly", new ParamsTask(), "0 0 2 * * *", false,
+                null, new Params("us", 10));
+
+        lifecycleService.enqueueNewChildOf(master);
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ParamsTask.received.get()).isEqualTo(new Params("us", 10));
+        TaskInfo child = store.findAll().stream().filter(task -> master.getId().equals(task.getParentId()))
+                .findFirst().orElseThrow();
+        assertThat(child.getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(child.getPayload()).isEqualTo(master.getPayload());
+    }
+
+    @Test
+    void mastersSharingOneTaskBeanKeepTheirOwnPayloads() throws Exception {
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.registerSingleton("paramsTask", ParamsTask.class);
+        context.refresh();
+        lifecycleService.shutdownDelayed();
+        lifecycleService = lifecycleService(store, executor).properties(properties).payloadService(payloadService)
+                .applicationContext(context).build();
+        TaskInfo eu = lifecycleService.createScheduledTask("EU", new ParamsTask(), "0 0 2 * * *", false, null,
+                new Params("eu", 1));
+        TaskInfo us = lifecycleService.createScheduledTask("US", new ParamsTask(), "0 0 3 * * *", false, null,
+                new Params("us", 2));
+
+        lifecycleService.enqueueNewChildOf(eu);
+        lifecycleService.enqueueNewChildOf(us);
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        // Oba childa izvede isti bean, vsak s payloadom svojega mastra
+        assertThat(ParamsTask.all).containsExactly(new Params("eu", 1), new Params("us", 2));
+    }
+
+    public record Params(String region, int limit) {
+    }
+
+    public static class ParamsTask extends AbstractScheduledTask {
+        static final AtomicReference<Params> received = new AtomicReference<>();
+        static final List<Params> all = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void runScheduledLogic(ProgressUpdater updater) {
+            received.set(updater.payload(Params.class));
+            all.add(received.get());
+        }
+    }
+
+    private static class CountingCodec implements PayloadCodec {
+        private final AtomicInteger decoded = new AtomicInteger();
+
+        @Override
+        public String name() {
+            return "text";
+        }
+
+        @Override
+        public byte[] encode(Object payload) {
+            return payload.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public <T> T decode(byte[] data, Class<T> type) {
+            decoded.incrementAndGet();
+            return type.cast(new String(data, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryRateLimitStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for per-task rate and concurrency limits ({@link TaskRateLimiter}) applied by {@link TaskLifecycleService}.
+ */
+class TaskRateLimiterTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskRateLimiter rateLimiter;
+    private TaskLifecycleService lifecycleService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(100));
+        rateLimiter = new TaskRateLimiter(properties, null);
+        lifecycleService = lifecycleService(store, executor).properties(properties).rateLimiter(rateLimiter).build();
+    }
+
+    @AfterEach
+    void shutdown() {
+        rateLimiter.shutdown();
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    private void limit(String key, double permitsPerSecond, int burst, int maxConcurrency) {
+        TaskomirProperties.RateLimit limit = new TaskomirProperties.RateLimit();
+        limit.setPermitsPerSecond(permitsPerSecond);
+        limit.setBurst(burst);
+        limit.setMaxConcurrency(maxConcurrency);
+        properties.getRateLimits().put(key, limit);
+    }
+
+    @Test
+    void bucketAllowsBurstThenWaits() {
+        InMemoryRateLimitStore buckets = new InMemoryRateLimitStore();
+
+        assertThat(buckets.tryAcquire("api", 10, 2)).isZero();
+        assertThat(buckets.tryAcquire("api", 10, 2)).isZero();
+        assertThat(buckets.tryAcquire("api", 10, 2)).isBetween(1L, 100L);
+        // Drugo vedro ima svoje žetone
+        assertThat(buckets.tryAcquire("other", 10, 1)).isZero();
+    }
+
+    @Test
+    void maxConcurrencyLimitsRunningTasksOfOneName() throws Exception {
+        limit("Api call", 0, 1, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<TaskInfo>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(lifecycleService.enqueue("Api call", progress -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                running.decrementAndGet();
+            }));
+        }
+
+        for (CompletableFuture<TaskInfo> future : futures) {
+            TaskInfo task = future.get(5, TimeUnit.SECONDS);
+            assertThat(store.findById(task.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        }
+        assertThat(maxRunning).hasValue(1);
+    }
+
+    @Test
+    void rateLimitedTasksWaitWithoutThreads() throws Exception {
+        limit("Quota", 10, 1, 0);
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<TaskInfo>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(lifecycleService.enqueue("Quota", progress -> progress.update(1.0, "done")));
+        }
+
+        // Neomejena naloga dobi nit, medtem ko omejene čakajo na žeton
+        TaskInfo free = lifecycleService.enqueue("Free", progress -> progress.update(1.0, "done")).get(1, TimeUnit.SECONDS);
+        assertThat(store.findById(free.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(store.countByStatus(TaskStatus.ENQUEUED)).isPositive();
+
+        for (CompletableFuture<TaskInfo> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        // 1 žeton takoj, nato 10 na sekundo
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(250);
+        assertThat(store.countByStatus(TaskStatus.SUCCEEDED)).isEqualTo(5);
+    }
+}
@@ -0,0 +1,172 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ResultTask;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskResultStore;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link TaskResultService} and results of {@link ResultTask} in {@link TaskLifecycleService}.
+ */
+class TaskResultServiceTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final CountingResultStore resultStore = new CountingResultStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskResultService resultService;
+    private TaskLifecycleService lifecycleService;
+
+    @BeforeEach
+    void setUp() {
+        properties.getResults().setInlineLimit(1024);
+        properties.getResults().setCacheSize(2);
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10));
+        resultService = new TaskResultService(resultStore, properties);
+        lifecycleService = lifecycleService(store, executor).properties(properties).resultService(resultService).build();
+    }
+
+    @AfterEach
+    void shutdown() {
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void resultIsStoredWithTheTaskAndReadableOnAnotherInstance() throws Exception {
+        ResultTask<ArrayList<String>> task = progress -> new ArrayList<>(List.of("a", "b"));
+
+        TaskInfo info = lifecycleService.enqueue("Report", task).get(5, TimeUnit.SECONDS);
+
+        assertThat(store.findById(info.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        // Druga instanca ima prazen predpomnilnik in bere iz shrambe
+        TaskResultService otherInstance = new TaskResultService(resultStore, properties);
+        assertThat(otherInstance.getResult(info.getId(), ArrayList.class).orElseThrow()).containsExactly("a", "b");
+        assertThat(resultStore.opened).hasValue(1);
+    }
+
+    @Test
+    void unserializableResultFailsTheTask() throws Exception {
+        ResultTask<Object> task = progress -> new Object();
+
+        TaskInfo info = lifecycleService.enqueue("Broken", task).get(5, TimeUnit.SECONDS);
+
+        TaskInfo stored = store.findById(info.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(stored.getError()).contains("java.lang.Object");
+        assertThat(resultService.getResult(info.getId())).isEmpty();
+    }
+
+    @Test
+    void smallResultIsServedFromCache() throws Exception {
+        resultService.save("t1", "small");
+
+        assertThat(resultService.getResult("t1", String.class)).contains("small");
+        assertThat(resultStore.opened).hasValue(0);
+    }
+
+    @Test
+    void largeResultIsReadFromStoreEachTime() throws Exception {
+        String large = "x".repeat(10_000);
+        resultService.save("t1", large);
+
+        assertThat(resultService.getResult("t1", String.class)).contains(large);
+        assertThat(resultService.getResult("t1", String.class)).contains(large);
+        assertThat(resultStore.opened).hasValue(2);
+    }
+
+    @Test
+    void leastRecentlyUsedResultIsEvicted() throws Exception {
+        resultService.save("a", "A");
+        resultService.save("b", "B");
+        resultService.getResult("a");
+        resultService.save("c", "C");
+
+        // "b" je bil najdlje neuporabljen
+        assertThat(resultService.getResult("a", String.class)).contains("A");
+        assertThat(resultStore.opened).hasValue(0);
+        assertThat(resultService.getResult("b", String.class)).contains("B");
+        assertThat(resultStore.opened).hasValue(1);
+    }
+
+    @Test
+    void deleteRemovesCachedAndStoredResult() throws Exception {
+        resultService.save("t1", "small");
+
+        resultService.delete(List.of("t1"));
+
+        assertThat(resultService.getResult("t1")).isEmpty();
+        assertThat(resultStore.open("t1")).isEmpty();
+    }
+
+    @Test
+    void onlyAllowedResultClassesAreDeserialized() throws Exception {
+        resultService.save("t1", new Report("eu", 3));
+        resultService.save("t2", new ArrayList<>(List.of(new Report("us", 1))));
+
+        // Druga instanca bere iz shrambe; razred rezultata ni na seznamu dovoljenih
+        TaskResultService otherInstance = new TaskResultService(resultStore, properties);
+        assertThatThrownBy(() -> otherInstance.getResult("t1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("taskomir.results.allowedClasses");
+        assertThatThrownBy(() -> otherInstance.getResult("t2")).isInstanceOf(IllegalStateException.class);
+
+        properties.getResults().setAllowedClasses(List.of(Report.class.getName()));
+        TaskResultService allowing = new TaskResultService(resultStore, properties);
+        assertThat(allowing.getResult("t1", Report.class)).contains(new Report("eu", 3));
+        assertThat(allowing.getResult("t2", ArrayList.class).orElseThrow()).containsExactly(new Report("us", 1));
+    }
+
+    @Test
+    void resultsOverTheFilterLimitsAreRejected() throws Exception {
+        List<Object> nested = new ArrayList<>();
+        List<Object> current = nested;
+        for (int i = 0; i < 10; i++) {
+            List<Object> next = new ArrayList<>();
+            current.add(next);
+            current = next;
+        }
+        resultService.save("deep", nested);
+        resultService.save("wide", new int[1000]);
+
+        properties.getResults().setMaxDepth(5);
+        properties.getResults().setMaxArrayLength(100);
+        TaskResultService limited = new TaskResultService(resultStore, properties);
+        assertThatThrownBy(() -> limited.getResult("deep")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> limited.getResult("wide")).isInstanceOf(IllegalStateException.class);
+        assertThat(resultService.getResult("wide", int[].class).orElseThrow()).hasSize(1000);
+    }
+
+    record Report(String region, int rows) implements Serializable {
+    }
+
+    private static class CountingResultStore extends InMemoryTaskResultStore {
+        private final AtomicInteger opened = new AtomicInteger();
+
+        @Override
+        public Optional<InputStream> open(String taskId) {
+            Optional<InputStream> stream = super.open(taskId);
+            stream.ifPresent(in -> opened.incrementAndGet());
+            return stream;
+        }
+    }
+}
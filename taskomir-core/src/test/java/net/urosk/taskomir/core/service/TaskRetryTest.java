@@ -0,0 +1,201 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.EnqueueOptions;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.ProgressUpdater;
+import net.urosk.taskomir.core.lib.RetryPolicy;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RetryPolicy} and retries of failed tasks in {@link TaskLifecycleService}.
+ */
+class TaskRetryTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskLifecycleService lifecycleService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10));
+        lifecycleService = lifecycleService(store, executor).properties(properties).build();
+    }
+
+    @AfterEach
+    void shutdown() {
+        lifecycleService.shutdownDelayed();
+        executor.shutdownNow();
+    }
+
+    private static RetryPolicy fastRetries(int maxAttempts) {
+        return RetryPolicy.builder()
+                .maxAttempts(maxAttempts)
+                .initialDelay(Duration.ofMillis(20))
+                .jitter(0)
+                .build();
+    }
+
+    /**
+     * Naloga, ki določi svoje pravilo ponovnih poskusov.
+     */
+    static class FlakyTask implements ProgressTask {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public void execute(ProgressUpdater progress) throws Exception {
+            if (calls.incrementAndGet() < 2) {
+                throw new IOException("connection reset");
+            }
+            progress.update(1.0, "done");
+        }
+
+        @Override
+        public RetryPolicy retryPolicy() {
+            return fastRetries(2);
+        }
+    }
+
+    @Test
+    void delayGrowsExponentiallyUpToMaxDelay() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .initialDelay(Duration.ofSeconds(1))
+                .multiplier(3)
+                .maxDelay(Duration.ofSeconds(5))
+                .jitter(0)
+                .build();
+
+        assertThat(policy.delayAfter(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(policy.delayAfter(2)).isEqualTo(Duration.ofSeconds(3));
+        assertThat(policy.delayAfter(3)).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void jitterStaysWithinBounds() {
+        RetryPolicy policy = RetryPolicy.builder().initialDelay(Duration.ofSeconds(10)).jitter(0.2).build();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.delayAfter(1).toMillis()).isBetween(8_000L, 12_000L);
+        }
+    }
+
+    @Test
+    void failedAttemptsAreRetriedUntilSuccess() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ProgressTask task = progress -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IOException("attempt " + calls.get());
+            }
+            progress.update(1.0, "done");
+        };
+
+        TaskInfo result = lifecycleService.enqueue("Flaky", task,
+                EnqueueOptions.builder().retryPolicy(fastRetries(3)).build()).get(5, TimeUnit.SECONDS);
+
+        TaskInfo stored = store.findById(result.getId()).orElseThrow();
+        assertThat(calls).hasValue(3);
+        assertThat(stored.getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(stored.getAttempt()).isEqualTo(3);
+        assertThat(stored.getMaxAttempts()).isEqualTo(3);
+        assertThat(stored.getAttemptHistory()).hasSize(2);
+        assertThat(stored.getAttemptHistory().get(0)).contains("Attempt 1/3 failed", "attempt 1");
+    }
+
+    @Test
+    void lastFailureIsFinal() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        TaskInfo result = lifecycleService.enqueue("Broken", progress -> {
+            calls.incrementAndGet();
+            throw new IOException("still down");
+        }, EnqueueOptions.builder().retryPolicy(fastRetries(2)).build()).get(5, TimeUnit.SECONDS);
+
+        TaskInfo stored = store.findById(result.getId()).orElseThrow();
+        assertThat(calls).hasValue(2);
+        assertThat(stored.getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(stored.getError()).isEqualTo("still down");
+    }
+
+    @Test
+    void onlyListedExceptionsAreRetried() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy policy = fastRetries(3).toBuilder().retryOn(IOException.class).build();
+
+        TaskInfo result = lifecycleService.enqueue("Bug", progress -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("not transient");
+        }, EnqueueOptions.builder().retryPolicy(policy).build()).get(5, TimeUnit.SECONDS);
+
+        assertThat(calls).hasValue(1);
+        assertThat(store.findById(result.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.FAILED);
+    }
+
+    @Test
+    void taskClassPolicyApplies() throws Exception {
+        FlakyTask task = new FlakyTask();
+
+        TaskInfo result = lifecycleService.enqueue("Flaky class", task).get(5, TimeUnit.SECONDS);
+
+        assertThat(task.calls).hasValue(2);
+        assertThat(store.findById(result.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+    }
+
+    @Test
+    void waitingRetryDoesNotHoldPoolThread() throws Exception {
+        RetryPolicy slow = RetryPolicy.builder().maxAttempts(2).initialDelay(Duration.ofSeconds(2)).jitter(0).build();
+        AtomicInteger calls = new AtomicInteger();
+        var retried = lifecycleService.enqueue("Slow retry", progress -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IOException("first");
+            }
+        }, EnqueueOptions.builder().retryPolicy(slow).build());
+
+        // Pool ima eno nit; druga naloga se izvede, medtem ko prva čaka na ponovni poskus
+        TaskInfo other = lifecycleService.enqueue("Other", progress -> progress.update(1.0, "done"))
+                .get(1, TimeUnit.SECONDS);
+
+        assertThat(store.findById(other.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(retried).isNotDone();
+        TaskInfo result = retried.get(5, TimeUnit.SECONDS);
+        assertThat(store.findById(result.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+    }
+
+    @Test
+    void cancelledWhileWaitingIsNotRetried() throws Exception {
+        RetryPolicy slow = RetryPolicy.builder().maxAttempts(2).initialDelay(Duration.ofMillis(300)).jitter(0).build();
+        AtomicInteger calls = new AtomicInteger();
+        var future = lifecycleService.enqueue("Cancelled", progress -> {
+            calls.incrementAndGet();
+            throw new IOException("down");
+        }, EnqueueOptions.builder().retryPolicy(slow).build());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (calls.get() == 0 || store.countByStatus(TaskStatus.ENQUEUED) == 0) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        String taskId = store.findByStatus(TaskStatus.ENQUEUED).get(0).getId();
+        assertThat(lifecycleService.cancelTask(taskId)).isTrue();
+        Thread.sleep(600);
+
+        assertThat(calls).hasValue(1);
+        assertThat(future).isCompletedExceptionally();
+        assertThat(store.findById(taskId).orElseThrow().getStatus()).isEqualTo(TaskStatus.DELETED);
+    }
+}
@@ -0,0 +1,93 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.ProgressUpdater;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link TaskTypeRegistry}.
+ */
+class TaskTypeRegistryTest {
+
+    private final StaticApplicationContext context = new StaticApplicationContext();
+    private final TaskTypeRegistry registry = new TaskTypeRegistry(context);
+
+    @Test
+    void plainClassIsResolvedOnceAndCreatedPerCall() throws Exception {
+        PlainTask.created.set(0);
+
+        ProgressTask first = registry.newInstance(PlainTask.class.getName());
+        ProgressTask second = registry.newInstance(PlainTask.class.getName());
+
+        assertThat(first).isInstanceOf(PlainTask.class).isNotSameAs(second);
+        assertThat(PlainTask.created).hasValue(2);
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void springBeanIsPreferred() throws Exception {
+        context.registerSingleton("beanTask", PlainTask.class);
+        context.refresh();
+        ProgressTask bean = context.getBean(PlainTask.class);
+
+        assertThat(registry.newInstance(PlainTask.class.getName())).isSameAs(bean);
+        assertThat(registry.newInstance(PlainTask.class.getName())).isSameAs(bean);
+    }
+
+    @Test
+    void prototypeBeanIsCreatedOnlyPerCall() throws Exception {
+        context.registerPrototype("prototypeTask", PlainTask.class);
+        context.refresh();
+        PlainTask.created.set(0);
+
+        ProgressTask first = registry.newInstance(PlainTask.class.getName());
+        ProgressTask second = registry.newInstance(PlainTask.class.getName());
+
+        // Razrešitev preveri samo definicije beanov in ne ustvari odvečne instance
+        assertThat(first).isNotSameAs(second);
+        assertThat(PlainTask.created).hasValue(2);
+    }
+
+    @Test
+    void constructorFailureIsReported() {
+        assertThatThrownBy(() -> registry.newInstance(FailingTask.class.getName()))
+                .hasRootCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(FailingTask.class.getName());
+    }
+
+    @Test
+    void unresolvableClassesAreNotCached() {
+        assertThatThrownBy(() -> registry.newInstance("com.example.Missing")).isInstanceOf(ClassNotFoundException.class);
+        assertThatThrownBy(() -> registry.newInstance(String.class.getName()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(registry.size()).isZero();
+    }
+
+    public static class PlainTask implements ProgressTask {
+        static final AtomicInteger created = new AtomicInteger();
+
+        public PlainTask() {
+            created.incrementAndGet();
+        }
+
+        @Override
+        public void execute(ProgressUpdater updater) {
+        }
+    }
+
+    public static class FailingTask implements ProgressTask {
+        public FailingTask() {
+            throw new IllegalStateException("no config");
+        }
+
+        @Override
+        public void execute(ProgressUpdater updater) {
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.EnqueueOptions;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.ProgressUpdater;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for per-task timeouts in {@link TaskLifecycleService} and for {@link TaskWatchdog}.
+ */
+class TaskWatchdogTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private ThreadPoolExecutor executor;
+    private TaskLifecycleService lifecycleService;
+    private TaskWatchdog watchdog;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(10));
+        lifecycleService = lifecycleService(store, executor).properties(properties).build();
+        watchdog = new TaskWatchdog(store, lifecycleService, properties, TaskLifecycleServiceBuilder.messageSource());
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Naloga, ki jo je mogoče ustvariti iz imena razreda (za requeue).
+     */
+    public static class QuickTask implements ProgressTask {
+        @Override
+        public void execute(ProgressUpdater progress) {
+            progress.update(1.0, "done");
+        }
+    }
+
+    private TaskInfo orphan(String className) {
+        TaskInfo task = new TaskInfo("orphan-1", "Orphan");
+        task.setStatus(TaskStatus.PROCESSING);
+        task.setClassName(className);
+        task.setCreatedAt(System.currentTimeMillis() - 120_000);
+        task.setStartedAt(System.currentTimeMillis() - 60_000);
+        store.save(task);
+        return task;
+    }
+
+    @Test
+    void timeoutInterruptsTaskAndFreesThread() throws Exception {
+        TaskInfo result = lifecycleService.enqueue("Hung", progress -> Thread.sleep(60_000),
+                EnqueueOptions.builder().timeout(Duration.ofMillis(200)).build()).get(5, TimeUnit.SECONDS);
+
+        TaskInfo stored = store.findById(result.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(stored.getError()).startsWith("Timed out after");
+        assertThat(lifecycleService.isExecuting(result.getId())).isFalse();
+        // Nit se je vrnila v pool brez zastavice prekinitve
+        assertThat(lifecycleService.enqueue("Next", progress -> Thread.sleep(10)).get(5, TimeUnit.SECONDS).getStatus())
+                .isEqualTo(TaskStatus.SUCCEEDED);
+    }
+
+    @Test
+    void watchdogAbortsTaskWithoutHeartbeat() throws Exception {
+        properties.getWatchdog().setHeartbeatTimeout(Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        var future = lifecycleService.enqueue("Silent", progress -> {
+            started.countDown();
+            Thread.sleep(60_000);
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(300);
+
+        watchdog.checkProcessingTasks();
+
+        TaskInfo result = future.get(5, TimeUnit.SECONDS);
+        assertThat(store.findById(result.getId()).orElseThrow().getError()).startsWith("No progress or heartbeat");
+    }
+
+    @Test
+    void orphanIsFailedByDefault() {
+        orphan(QuickTask.class.getName());
+
+        watchdog.checkProcessingTasks();
+
+        assertThat(store.findById("orphan-1").orElseThrow().getStatus()).isEqualTo(TaskStatus.FAILED);
+    }
+
+    @Test
+    void orphanIsRequeuedWhenConfigured() throws Exception {
+        properties.getWatchdog().setAction(TaskomirProperties.WatchdogAction.REQUEUE);
+        orphan(QuickTask.class.getName());
+
+        watchdog.checkProcessingTasks();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.findById("orphan-1").orElseThrow().getStatus() != TaskStatus.SUCCEEDED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(store.findById("orphan-1").orElseThrow().getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+    }
+
+    @Test
+    void requeuedOrphanRejectedByPoolIsLeftToLoader() {
+        properties.getWatchdog().setAction(TaskomirProperties.WatchdogAction.REQUEUE);
+        orphan(QuickTask.class.getName());
+        executor.shutdown();
+
+        watchdog.checkProcessingTasks();
+
+        // Z runAt jo DelayedTaskLoader prevzame, ko je pool spet na voljo
+        TaskInfo stored = store.findById("orphan-1").orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+        assertThat(stored.getRunAt()).isNotNull();
+    }
+}
@@ -0,0 +1,143 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.ResizableBlockingQueue;
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.AppLock;
+import net.urosk.taskomir.core.storage.memory.InMemoryLockStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link TaskomirSettingsService}.
+ */
+class TaskomirSettingsServiceTest {
+
+    private final TaskomirProperties properties = new TaskomirProperties();
+    private final InMemoryLockStore lockStore = new InMemoryLockStore();
+    private ThreadPoolExecutor executor;
+    private TaskomirSettingsService settingsService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setInstanceId("node-1");
+        properties.setPoolSize(2);
+        properties.setQueueCapacity(10);
+        executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new ResizableBlockingQueue<>(10));
+        settingsService = new TaskomirSettingsService(properties, lockStore, executor);
+
+        AppLock lock = new AppLock();
+        lock.setName("PRIMARY");
+        lock.setInstanceId("node-1");
+        lock.setPoolSize(2);
+        lock.setQueueCapacity(10);
+        lock.setCleanupIntervalMs(properties.getCleanupInterval().toMillis());
+        lock.setSucceededRetentionMs(properties.getSucceededRetentionTime().toMillis());
+        lock.setDeletedRetentionMs(properties.getDeletedRetentionTime().toMillis());
+        lockStore.insert(lock);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void updateOnPrimaryAppliesImmediatelyAndKeepsUnsetValues() {
+        TaskomirSettingsService.Settings updated = settingsService.update(TaskomirSettingsService.Settings.builder()
+                .poolSize(6)
+                .queueCapacity(50)
+                .succeededRetentionTime(Duration.ofHours(2))
+                .build());
+
+        assertThat(updated.getDeletedRetentionTime()).isEqualTo(properties.getDeletedRetentionTime());
+        assertThat(executor.getCorePoolSize()).isEqualTo(6);
+        assertThat(executor.getMaximumPoolSize()).isEqualTo(6);
+        assertThat(((ResizableBlockingQueue<?>) executor.getQueue()).getCapacity()).isEqualTo(50);
+        assertThat(properties.getSucceededRetentionTime()).isEqualTo(Duration.ofHours(2));
+
+        AppLock lock = lockStore.findById("PRIMARY").orElseThrow();
+        assertThat(lock.getPoolSize()).isEqualTo(6);
+        assertThat(lock.getQueueCapacity()).isEqualTo(50);
+        assertThat(lock.getSucceededRetentionMs()).isEqualTo(Duration.ofHours(2).toMillis());
+        assertThat(lock.getSettingsUpdatedAt()).isPositive();
+    }
+
+    @Test
+    void primaryPicksUpChangeStoredByAnotherInstance() {
+        AppLock lock = lockStore.findById("PRIMARY").orElseThrow();
+        lock.setPoolSize(4);
+        lock.setCleanupIntervalMs(Duration.ofMinutes(5).toMillis());
+        lock.setSettingsUpdatedAt(System.currentTimeMillis());
+        lockStore.save(lock);
+
+        settingsService.syncFromLock();
+
+        assertThat(executor.getCorePoolSize()).isEqualTo(4);
+        assertThat(properties.getCleanupInterval()).isEqualTo(Duration.ofMinutes(5));
+
+        // Ista sprememba se ne prevzame dvakrat
+        executor.setCorePoolSize(3);
+        settingsService.syncFromLock();
+        assertThat(executor.getCorePoolSize()).isEqualTo(3);
+    }
+
+    @Test
+    void secondaryOnlyStoresTheChange() {
+        TaskomirProperties secondary = new TaskomirProperties();
+        secondary.setInstanceId("node-2");
+        secondary.setPrimary(false);
+        new TaskomirSettingsService(secondary, lockStore, null)
+                .update(TaskomirSettingsService.Settings.builder().poolSize(8).build());
+
+        assertThat(secondary.getPoolSize()).isNotEqualTo(8);
+        assertThat(executor.getCorePoolSize()).isEqualTo(2);
+
+        settingsService.syncFromLock();
+        assertThat(executor.getCorePoolSize()).isEqualTo(8);
+    }
+
+    @Test
+    void rejectsInvalidValues() {
+        assertThatThrownBy(() -> settingsService.update(TaskomirSettingsService.Settings.builder().poolSize(0).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> settingsService.update(TaskomirSettingsService.Settings.builder()
+                .cleanupInterval(Duration.ZERO).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(lockStore.findById("PRIMARY").orElseThrow().getSettingsUpdatedAt()).isZero();
+    }
+
+    @Test
+    void smallerQueueCapacityRejectsNewTasksWithoutDroppingQueuedOnes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> awaitQuietly(release));
+        }
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> { });
+        }
+
+        settingsService.update(TaskomirSettingsService.Settings.builder().queueCapacity(2).build());
+
+        assertThat(executor.getQueue()).hasSize(4);
+        assertThatThrownBy(() -> executor.execute(() -> { })).isInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package net.urosk.taskomir.core.service;
+
+import net.urosk.taskomir.core.config.TaskomirProperties;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.ProgressTask;
+import net.urosk.taskomir.core.lib.ProgressUpdater;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.lib.Workflow;
+import net.urosk.taskomir.core.lib.WorkflowFailedException;
+import net.urosk.taskomir.core.lib.WorkflowHandle;
+import net.urosk.taskomir.core.storage.memory.InMemoryTaskStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static net.urosk.taskomir.core.service.TaskLifecycleServiceBuilder.lifecycleService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link WorkflowService} over the in-memory store: dependency release, critical-path ordering and
+ * failure propagation to downstream tasks.
+ */
+class WorkflowServiceTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+    private ThreadPoolExecutor executor;
+
+    private WorkflowService workflowService(int threads) {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(100));
+        TaskomirProperties properties = new TaskomirProperties();
+        TaskLifecycleService lifecycleService = lifecycleService(store, executor).properties(properties).build();
+        return new WorkflowService(store, lifecycleService, properties);
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private ProgressTask record(List<String> order, String key) {
+        return progress -> order.add(key);
+    }
+
+    @Test
+    void diamondRunsInDependencyOrder() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+        Workflow workflow = Workflow.builder("Diamond")
+                .task("a", record(order, "a"))
+                .task("b", record(order, "b"), "a")
+                .task("c", record(order, "c"), "a")
+                .task("d", record(order, "d"), "b", "c")
+                .build();
+
+        WorkflowHandle handle = workflowService(4).submit(workflow);
+        handle.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertThat(order).hasSize(4);
+        assertThat(order.get(0)).isEqualTo("a");
+        assertThat(order.get(3)).isEqualTo("d");
+        List<TaskInfo> tasks = store.findByWorkflowId(handle.getWorkflowId());
+        assertThat(tasks).hasSize(4).allMatch(task -> task.getStatus() == TaskStatus.SUCCEEDED);
+        TaskInfo d = store.findById(handle.getTaskIds().get("d")).orElseThrow();
+        assertThat(d.getDependsOn()).containsExactlyInAnyOrder(handle.getTaskIds().get("b"), handle.getTaskIds().get("c"));
+    }
+
+    @Test
+    void readyTasksAreSubmittedLongestCriticalPathFirst() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+        Workflow workflow = Workflow.builder("Fan-out")
+                .task("root", record(order, "root"))
+                .task("short", record(order, "short"), Duration.ofSeconds(1), "root")
+                .task("long", record(order, "long"), Duration.ofMinutes(10), "root")
+                .task("medium", record(order, "medium"), Duration.ofMinutes(1), "root")
+                .build();
+
+        // Ena nit: vrstni red izvajanja je enak vrstnemu redu oddaje
+        workflowService(1).submit(workflow).getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertThat(order).containsExactly("root", "long", "medium", "short");
+    }
+
+    @Test
+    void failureSkipsDownstreamTasks() {
+        List<String> order = new CopyOnWriteArrayList<>();
+        Workflow workflow = Workflow.builder("Broken")
+                .task("extract", progress -> {
+                    throw new IllegalStateException("source offline");
+                })
+                .task("independent", record(order, "independent"))
+                .task("transform", record(order, "transform"), "extract")
+                .task("load", record(order, "load"), "transform", "independent")
+                .build();
+
+        WorkflowHandle handle = workflowService(2).submit(workflow);
+
+        assertThatThrownBy(() -> handle.getCompletion().get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(WorkflowFailedException.class);
+        assertThat(order).containsExactly("independent");
+        TaskInfo load = store.findById(handle.getTaskIds().get("load")).orElseThrow();
+        assertThat(load.getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(load.getError()).contains("extract");
+        assertThat(store.findById(handle.getTaskIds().get("independent")).orElseThrow().getStatus())
+                .isEqualTo(TaskStatus.SUCCEEDED);
+    }
+
+    @Test
+    void resumedTaskWithMissingDependencyFailsWithItsDescendants() {
+        TaskInfo orphan = new TaskInfo("wf-b", "Resumed / b");
+        orphan.setWorkflowId("wf");
+        orphan.setStatus(TaskStatus.WAITING);
+        orphan.setDependsOn(List.of("wf-a"));
+        orphan.setClassName(NoopTask.class.getName());
+        TaskInfo next = new TaskInfo("wf-c", "Resumed / c");
+        next.setWorkflowId("wf");
+        next.setStatus(TaskStatus.WAITING);
+        next.setDependsOn(List.of("wf-b"));
+        next.setClassName(NoopTask.class.getName());
+        store.save(orphan);
+        store.save(next);
+        WorkflowService workflowService = workflowService(1);
+
+        // Odvisnost wf-a ni več shranjena
+        workflowService.resumeWorkflows();
+
+        assertThat(store.findById("wf-b").orElseThrow().getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(store.findById("wf-c").orElseThrow().getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(workflowService.activeWorkflows()).isZero();
+    }
+
+    @Test
+    void cyclesAndUnknownDependenciesAreRejected() {
+        ProgressTask noop = progress -> {
+        };
+        assertThatThrownBy(() -> Workflow.builder("Cycle")
+                .task("a", noop, "b")
+                .task("b", noop, "a")
+                .build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cycle");
+        assertThatThrownBy(() -> Workflow.builder("Unknown")
+                .task("a", noop, "missing")
+                .build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("missing");
+    }
+
+    public static class NoopTask implements ProgressTask {
+        @Override
+        public void execute(ProgressUpdater updater) {
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package net.urosk.taskomir.core.storage.jdbc;
+
+import net.urosk.taskomir.core.domain.AppLock;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link JdbcTaskStore}, {@link JdbcLockStore} and {@link JdbcTaskResultStore} against an embedded H2 database.
+ */
+class JdbcTaskStoreTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTaskStore store;
+    private JdbcLockStore lockStore;
+    private JdbcTaskResultStore resultStore;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        JdbcDialect dialect = JdbcDialect.detect(jdbcTemplate);
+        dialect.initializeSchema(jdbcTemplate);
+        store = new JdbcTaskStore(jdbcTemplate, dialect);
+        lockStore = new JdbcLockStore(jdbcTemplate, dialect);
+        resultStore = new JdbcTaskResultStore(jdbcTemplate, dialect);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private TaskInfo task(String id, TaskStatus status, long createdAt) {
+        TaskInfo task = new TaskInfo(id, "Task " + id);
+        task.setStatus(status);
+        task.setCreatedAt(createdAt);
+        return task;
+    }
+
+    @Test
+    void resultIsReplacedAndDeleted() throws Exception {
+        resultStore.save("t1", out -> out.write(new byte[]{1, 2, 3}));
+        resultStore.save("t1", out -> out.write(new byte[]{4, 5}));
+
+        try (InputStream in = resultStore.open("t1").orElseThrow()) {
+            assertThat(in.readAllBytes()).containsExactly(4, 5);
+        }
+        resultStore.delete(List.of("t1", "missing"));
+        assertThat(resultStore.open("t1")).isEmpty();
+    }
+
+    @Test
+    void detectsH2() {
+        assertThat(JdbcDialect.detect(new JdbcTemplate(database))).isEqualTo(JdbcDialect.H2);
+    }
+
+    @Test
+    void saveIsUpsertAndRoundTripsAllFields() {
+        TaskInfo task = task("t1", TaskStatus.PROCESSING, 100);
+        task.setProgress(0.5);
+        task.setCurrentProgress("half");
+        task.setRunning(true);
+        task.setParentId("m1");
+        task.setSkipIfAlreadyRunning(true);
+        task.addLogLine("first");
+        task.addLogLine("second\nline");
+        store.save(task);
+
+        task.setStatus(TaskStatus.SUCCEEDED);
+        task.setEndedAt(200L);
+        store.save(task);
+
+        TaskInfo loaded = store.findById("t1").orElseThrow();
+        assertThat(loaded.getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(loaded.getProgress()).isEqualTo(0.5);
+        assertThat(loaded.getCurrentProgress()).isEqualTo("half");
+        assertThat(loaded.isRunning()).isTrue();
+        assertThat(loaded.getParentId()).isEqualTo("m1");
+        assertThat(loaded.isSkipIfAlreadyRunning()).isTrue();
+        assertThat(loaded.getCreatedAt()).isEqualTo(100L);
+        assertThat(loaded.getEndedAt()).isEqualTo(200L);
+        assertThat(loaded.getStartedAt()).isNull();
+        assertThat(loaded.getLogLines()).containsExactly("first", "second line");
+        assertThat(store.findAll()).hasSize(1);
+    }
+
+    @Test
+    void findByStatusIsNewestFirstAndPaged() {
+        for (int i = 0; i < 5; i++) {
+            store.save(task("t" + i, TaskStatus.SUCCEEDED, i));
+        }
+        store.save(task("other", TaskStatus.FAILED, 10));
+
+        assertThat(store.findByStatus(TaskStatus.SUCCEEDED)).extracting(TaskInfo::getId)
+                .containsExactly("t4", "t3", "t2", "t1", "t0");
+        Page<TaskInfo> page = store.findByStatus(TaskStatus.SUCCEEDED, PageRequest.of(1, 2));
+        assertThat(page.getContent()).extracting(TaskInfo::getId).containsExactly("t2", "t1");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(store.countByStatus(TaskStatus.FAILED)).isEqualTo(1);
+    }
+
+    @Test
+    void payloadIsStoredButLeftOutOfPages() {
+        TaskInfo task = task("t1", TaskStatus.ENQUEUED, 1);
+        task.setPayload(new byte[]{7, 8, 9});
+        task.setPayloadCodec("cbor");
+        task.setPayloadType("com.example.Params");
+        store.save(task);
+
+        TaskInfo stored = store.findById("t1").orElseThrow();
+        assertThat(stored.getPayload()).containsExactly(7, 8, 9);
+        assertThat(stored.getPayloadCodec()).isEqualTo("cbor");
+        assertThat(stored.getPayloadType()).isEqualTo("com.example.Params");
+        assertThat(store.findByStatus(TaskStatus.ENQUEUED).get(0).getPayload()).containsExactly(7, 8, 9);
+        TaskInfo listed = store.findByStatus(TaskStatus.ENQUEUED, PageRequest.of(0, 10)).getContent().get(0);
+        assertThat(listed.getPayload()).isNull();
+        assertThat(listed.getPayloadType()).isEqualTo("com.example.Params");
+    }
+
+    @Test
+    void childrenAndNameLookups() {
+        TaskInfo child = task("c1", TaskStatus.ENQUEUED, 1);
+        child.setParentId("m1");
+        store.save(child);
+
+        assertThat(store.findByParentIdAndStatusIn("m1", List.of(TaskStatus.ENQUEUED, TaskStatus.PROCESSING)))
+                .extracting(TaskInfo::getId).containsExactly("c1");
+        assertThat(store.findByParentIdAndStatusIn("m1", List.of(TaskStatus.FAILED))).isEmpty();
+        assertThat(store.existsByParentIdAndStatusIn("m1", List.of(TaskStatus.ENQUEUED, TaskStatus.PROCESSING))).isTrue();
+        assertThat(store.existsByParentIdAndStatusIn("m1", List.of(TaskStatus.FAILED))).isFalse();
+        assertThat(store.findByNameAndStatus("Task c1", TaskStatus.ENQUEUED)).isPresent();
+    }
+
+    @Test
+    void transitionIsConditional() {
+        store.save(task("t1", TaskStatus.ENQUEUED, 1));
+
+        assertThat(store.transition("t1", TaskStatus.PROCESSING, TaskStatus.SUCCEEDED)).isFalse();
+        assertThat(store.transition("t1", TaskStatus.ENQUEUED, TaskStatus.PROCESSING)).isTrue();
+        assertThat(store.findById("t1").orElseThrow().getStatus()).isEqualTo(TaskStatus.PROCESSING);
+    }
+
+    @Test
+    void claimDueTakesOldestDueBatch() {
+        for (String id : List.of("t3", "t1", "t2", "t4")) {
+            TaskInfo task = task(id, TaskStatus.ENQUEUED, 1);
+            task.setRunAt(Long.parseLong(id.substring(1)) * 100);
+            store.save(task);
+        }
+        TaskInfo inWorkflow = task("wf", TaskStatus.ENQUEUED, 1);
+        inWorkflow.setRunAt(50L);
+        inWorkflow.setWorkflowId("w1");
+        store.save(inWorkflow);
+
+        List<TaskInfo> first = store.claimDue(300, List.of(), 2);
+        assertThat(first).extracting(TaskInfo::getId).containsExactly("t1", "t2");
+        assertThat(first).allMatch(t -> t.getStatus() == TaskStatus.PROCESSING && t.getHeartbeatAt() != null);
+
+        assertThat(store.claimDue(300, List.of("t3"), 2)).isEmpty();
+        assertThat(store.claimDue(300, List.of(), 2)).extracting(TaskInfo::getId).containsExactly("t3");
+        assertThat(store.findById("t4").orElseThrow().getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+        assertThat(store.findById("wf").orElseThrow().getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+    }
+
+    @Test
+    void deleteByStatus() {
+        store.save(task("t1", TaskStatus.DELETED, 1));
+        store.save(task("t2", TaskStatus.FAILED, 2));
+
+        store.deleteByStatus(TaskStatus.DELETED);
+
+        assertThat(store.findAll()).extracting(TaskInfo::getId).containsExactly("t2");
+    }
+
+    @Test
+    void insertIfAbsentReturnsOwnerOfKey() {
+        TaskInfo first = task("t1", TaskStatus.ENQUEUED, 1);
+        first.setIdempotencyKey("order-42");
+        TaskInfo second = task("t2", TaskStatus.ENQUEUED, 2);
+        second.setIdempotencyKey("order-42");
+
+        assertThat(store.insertIfAbsent(first)).isEmpty();
+        assertThat(store.insertIfAbsent(second)).map(TaskInfo::getId).contains("t1");
+        // Naloge brez ključa se ne izključujejo
+        assertThat(store.insertIfAbsent(task("t3", TaskStatus.ENQUEUED, 3))).isEmpty();
+        assertThat(store.insertIfAbsent(task("t4", TaskStatus.ENQUEUED, 4))).isEmpty();
+
+        assertThat(store.clearIdempotencyKey("t1", "order-42")).isTrue();
+        assertThat(store.insertIfAbsent(second)).isEmpty();
+        assertThat(store.findByIdempotencyKey("order-42")).map(TaskInfo::getId).contains("t2");
+    }
+
+    @Test
+    void forEachBatchPagesThroughStatusesAndUpdateAllIsConditional() {
+        for (int i = 0; i < 5; i++) {
+            TaskInfo task = task("p" + i, TaskStatus.PROCESSING, 10);
+            task.setRunning(true);
+            task.addLogLine("started");
+            if (i == 0) {
+                task.setStartedAt(42L);
+            }
+            store.save(task);
+        }
+        store.save(task("e0", TaskStatus.ENQUEUED, 1));
+        store.save(task("s0", TaskStatus.SUCCEEDED, 1));
+
+        List<List<String>> batches = new ArrayList<>();
+        store.forEachBatch(List.of(TaskStatus.PROCESSING, TaskStatus.ENQUEUED), 2,
+                batch -> batches.add(batch.stream().map(TaskInfo::getId).toList()));
+        // Enak createdAt: strani se nadaljujejo po id
+        assertThat(batches).containsExactly(List.of("p0", "p1"), List.of("p2", "p3"), List.of("p4"), List.of("e0"));
+
+        int updated = store.updateAll(List.of(
+                TaskUpdate.builder().taskId("p0").status(TaskStatus.ENQUEUED).runAt(500L).ownerInstanceId("node-2")
+                        .logLines(List.of("handed back")).build(),
+                TaskUpdate.builder().taskId("p1").status(TaskStatus.PROCESSING).running(true).startedAt(700L).build(),
+                TaskUpdate.builder().taskId("e0").status(TaskStatus.FAILED).endedAt(600L).error("gone").build()
+        ), TaskStatus.PROCESSING);
+
+        assertThat(updated).isEqualTo(2);
+        TaskInfo requeued = store.findById("p0").orElseThrow();
+        assertThat(requeued.getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+        assertThat(requeued.isRunning()).isFalse();
+        assertThat(requeued.getRunAt()).isEqualTo(500L);
+        assertThat(requeued.getOwnerInstanceId()).isEqualTo("node-2");
+        assertThat(requeued.getLogLines()).containsExactly("started", "handed back");
+        // Sprememba brez startedAt ga ne izbriše, na vrstici brez njega pa se nastavi
+        assertThat(requeued.getStartedAt()).isEqualTo(42L);
+        assertThat(store.findById("p1").orElseThrow().getStartedAt()).isEqualTo(700L);
+        // Ni bila v pričakovanem statusu
+        assertThat(store.findById("e0").orElseThrow().getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+    }
+
+    @Test
+    void lockInsertRejectsDuplicate() {
+        AppLock lock = new AppLock();
+        lock.setName("PRIMARY");
+        lock.setInstanceId("a");
+        lock.setLockedAt(1);
+
+        assertThat(lockStore.insert(lock)).isTrue();
+        lock.setInstanceId("b");
+        assertThat(lockStore.insert(lock)).isFalse();
+        assertThat(lockStore.findById("PRIMARY").orElseThrow().getInstanceId()).isEqualTo("a");
+
+        lockStore.save(lock);
+        assertThat(lockStore.findById("PRIMARY").orElseThrow().getInstanceId()).isEqualTo("b");
+
+        lockStore.deleteById("PRIMARY");
+        assertThat(lockStore.findById("PRIMARY")).isEmpty();
+    }
+
+    @Test
+    void lockPoolSizeAndSettingsUpdatesDoNotOverwriteEachOther() {
+        AppLock lock = new AppLock();
+        lock.setName("PRIMARY");
+        lock.setInstanceId("a");
+        lock.setPoolSize(4);
+        lockStore.insert(lock);
+
+        AppLock settings = new AppLock();
+        settings.setPoolSize(8);
+        settings.setQueueCapacity(500);
+        settings.setCleanupIntervalMs(1000);
+        settings.setSucceededRetentionMs(2000);
+        settings.setDeletedRetentionMs(3000);
+        settings.setSettingsUpdatedAt(100);
+        assertThat(lockStore.updateSettings("PRIMARY", settings)).isTrue();
+        // Samo lastnik locka zapiše velikost poola
+        assertThat(lockStore.updatePoolSize("PRIMARY", "b", 2, 200, "other")).isFalse();
+        assertThat(lockStore.updatePoolSize("PRIMARY", "a", 6, 200, "queue wait")).isTrue();
+
+        AppLock stored = lockStore.findById("PRIMARY").orElseThrow();
+        assertThat(stored.getInstanceId()).isEqualTo("a");
+        assertThat(stored.getPoolSize()).isEqualTo(6);
+        assertThat(stored.getPoolResizeReason()).isEqualTo("queue wait");
+        assertThat(stored.getQueueCapacity()).isEqualTo(500);
+        assertThat(stored.getSettingsUpdatedAt()).isEqualTo(100);
+        assertThat(lockStore.updateSettings("MISSING", settings)).isFalse();
+    }
+}
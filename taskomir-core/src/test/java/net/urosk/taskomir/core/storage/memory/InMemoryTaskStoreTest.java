@@ -0,0 +1,184 @@
+package net.urosk.taskomir.core.storage.memory;
+
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link InMemoryTaskStore}: status indexes, ordering, atomic transitions and claims.
+ */
+class InMemoryTaskStoreTest {
+
+    private final InMemoryTaskStore store = new InMemoryTaskStore();
+
+    private TaskInfo task(String id, TaskStatus status, long createdAt) {
+        TaskInfo task = new TaskInfo(id, "Task " + id);
+        task.setStatus(status);
+        task.setCreatedAt(createdAt);
+        return task;
+    }
+
+    @Test
+    void statusIndexFollowsSaves() {
+        TaskInfo task = task("t1", TaskStatus.ENQUEUED, 1);
+        store.save(task);
+        assertThat(store.countByStatus(TaskStatus.ENQUEUED)).isEqualTo(1);
+
+        task.setStatus(TaskStatus.SUCCEEDED);
+        store.save(task);
+
+        assertThat(store.countByStatus(TaskStatus.ENQUEUED)).isZero();
+        assertThat(store.findByStatus(TaskStatus.ENQUEUED)).isEmpty();
+        assertThat(store.findByStatus(TaskStatus.SUCCEEDED)).extracting(TaskInfo::getId).containsExactly("t1");
+    }
+
+    @Test
+    void returnedInstancesAreDetached() {
+        store.save(task("t1", TaskStatus.ENQUEUED, 1));
+
+        TaskInfo loaded = store.findById("t1").orElseThrow();
+        loaded.setStatus(TaskStatus.FAILED);
+        loaded.addLogLine("not saved");
+
+        TaskInfo again = store.findById("t1").orElseThrow();
+        assertThat(again.getStatus()).isEqualTo(TaskStatus.ENQUEUED);
+        assertThat(again.getLogLines()).isNull();
+    }
+
+    @Test
+    void findByStatusIsNewestFirstAndPaged() {
+        for (int i = 0; i < 5; i++) {
+            store.save(task("t" + i, TaskStatus.SUCCEEDED, i));
+        }
+
+        assertThat(store.findByStatus(TaskStatus.SUCCEEDED)).extracting(TaskInfo::getId)
+                .containsExactly("t4", "t3", "t2", "t1", "t0");
+
+        Page<TaskInfo> page = store.findByStatus(TaskStatus.SUCCEEDED, PageRequest.of(1, 2));
+        assertThat(page.getContent()).extracting(TaskInfo::getId).containsExactly("t2", "t1");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    void transitionOnlyFromExpectedStatus() {
+        store.save(task("t1", TaskStatus.ENQUEUED, 1));
+
+        assertThat(store.transition("t1", TaskStatus.PROCESSING, TaskStatus.SUCCEEDED)).isFalse();
+        assertThat(store.transition("t1", TaskStatus.ENQUEUED, TaskStatus.PROCESSING)).isTrue();
+        assertThat(store.transition("missing", TaskStatus.ENQUEUED, TaskStatus.PROCESSING)).isFalse();
+
+        assertThat(store.findById("t1").orElseThrow().getStatus()).isEqualTo(TaskStatus.PROCESSING);
+        assertThat(store.countByStatus(TaskStatus.PROCESSING)).isEqualTo(1);
+    }
+
+    @Test
+    void childrenAndNameLookups() {
+        TaskInfo child = task("c1", TaskStatus.PROCESSING, 1);
+        child.setParentId("m1");
+        store.save(child);
+        TaskInfo other = task("c2", TaskStatus.SUCCEEDED, 2);
+        other.setParentId("m1");
+        store.save(other);
+
+        assertThat(store.findByParentIdAndStatusIn("m1", List.of(TaskStatus.ENQUEUED, TaskStatus.PROCESSING)))
+                .extracting(TaskInfo::getId).containsExactly("c1");
+        assertThat(store.findByNameAndStatus("Task c2", TaskStatus.SUCCEEDED)).isPresent();
+        assertThat(store.findByNameAndStatus("Task c2", TaskStatus.FAILED)).isEmpty();
+    }
+
+    @Test
+    void deleteByStatusKeepsOtherStatuses() {
+        store.save(task("t1", TaskStatus.DELETED, 1));
+        store.save(task("t2", TaskStatus.DELETED, 2));
+        store.save(task("t3", TaskStatus.FAILED, 3));
+
+        store.deleteByStatus(TaskStatus.DELETED);
+
+        assertThat(store.countByStatus(TaskStatus.DELETED)).isZero();
+        assertThat(store.findAll()).extracting(TaskInfo::getId).containsExactly("t3");
+    }
+
+    @Test
+    void concurrentClaimsNeverShareTasks() throws Exception {
+        int tasks = 2_000;
+        for (int i = 0; i < tasks; i++) {
+            TaskInfo task = task("t" + i, TaskStatus.ENQUEUED, i);
+            task.setRunAt((long) i);
+            store.save(task);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<TaskInfo>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> {
+                    List<TaskInfo> mine = new ArrayList<>();
+                    List<TaskInfo> batch;
+                    while (!(batch = store.claimDue(tasks, List.of(), 50)).isEmpty()) {
+                        mine.addAll(batch);
+                    }
+                    return mine;
+                }));
+            }
+
+            Set<String> claimed = new HashSet<>();
+            int total = 0;
+            for (Future<List<TaskInfo>> result : results) {
+                for (TaskInfo task : result.get()) {
+                    assertThat(task.getStatus()).isEqualTo(TaskStatus.PROCESSING);
+                    claimed.add(task.getId());
+                    total++;
+                }
+            }
+            assertThat(total).isEqualTo(tasks);
+            assertThat(claimed).hasSize(tasks);
+            assertThat(store.countByStatus(TaskStatus.ENQUEUED)).isZero();
+            assertThat(store.countByStatus(TaskStatus.PROCESSING)).isEqualTo(tasks);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentInsertsWithSameKeyInsertOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                String id = "dup-" + i;
+                results.add(pool.submit(() -> {
+                    TaskInfo task = task(id, TaskStatus.ENQUEUED, 1);
+                    task.setIdempotencyKey("order-42");
+                    return store.insertIfAbsent(task).isEmpty();
+                }));
+            }
+            int inserted = 0;
+            for (Future<Boolean> result : results) {
+                inserted += result.get() ? 1 : 0;
+            }
+            assertThat(inserted).isEqualTo(1);
+            assertThat(store.findAll()).hasSize(1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        TaskInfo owner = store.findByIdempotencyKey("order-42").orElseThrow();
+        assertThat(store.clearIdempotencyKey(owner.getId(), "order-42")).isTrue();
+        TaskInfo next = task("next", TaskStatus.ENQUEUED, 2);
+        next.setIdempotencyKey("order-42");
+        assertThat(store.insertIfAbsent(next)).isEmpty();
+        assertThat(store.findByIdempotencyKey("order-42")).map(TaskInfo::getId).contains("next");
+    }
+}
@@ -0,0 +1,186 @@
+package net.urosk.taskomir.core.storage.reactive;
+
+import com.mongodb.client.result.UpdateResult;
+import net.urosk.taskomir.core.domain.TaskInfo;
+import net.urosk.taskomir.core.lib.TaskStatus;
+import net.urosk.taskomir.core.metrics.TaskomirMetrics;
+import net.urosk.taskomir.core.storage.TaskUpdate;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ReactiveMongoTaskUpdateWriter}: per-task ordering, coalescing and the in-flight bound.
+ * Each Mongo write is a manually completed sink, so the tests control exactly when a write finishes.
+ */
+class ReactiveMongoTaskUpdateWriterTest {
+
+    private ReactiveMongoTemplate mongoTemplate;
+    private final List<Sinks.One<UpdateResult>> writes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(ReactiveMongoTemplate.class);
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(TaskInfo.class)))
+                .thenAnswer(invocation -> {
+                    Sinks.One<UpdateResult> sink = Sinks.one();
+                    writes.add(sink);
+                    return sink.asMono();
+                });
+    }
+
+    private static TaskUpdate update(String taskId, TaskStatus status, double progress, String line) {
+        return TaskUpdate.builder()
+                .taskId(taskId)
+                .status(status)
+                .progress(progress)
+                .logLines(List.of(line))
+                .build();
+    }
+
+    private void complete(int index) {
+        writes.get(index).tryEmitValue(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    private List<Update> issuedUpdates() {
+        ArgumentCaptor<UpdateDefinition> captor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), captor.capture(), eq(TaskInfo.class));
+        return captor.getAllValues().stream().map(Update.class::cast).toList();
+    }
+
+    @Test
+    void updatesForOneTaskAreOrderedAndCoalesced() {
+        ReactiveMongoTaskUpdateWriter writer = new ReactiveMongoTaskUpdateWriter(mongoTemplate, TaskomirMetrics.NOOP, 16, Duration.ofSeconds(1));
+
+        writer.write(update("t1", TaskStatus.PROCESSING, 0.0, "start"));
+        writer.write(update("t1", TaskStatus.PROCESSING, 0.5, "half"));
+        writer.write(update("t1", TaskStatus.SUCCEEDED, 1.0, "done"));
+
+        // Drugi in tretji zapis čakata na prvega in se združita
+        assertThat(writes).hasSize(1);
+        complete(0);
+        assertThat(writes).hasSize(2);
+
+        Update last = issuedUpdates().get(1);
+        Document set = last.getUpdateObject().get("$set", Document.class);
+        assertThat(set.get("status")).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(set.get("progress")).isEqualTo(1.0);
+        Document push = last.getUpdateObject().get("$push", Document.class);
+        Update.Modifiers modifiers = (Update.Modifiers) push.get("logLines");
+        assertThat((Object[]) modifiers.getModifiers().iterator().next().getValue()).containsExactly("half", "done");
+
+        complete(1);
+        assertThat(writer.backlog()).isZero();
+        assertThat(writer.flush(Duration.ofMillis(100))).isTrue();
+    }
+
+    @Test
+    void inFlightWritesAreBounded() {
+        ReactiveMongoTaskUpdateWriter writer = new ReactiveMongoTaskUpdateWriter(mongoTemplate, TaskomirMetrics.NOOP, 1, Duration.ofSeconds(1));
+
+        writer.write(update("t1", TaskStatus.PROCESSING, 0.1, "a"));
+        writer.write(update("t2", TaskStatus.PROCESSING, 0.2, "b"));
+
+        // Klicatelj se vrne takoj, drugi zapis počaka na prosto dovoljenje
+        assertThat(writes).hasSize(1);
+        assertThat(writer.backlog()).isEqualTo(2);
+
+        complete(0);
+        assertThat(writes).hasSize(2);
+        complete(1);
+        assertThat(writer.backlog()).isZero();
+    }
+
+    @Test
+    void flushOfOneTaskDoesNotWaitForOthers() {
+        ReactiveMongoTaskUpdateWriter writer = new ReactiveMongoTaskUpdateWriter(mongoTemplate, TaskomirMetrics.NOOP, 16, Duration.ofSeconds(1));
+
+        writer.write(update("t1", TaskStatus.PROCESSING, 0.1, "a"));
+        writer.write(update("t2", TaskStatus.PROCESSING, 0.2, "b"));
+        complete(0);
+
+        // t2 je še v teku, t1 je zapisana
+        assertThat(writer.flush("t1", Duration.ofMillis(50))).isTrue();
+        assertThat(writer.flush("t2", Duration.ofMillis(50))).isFalse();
+        assertThat(writer.flush(Duration.ofMillis(50))).isFalse();
+        complete(1);
+        assertThat(writer.flush("t2", Duration.ofMillis(50))).isTrue();
+    }
+
+    @Test
+    void failedWriteReleasesPermit() {
+        ReactiveMongoTaskUpdateWriter writer = new ReactiveMongoTaskUpdateWriter(mongoTemplate, TaskomirMetrics.NOOP, 1, Duration.ofSeconds(1));
+
+        writer.write(update("t1", TaskStatus.PROCESSING, 0.1, "a"));
+        writer.write(update("t2", TaskStatus.PROCESSING, 0.2, "b"));
+        writes.get(0).tryEmitError(new IllegalStateException("network"));
+
+        assertThat(writes).hasSize(2);
+    }
+
+    @Test
+    void mergeKeepsEarliestStartAndLatestState() {
+        TaskUpdate first = TaskUpdate.builder().taskId("t1").status(TaskStatus.PROCESSING).startedAt(100L)
+                .logLines(List.of("a")).build();
+        TaskUpdate second = TaskUpdate.builder().taskId("t1").status(TaskStatus.PROCESSING).startedAt(200L)
+                .logLines(List.of("b")).build();
+        TaskUpdate third = TaskUpdate.builder().taskId("t1").status(TaskStatus.FAILED).error("boom").endedAt(300L).build();
+
+        TaskUpdate merged = first.merge(second).merge(third);
+
+        assertThat(merged.getStatus()).isEqualTo(TaskStatus.FAILED);
+        assertThat(merged.getError()).isEqualTo("boom");
+        assertThat(merged.getStartedAt()).isEqualTo(100L);
+        assertThat(merged.getEndedAt()).isEqualTo(300L);
+        assertThat(merged.getLogLines()).containsExactly("a", "b");
+    }
+
+    @Test
+    void mergeWithoutStartTimesKeepsNull() {
+        // Heartbeat in končni status: nobena sprememba nima startedAt
+        TaskUpdate heartbeat = TaskUpdate.builder().taskId("t1").status(TaskStatus.PROCESSING).heartbeatAt(100L).build();
+        TaskUpdate done = TaskUpdate.builder().taskId("t1").status(TaskStatus.SUCCEEDED).endedAt(200L).build();
+
+        TaskUpdate merged = heartbeat.merge(done);
+
+        assertThat(merged.getStatus()).isEqualTo(TaskStatus.SUCCEEDED);
+        assertThat(merged.getStartedAt()).isNull();
+        assertThat(merged.getHeartbeatAt()).isEqualTo(100L);
+    }
+
+    @Test
+    void progressDoesNotOverwriteTaskDeletedElsewhere() {
+        ReactiveMongoTaskUpdateWriter writer = new ReactiveMongoTaskUpdateWriter(mongoTemplate, TaskomirMetrics.NOOP, 16, Duration.ofSeconds(1));
+        List<String> cancelled = new ArrayList<>();
+        writer.setCancellationListener(cancelled::add);
+
+        writer.write(update("t1", TaskStatus.PROCESSING, 0.5, "half"));
+        // Naloga je v bazi že DELETED: pogoj status != DELETED ne ujame nobenega dokumenta
+        writes.get(0).tryEmitValue(UpdateResult.acknowledged(0, 0L, null));
+        writer.write(update("t2", TaskStatus.SUCCEEDED, 1.0, "done"));
+        complete(1);
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).updateFirst(queries.capture(), any(UpdateDefinition.class), eq(TaskInfo.class));
+        assertThat(queries.getAllValues().get(0).getQueryObject().get("status", Document.class).get("$ne"))
+                .isEqualTo(TaskStatus.DELETED);
+        // Končni status se zapiše brez pogoja
+        assertThat(queries.getAllValues().get(1).getQueryObject()).doesNotContainKey("status");
+        assertThat(cancelled).containsExactly("t1");
+    }
+}